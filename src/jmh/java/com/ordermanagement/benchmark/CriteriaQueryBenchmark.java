@@ -0,0 +1,96 @@
+package com.ordermanagement.benchmark;
+
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderFinder;
+import com.ordermanagement.order.OrderRepositoryCriteria;
+import com.ordermanagement.orderline.OrderLine;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link OrderRepositoryCriteria}, which builds its queries once, with building the
+ * criteria tree on every call as it used to. Both run without the proxies of the beans, run with
+ * {@code -prof gc} to see the allocation per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CriteriaQueryBenchmark {
+
+    @Param({"prebuilt", "rebuilt"})
+    public String criteria;
+
+    private OrderFinder orderFinder;
+    private SeededDatabase database;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp(SeededDatabase database) {
+        EntityManager entityManager = database.getBean(EntityManager.class);
+        this.database = database;
+        this.orderFinder = "prebuilt".equals(criteria)
+                ? new OrderRepositoryCriteria(entityManager, 500)
+                : new RebuiltCriteriaOrderFinder(entityManager);
+        this.random = new SplittableRandom(11);
+    }
+
+    @Benchmark
+    public List<Order> findOrdersByCustomerCode() {
+        return orderFinder.findOrdersByCustomerCode(database.customerCode(random.nextInt(database.customerCount)));
+    }
+
+    @Benchmark
+    public List<Order> findOrdersByProductSku() {
+        return orderFinder.findOrdersByProductSku(database.skuCode(random.nextInt(database.productCount)));
+    }
+
+    /**
+     * The criteria implementation before the queries were built once.
+     */
+    private record RebuiltCriteriaOrderFinder(EntityManager entityManager) implements OrderFinder {
+
+        @Override
+        public List<Order> findOrdersByProductSku(String skuCode) {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Order> criteriaQuery = criteriaBuilder.createQuery(Order.class);
+
+            Root<Order> root = criteriaQuery.from(Order.class);
+            Join<Order, OrderLine> orderLineJoin = root.join("orderLines");
+            criteriaQuery.where(criteriaBuilder.equal(orderLineJoin.get("product").get("skuCode"), skuCode));
+
+            return entityManager.createQuery(criteriaQuery).getResultList();
+        }
+
+        @Override
+        public List<Order> findOrdersByCustomerCode(Long registrationCode) {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Order> criteriaQuery = criteriaBuilder.createQuery(Order.class);
+
+            Root<Order> root = criteriaQuery.from(Order.class);
+            criteriaQuery.where(criteriaBuilder.equal(root.get("customer").get("registrationCode"), registrationCode));
+
+            return entityManager.createQuery(criteriaQuery).getResultList();
+        }
+    }
+}
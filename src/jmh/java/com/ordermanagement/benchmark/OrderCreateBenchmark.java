@@ -0,0 +1,64 @@
+package com.ordermanagement.benchmark;
+
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderCreateRequest;
+import com.ordermanagement.order.OrderService;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderCreateBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int lineCount;
+
+    private OrderService orderService;
+    private OrderCreateRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp(SeededDatabase database) {
+        orderService = database.getBean(OrderService.class);
+
+        SplittableRandom random = new SplittableRandom(7);
+        requests = new OrderCreateRequest[64];
+        for (int i = 0; i < requests.length; i++)
+            requests[i] = new OrderCreateRequest(
+                    null,
+                    database.customerCode(random.nextInt(database.customerCount)),
+                    LocalDate.of(2023, 1, 1),
+                    IntStream.range(0, lineCount)
+                            .mapToObj(j -> new OrderLineCreateRequest(
+                                    database.skuCode(random.nextInt(database.productCount)),
+                                    1 + random.nextInt(10),
+                                    null
+                            ))
+                            .toList()
+            );
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        return orderService.createOrder(requests[next++ & (requests.length - 1)]);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ordermanagement.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordermanagement.order.OrderDto;
+import com.ordermanagement.orderline.OrderLineDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderDtoSerializationBenchmark {
+
+    @Param({"50", "500", "5000"})
+    public int listSize;
+
+    @Param("5")
+    public int linesPerOrder;
+
+    private ObjectMapper objectMapper;
+    private List<OrderDto> orders;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        orders = IntStream.range(0, listSize)
+                .mapToObj(i -> new OrderDto(
+                        (long) i,
+                        (long) i % 100,
+                        LocalDate.of(2023, 1, 1).plusDays(i % 365),
+                        IntStream.range(0, linesPerOrder)
+                                .mapToObj(j -> new OrderLineDto((long) i * linesPerOrder + j, "sku-" + j, 1 + j))
+                                .toList()
+                ))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serializeOrders() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orders);
+    }
+}
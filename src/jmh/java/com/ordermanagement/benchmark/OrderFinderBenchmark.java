@@ -0,0 +1,55 @@
+package com.ordermanagement.benchmark;
+
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderFinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JPQL, Criteria and SKU index implementations of {@link OrderFinder} on the seeded database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderFinderBenchmark {
+
+    @Param({"orderJpaRepository", "orderCriteriaRepository", "orderSkuIndexFinder"})
+    public String implementation;
+
+    private OrderFinder orderFinder;
+    private SeededDatabase database;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp(SeededDatabase database) {
+        this.database = database;
+        this.orderFinder = database.getBean(implementation, OrderFinder.class);
+        this.random = new SplittableRandom(11);
+    }
+
+    @Benchmark
+    public List<Order> findOrdersByCustomerCode() {
+        return orderFinder.findOrdersByCustomerCode(database.customerCode(random.nextInt(database.customerCount)));
+    }
+
+    @Benchmark
+    public List<Order> findOrdersByProductSku() {
+        return orderFinder.findOrdersByProductSku(database.skuCode(random.nextInt(database.productCount)));
+    }
+}
@@ -0,0 +1,58 @@
+package com.ordermanagement.benchmark;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderDto;
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.product.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderToDtoBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int lineCount;
+
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        order = Order.builder()
+                .id(1L)
+                .customer(Customer.builder().registrationCode(1L).fullName("Customer").email("email").telephone("telephone").build())
+                .dateOfSubmission(LocalDate.of(2023, 1, 1))
+                .build();
+        order.setOrderLines(IntStream.range(0, lineCount)
+                .mapToObj(i -> OrderLine.builder()
+                        .id((long) i)
+                        .order(order)
+                        .product(Product.builder().skuCode("sku-" + i).name("Product " + i).unitPrice(1F).build())
+                        .quantity(1 + i % 10)
+                        .build())
+                .toList());
+    }
+
+    @Benchmark
+    public OrderDto toDto() {
+        return order.toDto();
+    }
+}
@@ -0,0 +1,147 @@
+package com.ordermanagement.benchmark;
+
+import com.ordermanagement.AssessmentJavaSpringApplication;
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.order.SkuOrderIndex;
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+/**
+ * Application context on an embedded H2 database seeded with customers, products and orders.
+ * Line counts per order and the customer and product of every order are drawn from a fixed seed,
+ * so every run works on the same data.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+    private static final int CHUNK_SIZE = 1_000;
+    private static final long RANDOM_SEED = 42;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+
+    @Param("1000")
+    public int customerCount;
+
+    @Param("5000")
+    public int productCount;
+
+    @Param("50000")
+    public int orderCount;
+
+    @Param("5")
+    public int averageLinesPerOrder;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(AssessmentJavaSpringApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=none",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--orders.sku-index.enabled=true",
+                        "--logging.level.root=WARN"
+                );
+        seed();
+        // the rows are written past the services, the index built at startup saw none of them
+        getBean(SkuOrderIndex.class).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public <T> T getBean(String name, Class<T> type) {
+        return context.getBean(name, type);
+    }
+
+    public Long customerCode(int index) {
+        return (long) index + 1;
+    }
+
+    public String skuCode(int index) {
+        return "sku-" + index;
+    }
+
+    private void seed() {
+        TransactionTemplate transactionTemplate = getBean(TransactionTemplate.class);
+        CustomerRespository customerRepository = getBean(CustomerRespository.class);
+        ProductRepository productRepository = getBean(ProductRepository.class);
+        OrderRepository orderRepository = getBean(OrderRepository.class);
+        OrderLineRepository orderLineRepository = getBean(OrderLineRepository.class);
+
+        List<Customer> customers = LongStream.range(0, customerCount)
+                .mapToObj(i -> Customer.builder()
+                        .registrationCode(customerCode((int) i))
+                        .fullName("Customer " + i)
+                        .email("customer" + i + "@example.com")
+                        .telephone("+1-555-" + i)
+                        .build())
+                .toList();
+        List<Product> products = LongStream.range(0, productCount)
+                .mapToObj(i -> Product.builder()
+                        .skuCode(skuCode((int) i))
+                        .name("Product " + i)
+                        .unitPrice(1F + i % 100)
+                        .build())
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            customerRepository.saveAll(customers);
+            productRepository.saveAll(products);
+        });
+
+        SplittableRandom random = new SplittableRandom(RANDOM_SEED);
+        for (int start = 0; start < orderCount; start += CHUNK_SIZE) {
+            List<Order> orders = new ArrayList<>(CHUNK_SIZE);
+            List<OrderLine> orderLines = new ArrayList<>(CHUNK_SIZE * averageLinesPerOrder);
+            for (int i = start; i < Math.min(start + CHUNK_SIZE, orderCount); i++) {
+                Order order = Order.builder()
+                        .customer(customers.get(random.nextInt(customerCount)))
+                        .dateOfSubmission(FIRST_DAY.plusDays(random.nextInt(365)))
+                        .build();
+                orders.add(order);
+                int lineCount = 1 + random.nextInt(2 * averageLinesPerOrder - 1);
+                for (int j = 0; j < lineCount; j++)
+                    orderLines.add(OrderLine.builder()
+                            .order(order)
+                            .product(products.get(random.nextInt(productCount)))
+                            .quantity(1 + random.nextInt(10))
+                            .build());
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                orderRepository.saveAll(orders);
+                orderLineRepository.saveAll(orderLines);
+            });
+        }
+    }
+}
@@ -3,9 +3,11 @@ package com.ordermanagement;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @PropertySource("classpath:application.properties")
+@EnableScheduling
 public class AssessmentJavaSpringApplication {
 
     public static void main(String[] args) {
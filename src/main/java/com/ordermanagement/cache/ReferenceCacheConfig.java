@@ -0,0 +1,50 @@
+package com.ordermanagement.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.product.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded caches of the products and customers referenced by orders. Unknown codes are cached as
+ * empty values, and the services owning the entities invalidate an entry whenever they write it.
+ */
+@Configuration
+public class ReferenceCacheConfig {
+    private final long maximumSize;
+    private final Duration expireAfterWrite;
+
+    public ReferenceCacheConfig(
+            @Value("${reference-cache.maximum-size:10000}") long maximumSize,
+            @Value("${reference-cache.expire-after-write:10m}") Duration expireAfterWrite
+    ) {
+        this.maximumSize = maximumSize;
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+    @Bean
+    public Cache<String, Optional<Product>> productCache(MeterRegistry meterRegistry) {
+        return CaffeineCacheMetrics.monitor(meterRegistry, newCache(), "products");
+    }
+
+    @Bean
+    public Cache<Long, Optional<Customer>> customerCache(MeterRegistry meterRegistry) {
+        return CaffeineCacheMetrics.monitor(meterRegistry, newCache(), "customers");
+    }
+
+    private <K, V> Cache<K, V> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+}
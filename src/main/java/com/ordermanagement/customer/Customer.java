@@ -1,6 +1,7 @@
 package com.ordermanagement.customer;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.ordermanagement.order.Order;
 import jakarta.persistence.*;
 import lombok.*;
@@ -31,6 +32,11 @@ public class Customer {
     @Column(name = "telephone", nullable = false)
     private String telephone;
 
+    @Version
+    @Column(name = "version")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     @JsonIgnore
     @OneToMany(mappedBy = "customer")
     @OnDelete(action = OnDeleteAction.CASCADE)
@@ -1,9 +1,10 @@
 package com.ordermanagement.customer;
 
-import com.ordermanagement.order.Order;
-import com.ordermanagement.order.OrderDto;
+import com.ordermanagement.order.OrderPage;
 import com.ordermanagement.order.OrderService;
+import com.ordermanagement.web.ETags;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,10 +16,12 @@ import java.util.Optional;
 public class CustomerController {
     private final CustomerService customerService;
     private final OrderService orderService;
+    private final CustomerOrderSummaryService customerOrderSummaryService;
     @Autowired
-    public CustomerController(CustomerService customerService, OrderService orderService) {
+    public CustomerController(CustomerService customerService, OrderService orderService, CustomerOrderSummaryService customerOrderSummaryService) {
         this.customerService = customerService;
         this.orderService = orderService;
+        this.customerOrderSummaryService = customerOrderSummaryService;
     }
 
     @PostMapping
@@ -40,19 +43,48 @@ public class CustomerController {
         return ResponseEntity.ok().build();
     }
 
+    @DeleteMapping
+    public ResponseEntity<CustomerDeleteResult> deleteCustomersByCode(@RequestBody List<Long> codes) {
+        return ResponseEntity.ok(customerService.deleteCustomersByCodes(codes));
+    }
+
     @GetMapping("/{code}")
-    public ResponseEntity<Customer> findCustomerByCode(@PathVariable("code") Long code) {
+    public ResponseEntity<Customer> findCustomerByCode(
+            @PathVariable("code") Long code,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         Optional<Customer> customer = customerService.findCustomerByCode(code);
-        return customer.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        return customer.map(value -> {
+                    String etag = ETags.of(value.getVersion());
+                    if (ETags.matches(ifNoneMatch, etag))
+                        return ETags.<Customer>notModified(etag);
+                    return ResponseEntity.ok().eTag(etag).body(value);
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{code}/summary")
+    public ResponseEntity<CustomerOrderSummaryDto> findCustomerOrderSummary(@PathVariable("code") Long code) {
+        return customerOrderSummaryService.findSummary(code)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/summary/reconcile")
+    public ResponseEntity<Long> reconcileCustomerOrderSummaries() {
+        return ResponseEntity.ok(customerOrderSummaryService.reconcile());
     }
 
     @GetMapping("/{code}/orders")
-    public ResponseEntity<List<OrderDto>> findOrdersByCustomerCode(@PathVariable("code") Long code) {
-        return ResponseEntity.ok(
-                orderService.findOrdersByCustomer(code)
-                        .stream()
-                        .map(Order::toDto)
-                        .toList()
-        );
+    public ResponseEntity<OrderPage> findOrdersByCustomerCode(
+            @PathVariable("code") Long code,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        try {
+            return ResponseEntity.ok(orderService.findOrderPageByCustomer(code, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 }
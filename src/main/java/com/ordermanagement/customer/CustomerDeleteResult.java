@@ -0,0 +1,4 @@
+package com.ordermanagement.customer;
+
+public record CustomerDeleteResult(long customers, long orders, long orderLines) {
+}
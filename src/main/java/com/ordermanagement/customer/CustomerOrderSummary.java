@@ -0,0 +1,34 @@
+package com.ordermanagement.customer;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Order count, lifetime spend and last order date of one customer, kept up to date by
+ * {@link CustomerOrderSummaryService} in the transactions that write the orders. Spend is priced
+ * with the current unit prices, like the daily sales rollup.
+ */
+@Entity
+@Table(name = "customer_order_summary")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class CustomerOrderSummary {
+    @Id
+    @Column(name = "customer_code")
+    private Long customerCode;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name = "lifetime_spend", nullable = false)
+    private Double lifetimeSpend;
+
+    @Column(name = "last_order_date")
+    private LocalDate lastOrderDate;
+}
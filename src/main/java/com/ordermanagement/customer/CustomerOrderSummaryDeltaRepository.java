@@ -0,0 +1,11 @@
+package com.ordermanagement.customer;
+
+import java.util.Collection;
+
+/**
+ * Deltas of the customer order summaries that may create the summary of a customer.
+ */
+public interface CustomerOrderSummaryDeltaRepository {
+
+    int addOrders(Collection<Long> orderIds);
+}
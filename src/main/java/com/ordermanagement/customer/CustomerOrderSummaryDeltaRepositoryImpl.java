@@ -0,0 +1,47 @@
+package com.ordermanagement.customer;
+
+import com.ordermanagement.persistence.Upserts;
+import jakarta.persistence.EntityManager;
+
+import java.util.Collection;
+
+/**
+ * Adds the totals of new orders with {@code INSERT ... ON CONFLICT DO UPDATE} on PostgreSQL and
+ * with MERGE on H2, see {@link Upserts}. The totals are grouped by customer, so a statement never
+ * touches a summary twice.
+ */
+class CustomerOrderSummaryDeltaRepositoryImpl implements CustomerOrderSummaryDeltaRepository {
+    private static final String NEW_ORDER_TOTALS = CustomerOrderSummaryRepository.ORDER_TOTALS + "WHERE o.id IN (:orderIds)"
+            + CustomerOrderSummaryRepository.GROUP_BY_CUSTOMER;
+    private static final String UPSERT_ORDERS = """
+            INSERT INTO customer_order_summary (customer_code, order_count, lifetime_spend, last_order_date)
+            """ + NEW_ORDER_TOTALS + """
+             ON CONFLICT (customer_code) DO UPDATE SET order_count = customer_order_summary.order_count + EXCLUDED.order_count,
+            lifetime_spend = customer_order_summary.lifetime_spend + EXCLUDED.lifetime_spend,
+            last_order_date = GREATEST(customer_order_summary.last_order_date, EXCLUDED.last_order_date)
+            """;
+    private static final String MERGE_ORDERS = "MERGE INTO customer_order_summary t USING (" + NEW_ORDER_TOTALS + """
+            ) s ON (t.customer_code = s.customer_code)
+            WHEN MATCHED THEN UPDATE SET order_count = t.order_count + s.order_count,
+            lifetime_spend = t.lifetime_spend + s.spend,
+            last_order_date = CASE WHEN t.last_order_date IS NULL OR s.last_order_date > t.last_order_date
+            THEN s.last_order_date ELSE t.last_order_date END
+            WHEN NOT MATCHED THEN INSERT (customer_code, order_count, lifetime_spend, last_order_date)
+            VALUES (s.customer_code, s.order_count, s.spend, s.last_order_date)
+            """;
+
+    private final EntityManager entityManager;
+    private final boolean onConflict;
+
+    CustomerOrderSummaryDeltaRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.onConflict = Upserts.onConflict(entityManager);
+    }
+
+    @Override
+    public int addOrders(Collection<Long> orderIds) {
+        return entityManager.createNativeQuery(onConflict ? UPSERT_ORDERS : MERGE_ORDERS)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+}
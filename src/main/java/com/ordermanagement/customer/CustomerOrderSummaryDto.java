@@ -0,0 +1,11 @@
+package com.ordermanagement.customer;
+
+import java.time.LocalDate;
+
+public record CustomerOrderSummaryDto(
+        Long customerCode,
+        Long orderCount,
+        Double lifetimeSpend,
+        LocalDate lastOrderDate
+) {
+}
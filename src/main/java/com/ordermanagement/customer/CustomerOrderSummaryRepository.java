@@ -0,0 +1,130 @@
+package com.ordermanagement.customer;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Like the daily sales rollup, the counters are changed by deltas aggregated from the orders in
+ * the database, one statement per write. New orders are added by
+ * {@link CustomerOrderSummaryDeltaRepository}.
+ */
+@Repository
+public interface CustomerOrderSummaryRepository extends JpaRepository<CustomerOrderSummary, Long>, CustomerOrderSummaryDeltaRepository {
+    String LINE_SPEND = "ol.quantity * CAST(p.unit_price AS DOUBLE PRECISION)";
+    String ORDER_TOTALS = "SELECT o.customer_registration_number AS customer_code, COUNT(DISTINCT o.id) AS order_count,"
+            + " COALESCE(SUM(" + LINE_SPEND + "), 0) AS spend, MAX(o.date_of_submission) AS last_order_date"
+            + " FROM orders o"
+            + " LEFT JOIN order_line ol ON ol.order_id = o.id"
+            + " LEFT JOIN product p ON p.sku_code = ol.product_sku_code ";
+    String GROUP_BY_CUSTOMER = " GROUP BY o.customer_registration_number";
+
+    /**
+     * Runs before the orders are deleted. The last order date is looked up again among the orders
+     * that stay, through the (customer, date of submission) index.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE customer_order_summary t SET order_count = t.order_count - (
+            SELECT COUNT(*) FROM orders o WHERE o.id IN (:orderIds) AND o.customer_registration_number = t.customer_code),
+            lifetime_spend = t.lifetime_spend - (
+            SELECT COALESCE(SUM(""" + LINE_SPEND + """
+            ), 0) FROM order_line ol
+            JOIN orders o ON o.id = ol.order_id
+            JOIN product p ON p.sku_code = ol.product_sku_code
+            WHERE o.id IN (:orderIds) AND o.customer_registration_number = t.customer_code),
+            last_order_date = (SELECT MAX(r.date_of_submission) FROM orders r
+            WHERE r.customer_registration_number = t.customer_code AND r.id NOT IN (:orderIds))
+            WHERE t.customer_code IN (SELECT o.customer_registration_number FROM orders o WHERE o.id IN (:orderIds))
+            """, nativeQuery = true)
+    int subtractOrders(Collection<Long> orderIds);
+
+    @Modifying
+    @Query(value = """
+            UPDATE customer_order_summary t SET lifetime_spend = t.lifetime_spend + (
+            SELECT SUM(""" + LINE_SPEND + """
+            ) FROM order_line ol
+            JOIN orders o ON o.id = ol.order_id
+            JOIN product p ON p.sku_code = ol.product_sku_code
+            WHERE ol.id IN (:orderLineIds) AND o.customer_registration_number = t.customer_code) * :sign
+            WHERE t.customer_code IN (
+            SELECT o.customer_registration_number FROM order_line ol JOIN orders o ON o.id = ol.order_id
+            WHERE ol.id IN (:orderLineIds))
+            """, nativeQuery = true)
+    int mergeOrderLineSpend(Collection<Long> orderLineIds, int sign);
+
+    /**
+     * Runs before the new quantity is written, it reads the old one.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE customer_order_summary t SET lifetime_spend = t.lifetime_spend + (
+            SELECT (:quantity - ol.quantity) * CAST(p.unit_price AS DOUBLE PRECISION)
+            FROM order_line ol JOIN product p ON p.sku_code = ol.product_sku_code
+            WHERE ol.id = :orderLineId)
+            WHERE t.customer_code = (
+            SELECT o.customer_registration_number FROM order_line ol JOIN orders o ON o.id = ol.order_id
+            WHERE ol.id = :orderLineId)
+            """, nativeQuery = true)
+    int changeQuantity(Long orderLineId, int quantity);
+
+    @Modifying
+    @Query(value = """
+            UPDATE customer_order_summary t SET lifetime_spend = t.lifetime_spend + (
+            SELECT CAST(:delta AS DOUBLE PRECISION) * CAST(p.unit_price AS DOUBLE PRECISION)
+            FROM order_line ol JOIN product p ON p.sku_code = ol.product_sku_code
+            WHERE ol.id = :orderLineId)
+            WHERE t.customer_code = (
+            SELECT o.customer_registration_number FROM order_line ol JOIN orders o ON o.id = ol.order_id
+            WHERE ol.id = :orderLineId)
+            """, nativeQuery = true)
+    int addQuantity(Long orderLineId, int delta);
+
+    /**
+     * Runs before the new unit price is written, it reads the old one.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE customer_order_summary t SET lifetime_spend = t.lifetime_spend + (
+            SELECT SUM(ol.quantity * (CAST(:unitPrice AS DOUBLE PRECISION) - CAST(p.unit_price AS DOUBLE PRECISION)))
+            FROM order_line ol
+            JOIN orders o ON o.id = ol.order_id
+            JOIN product p ON p.sku_code = ol.product_sku_code
+            WHERE o.customer_registration_number = t.customer_code AND ol.product_sku_code = :skuCode)
+            WHERE t.customer_code IN (
+            SELECT o.customer_registration_number FROM order_line ol JOIN orders o ON o.id = ol.order_id
+            WHERE ol.product_sku_code = :skuCode)
+            """, nativeQuery = true)
+    int reprice(String skuCode, Double unitPrice);
+
+    @Modifying
+    @Query("DELETE FROM CustomerOrderSummary s WHERE s.customerCode IN :customerCodes")
+    int deleteByCustomerCodes(Collection<Long> customerCodes);
+
+    @Modifying
+    @Query(value = "INSERT INTO customer_order_summary (customer_code, order_count, lifetime_spend, last_order_date) "
+            + ORDER_TOTALS + "WHERE o.customer_registration_number IN (:customerCodes)" + GROUP_BY_CUSTOMER,
+            nativeQuery = true)
+    int insertFromOrders(Collection<Long> customerCodes);
+
+    @Query("""
+            SELECT c.registrationCode FROM Customer c
+            WHERE c.registrationCode > :after
+            ORDER BY c.registrationCode
+            """)
+    List<Long> findCustomerCodesAfter(Long after, Pageable pageable);
+
+    @Query("""
+            SELECT new com.ordermanagement.customer.CustomerOrderSummaryDto(
+            c.registrationCode, COALESCE(s.orderCount, 0L), COALESCE(s.lifetimeSpend, 0.0), s.lastOrderDate)
+            FROM Customer c LEFT JOIN CustomerOrderSummary s ON s.customerCode = c.registrationCode
+            WHERE c.registrationCode = :customerCode
+            """)
+    Optional<CustomerOrderSummaryDto> findSummary(Long customerCode);
+}
@@ -0,0 +1,118 @@
+package com.ordermanagement.customer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the {@link CustomerOrderSummary} counters in step with the orders. The write methods join
+ * the transaction of the order write they account for. {@link #reconcile()} recomputes every
+ * counter from the orders, one chunk of customers per transaction.
+ */
+@Slf4j
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class CustomerOrderSummaryService {
+    private static final int ADD = 1;
+    private static final int SUBTRACT = -1;
+
+    private final CustomerOrderSummaryRepository customerOrderSummaryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int reconcileChunkSize;
+
+    @Autowired
+    public CustomerOrderSummaryService(
+            CustomerOrderSummaryRepository customerOrderSummaryRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${customer-summary.reconcile.chunk-size:1000}") int reconcileChunkSize
+    ) {
+        if (reconcileChunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be greater than 0");
+
+        this.customerOrderSummaryRepository = customerOrderSummaryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.reconcileChunkSize = reconcileChunkSize;
+    }
+
+    public void addOrders(Collection<Long> orderIds) {
+        if (!orderIds.isEmpty())
+            customerOrderSummaryRepository.addOrders(orderIds);
+    }
+
+    public void subtractOrders(Collection<Long> orderIds) {
+        if (!orderIds.isEmpty())
+            customerOrderSummaryRepository.subtractOrders(orderIds);
+    }
+
+    public void addOrderLines(Collection<Long> orderLineIds) {
+        if (!orderLineIds.isEmpty())
+            customerOrderSummaryRepository.mergeOrderLineSpend(orderLineIds, ADD);
+    }
+
+    public void subtractOrderLines(Collection<Long> orderLineIds) {
+        if (!orderLineIds.isEmpty())
+            customerOrderSummaryRepository.mergeOrderLineSpend(orderLineIds, SUBTRACT);
+    }
+
+    public void changeQuantity(Long orderLineId, int quantity) {
+        customerOrderSummaryRepository.changeQuantity(orderLineId, quantity);
+    }
+
+    public void addQuantity(Long orderLineId, int delta) {
+        customerOrderSummaryRepository.addQuantity(orderLineId, delta);
+    }
+
+    public void subtractOrderLine(Long orderLineId) {
+        customerOrderSummaryRepository.changeQuantity(orderLineId, 0);
+    }
+
+    public void reprice(String skuCode, Float unitPrice) {
+        customerOrderSummaryRepository.reprice(skuCode, unitPrice.doubleValue());
+    }
+
+    public void deleteSummaries(Collection<Long> customerCodes) {
+        customerOrderSummaryRepository.deleteByCustomerCodes(customerCodes);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<CustomerOrderSummaryDto> findSummary(Long customerCode) {
+        return customerOrderSummaryRepository.findSummary(customerCode);
+    }
+
+    /**
+     * Replaces the counters of every customer with totals computed from the orders, seeking through
+     * the customers by registration code. Orders written to a chunk while it is being reconciled may
+     * be missed, the next run picks them up.
+     */
+    @Transactional(propagation = Propagation.NEVER)
+    public long reconcile() {
+        long customers = 0;
+        long after = Long.MIN_VALUE;
+        List<Long> chunk;
+        do {
+            chunk = customerOrderSummaryRepository.findCustomerCodesAfter(after, Pageable.ofSize(reconcileChunkSize));
+            if (chunk.isEmpty())
+                break;
+
+            List<Long> codes = chunk;
+            transactionTemplate.executeWithoutResult(status -> {
+                customerOrderSummaryRepository.deleteByCustomerCodes(codes);
+                customerOrderSummaryRepository.insertFromOrders(codes);
+            });
+            customers += chunk.size();
+            after = chunk.get(chunk.size() - 1);
+        } while (chunk.size() == reconcileChunkSize);
+
+        log.info("Reconciled the order summaries of {} customers", customers);
+        return customers;
+    }
+}
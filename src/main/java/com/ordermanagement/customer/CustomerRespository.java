@@ -1,8 +1,24 @@
 package com.ordermanagement.customer;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+
 @Repository
 public interface CustomerRespository extends JpaRepository<Customer, Long> {
+
+    // cleared, the saved customer is read back in the same transaction
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE Customer c SET c.fullName = :fullName, c.email = :email, c.telephone = :telephone, c.version = c.version + 1
+            WHERE c.registrationCode = :registrationCode
+            """)
+    int update(Long registrationCode, String fullName, String email, String telephone);
+
+    @Modifying
+    @Query("DELETE FROM Customer c WHERE c.registrationCode IN :registrationCodes")
+    int deleteByRegistrationCodes(Collection<Long> registrationCodes);
 }
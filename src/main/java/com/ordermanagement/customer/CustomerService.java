@@ -1,40 +1,134 @@
 package com.ordermanagement.customer;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.ordermanagement.exception.IdAlreadyInUseException;
 import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.order.OrderDeleteResult;
+import com.ordermanagement.order.OrderDeleteService;
+import com.ordermanagement.persistence.AfterCommit;
+import com.ordermanagement.persistence.Chunks;
+import com.ordermanagement.persistence.UniqueViolations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CustomerService {
     private final CustomerRespository customerRespository;
+    private final Cache<Long, Optional<Customer>> customerCache;
+    private final OrderDeleteService orderDeleteService;
+    private final CustomerOrderSummaryService customerOrderSummaryService;
+    private final TransactionTemplate transactionTemplate;
+    private final int deleteChunkSize;
 
     @Autowired
-    public CustomerService(CustomerRespository customerRespository) {
+    public CustomerService(
+            CustomerRespository customerRespository,
+            Cache<Long, Optional<Customer>> customerCache,
+            OrderDeleteService orderDeleteService,
+            CustomerOrderSummaryService customerOrderSummaryService,
+            TransactionTemplate transactionTemplate,
+            @Value("${bulk-delete.chunk-size:1000}") int deleteChunkSize
+    ) {
         this.customerRespository = customerRespository;
+        this.customerCache = customerCache;
+        this.orderDeleteService = orderDeleteService;
+        this.customerOrderSummaryService = customerOrderSummaryService;
+        this.transactionTemplate = transactionTemplate;
+        this.deleteChunkSize = deleteChunkSize;
     }
 
     public Customer createCustomer(Customer customer) {
-        if(findCustomerByCode(customer.getRegistrationCode()).isPresent())
-            throw new IdAlreadyInUseException("Customer with id [%d] already exists".formatted(customer.getRegistrationCode()));
-        return customerRespository.save(customer);
+        Customer saved;
+        try {
+            saved = customerRespository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException e) {
+            if (UniqueViolations.isUniqueViolation(e))
+                throw new IdAlreadyInUseException("Customer with id [%d] already exists".formatted(customer.getRegistrationCode()));
+            throw e;
+        }
+        customerCache.invalidate(customer.getRegistrationCode());
+        return saved;
     }
 
     public Optional<Customer> findCustomerByCode(Long code) {
-        return customerRespository.findById(code);
+        return customerCache.get(code, this::loadCustomer);
     }
 
+    public Map<Long, Customer> findCustomersByCodes(Collection<Long> codes) {
+        return customerCache.getAll(codes, this::loadCustomers)
+                .values()
+                .stream()
+                .flatMap(Optional::stream)
+                .collect(Collectors.toMap(Customer::getRegistrationCode, Function.identity()));
+    }
+
+    public Customer getCustomerReference(Long code) {
+        return customerRespository.getReferenceById(code);
+    }
+
+    // the cache loaders run in a read-write transaction, a customer loaded from a lagging replica
+    // would be cached as missing until it expires
+    private Optional<Customer> loadCustomer(Long code) {
+        return transactionTemplate.execute(status -> customerRespository.findById(code));
+    }
+
+    private Map<Long, Optional<Customer>> loadCustomers(Set<? extends Long> codes) {
+        Map<Long, Optional<Customer>> customers = new HashMap<>();
+        codes.forEach(code -> customers.put(code, Optional.empty()));
+        transactionTemplate.executeWithoutResult(status -> customerRespository.findAllById(Set.copyOf(codes))
+                .forEach(customer -> customers.put(customer.getRegistrationCode(), Optional.of(customer))));
+        return customers;
+    }
+
+    @Transactional
     public Customer updateCustomer(Customer customer) {
-        if(findCustomerByCode(customer.getRegistrationCode()).isEmpty())
+        int updated = customerRespository.update(
+                customer.getRegistrationCode(), customer.getFullName(), customer.getEmail(), customer.getTelephone()
+        );
+        if (updated == 0)
             throw new NotFoundException("Customer with id [%d] not found".formatted(customer.getRegistrationCode()));
-        return customerRespository.save(customer);
+        AfterCommit.run(() -> customerCache.invalidate(customer.getRegistrationCode()));
+        return customerRespository.findById(customer.getRegistrationCode()).orElseThrow();
     }
 
     public void deleteCustomerByCode(Long code) {
-        if(findCustomerByCode(code).isEmpty())
+        if(deleteCustomersByCodes(List.of(code)).customers() == 0)
             throw new NotFoundException("Customer with id [%d] not found".formatted(code));
-        customerRespository.deleteById(code);
+    }
+
+    /**
+     * Deletes the given customers together with their orders, one chunk of customers per
+     * transaction.
+     */
+    public CustomerDeleteResult deleteCustomersByCodes(Collection<Long> codes) {
+        long customers = 0;
+        long orders = 0;
+        long orderLines = 0;
+        for (List<Long> chunk : Chunks.of(codes, deleteChunkSize)) {
+            CustomerDeleteResult deleted = transactionTemplate.execute(status -> {
+                OrderDeleteResult deletedOrders = orderDeleteService.deleteOrdersOfCustomers(chunk);
+                customerOrderSummaryService.deleteSummaries(chunk);
+                int deletedCustomers = customerRespository.deleteByRegistrationCodes(chunk);
+                return new CustomerDeleteResult(deletedCustomers, deletedOrders.orders(), deletedOrders.orderLines());
+            });
+            customerCache.invalidateAll(chunk);
+            customers += deleted.customers();
+            orders += deleted.orders();
+            orderLines += deleted.orderLines();
+        }
+        return new CustomerDeleteResult(customers, orders, orderLines);
     }
 }
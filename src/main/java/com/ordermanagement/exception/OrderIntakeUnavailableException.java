@@ -0,0 +1,20 @@
+package com.ordermanagement.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.time.Duration;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class OrderIntakeUnavailableException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public OrderIntakeUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,17 @@
+package com.ordermanagement.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(StatementBudgetProperties.class)
+public class MetricsConfig {
+
+    @Bean
+    public static OrderFinderMetrics orderFinderMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new OrderFinderMetrics(meterRegistry);
+    }
+}
@@ -0,0 +1,100 @@
+package com.ordermanagement.metrics;
+
+import com.ordermanagement.order.OrderFinder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Times every {@link OrderFinder} method of every finder bean as {@code order.finder}, tagged with
+ * the bean name and the method. The timers of a bean are registered on its first call, after that
+ * a call only looks its timer up by method name and records the elapsed nanos.
+ */
+public class OrderFinderMetrics implements BeanPostProcessor {
+    static final String METRIC_NAME = "order.finder";
+
+    private static final StaticMethodMatcherPointcut FINDER_METHODS = new StaticMethodMatcherPointcut() {
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return ReflectionUtils.findMethod(OrderFinder.class, method.getName(), method.getParameterTypes()) != null;
+        }
+    };
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public OrderFinderMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof OrderFinder))
+            return bean;
+
+        Advisor advisor = new DefaultPointcutAdvisor(FINDER_METHODS, new TimingInterceptor(meterRegistry, beanName));
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            // first in the chain, repository proxies end theirs with the query execution
+            advised.addAdvisor(0, advisor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(advisor);
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    private static class TimingInterceptor implements MethodInterceptor {
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private final String implementation;
+        private volatile Map<String, Timer> timers;
+
+        TimingInterceptor(ObjectProvider<MeterRegistry> meterRegistry, String implementation) {
+            this.meterRegistry = meterRegistry;
+            this.implementation = implementation;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Timer timer = timers().get(invocation.getMethod().getName());
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Map<String, Timer> timers() {
+            Map<String, Timer> timers = this.timers;
+            if (timers == null) {
+                MeterRegistry registry = meterRegistry.getObject();
+                timers = Arrays.stream(OrderFinder.class.getMethods())
+                        .map(Method::getName)
+                        .distinct()
+                        .collect(Collectors.toUnmodifiableMap(Function.identity(), method -> Timer.builder(METRIC_NAME)
+                                .description("Time spent in an order finder method")
+                                .tag("implementation", implementation)
+                                .tag("method", method)
+                                .register(registry)));
+                this.timers = timers;
+            }
+            return timers;
+        }
+    }
+}
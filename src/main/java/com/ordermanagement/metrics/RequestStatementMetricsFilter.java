@@ -0,0 +1,88 @@
+package com.ordermanagement.metrics;
+
+import com.ordermanagement.persistence.EntityLoadCounter;
+import com.ordermanagement.persistence.StatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the SQL statements executed and the entities loaded by every request, tagged with the
+ * HTTP method and the matched URI pattern like {@code http.server.requests}. Both counters are
+ * per thread, so the difference across the filter chain is the cost of the request. Summaries are
+ * registered on the first request to an endpoint and looked up without allocating afterwards.
+ */
+@Component
+public class RequestStatementMetricsFilter extends OncePerRequestFilter {
+    static final String STATEMENTS_METRIC = "http.server.requests.statements";
+    static final String ENTITIES_METRIC = "http.server.requests.entities.loaded";
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final StatementCounter statementCounter;
+    private final EntityLoadCounter entityLoadCounter;
+    private final Map<String, Map<String, RequestMeters>> metersByMethodAndUri = new ConcurrentHashMap<>();
+
+    public RequestStatementMetricsFilter(
+            MeterRegistry meterRegistry,
+            StatementCounter statementCounter,
+            EntityLoadCounter entityLoadCounter
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.statementCounter = statementCounter;
+        this.entityLoadCounter = entityLoadCounter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long statements = statementCounter.current();
+        long entities = entityLoadCounter.current();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestMeters meters = meters(request);
+            meters.statements().record(statementCounter.current() - statements);
+            meters.entities().record(entityLoadCounter.current() - entities);
+        }
+    }
+
+    private RequestMeters meters(HttpServletRequest request) {
+        String method = request.getMethod();
+        String uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern
+                ? pattern : UNKNOWN_URI;
+
+        Map<String, RequestMeters> metersByUri = metersByMethodAndUri.get(method);
+        if (metersByUri == null)
+            metersByUri = metersByMethodAndUri.computeIfAbsent(method, key -> new ConcurrentHashMap<>());
+        RequestMeters meters = metersByUri.get(uri);
+        if (meters == null)
+            meters = metersByUri.computeIfAbsent(uri, key -> new RequestMeters(
+                    summary(STATEMENTS_METRIC, "SQL statements executed by a request", method, key),
+                    summary(ENTITIES_METRIC, "Entities loaded by a request", method, key)
+            ));
+        return meters;
+    }
+
+    private DistributionSummary summary(String name, String description, String method, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+
+    private record RequestMeters(DistributionSummary statements, DistributionSummary entities) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.ordermanagement.metrics;
+
+import com.ordermanagement.exception.StatementBudgetExceededException;
+import com.ordermanagement.persistence.StatementCounter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Holds every request to the statement budget of its endpoint. The statements of a request are
+ * recorded while it runs, and when there are more than the budget allows they are logged grouped
+ * by shape, so a lazy load per row shows up as one shape repeated once per row.
+ */
+@Slf4j
+@Component
+public class StatementBudgetFilter extends OncePerRequestFilter {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\?(\\s*,\\s*\\?)*\\)");
+
+    private final StatementCounter statementCounter;
+    private final StatementBudgetProperties properties;
+
+    public StatementBudgetFilter(StatementCounter statementCounter, StatementBudgetProperties properties) {
+        this.statementCounter = statementCounter;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return properties.endpoints().isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        statementCounter.startRecording();
+        List<String> statements;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statements = statementCounter.stopRecording();
+        }
+
+        if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String uri))
+            return;
+        Integer budget = properties.budget(request.getMethod(), uri);
+        if (budget == null || statements.size() <= budget)
+            return;
+
+        String message = request.getMethod() + " " + uri + " executed " + statements.size()
+                + " statements, budget is " + budget;
+        log.warn("{}:{}", message, describe(statements));
+        if (properties.strict())
+            throw new StatementBudgetExceededException(message);
+    }
+
+    static String shape(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return PARAMETER_LIST.matcher(shape).replaceAll("(?...)");
+    }
+
+    private static String describe(List<String> statements) {
+        Map<String, Long> counts = statements.stream()
+                .collect(Collectors.groupingBy(StatementBudgetFilter::shape, Collectors.counting()));
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .map(shape -> System.lineSeparator() + "  " + shape.getValue() + "x " + shape.getKey())
+                .collect(Collectors.joining());
+    }
+}
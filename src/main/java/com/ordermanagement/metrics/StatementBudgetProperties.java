@@ -0,0 +1,23 @@
+package com.ordermanagement.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Budgets of SQL statements per request, by URI pattern and HTTP method, e.g.
+ * {@code statement-budget.endpoints[/api/v1/customer/{code}/orders].GET=3}. Going over a budget is
+ * logged, in strict mode the request fails as well.
+ */
+@ConfigurationProperties(prefix = "statement-budget")
+public record StatementBudgetProperties(boolean strict, Map<String, Map<String, Integer>> endpoints) {
+
+    public StatementBudgetProperties {
+        endpoints = endpoints == null ? Map.of() : endpoints;
+    }
+
+    Integer budget(String method, String uri) {
+        Map<String, Integer> budgets = endpoints.get(uri);
+        return budgets == null ? null : budgets.get(method);
+    }
+}
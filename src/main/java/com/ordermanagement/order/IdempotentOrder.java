@@ -0,0 +1,11 @@
+package com.ordermanagement.order;
+
+/**
+ * The order created for an idempotency key, {@code replayed} when it was created by an earlier request.
+ */
+public record IdempotentOrder(
+    OrderDto order,
+    boolean replayed
+) {
+
+}
@@ -0,0 +1,192 @@
+package com.ordermanagement.order;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ordermanagement.exception.IdempotencyKeyInProgressException;
+import com.ordermanagement.exception.IdempotencyKeyReusedException;
+import com.ordermanagement.persistence.UniqueViolations;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Creates an order at most once per <i>Idempotency-Key</i>. The response of a key is kept in a
+ * bounded cache and in the {@code order_idempotency_key} table for <i>orders.idempotency.retention</i>,
+ * and a replay is answered from the cache, or from the table after an eviction, without touching the
+ * order tables. A key sent again with a different request is rejected.
+ * Requests for a key that is being created in this instance wait for the first one and get its
+ * result. Across instances they wait on the primary key of the table.
+ */
+@Slf4j
+@Service
+public class IdempotentOrderService {
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final OrderService orderService;
+    private final OrderIdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, StoredOrder> storedOrders;
+    private final Map<String, CompletableFuture<StoredOrder>> inFlight = new ConcurrentHashMap<>();
+    private final Duration retention;
+    private final Duration waitTimeout;
+
+    @Autowired
+    public IdempotentOrderService(
+            OrderService orderService,
+            OrderIdempotencyKeyRepository idempotencyKeyRepository,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${orders.idempotency.cache-size:10000}") long cacheSize,
+            @Value("${orders.idempotency.retention:24h}") Duration retention,
+            @Value("${orders.idempotency.wait-timeout:30s}") Duration waitTimeout
+    ) {
+        this.orderService = orderService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.storedOrders = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(retention)
+                .recordStats()
+                .<String, StoredOrder>build(), "order-idempotency-keys");
+        this.retention = retention;
+        this.waitTimeout = waitTimeout;
+    }
+
+    public IdempotentOrder createOrder(String key, OrderCreateRequest orderCreateRequest) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH)
+            throw new IllegalArgumentException("Idempotency key must have 1 to %d characters".formatted(MAX_KEY_LENGTH));
+        String requestHash = hash(orderCreateRequest);
+
+        StoredOrder stored = storedOrders.getIfPresent(key);
+        if (stored != null)
+            return stored.replay(key, requestHash);
+
+        CompletableFuture<StoredOrder> created = new CompletableFuture<>();
+        CompletableFuture<StoredOrder> first = inFlight.putIfAbsent(key, created);
+        if (first != null)
+            return await(key, first).replay(key, requestHash);
+
+        try {
+            stored = createOnce(key, requestHash, orderCreateRequest);
+            storedOrders.put(key, stored);
+            created.complete(stored);
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+        return stored.replayed() ? stored.replay(key, requestHash) : new IdempotentOrder(stored.order(), false);
+    }
+
+    /**
+     * Deletes the keys older than the retention, after that a request with one of them creates a new order.
+     */
+    @Scheduled(
+            initialDelayString = "${orders.idempotency.purge-interval:PT1H}",
+            fixedDelayString = "${orders.idempotency.purge-interval:PT1H}"
+    )
+    public int purgeExpiredKeys() {
+        Integer purged = transactionTemplate.execute(status ->
+                idempotencyKeyRepository.deleteCreatedBefore(Instant.now().minus(retention)));
+        log.debug("Purged {} expired order idempotency keys", purged);
+        return purged == null ? 0 : purged;
+    }
+
+    private StoredOrder createOnce(String key, String requestHash, OrderCreateRequest orderCreateRequest) {
+        try {
+            return transactionTemplate.execute(status -> idempotencyKeyRepository.findById(key)
+                    .map(this::toStoredOrder)
+                    .orElseGet(() -> {
+                        idempotencyKeyRepository.reserve(key, requestHash, Instant.now());
+                        OrderDto order = orderService.createOrder(orderCreateRequest).toDto();
+                        idempotencyKeyRepository.complete(key, order.id(), toJson(order));
+                        return new StoredOrder(requestHash, order, false);
+                    }));
+        } catch (DataIntegrityViolationException e) {
+            if (!UniqueViolations.isUniqueViolation(e))
+                throw e;
+            // another instance created the order for this key first
+            return transactionTemplate.execute(status -> toStoredOrder(idempotencyKeyRepository.findById(key).orElseThrow()));
+        }
+    }
+
+    private StoredOrder await(String key, CompletableFuture<StoredOrder> first) {
+        try {
+            return first.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException("Order for idempotency key [%s] is still being created".formatted(key));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException("Interrupted waiting for idempotency key [%s]".formatted(key));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private StoredOrder toStoredOrder(OrderIdempotencyKey idempotencyKey) {
+        try {
+            return new StoredOrder(
+                    idempotencyKey.getRequestHash(),
+                    objectMapper.readValue(idempotencyKey.getResponse(), OrderDto.class),
+                    true
+            );
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable response for idempotency key [%s]".formatted(idempotencyKey.getKey()), e);
+        }
+    }
+
+    private String toJson(OrderDto order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String hash(OrderCreateRequest orderCreateRequest) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(orderCreateRequest)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param replayed whether the order was created by another request than the one that stored it here
+     */
+    private record StoredOrder(String requestHash, OrderDto order, boolean replayed) {
+
+        IdempotentOrder replay(String key, String requestHash) {
+            if (!this.requestHash.equals(requestHash))
+                throw new IdempotencyKeyReusedException("Idempotency key [%s] was used with another request".formatted(key));
+            return new IdempotentOrder(order, true);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.ordermanagement.order;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer, after Dmitry Vyukov's bounded
+ * queue. Every slot carries a sequence that tells a producer whether the slot is free in its lap and
+ * the consumer whether it was published, so producers only contend on the tail counter.
+ * A producer first claims a slot and publishes it later, the consumer stops at the first slot that
+ * is claimed but not published yet. A claimed slot has to be published, with {@code null} to
+ * cancel it.
+ */
+final class MpscRingBuffer<T> {
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // written by the consumer only
+    private volatile long head;
+
+    MpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++)
+            sequences.set(i, i);
+    }
+
+    /**
+     * @return the sequence of the claimed slot, or -1 when the buffer is full
+     */
+    long claim() {
+        long position = tail.get();
+        while (true) {
+            long difference = sequences.get(index(position)) - position;
+            if (difference == 0) {
+                long witness = tail.compareAndExchange(position, position + 1);
+                if (witness == position)
+                    return position;
+                position = witness;
+            } else if (difference < 0) {
+                return -1;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    void publish(long sequence, T element) {
+        int index = index(sequence);
+        slots.lazySet(index, element);
+        sequences.set(index, sequence + 1);
+    }
+
+    /**
+     * Hands at most {@code limit} published elements to {@code consumer} in claim order, cancelled
+     * slots are skipped. Only the consumer thread may call it.
+     *
+     * @return the number of slots freed, cancelled ones included
+     */
+    int drain(Consumer<T> consumer, int limit) {
+        long position = head;
+        int drained = 0;
+        while (drained < limit) {
+            int index = index(position);
+            if (sequences.get(index) != position + 1)
+                break;
+            T element = slots.get(index);
+            slots.lazySet(index, null);
+            sequences.set(index, position + mask + 1);
+            position++;
+            drained++;
+            head = position;
+            if (element != null)
+                consumer.accept(element);
+        }
+        return drained;
+    }
+
+    /**
+     * Claimed slots that were not drained yet, exact only while nothing is claimed or drained.
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    private int index(long sequence) {
+        return (int) sequence & mask;
+    }
+}
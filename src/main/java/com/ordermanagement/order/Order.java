@@ -22,7 +22,8 @@ import java.util.List;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -36,6 +37,10 @@ public class Order {
     @Column(name = "date_of_submission", nullable = false)
     private LocalDate dateOfSubmission;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     public OrderDto toDto() {
         return new OrderDto(
                 this.getId(),
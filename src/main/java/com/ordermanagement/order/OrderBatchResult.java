@@ -0,0 +1,26 @@
+package com.ordermanagement.order;
+
+public record OrderBatchResult(
+        long index,
+        Status status,
+        Long orderId,
+        String error
+) {
+    public enum Status {
+        CREATED,
+        REJECTED,
+        FAILED
+    }
+
+    public static OrderBatchResult created(long index, Long orderId) {
+        return new OrderBatchResult(index, Status.CREATED, orderId, null);
+    }
+
+    public static OrderBatchResult rejected(long index, String error) {
+        return new OrderBatchResult(index, Status.REJECTED, null, error);
+    }
+
+    public static OrderBatchResult failed(long index, String error) {
+        return new OrderBatchResult(index, Status.FAILED, null, error);
+    }
+}
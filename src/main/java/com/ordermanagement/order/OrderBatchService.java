@@ -0,0 +1,275 @@
+package com.ordermanagement.order;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerOrderSummaryService;
+import com.ordermanagement.customer.CustomerService;
+import com.ordermanagement.exception.InsufficientStockException;
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import com.ordermanagement.orderline.OrderLineService;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductService;
+import com.ordermanagement.product.StockService;
+import com.ordermanagement.report.DailySalesService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Ingests newline-delimited {@link OrderCreateRequest} records.
+ * Records are read, validated and persisted one chunk at a time, and the result of every record
+ * is written back as soon as its chunk is done, so memory use depends on the chunk size only.
+ * The stock of every order is reserved in the transaction of its chunk, an order the stock does
+ * not cover is rejected and the rest of the chunk goes on without it.
+ */
+@Slf4j
+@Service
+public class OrderBatchService {
+    private final OrderRepository orderRepository;
+    private final CustomerService customerService;
+    private final ProductService productService;
+    private final OrderLineService orderLineService;
+    private final DailySalesService dailySalesService;
+    private final CustomerOrderSummaryService customerOrderSummaryService;
+    private final SkuOrderIndex skuOrderIndex;
+    private final OrderEventService orderEventService;
+    private final StockService stockService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader requestReader;
+    private final int chunkSize;
+
+    @Autowired
+    public OrderBatchService(
+            OrderRepository orderRepository,
+            CustomerService customerService,
+            ProductService productService,
+            OrderLineService orderLineService,
+            DailySalesService dailySalesService,
+            CustomerOrderSummaryService customerOrderSummaryService,
+            SkuOrderIndex skuOrderIndex,
+            OrderEventService orderEventService,
+            StockService stockService,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            @Value("${orders.batch.chunk-size:500}") int chunkSize
+    ) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be greater than 0");
+
+        this.orderRepository = orderRepository;
+        this.customerService = customerService;
+        this.productService = productService;
+        this.orderLineService = orderLineService;
+        this.dailySalesService = dailySalesService;
+        this.customerOrderSummaryService = customerOrderSummaryService;
+        this.skuOrderIndex = skuOrderIndex;
+        this.orderEventService = orderEventService;
+        this.stockService = stockService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.requestReader = objectMapper.readerFor(OrderCreateRequest.class);
+        this.chunkSize = chunkSize;
+    }
+
+    public void createOrders(InputStream requests, OutputStream results) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(requests, StandardCharsets.UTF_8));
+        List<IndexedRequest> chunk = new ArrayList<>(chunkSize);
+        long index = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank())
+                continue;
+
+            chunk.add(parse(index++, line));
+            if (chunk.size() == chunkSize) {
+                write(processChunk(chunk), results);
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty())
+            write(processChunk(chunk), results);
+    }
+
+    private IndexedRequest parse(long index, String line) {
+        try {
+            return new IndexedRequest(index, requestReader.readValue(line), null);
+        } catch (JsonProcessingException e) {
+            return new IndexedRequest(index, null, "Malformed order: " + e.getOriginalMessage());
+        }
+    }
+
+    private List<OrderBatchResult> processChunk(List<IndexedRequest> chunk) {
+        Map<Long, Customer> customers = customerService.findCustomersByCodes(
+                chunk.stream()
+                        .map(IndexedRequest::request)
+                        .filter(Objects::nonNull)
+                        .map(OrderCreateRequest::customerCode)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet())
+        );
+        Map<String, Product> products = productService.findProductsBySkuCodes(
+                chunk.stream()
+                        .map(IndexedRequest::request)
+                        .filter(request -> request != null && request.orderLines() != null)
+                        .flatMap(request -> request.orderLines().stream())
+                        .filter(Objects::nonNull)
+                        .map(OrderLineCreateRequest::productSkuCode)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet())
+        );
+
+        OrderBatchResult[] results = new OrderBatchResult[chunk.size()];
+        List<Integer> accepted = new ArrayList<>(chunk.size());
+        List<Order> orders = new ArrayList<>(chunk.size());
+
+        for (int i = 0; i < chunk.size(); i++) {
+            IndexedRequest indexedRequest = chunk.get(i);
+            String error = indexedRequest.error() != null
+                    ? indexedRequest.error()
+                    : validate(indexedRequest.request(), customers, products);
+
+            if (error != null) {
+                results[i] = OrderBatchResult.rejected(indexedRequest.index(), error);
+                continue;
+            }
+
+            Order order = toOrder(indexedRequest.request(), customers, products);
+            accepted.add(i);
+            orders.add(order);
+        }
+
+        if (!orders.isEmpty()) {
+            List<Integer> reserved = new ArrayList<>(orders.size());
+            List<Order> reservedOrders = new ArrayList<>(orders.size());
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<StockService.Reservation> reservations = new ArrayList<>(orders.size());
+                    try {
+                        for (int i = 0; i < orders.size(); i++) {
+                            int position = accepted.get(i);
+                            try {
+                                reservations.add(stockService.take(quantities(chunk.get(position).request()), products));
+                            } catch (InsufficientStockException e) {
+                                results[position] = OrderBatchResult.rejected(chunk.get(position).index(), e.getMessage());
+                                continue;
+                            }
+                            reserved.add(position);
+                            reservedOrders.add(orders.get(i));
+                        }
+                    } finally {
+                        // given back when the chunk does not commit
+                        stockService.bind(reservations);
+                    }
+                    if (reservedOrders.isEmpty())
+                        return;
+
+                    attachReferences(reservedOrders);
+                    orderRepository.saveAll(reservedOrders);
+                    orderLineService.createOrderLines(reservedOrders.stream().flatMap(order -> order.getOrderLines().stream()).toList());
+                    List<Long> orderIds = reservedOrders.stream().map(Order::getId).toList();
+                    dailySalesService.addOrders(orderIds);
+                    customerOrderSummaryService.addOrders(orderIds);
+                    orderEventService.ordersCreated(orderIds);
+                    if (skuOrderIndex.isEnabled())
+                        reservedOrders.forEach(order -> skuOrderIndex.addOrder(order.getId(), order.getOrderLines().stream()
+                                .map(orderLine -> orderLine.getProduct().getSkuCode())
+                                .collect(Collectors.toSet())));
+                });
+                for (int i = 0; i < reserved.size(); i++) {
+                    int position = reserved.get(i);
+                    results[position] = OrderBatchResult.created(chunk.get(position).index(), reservedOrders.get(i).getId());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to persist a chunk of {} orders", orders.size(), e);
+                // the reservations were given back with the rollback, the orders rejected for their stock stay rejected
+                for (int position : accepted)
+                    if (results[position] == null)
+                        results[position] = OrderBatchResult.failed(chunk.get(position).index(), e.getMessage());
+            }
+        }
+
+        return List.of(results);
+    }
+
+    private String validate(OrderCreateRequest request, Map<Long, Customer> customers, Map<String, Product> products) {
+        if (request.customerCode() == null || !customers.containsKey(request.customerCode()))
+            return "Customer not found";
+        if (request.dateOfSubmission() == null)
+            return "Date of submission is required";
+        if (request.orderLines() == null || request.orderLines().isEmpty())
+            return "Order must have at least one line";
+
+        for (OrderLineCreateRequest orderLine : request.orderLines()) {
+            if (orderLine == null || orderLine.productSkuCode() == null || !products.containsKey(orderLine.productSkuCode()))
+                return "Product not found";
+            if (orderLine.quantity() == null || orderLine.quantity() < 1)
+                return "Quantity must be greater than 0";
+        }
+        return null;
+    }
+
+    private static Map<String, Long> quantities(OrderCreateRequest request) {
+        return request.orderLines().stream().collect(Collectors.groupingBy(
+                OrderLineCreateRequest::productSkuCode,
+                Collectors.summingLong(OrderLineCreateRequest::quantity)
+        ));
+    }
+
+    private Order toOrder(OrderCreateRequest request, Map<Long, Customer> customers, Map<String, Product> products) {
+        Order order = Order.builder()
+                .customer(customers.get(request.customerCode()))
+                .dateOfSubmission(request.dateOfSubmission())
+                .build();
+
+        order.setOrderLines(request.orderLines().stream()
+                .map(orderLine -> OrderLine.builder()
+                        .order(order)
+                        .product(products.get(orderLine.productSkuCode()))
+                        .quantity(orderLine.quantity())
+                        .build())
+                .toList());
+        return order;
+    }
+
+    /**
+     * Customers and products come detached from the cache, references spare Hibernate a select for each of them.
+     */
+    private void attachReferences(List<Order> orders) {
+        for (Order order : orders) {
+            order.setCustomer(customerService.getCustomerReference(order.getCustomer().getRegistrationCode()));
+            for (OrderLine orderLine : order.getOrderLines())
+                orderLine.setProduct(productService.getProductReference(orderLine.getProduct().getSkuCode()));
+        }
+    }
+
+    private void write(List<OrderBatchResult> results, OutputStream out) throws IOException {
+        for (OrderBatchResult result : results) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private record IndexedRequest(long index, OrderCreateRequest request, String error) {
+    }
+}
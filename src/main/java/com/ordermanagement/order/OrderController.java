@@ -1,11 +1,23 @@
 package com.ordermanagement.order;
 
+import com.ordermanagement.exception.IdempotencyKeyInProgressException;
+import com.ordermanagement.exception.IdempotencyKeyReusedException;
+import com.ordermanagement.exception.InsufficientStockException;
 import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.exception.OrderIntakeUnavailableException;
+import com.ordermanagement.web.ETags;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -13,24 +25,91 @@ import java.util.Optional;
 @RestController
 @RequestMapping("/api/v1/")
 public class OrderController {
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    static final String PREFER_HEADER = "Prefer";
+    static final String RESPOND_ASYNC = "respond-async";
+    static final String INTAKE_PATH = "/api/v1/order/intake/";
+
     private final OrderService orderService;
+    private final IdempotentOrderService idempotentOrderService;
+    private final OrderBatchService orderBatchService;
+    private final OrderExportService orderExportService;
+    private final OrderDeleteService orderDeleteService;
+    private final OrderIntakeService orderIntakeService;
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, IdempotentOrderService idempotentOrderService, OrderBatchService orderBatchService, OrderExportService orderExportService, OrderDeleteService orderDeleteService, OrderIntakeService orderIntakeService) {
         this.orderService = orderService;
+        this.idempotentOrderService = idempotentOrderService;
+        this.orderBatchService = orderBatchService;
+        this.orderExportService = orderExportService;
+        this.orderDeleteService = orderDeleteService;
+        this.orderIntakeService = orderIntakeService;
     }
 
     @PostMapping("/order")
-    public ResponseEntity<Object> createOrder(@RequestBody OrderCreateRequest orderCreateRequest) {
+    public ResponseEntity<Object> createOrder(
+            @RequestBody OrderCreateRequest orderCreateRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = PREFER_HEADER, required = false) String prefer
+    ) {
         try {
-            Order order = orderService.createOrder(orderCreateRequest);
-            return ResponseEntity.ok(order.toDto());
+            if (idempotencyKey == null && orderIntakeService.isEnabled() && respondAsync(prefer)) {
+                OrderIntakeStatus status = orderIntakeService.accept(orderCreateRequest);
+                return ResponseEntity.accepted().location(URI.create(INTAKE_PATH + status.id())).body(status);
+            }
+            if (idempotencyKey == null) {
+                Order order = orderService.createOrder(orderCreateRequest);
+                return ResponseEntity.ok(order.toDto());
+            }
+            IdempotentOrder order = idempotentOrderService.createOrder(idempotencyKey, orderCreateRequest);
+            return ResponseEntity.ok()
+                    .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(order.replayed()))
+                    .body(order.order());
         } catch (Exception e) {
             if(e instanceof NotFoundException)
                 return new ResponseEntity<>(e, HttpStatus.NOT_FOUND);
+            if(e instanceof IdempotencyKeyReusedException)
+                return new ResponseEntity<>(e, HttpStatus.UNPROCESSABLE_ENTITY);
+            if(e instanceof IdempotencyKeyInProgressException || e instanceof InsufficientStockException)
+                return new ResponseEntity<>(e, HttpStatus.CONFLICT);
+            if(e instanceof OrderIntakeUnavailableException unavailable)
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, unavailable.getRetryAfter().toSeconds())))
+                        .body(e);
             return new ResponseEntity<>(e, HttpStatus.BAD_REQUEST);
         }
     }
 
+    /**
+     * Status of an order accepted asynchronously, found until it is created or for a while after it failed.
+     */
+    @GetMapping("/order/intake/{id}")
+    public ResponseEntity<OrderIntakeStatus> findOrderIntakeStatus(@PathVariable("id") Long id) {
+        return orderIntakeService.findStatus(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static boolean respondAsync(String prefer) {
+        if (prefer == null)
+            return false;
+        for (String preference : prefer.split(","))
+            if (preference.trim().equalsIgnoreCase(RESPOND_ASYNC))
+                return true;
+        return false;
+    }
+
+    @PostMapping(
+            value = "/orders/batch",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public void createOrders(InputStream orderCreateRequests, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        orderBatchService.createOrders(orderCreateRequests, response.getOutputStream());
+    }
+
     @DeleteMapping("/order/{id}")
     public ResponseEntity<Object> deleteOrder(@PathVariable("id") Long id) {
         try {
@@ -41,20 +120,64 @@ public class OrderController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Deletes either the orders whose ids are in the body or the orders submitted in the date range,
+     * never both and never every order.
+     */
+    @DeleteMapping("/orders")
+    public ResponseEntity<OrderDeleteResult> deleteOrders(
+            @RequestBody(required = false) List<Long> ids,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        boolean byDate = from != null || to != null;
+        if ((ids == null) == !byDate)
+            return ResponseEntity.badRequest().build();
+
+        return ResponseEntity.ok(byDate
+                ? orderDeleteService.deleteOrdersByDateRange(from, to)
+                : orderDeleteService.deleteOrders(ids));
+    }
+
     @GetMapping("/order/{id}")
-    public ResponseEntity<OrderDto> findOrderById(@PathVariable("id") Long id) {
+    public ResponseEntity<OrderDto> findOrderById(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        if (ifNoneMatch != null) {
+            Optional<Long> version = orderService.findOrderVersion(id);
+            if (version.isEmpty())
+                return ResponseEntity.notFound().build();
+            if (ETags.matches(ifNoneMatch, ETags.of(version.get())))
+                return ETags.notModified(ETags.of(version.get()));
+        }
+
         Optional<Order> order = orderService.findOrderById(id);
-        return order.map(value -> ResponseEntity.ok(value.toDto()))
+        return order.map(value -> ResponseEntity.ok().eTag(ETags.of(value.getVersion())).body(value.toDto()))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @GetMapping("/orders")
-    public ResponseEntity<List<OrderDto>> findOrdersByDate(@RequestBody LocalDate date) {
-        return ResponseEntity.ok(
-                orderService.findOrdersByDate(date)
-                        .stream()
-                        .map(Order::toDto)
-                        .toList()
-        );
+    public ResponseEntity<OrderPage> findOrdersByDate(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        try {
+            return ResponseEntity.ok(orderService.findOrderPageByDateRange(from, to, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(value = "/orders", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportOrdersByDate(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        orderExportService.exportOrdersByDateRange(from, to, response.getOutputStream());
     }
 }
@@ -0,0 +1,36 @@
+package com.ordermanagement.order;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Position of the last order of a page in the (date of submission, id) ordering.
+ * Clients receive it as an opaque token and pass it back to fetch the next page.
+ */
+public record OrderCursor(
+    LocalDate dateOfSubmission,
+    Long id
+) {
+    private static final String SEPARATOR = ":";
+
+    public static OrderCursor of(OrderDto order) {
+        return new OrderCursor(order.dateOfSubmission(), order.id());
+    }
+
+    public String encode() {
+        String position = dateOfSubmission + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR);
+            if (position.length != 2)
+                throw new IllegalArgumentException("Invalid cursor");
+            return new OrderCursor(LocalDate.parse(position[0]), Long.parseLong(position[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.ordermanagement.order;
+
+public record OrderDeleteResult(long orders, long orderLines) {
+    public static final OrderDeleteResult NONE = new OrderDeleteResult(0, 0);
+
+    public OrderDeleteResult plus(OrderDeleteResult other) {
+        return new OrderDeleteResult(orders + other.orders, orderLines + other.orderLines);
+    }
+}
@@ -0,0 +1,129 @@
+package com.ordermanagement.order;
+
+import com.ordermanagement.customer.CustomerOrderSummaryService;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.orderline.SkuQuantity;
+import com.ordermanagement.persistence.Chunks;
+import com.ordermanagement.persistence.DateRanges;
+import com.ordermanagement.product.ProductService;
+import com.ordermanagement.product.StockService;
+import com.ordermanagement.report.DailySalesService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deletes orders with set-based statements on their ids, one chunk per transaction. The lines of a
+ * chunk are deleted right before its orders, so nothing is loaded and the statements do not rely on
+ * the foreign keys cascading. The stock of the lines is given back, summed per product.
+ */
+@Service
+public class OrderDeleteService {
+    private final OrderRepository orderRepository;
+    private final OrderLineRepository orderLineRepository;
+    private final DailySalesService dailySalesService;
+    private final CustomerOrderSummaryService customerOrderSummaryService;
+    private final SkuOrderIndex skuOrderIndex;
+    private final OrderEventService orderEventService;
+    private final ProductService productService;
+    private final StockService stockService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @Autowired
+    public OrderDeleteService(
+            OrderRepository orderRepository,
+            OrderLineRepository orderLineRepository,
+            DailySalesService dailySalesService,
+            CustomerOrderSummaryService customerOrderSummaryService,
+            SkuOrderIndex skuOrderIndex,
+            OrderEventService orderEventService,
+            ProductService productService,
+            StockService stockService,
+            TransactionTemplate transactionTemplate,
+            @Value("${bulk-delete.chunk-size:1000}") int chunkSize
+    ) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be greater than 0");
+
+        this.orderRepository = orderRepository;
+        this.orderLineRepository = orderLineRepository;
+        this.dailySalesService = dailySalesService;
+        this.customerOrderSummaryService = customerOrderSummaryService;
+        this.skuOrderIndex = skuOrderIndex;
+        this.orderEventService = orderEventService;
+        this.productService = productService;
+        this.stockService = stockService;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    public OrderDeleteResult deleteOrders(Collection<Long> ids) {
+        OrderDeleteResult result = OrderDeleteResult.NONE;
+        for (List<Long> chunk : Chunks.of(ids, chunkSize))
+            result = result.plus(deleteChunk(chunk));
+        return result;
+    }
+
+    /**
+     * Deletes the orders submitted between {@code from} and {@code to}, both inclusive and both
+     * optional. Every round seeks the next chunk of ids from the start, the previous one is gone.
+     */
+    public OrderDeleteResult deleteOrdersByDateRange(LocalDate from, LocalDate to) {
+        LocalDate first = DateRanges.fromOrFirstDay(from);
+        LocalDate last = DateRanges.toOrLastDay(to);
+        OrderDeleteResult result = OrderDeleteResult.NONE;
+        List<Long> chunk;
+        do {
+            chunk = orderRepository.findIdsByDateRange(first, last, Pageable.ofSize(chunkSize));
+            if (!chunk.isEmpty())
+                result = result.plus(deleteChunk(chunk));
+        } while (chunk.size() == chunkSize);
+        return result;
+    }
+
+    /**
+     * Deletes every order of the given customers in the transaction of the caller, which deletes
+     * the customers themselves next.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OrderDeleteResult deleteOrdersOfCustomers(Collection<Long> customerCodes) {
+        orderEventService.ordersOfCustomersDeleted(customerCodes);
+        giveBackStock(orderLineRepository.sumQuantitiesByCustomerCodes(customerCodes));
+        dailySalesService.subtractOrdersOfCustomers(customerCodes);
+        if (skuOrderIndex.isEnabled())
+            skuOrderIndex.removeOrders(orderRepository.findIdsByCustomerCodes(customerCodes));
+        int orderLines = orderLineRepository.deleteByCustomerCodes(customerCodes);
+        int orders = orderRepository.deleteByCustomerCodes(customerCodes);
+        return new OrderDeleteResult(orders, orderLines);
+    }
+
+    private OrderDeleteResult deleteChunk(List<Long> ids) {
+        return transactionTemplate.execute(status -> {
+            orderEventService.ordersDeleted(ids);
+            giveBackStock(orderLineRepository.sumQuantitiesByOrderIds(ids));
+            dailySalesService.subtractOrders(ids);
+            customerOrderSummaryService.subtractOrders(ids);
+            skuOrderIndex.removeOrders(ids);
+            int orderLines = orderLineRepository.deleteByOrderIds(ids);
+            int orders = orderRepository.deleteByIds(ids);
+            return new OrderDeleteResult(orders, orderLines);
+        });
+    }
+
+    private void giveBackStock(List<SkuQuantity> quantities) {
+        if (quantities.isEmpty())
+            return;
+        Map<String, Long> bySku = SkuQuantity.toMap(quantities);
+        stockService.giveBack(bySku, productService.findProductsBySkuCodes(bySku.keySet()));
+    }
+}
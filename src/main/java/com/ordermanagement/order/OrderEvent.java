@@ -0,0 +1,50 @@
+package com.ordermanagement.order;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A change of an order written to the outbox in the transaction of the change. The position is set
+ * by {@link OrderEventRelay} once the event is committed, it is the id stream clients resume from.
+ */
+@Entity
+@Table(name = "order_event")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class OrderEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "customer_code", nullable = false)
+    private Long customerCode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 16)
+    private Type type;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    @Column(name = "stream_position")
+    private Long position;
+
+    public OrderEventDto toDto() {
+        return new OrderEventDto(position, type, orderId, customerCode, occurredAt);
+    }
+}
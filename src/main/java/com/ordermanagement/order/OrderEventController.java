@@ -0,0 +1,37 @@
+package com.ordermanagement.order;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/v1/orders/events")
+public class OrderEventController {
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final OrderEventStream orderEventStream;
+
+    public OrderEventController(OrderEventStream orderEventStream) {
+        this.orderEventStream = orderEventStream;
+    }
+
+    /**
+     * Server-Sent Events of order changes, the id of an event is its position.
+     *
+     * @param lastEventId position of the last event the client got, the stream resumes after it
+     * @param customerCode limits the events to the orders of a customer
+     */
+    @GetMapping
+    public ResponseEntity<SseEmitter> streamEvents(
+            @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId,
+            @RequestParam(value = "customerCode", required = false) Long customerCode
+    ) {
+        Long position;
+        try {
+            position = lastEventId == null || lastEventId.isBlank() ? null : Long.valueOf(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(orderEventStream.subscribe(position, customerCode));
+    }
+}
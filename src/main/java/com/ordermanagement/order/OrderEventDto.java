@@ -0,0 +1,15 @@
+package com.ordermanagement.order;
+
+import java.time.Instant;
+
+/**
+ * An order change as sent to stream clients, which read the order itself when they need it.
+ */
+public record OrderEventDto(
+        Long position,
+        OrderEvent.Type type,
+        Long orderId,
+        Long customerCode,
+        Instant occurredAt
+) {
+}
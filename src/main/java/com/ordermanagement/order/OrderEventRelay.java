@@ -0,0 +1,115 @@
+package com.ordermanagement.order;
+
+import com.ordermanagement.persistence.UniqueViolations;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Moves committed order events from the outbox to {@link OrderEventStream}. Ids are handed out
+ * before the events commit, so a reader following them could pass an event that commits late;
+ * the relay gives the unpositioned events it finds positions after the last one instead, with one
+ * UPDATE, and broadcasts the events after the position it broadcast last. The last position is a
+ * high-water mark the purge leaves alone, so positions never restart below the ones clients have
+ * seen. Every instance relays: the high-water mark serializes them, and when two position the same
+ * events, the second update finds them positioned, or fails on the unique positions and leaves
+ * them to the next round.
+ * The relay reads on the primary, a replica could be behind the positions it has seen.
+ */
+@Slf4j
+@Service
+public class OrderEventRelay {
+    private final OrderEventRepository orderEventRepository;
+    private final OrderEventStream orderEventStream;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+
+    @Autowired
+    public OrderEventRelay(
+            OrderEventRepository orderEventRepository,
+            OrderEventStream orderEventStream,
+            TransactionTemplate transactionTemplate,
+            @Value("${order-events.batch-size:1000}") int batchSize,
+            @Value("${order-events.retention:24h}") Duration retention
+    ) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+
+        this.orderEventRepository = orderEventRepository;
+        this.orderEventStream = orderEventStream;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    /**
+     * @return the number of events positioned
+     */
+    @Scheduled(
+            initialDelayString = "${order-events.relay-interval:PT0.2S}",
+            fixedDelayString = "${order-events.relay-interval:PT0.2S}"
+    )
+    public int relay() {
+        int positioned = position();
+        List<OrderEventDto> events;
+        do {
+            long after = orderEventStream.lastBroadcast();
+            events = transactionTemplate.execute(status -> orderEventRepository
+                    .findPositioned(after, Long.MAX_VALUE, PageRequest.of(0, batchSize))
+                    .stream().map(OrderEvent::toDto).toList());
+            orderEventStream.broadcast(events);
+        } while (events.size() == batchSize);
+        return positioned;
+    }
+
+    /**
+     * Deletes the positioned events older than the retention, a client resuming from one of them
+     * gets the events that are left after it. The high-water mark is kept, so the next events are
+     * positioned after the purged ones.
+     */
+    @Scheduled(
+            initialDelayString = "${order-events.purge-interval:PT1H}",
+            fixedDelayString = "${order-events.purge-interval:PT1H}"
+    )
+    public int purgeExpiredEvents() {
+        Integer purged = transactionTemplate.execute(status ->
+                orderEventRepository.deletePositionedBefore(Instant.now().minus(retention)));
+        log.debug("Purged {} expired order events", purged);
+        return purged == null ? 0 : purged;
+    }
+
+    private int position() {
+        try {
+            Integer positioned = transactionTemplate.execute(status -> {
+                List<Long> ids = orderEventRepository.findUnpositionedIds(PageRequest.of(0, batchSize));
+                if (ids.isEmpty())
+                    return 0;
+
+                long firstId = ids.get(0);
+                long lastId = ids.get(ids.size() - 1);
+                long count = lastId - firstId + 1;
+                orderEventRepository.reservePositions(count);
+                long offset = orderEventRepository.findLastPosition() - count + 1 - firstId;
+                return orderEventRepository.assignPositions(offset, firstId, lastId);
+            });
+            if (positioned != null && positioned > 0)
+                log.debug("Positioned {} order events", positioned);
+            return positioned == null ? 0 : positioned;
+        } catch (DataIntegrityViolationException e) {
+            if (!UniqueViolations.isUniqueViolation(e))
+                throw e;
+            log.debug("Order events were positioned by another relay", e);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.ordermanagement.order;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_event (order_id, customer_code, event_type, occurred_at)
+            SELECT o.id, o.customer_registration_number, CAST(:type AS VARCHAR(16)), CAST(:occurredAt AS TIMESTAMP(6) WITH TIME ZONE)
+            FROM orders o
+            WHERE o.id IN :orderIds
+            ORDER BY o.id
+            """, nativeQuery = true)
+    int insertForOrders(Collection<Long> orderIds, String type, Instant occurredAt);
+
+    /**
+     * One event per order of the lines.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_event (order_id, customer_code, event_type, occurred_at)
+            SELECT o.id, o.customer_registration_number, CAST(:type AS VARCHAR(16)), CAST(:occurredAt AS TIMESTAMP(6) WITH TIME ZONE)
+            FROM orders o
+            WHERE o.id IN (SELECT ol.order_id FROM order_line ol WHERE ol.id IN :orderLineIds)
+            ORDER BY o.id
+            """, nativeQuery = true)
+    int insertForOrderLines(Collection<Long> orderLineIds, String type, Instant occurredAt);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_event (order_id, customer_code, event_type, occurred_at)
+            SELECT o.id, o.customer_registration_number, CAST(:type AS VARCHAR(16)), CAST(:occurredAt AS TIMESTAMP(6) WITH TIME ZONE)
+            FROM orders o
+            WHERE o.customer_registration_number IN :customerCodes
+            ORDER BY o.id
+            """, nativeQuery = true)
+    int insertForCustomers(Collection<Long> customerCodes, String type, Instant occurredAt);
+
+    @Query("SELECT e.id FROM OrderEvent e WHERE e.position IS NULL ORDER BY e.id")
+    List<Long> findUnpositionedIds(Pageable pageable);
+
+    /**
+     * Last position handed out, kept apart from the events so that purging them does not reuse it.
+     */
+    @Query(value = "SELECT last_position FROM order_event_high_water_mark WHERE id = 1", nativeQuery = true)
+    long findLastPosition();
+
+    /**
+     * Hands out {@code count} positions after the last one. The row stays locked until the
+     * transaction ends, so relays of other instances hand out the positions after these.
+     */
+    @Modifying
+    @Query(value = "UPDATE order_event_high_water_mark SET last_position = last_position + :count WHERE id = 1", nativeQuery = true)
+    int reservePositions(long count);
+
+    /**
+     * Positions the unpositioned events from {@code firstId} to {@code lastId} after the last
+     * position, in the order of their ids. Positions are unique as long as {@code offset} puts the
+     * first one past the last position, gaps between them are left as they are.
+     */
+    @Modifying
+    @Query("""
+            UPDATE OrderEvent e SET e.position = e.id + :offset
+            WHERE e.position IS NULL AND e.id BETWEEN :firstId AND :lastId
+            """)
+    int assignPositions(long offset, long firstId, long lastId);
+
+    @Query("SELECT e FROM OrderEvent e WHERE e.position > :after AND e.position <= :until ORDER BY e.position")
+    List<OrderEvent> findPositioned(long after, long until, Pageable pageable);
+
+    @Query("""
+            SELECT e FROM OrderEvent e
+            WHERE e.customerCode = :customerCode AND e.position > :after AND e.position <= :until
+            ORDER BY e.position
+            """)
+    List<OrderEvent> findPositionedOfCustomer(Long customerCode, long after, long until, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM OrderEvent e WHERE e.position IS NOT NULL AND e.occurredAt < :before")
+    int deletePositionedBefore(Instant before);
+}
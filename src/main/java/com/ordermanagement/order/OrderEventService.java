@@ -0,0 +1,48 @@
+package com.ordermanagement.order;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Writes the outbox events of order changes in the transaction of the change, with one set-based
+ * INSERT per call that reads the customers from the orders. Deletes are recorded before the
+ * orders are deleted.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OrderEventService {
+    private final OrderEventRepository orderEventRepository;
+
+    @Autowired
+    public OrderEventService(OrderEventRepository orderEventRepository) {
+        this.orderEventRepository = orderEventRepository;
+    }
+
+    public void ordersCreated(Collection<Long> orderIds) {
+        orderEventRepository.insertForOrders(orderIds, OrderEvent.Type.CREATED.name(), Instant.now());
+    }
+
+    public void ordersUpdated(Collection<Long> orderIds) {
+        orderEventRepository.insertForOrders(orderIds, OrderEvent.Type.UPDATED.name(), Instant.now());
+    }
+
+    /**
+     * Records one update per order of the lines, call it while the lines still exist.
+     */
+    public void orderLinesUpdated(Collection<Long> orderLineIds) {
+        orderEventRepository.insertForOrderLines(orderLineIds, OrderEvent.Type.UPDATED.name(), Instant.now());
+    }
+
+    public void ordersDeleted(Collection<Long> orderIds) {
+        orderEventRepository.insertForOrders(orderIds, OrderEvent.Type.DELETED.name(), Instant.now());
+    }
+
+    public void ordersOfCustomersDeleted(Collection<Long> customerCodes) {
+        orderEventRepository.insertForCustomers(customerCodes, OrderEvent.Type.DELETED.name(), Instant.now());
+    }
+}
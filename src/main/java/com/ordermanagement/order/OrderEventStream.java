@@ -0,0 +1,265 @@
+package com.ordermanagement.order;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Events streams of the positioned order events, fed by {@link OrderEventRelay}.
+ * Every subscriber has a bounded buffer of events and at most one task sending them, so a slow
+ * client only holds its own sender. A subscriber whose buffer overflows is disconnected and
+ * resumes from the last event it got with <i>Last-Event-ID</i>, which replays the missed events
+ * from the table before the buffered ones.
+ * A subscriber is registered before its replay is read, at the position broadcast so far, so the
+ * replay and the broadcasts that follow meet without a gap, and an event seen twice is skipped by
+ * its position.
+ */
+@Slf4j
+@Service
+public class OrderEventStream implements MeterBinder {
+    private final OrderEventRepository orderEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int bufferSize;
+    private final int replayBatchSize;
+    private final Duration timeout;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+    private final AtomicLong slowConsumers = new AtomicLong();
+    // guarded by this, loaded on first use
+    private Long lastBroadcast;
+
+    @Autowired
+    public OrderEventStream(
+            OrderEventRepository orderEventRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${order-events.subscriber-buffer:1000}") int bufferSize,
+            @Value("${order-events.batch-size:1000}") int replayBatchSize,
+            @Value("${order-events.stream-timeout:30m}") Duration timeout
+    ) {
+        this(orderEventRepository, transactionTemplate, bufferSize, replayBatchSize, timeout, senders());
+    }
+
+    OrderEventStream(
+            OrderEventRepository orderEventRepository,
+            TransactionTemplate transactionTemplate,
+            int bufferSize,
+            int replayBatchSize,
+            Duration timeout,
+            ExecutorService senders
+    ) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Subscriber buffer must be greater than 0");
+        if (replayBatchSize < 1)
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+
+        this.orderEventRepository = orderEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.bufferSize = bufferSize;
+        this.replayBatchSize = replayBatchSize;
+        this.timeout = timeout;
+        this.senders = senders;
+    }
+
+    /**
+     * @param lastEventId position of the last event the client got, null to only get new events
+     * @param customerCode customer whose orders the events are limited to, null for all of them
+     */
+    public SseEmitter subscribe(Long lastEventId, Long customerCode) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), customerCode, bufferSize);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        // completed right away, the client reconnects with the last event it got
+        subscriber.emitter.onTimeout(() -> {
+            subscriber.closed = true;
+            subscribers.remove(subscriber);
+            subscriber.complete();
+        });
+        subscriber.emitter.onError(error -> {
+            subscriber.closed = true;
+            subscribers.remove(subscriber);
+        });
+        synchronized (this) {
+            subscriber.replayUntil = lastBroadcast();
+            subscriber.cursor = lastEventId == null ? subscriber.replayUntil : lastEventId;
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+        return subscriber.emitter;
+    }
+
+    /**
+     * Position of the last event handed to the subscribers, the relay broadcasts the events after it.
+     */
+    synchronized long lastBroadcast() {
+        if (lastBroadcast == null)
+            lastBroadcast = transactionTemplate.execute(status -> orderEventRepository.findLastPosition());
+        return lastBroadcast;
+    }
+
+    /**
+     * Hands events ordered by position to the subscribers, the ones already broadcast are skipped.
+     */
+    synchronized void broadcast(List<OrderEventDto> events) {
+        long last = lastBroadcast();
+        for (OrderEventDto event : events) {
+            if (event.position() <= last)
+                continue;
+            for (Subscriber subscriber : subscribers)
+                if (subscriber.accepts(event) && !subscriber.buffer.offer(event)) {
+                    log.debug("Disconnecting an order event subscriber {} events behind", bufferSize);
+                    slowConsumers.incrementAndGet();
+                    close(subscriber);
+                }
+            last = event.position();
+        }
+        lastBroadcast = last;
+        subscribers.forEach(this::schedule);
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscribers.forEach(this::close);
+        senders.shutdown();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("orders.events.subscribers", subscribers, Set::size)
+                .description("Clients of the order event stream")
+                .register(registry);
+        FunctionCounter.builder("orders.events.slow-consumers", slowConsumers, AtomicLong::get)
+                .description("Subscribers disconnected because their buffer overflowed")
+                .register(registry);
+    }
+
+    /**
+     * The emitter is completed by the sender of the subscriber, a send blocked on a slow client
+     * holds its lock.
+     */
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true))
+            senders.execute(() -> send(subscriber));
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            if (!subscriber.replayed) {
+                replay(subscriber);
+                subscriber.replayed = true;
+            }
+            OrderEventDto event;
+            while (!subscriber.closed && (event = subscriber.buffer.poll()) != null)
+                send(subscriber, event);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to send order events, dropping the subscriber", e);
+            subscriber.closed = true;
+            subscribers.remove(subscriber);
+        }
+        if (subscriber.closed) {
+            subscriber.complete();
+            return;
+        }
+        subscriber.sending.set(false);
+        if (!subscriber.buffer.isEmpty() || subscriber.closed)
+            schedule(subscriber);
+    }
+
+    /**
+     * Sends the events from the position the client resumes from up to the one the subscriber was
+     * registered at, reading them on the primary like the relay.
+     */
+    private void replay(Subscriber subscriber) throws IOException {
+        List<OrderEventDto> events;
+        do {
+            long after = subscriber.cursor;
+            events = transactionTemplate.execute(status -> (subscriber.customerCode == null
+                    ? orderEventRepository.findPositioned(after, subscriber.replayUntil, PageRequest.of(0, replayBatchSize))
+                    : orderEventRepository.findPositionedOfCustomer(subscriber.customerCode, after, subscriber.replayUntil, PageRequest.of(0, replayBatchSize))
+            ).stream().map(OrderEvent::toDto).toList());
+            for (OrderEventDto event : events) {
+                if (subscriber.closed)
+                    return;
+                send(subscriber, event);
+            }
+        } while (events.size() == replayBatchSize);
+    }
+
+    private static ExecutorService senders() {
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "order-event-sender-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void send(Subscriber subscriber, OrderEventDto event) throws IOException {
+        if (event.position() <= subscriber.cursor)
+            return;
+        subscriber.emitter.send(SseEmitter.event()
+                .id(String.valueOf(event.position()))
+                .name(event.type().name())
+                .data(event, MediaType.APPLICATION_JSON));
+        subscriber.cursor = event.position();
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long customerCode;
+        private final BlockingQueue<OrderEventDto> buffer;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean closed;
+        // written at registration, then only by the sender
+        private long replayUntil;
+        private long cursor;
+        private boolean replayed;
+
+        private Subscriber(SseEmitter emitter, Long customerCode, int bufferSize) {
+            this.emitter = emitter;
+            this.customerCode = customerCode;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private void complete() {
+            if (completed.compareAndSet(false, true))
+                emitter.complete();
+        }
+
+        private boolean accepts(OrderEventDto event) {
+            return customerCode == null || customerCode.equals(event.customerCode());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ordermanagement.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+
+/**
+ * Writes orders as newline-delimited {@link OrderDto} records while they are read from the database,
+ * so memory use does not depend on how many orders are exported.
+ */
+@Service
+public class OrderExportService {
+    static final int FLUSH_INTERVAL = 100;
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final ObjectWriter orderWriter;
+
+    @Autowired
+    public OrderExportService(OrderQueryRepository orderQueryRepository, ObjectMapper objectMapper) {
+        this.orderQueryRepository = orderQueryRepository;
+        this.orderWriter = objectMapper.writerFor(OrderDto.class);
+    }
+
+    public void exportOrdersByDateRange(LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        long[] written = {0};
+        try {
+            orderQueryRepository.forEachOrderByDateRange(from, to, order -> {
+                try {
+                    out.write(orderWriter.writeValueAsBytes(order));
+                    out.write('\n');
+                    if (++written[0] % FLUSH_INTERVAL == 0)
+                        out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,36 @@
+package com.ordermanagement.order;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * An <i>Idempotency-Key</i> of an order create, with a hash of the request it came with and the
+ * {@link OrderDto} returned for it as JSON.
+ */
+@Entity
+@Table(name = "order_idempotency_key")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class OrderIdempotencyKey {
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "response", length = 1000000)
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,31 @@
+package com.ordermanagement.order;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface OrderIdempotencyKeyRepository extends JpaRepository<OrderIdempotencyKey, String> {
+
+    /**
+     * Claims the key before the order is created. A concurrent transaction claiming the same key
+     * blocks here until this one ends, and fails with a unique violation if it commits.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_idempotency_key (idempotency_key, request_hash, created_at)
+            VALUES (:key, :requestHash, :createdAt)
+            """, nativeQuery = true)
+    int reserve(String key, String requestHash, Instant createdAt);
+
+    @Modifying
+    @Query("UPDATE OrderIdempotencyKey k SET k.orderId = :orderId, k.response = :response WHERE k.key = :key")
+    int complete(String key, Long orderId, String response);
+
+    @Modifying
+    @Query("DELETE FROM OrderIdempotencyKey k WHERE k.createdAt < :before")
+    int deleteCreatedBefore(Instant before);
+}
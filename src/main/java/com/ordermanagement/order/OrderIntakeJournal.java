@@ -0,0 +1,271 @@
+package com.ordermanagement.order;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log of the orders accepted by {@link OrderIntakeService}, one line per order in
+ * segment files. An append returns once its line is on disk: lines are written under a lock and
+ * synced outside of it, and one sync covers the lines of every append waiting for it.
+ * A segment is deleted once it is sealed and all its orders were persisted or failed, so the
+ * segments found at startup hold the orders a previous run did not get to.
+ * A failed sync leaves it unknown whether the line reached the disk, and later syncs of the file
+ * cannot be trusted either: the segment is sealed, the next append starts a new one, and the id
+ * of the order is recorded as cancelled beside the segment, so a replay skips the order its client
+ * was told failed.
+ */
+@Slf4j
+final class OrderIntakeJournal implements AutoCloseable {
+    private static final String PREFIX = "intake-";
+    private static final String SUFFIX = ".log";
+    private static final String CANCELLED_SUFFIX = ".cancelled";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final ChannelSync channelSync;
+    private final List<Segment> previous;
+    private long nextSegment;
+    private Segment current;
+
+    OrderIntakeJournal(Path directory, long segmentSize) throws IOException {
+        this(directory, segmentSize, channel -> channel.force(false));
+    }
+
+    OrderIntakeJournal(Path directory, long segmentSize, ChannelSync channelSync) throws IOException {
+        if (segmentSize < 1)
+            throw new IllegalArgumentException("Segment size must be greater than 0");
+
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.channelSync = channelSync;
+        try (Stream<Path> files = Files.list(directory)) {
+            this.previous = files
+                    .filter(file -> isJournalFile(file, SUFFIX))
+                    .sorted(Comparator.comparingLong(file -> number(file, SUFFIX)))
+                    .map(file -> new Segment(file, null, channelSync))
+                    .toList();
+        }
+        // cancellations outliving their segment, left by a crash between the two deletes
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(file -> isJournalFile(file, CANCELLED_SUFFIX)).toList())
+                if (!Files.exists(segmentPath(directory, number(file, CANCELLED_SUFFIX))))
+                    Files.delete(file);
+        }
+        this.nextSegment = previous.isEmpty() ? 0 : number(previous.get(previous.size() - 1).path, SUFFIX) + 1;
+    }
+
+    /**
+     * Segments left by a previous run, oldest first. They are sealed, a segment is deleted once its
+     * replayed orders are released.
+     */
+    List<Segment> previousSegments() {
+        return previous;
+    }
+
+    /**
+     * Lines of a segment, a line torn by a crash is returned as it is.
+     */
+    List<String> lines(Segment segment) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(segment.path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null)
+                if (!line.isBlank())
+                    lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Ids of the orders of a segment whose append failed, they must not be replayed.
+     */
+    Set<Long> cancelledIds(Segment segment) throws IOException {
+        Set<Long> ids = new HashSet<>();
+        if (!Files.exists(segment.cancelledPath))
+            return ids;
+        for (String line : Files.readAllLines(segment.cancelledPath, StandardCharsets.UTF_8))
+            if (!line.isBlank())
+                ids.add(Long.parseLong(line.trim()));
+        return ids;
+    }
+
+    /**
+     * Appends the line of an order and syncs it, the returned segment has to be
+     * {@link Segment#release() released} once the order is persisted or failed. When the sync
+     * fails the order is cancelled and the segment sealed.
+     */
+    Segment append(long orderId, byte[] line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+        Segment segment;
+        long end;
+        synchronized (this) {
+            if (current == null || current.written > 0 && current.written + buffer.remaining() > segmentSize)
+                rotate();
+            segment = current;
+            try {
+                while (buffer.hasRemaining())
+                    segment.channel.write(buffer);
+            } catch (IOException e) {
+                // the next line must not follow a torn one
+                current = null;
+                segment.seal();
+                throw e;
+            }
+            segment.written += line.length + 1;
+            segment.outstanding.incrementAndGet();
+            end = segment.written;
+        }
+
+        try {
+            segment.sync(end);
+        } catch (IOException e) {
+            synchronized (this) {
+                if (current == segment)
+                    current = null;
+            }
+            try {
+                segment.cancel(orderId);
+            } catch (IOException cancelFailure) {
+                e.addSuppressed(cancelFailure);
+                log.error("Failed to cancel order [{}] in order intake journal segment [{}]", orderId, segment.path, cancelFailure);
+            }
+            segment.seal();
+            segment.release();
+            throw e;
+        }
+        return segment;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (current != null)
+            current.seal();
+        current = null;
+    }
+
+    private void rotate() throws IOException {
+        if (current != null)
+            current.seal();
+        Path path = segmentPath(directory, nextSegment++);
+        current = new Segment(path, FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), channelSync);
+    }
+
+    private static Path segmentPath(Path directory, long number) {
+        return directory.resolve(PREFIX + "%020d".formatted(number) + SUFFIX);
+    }
+
+    private static boolean isJournalFile(Path file, String suffix) {
+        String name = file.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(suffix);
+    }
+
+    private static long number(Path file, String suffix) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - suffix.length()));
+    }
+
+    /**
+     * Forces the written lines of a segment to disk.
+     */
+    @FunctionalInterface
+    interface ChannelSync {
+        void sync(FileChannel channel) throws IOException;
+    }
+
+    static final class Segment {
+        private final Path path;
+        private final Path cancelledPath;
+        // null for the segments of a previous run
+        private final FileChannel channel;
+        private final ChannelSync channelSync;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicBoolean deleted = new AtomicBoolean();
+        private volatile long written;
+        private volatile boolean sealed;
+        private long synced;
+        // once a sync failed, the ones after it may pass without the lines on disk
+        private IOException syncFailure;
+
+        private Segment(Path path, FileChannel channel, ChannelSync channelSync) {
+            String name = path.getFileName().toString();
+            this.path = path;
+            this.cancelledPath = path.resolveSibling(name.substring(0, name.length() - SUFFIX.length()) + CANCELLED_SUFFIX);
+            this.channel = channel;
+            this.channelSync = channelSync;
+            this.sealed = channel == null;
+        }
+
+        /**
+         * Counts a replayed order of the segment, released like an appended one.
+         */
+        void acquire() {
+            outstanding.incrementAndGet();
+        }
+
+        void release() {
+            if (outstanding.decrementAndGet() == 0)
+                deleteIfDone();
+        }
+
+        void seal() {
+            sealed = true;
+            deleteIfDone();
+        }
+
+        private synchronized void sync(long position) throws IOException {
+            if (syncFailure != null)
+                throw new IOException("Order intake journal segment [%s] failed to sync".formatted(path), syncFailure);
+            if (synced >= position)
+                return;
+            long target = written;
+            try {
+                channelSync.sync(channel);
+            } catch (IOException e) {
+                syncFailure = e;
+                throw e;
+            }
+            synced = target;
+        }
+
+        private synchronized void cancel(long orderId) throws IOException {
+            try (FileChannel cancelled = FileChannel.open(cancelledPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap((orderId + "\n").getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining())
+                    cancelled.write(buffer);
+                cancelled.force(false);
+            }
+        }
+
+        private void deleteIfDone() {
+            if (!sealed || outstanding.get() > 0 || !deleted.compareAndSet(false, true))
+                return;
+            try {
+                if (channel != null)
+                    channel.close();
+                // the cancellations go last, a crash in between must not bring the orders back
+                Files.deleteIfExists(path);
+                Files.deleteIfExists(cancelledPath);
+            } catch (IOException e) {
+                log.warn("Failed to delete order intake journal segment [{}]", path, e);
+            }
+        }
+    }
+}
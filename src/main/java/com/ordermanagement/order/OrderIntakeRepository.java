@@ -0,0 +1,73 @@
+package com.ordermanagement.order;
+
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts orders whose ids were assigned before they were persisted, as two JDBC batches on the
+ * connection of the surrounding transaction. Hibernate would generate new ids for them, so ids are
+ * drawn from the same pooled generators as the orders and lines it saves instead, on the session of
+ * the transaction so that a request never holds a second connection for them.
+ */
+@Repository
+public class OrderIntakeRepository {
+    private static final String INSERT_ORDER =
+            "INSERT INTO orders (id, customer_registration_number, date_of_submission, version) VALUES (?, ?, ?, 0)";
+    private static final String INSERT_ORDER_LINE =
+            "INSERT INTO order_line (id, order_id, product_sku_code, quantity) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final IdentifierGenerator orderIds;
+    private final IdentifierGenerator orderLineIds;
+
+    public OrderIntakeRepository(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        this.orderIds = sessionFactory.getMappingMetamodel().getEntityDescriptor(Order.class).getIdentifierGenerator();
+        this.orderLineIds = sessionFactory.getMappingMetamodel().getEntityDescriptor(OrderLine.class).getIdentifierGenerator();
+    }
+
+    /**
+     * Next id of the orders sequence, it only reaches the database once per allocation.
+     */
+    @Transactional
+    public long nextOrderId() {
+        return (Long) orderIds.generate(session(), null);
+    }
+
+    /**
+     * @param orders requests by the id assigned to their order
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void insertOrders(Map<Long, OrderCreateRequest> orders) {
+        SharedSessionContractImplementor session = session();
+        List<Object[]> orderRows = new ArrayList<>(orders.size());
+        List<Object[]> orderLineRows = new ArrayList<>();
+        orders.forEach((id, request) -> {
+            orderRows.add(new Object[]{id, request.customerCode(), Date.valueOf(request.dateOfSubmission())});
+            for (OrderLineCreateRequest orderLine : request.orderLines())
+                orderLineRows.add(new Object[]{orderLineIds.generate(session, null), id, orderLine.productSkuCode(), orderLine.quantity()});
+        });
+        jdbcTemplate.batchUpdate(INSERT_ORDER, orderRows);
+        jdbcTemplate.batchUpdate(INSERT_ORDER_LINE, orderLineRows);
+    }
+
+    private SharedSessionContractImplementor session() {
+        return entityManager.unwrap(SharedSessionContractImplementor.class);
+    }
+}
@@ -0,0 +1,387 @@
+package com.ordermanagement.order;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ordermanagement.customer.CustomerOrderSummaryService;
+import com.ordermanagement.customer.CustomerService;
+import com.ordermanagement.exception.InsufficientStockException;
+import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.exception.OrderIntakeUnavailableException;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import com.ordermanagement.persistence.Chunks;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductService;
+import com.ordermanagement.product.StockService;
+import com.ordermanagement.report.DailySalesService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous order intake, enabled by <i>orders.intake.enabled</i>. An accepted order is
+ * validated against the cached customers and products, takes its stock, gets its id, and is
+ * journaled to local disk before it is queued on a lock-free ring buffer, so a request only waits
+ * for the journal sync. A single persister thread drains the buffer and writes up to
+ * <i>orders.intake.batch-size</i> orders per transaction, with the same rollup updates as
+ * {@link OrderService#createOrder(OrderCreateRequest)}.
+ * A full buffer is rejected instead of queued. Orders a crash or a shutdown left in the journal are
+ * replayed at the next start, and the ids assigned up front keep an order that was already
+ * persisted from being created twice. An order the database rejects fails alone, any other error
+ * is retried until it goes through.
+ */
+@Slf4j
+@Service
+public class OrderIntakeService implements MeterBinder {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FULL_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+    private static final int REPLAY_CHUNK_SIZE = 1000;
+
+    private final CustomerService customerService;
+    private final ProductService productService;
+    private final StockService stockService;
+    private final OrderRepository orderRepository;
+    private final OrderIntakeRepository orderIntakeRepository;
+    private final DailySalesService dailySalesService;
+    private final CustomerOrderSummaryService customerOrderSummaryService;
+    private final SkuOrderIndex skuOrderIndex;
+    private final OrderEventService orderEventService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Path journalDirectory;
+    private final long journalSegmentSize;
+    private final Duration retryAfter;
+    private final MpscRingBuffer<AcceptedOrder> buffer;
+    private final Map<Long, AcceptedOrder> queued = new ConcurrentHashMap<>();
+    private final Cache<Long, String> failed;
+    private volatile OrderIntakeJournal journal;
+    private volatile Thread persister;
+    private volatile boolean running;
+    private volatile boolean accepting;
+
+    @Autowired
+    public OrderIntakeService(
+            CustomerService customerService,
+            ProductService productService,
+            StockService stockService,
+            OrderRepository orderRepository,
+            OrderIntakeRepository orderIntakeRepository,
+            DailySalesService dailySalesService,
+            CustomerOrderSummaryService customerOrderSummaryService,
+            SkuOrderIndex skuOrderIndex,
+            OrderEventService orderEventService,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            @Value("${orders.intake.enabled:false}") boolean enabled,
+            @Value("${orders.intake.capacity:65536}") int capacity,
+            @Value("${orders.intake.batch-size:500}") int batchSize,
+            @Value("${orders.intake.journal-dir:order-intake}") String journalDirectory,
+            @Value("${orders.intake.journal-segment-size:64MB}") DataSize journalSegmentSize,
+            @Value("${orders.intake.retry-after:1s}") Duration retryAfter
+    ) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+
+        this.customerService = customerService;
+        this.productService = productService;
+        this.stockService = stockService;
+        this.orderRepository = orderRepository;
+        this.orderIntakeRepository = orderIntakeRepository;
+        this.dailySalesService = dailySalesService;
+        this.customerOrderSummaryService = customerOrderSummaryService;
+        this.skuOrderIndex = skuOrderIndex;
+        this.orderEventService = orderEventService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.journalDirectory = Path.of(journalDirectory);
+        this.journalSegmentSize = journalSegmentSize.toBytes();
+        this.retryAfter = retryAfter;
+        this.buffer = new MpscRingBuffer<>(capacity);
+        this.failed = Caffeine.newBuilder()
+                .maximumSize(buffer.capacity())
+                .expireAfterWrite(Duration.ofHours(1))
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the persister, replays the orders left in the journal and then accepts new ones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running)
+            return;
+
+        try {
+            journal = new OrderIntakeJournal(journalDirectory, journalSegmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the order intake journal in [%s]".formatted(journalDirectory), e);
+        }
+        running = true;
+        persister = new Thread(this::persistQueued, "order-intake-persister");
+        persister.setDaemon(true);
+        persister.start();
+
+        for (OrderIntakeJournal.Segment segment : journal.previousSegments())
+            replay(segment);
+        accepting = true;
+    }
+
+    /**
+     * Stops accepting orders and persists the queued ones, what is left stays in the journal.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running)
+            return;
+
+        accepting = false;
+        running = false;
+        LockSupport.unpark(persister);
+        persister.join(TimeUnit.SECONDS.toMillis(30));
+        journal.close();
+    }
+
+    /**
+     * @return the status of the queued order, its id is the id the order is created with
+     * @throws OrderIntakeUnavailableException when the buffer is full or orders are not accepted yet
+     */
+    public OrderIntakeStatus accept(OrderCreateRequest orderCreateRequest) {
+        if (!accepting)
+            throw new OrderIntakeUnavailableException("Order intake is not accepting orders", retryAfter);
+
+        Map<String, Product> products = validate(orderCreateRequest);
+        StockService.Reservation reservation = stockService.take(quantities(orderCreateRequest), products);
+        long sequence = buffer.claim();
+        if (sequence < 0) {
+            reservation.release();
+            throw new OrderIntakeUnavailableException("Order intake is full", retryAfter);
+        }
+
+        AcceptedOrder order = null;
+        try {
+            long id = orderIntakeRepository.nextOrderId();
+            OrderIntakeJournal.Segment segment = journal.append(id, objectMapper.writeValueAsBytes(new JournaledOrder(id, orderCreateRequest)));
+            order = new AcceptedOrder(id, orderCreateRequest, reservation, segment);
+            queued.put(id, order);
+        } catch (IOException e) {
+            log.error("Failed to journal an accepted order", e);
+            throw new OrderIntakeUnavailableException("Order could not be journaled", retryAfter);
+        } finally {
+            // publishing null cancels the claimed slot
+            buffer.publish(sequence, order);
+            if (order == null)
+                reservation.release();
+            else
+                LockSupport.unpark(persister);
+        }
+        return OrderIntakeStatus.queued(order.id());
+    }
+
+    public Optional<OrderIntakeStatus> findStatus(Long id) {
+        if (queued.containsKey(id))
+            return Optional.of(OrderIntakeStatus.queued(id));
+        String error = failed.getIfPresent(id);
+        if (error != null)
+            return Optional.of(OrderIntakeStatus.failed(id, error));
+        return orderRepository.existsById(id) ? Optional.of(OrderIntakeStatus.created(id)) : Optional.empty();
+    }
+
+    private Map<String, Product> validate(OrderCreateRequest request) {
+        if (request.dateOfSubmission() == null)
+            throw new IllegalArgumentException("Date of submission is required");
+        if (request.orderLines() == null || request.orderLines().isEmpty())
+            throw new IllegalArgumentException("Order must have at least one line");
+
+        Set<String> skuCodes = new HashSet<>();
+        for (OrderLineCreateRequest orderLine : request.orderLines()) {
+            if (orderLine == null || orderLine.quantity() == null || orderLine.quantity() < 1)
+                throw new IllegalArgumentException("Quantity must be greater than 0");
+            if (orderLine.productSkuCode() == null)
+                throw new NotFoundException("Product not found");
+            skuCodes.add(orderLine.productSkuCode());
+        }
+        if (request.customerCode() == null || customerService.findCustomerByCode(request.customerCode()).isEmpty())
+            throw new NotFoundException("Customer not found");
+        Map<String, Product> products = productService.findProductsBySkuCodes(skuCodes);
+        if (products.size() < skuCodes.size())
+            throw new NotFoundException("Product not found");
+        return products;
+    }
+
+    private static Map<String, Long> quantities(OrderCreateRequest request) {
+        return request.orderLines().stream().collect(Collectors.groupingBy(
+                OrderLineCreateRequest::productSkuCode,
+                Collectors.summingLong(OrderLineCreateRequest::quantity)
+        ));
+    }
+
+    /**
+     * Queues the orders of a segment that are not in the database yet. Their stock is taken again,
+     * the counters loaded since the restart do not know about them.
+     */
+    private void replay(OrderIntakeJournal.Segment segment) {
+        List<JournaledOrder> journaled = new ArrayList<>();
+        Set<Long> skipped;
+        try {
+            skipped = journal.cancelledIds(segment);
+            for (String line : journal.lines(segment)) {
+                try {
+                    journaled.add(objectMapper.readValue(line, JournaledOrder.class));
+                } catch (JsonProcessingException e) {
+                    // only the last line of a segment can be torn, and it was never acknowledged
+                    log.warn("Skipping an unreadable line of the order intake journal");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay the order intake journal", e);
+        }
+
+        // persisted or cancelled
+        for (List<Long> ids : Chunks.of(journaled.stream().map(JournaledOrder::orderId).toList(), REPLAY_CHUNK_SIZE))
+            skipped.addAll(orderRepository.findExistingIds(ids));
+
+        int replayed = 0;
+        for (JournaledOrder order : journaled) {
+            if (!skipped.add(order.orderId()))
+                continue;
+            segment.acquire();
+            StockService.Reservation reservation;
+            try {
+                Map<String, Product> products = productService.findProductsBySkuCodes(quantities(order.request()).keySet());
+                reservation = stockService.take(quantities(order.request()), products);
+            } catch (InsufficientStockException e) {
+                failed.put(order.orderId(), e.getMessage());
+                segment.release();
+                continue;
+            }
+            AcceptedOrder accepted = new AcceptedOrder(order.orderId(), order.request(), reservation, segment);
+            queued.put(accepted.id(), accepted);
+            long sequence;
+            while ((sequence = buffer.claim()) < 0)
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            buffer.publish(sequence, accepted);
+            LockSupport.unpark(persister);
+            replayed++;
+        }
+        segment.seal();
+        if (replayed > 0)
+            log.info("Replayed {} orders from the order intake journal", replayed);
+    }
+
+    private void persistQueued() {
+        List<AcceptedOrder> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            buffer.drain(batch::add, batchSize);
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            persist(batch);
+            batch.clear();
+        }
+    }
+
+    private void persist(List<AcceptedOrder> batch) {
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+                batch.forEach(order -> done(order, null));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (batch.size() == 1) {
+                    log.warn("Accepted order [{}] was rejected by the database", batch.get(0).id(), e);
+                    done(batch.get(0), e.getMostSpecificCause().getMessage());
+                    return;
+                }
+                log.warn("Failed to persist {} accepted orders, persisting them one by one", batch.size(), e);
+                batch.forEach(order -> persist(List.of(order)));
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to persist {} accepted orders, retrying in {}", batch.size(), RETRY_DELAY, e);
+                // left in the journal for the next start
+                if (!running)
+                    return;
+                LockSupport.parkNanos(RETRY_DELAY.toNanos());
+            }
+        }
+    }
+
+    private void write(List<AcceptedOrder> batch) {
+        Map<Long, OrderCreateRequest> orders = new LinkedHashMap<>();
+        batch.forEach(order -> orders.put(order.id(), order.request()));
+        List<Long> orderIds = List.copyOf(orders.keySet());
+
+        orderIntakeRepository.insertOrders(orders);
+        dailySalesService.addOrders(orderIds);
+        customerOrderSummaryService.addOrders(orderIds);
+        orderEventService.ordersCreated(orderIds);
+        stockService.journal(batch.stream().map(AcceptedOrder::reservation).toList());
+        orders.forEach((id, request) -> skuOrderIndex.addOrder(id, quantities(request).keySet()));
+    }
+
+    private void done(AcceptedOrder order, String error) {
+        if (error != null) {
+            failed.put(order.id(), error);
+            order.reservation().release();
+        }
+        queued.remove(order.id());
+        order.segment().release();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!enabled)
+            return;
+
+        Gauge.builder("orders.intake.queued", buffer, MpscRingBuffer::size)
+                .description("Accepted orders waiting for the persister")
+                .register(registry);
+    }
+
+    private record JournaledOrder(Long orderId, OrderCreateRequest request) {
+    }
+
+    private record AcceptedOrder(
+            Long id,
+            OrderCreateRequest request,
+            StockService.Reservation reservation,
+            OrderIntakeJournal.Segment segment
+    ) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.ordermanagement.order;
+
+public record OrderIntakeStatus(
+        Long id,
+        Status status,
+        String error
+) {
+    public enum Status {
+        QUEUED,
+        CREATED,
+        FAILED
+    }
+
+    public static OrderIntakeStatus queued(Long id) {
+        return new OrderIntakeStatus(id, Status.QUEUED, null);
+    }
+
+    public static OrderIntakeStatus created(Long id) {
+        return new OrderIntakeStatus(id, Status.CREATED, null);
+    }
+
+    public static OrderIntakeStatus failed(Long id, String error) {
+        return new OrderIntakeStatus(id, Status.FAILED, error);
+    }
+}
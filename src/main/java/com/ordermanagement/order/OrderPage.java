@@ -0,0 +1,10 @@
+package com.ordermanagement.order;
+
+import java.util.List;
+
+public record OrderPage(
+    List<OrderDto> orders,
+    String nextCursor
+) {
+
+}
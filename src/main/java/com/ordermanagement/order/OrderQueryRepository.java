@@ -0,0 +1,205 @@
+package com.ordermanagement.order;
+
+import com.ordermanagement.orderline.OrderLineDto;
+import com.ordermanagement.persistence.Chunks;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the order lists. Pages are read by keyset on (date of submission, id): the first
+ * statement seeks the ids of the page from the cursor position, the second one joins those orders
+ * with their lines and the {@link OrderDto}s are assembled from the scalar rows, so no entity is
+ * loaded or dirty checked and the cost of a page does not depend on how deep it is.
+ * Exports read the same rows through a forward-only cursor and hand every order over as soon as
+ * its last line has been read.
+ * With the {@link SkuOrderIndex} built, the page of a SKU with at most
+ * <i>orders.sku-index.max-page-candidates</i> orders is sought among the ids of the index, a chunk
+ * at a time, instead of probing the lines of every order in key order until the page is full,
+ * which reads most of the table for a rare SKU. SKUs with more orders fill their pages quickly
+ * and keep the probe.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class OrderQueryRepository {
+    static final int CANDIDATE_CHUNK_SIZE = 1000;
+
+    private static final String SELECT_ORDER_KEYS = "SELECT o.dateOfSubmission, o.id FROM Order o";
+    private static final String SELECT_ROWS = """
+            SELECT o.id, o.customer.registrationCode, o.dateOfSubmission, ol.id, ol.product.skuCode, ol.quantity
+            FROM Order o LEFT JOIN o.orderLines ol
+            """;
+    private static final String ORDER_BY_ROW = " ORDER BY o.dateOfSubmission, o.id, ol.id";
+    private static final String SELECT_ORDER_ROWS = SELECT_ROWS + "WHERE o.id IN :ids" + ORDER_BY_ROW;
+    private static final String ORDER_BY_KEY = " ORDER BY o.dateOfSubmission, o.id";
+
+    private static final String AFTER_CURSOR =
+            "o.dateOfSubmission >= :afterDate AND (o.dateOfSubmission > :afterDate OR o.id > :afterId)";
+
+    private static final Comparator<OrderCursor> KEY_ORDER =
+            Comparator.comparing(OrderCursor::dateOfSubmission).thenComparing(OrderCursor::id);
+
+    private final EntityManager entityManager;
+    private final SkuOrderIndex skuOrderIndex;
+    private final int fetchSize;
+    private final int maxIndexedCandidates;
+
+    public OrderQueryRepository(
+            EntityManager entityManager,
+            SkuOrderIndex skuOrderIndex,
+            @Value("${orders.stream.fetch-size:500}") int fetchSize,
+            @Value("${orders.sku-index.max-page-candidates:10000}") int maxIndexedCandidates
+    ) {
+        if (fetchSize < 1)
+            throw new IllegalArgumentException("Fetch size must be greater than 0");
+        if (maxIndexedCandidates < 0)
+            throw new IllegalArgumentException("Max page candidates must not be negative");
+
+        this.entityManager = entityManager;
+        this.skuOrderIndex = skuOrderIndex;
+        this.fetchSize = fetchSize;
+        this.maxIndexedCandidates = maxIndexedCandidates;
+    }
+
+    public List<OrderDto> findOrdersByDateRange(LocalDate from, LocalDate to, OrderCursor after, int limit) {
+        return findPage(dateRange(from, to), after, limit);
+    }
+
+    public List<OrderDto> findOrdersByCustomerCode(Long customerCode, OrderCursor after, int limit) {
+        return findPage(List.of(
+                new Filter("o.customer.registrationCode = :customerCode", "customerCode", customerCode)
+        ), after, limit);
+    }
+
+    public List<OrderDto> findOrdersByProductSku(String skuCode, OrderCursor after, int limit) {
+        Filter hasSku = new Filter("EXISTS (SELECT 1 FROM OrderLine l WHERE l.order = o AND l.product.skuCode = :skuCode)", "skuCode", skuCode);
+        Optional<long[]> candidates = skuOrderIndex.findOrderIds(skuCode)
+                .filter(orderIds -> orderIds.length <= maxIndexedCandidates);
+        if (candidates.isEmpty())
+            return findPage(List.of(hasSku), after, limit);
+
+        // the page is among the first keys of every chunk, the SKU is rechecked as the index may
+        // name orders that lost it
+        List<OrderCursor> keys = new ArrayList<>();
+        for (List<Long> chunk : Chunks.of(Arrays.stream(candidates.get()).boxed().toList(), CANDIDATE_CHUNK_SIZE))
+            keys.addAll(findPageKeys(List.of(new Filter("o.id IN :candidateIds", "candidateIds", chunk), hasSku), after, limit));
+        return findOrders(keys.stream().sorted(KEY_ORDER).limit(limit).map(OrderCursor::id).toList());
+    }
+
+    public void forEachOrderByDateRange(LocalDate from, LocalDate to, Consumer<OrderDto> action) {
+        List<Filter> filters = dateRange(from, to);
+        StringBuilder jpql = new StringBuilder(SELECT_ROWS);
+        if (!filters.isEmpty())
+            jpql.append("WHERE ").append(String.join(" AND ", filters.stream().map(Filter::condition).toList()));
+        jpql.append(ORDER_BY_ROW);
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        filters.forEach(filter -> query.setParameter(filter.parameter(), filter.value()));
+
+        OrderDtoAssembler assembler = new OrderDtoAssembler(action);
+        try (Stream<Object[]> rows = query.getResultStream()) {
+            rows.forEach(assembler::accept);
+        }
+        assembler.finish();
+    }
+
+    private List<OrderDto> findPage(List<Filter> filters, OrderCursor after, int limit) {
+        return findOrders(findPageKeys(filters, after, limit).stream().map(OrderCursor::id).toList());
+    }
+
+    private List<OrderCursor> findPageKeys(List<Filter> filters, OrderCursor after, int limit) {
+        List<String> conditions = new ArrayList<>(filters.stream().map(Filter::condition).toList());
+        if (after != null)
+            conditions.add(AFTER_CURSOR);
+
+        StringBuilder jpql = new StringBuilder(SELECT_ORDER_KEYS);
+        if (!conditions.isEmpty())
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        jpql.append(ORDER_BY_KEY);
+
+        TypedQuery<Object[]> keyQuery = entityManager.createQuery(jpql.toString(), Object[].class).setMaxResults(limit);
+        filters.forEach(filter -> keyQuery.setParameter(filter.parameter(), filter.value()));
+        if (after != null) {
+            keyQuery.setParameter("afterDate", after.dateOfSubmission());
+            keyQuery.setParameter("afterId", after.id());
+        }
+        return keyQuery.getResultList().stream()
+                .map(key -> new OrderCursor((LocalDate) key[0], (Long) key[1]))
+                .toList();
+    }
+
+    private List<OrderDto> findOrders(List<Long> ids) {
+        if (ids.isEmpty())
+            return List.of();
+        return toOrderDtos(entityManager.createQuery(SELECT_ORDER_ROWS, Object[].class)
+                .setParameter("ids", ids)
+                .getResultList());
+    }
+
+    private static List<Filter> dateRange(LocalDate from, LocalDate to) {
+        List<Filter> filters = new ArrayList<>();
+        if (from != null)
+            filters.add(new Filter("o.dateOfSubmission >= :from", "from", from));
+        if (to != null)
+            filters.add(new Filter("o.dateOfSubmission <= :to", "to", to));
+        return filters;
+    }
+
+    static List<OrderDto> toOrderDtos(List<Object[]> rows) {
+        List<OrderDto> orders = new ArrayList<>();
+        OrderDtoAssembler assembler = new OrderDtoAssembler(orders::add);
+        rows.forEach(assembler::accept);
+        assembler.finish();
+        return orders;
+    }
+
+    private record Filter(String condition, String parameter, Object value) {
+    }
+
+    /**
+     * Groups consecutive rows of the same order into one {@link OrderDto}.
+     */
+    private static class OrderDtoAssembler {
+        private final Consumer<OrderDto> action;
+        private Object[] orderRow;
+        private List<OrderLineDto> orderLines = new ArrayList<>();
+
+        OrderDtoAssembler(Consumer<OrderDto> action) {
+            this.action = action;
+        }
+
+        void accept(Object[] row) {
+            if (orderRow != null && !Objects.equals(orderRow[0], row[0])) {
+                action.accept(toOrderDto());
+                orderLines = new ArrayList<>();
+            }
+            orderRow = row;
+            if (row[3] != null)
+                orderLines.add(new OrderLineDto((Long) row[3], (String) row[4], (Integer) row[5]));
+        }
+
+        void finish() {
+            if (orderRow != null)
+                action.accept(toOrderDto());
+            orderRow = null;
+        }
+
+        private OrderDto toOrderDto() {
+            return new OrderDto((Long) orderRow[0], (Long) orderRow[1], (LocalDate) orderRow[2], List.copyOf(orderLines));
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.ordermanagement.order;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository("orderJpaRepository")
 public interface OrderRepository extends JpaRepository<Order, Long>, OrderFinder {
@@ -13,9 +17,61 @@ public interface OrderRepository extends JpaRepository<Order, Long>, OrderFinder
     @Query("SELECT o FROM Order o WHERE o.dateOfSubmission = :date")
     List<Order> findOrdersByDate(LocalDate date);
 
-    @Query("SELECT o FROM Order o WHERE :skuCode IN (SELECT ol.product.skuCode FROM o.orderLines ol)")
+    @Query("SELECT o FROM Order o WHERE o.id IN (SELECT ol.order.id FROM OrderLine ol WHERE ol.product.skuCode = :skuCode)")
     List<Order> findOrdersByProductSku(String skuCode);
 
+    @Query("""
+            SELECT o FROM Order o
+            WHERE o.id IN :ids AND EXISTS (SELECT 1 FROM OrderLine l WHERE l.order = o AND l.product.skuCode = :skuCode)
+            """)
+    List<Order> findOrdersByIdsAndProductSku(Collection<Long> ids, String skuCode);
+
     @Query("SELECT o FROM Order o WHERE o.customer.registrationCode = :customerCode")
     List<Order> findOrdersByCustomerCode(Long customerCode);
+
+    @Query("SELECT o.version FROM Order o WHERE o.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.version = o.version + 1 WHERE o.id = :id")
+    int incrementVersion(Long id);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.version = o.version + 1 WHERE o.id = (SELECT ol.order.id FROM OrderLine ol WHERE ol.id = :orderLineId)")
+    int incrementVersionByOrderLineId(Long orderLineId);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.version = o.version + 1 WHERE o.id IN (SELECT ol.order.id FROM OrderLine ol WHERE ol.id IN :orderLineIds)")
+    int incrementVersionByOrderLineIds(Collection<Long> orderLineIds);
+
+    @Modifying
+    @Query("""
+            UPDATE Order o SET o.version = o.version + 1
+            WHERE o.id = (SELECT ol.order.id FROM OrderLine ol WHERE ol.id = :orderLineId) AND o.version = :version
+            """)
+    int incrementVersionByOrderLineId(Long orderLineId, Long version);
+
+    @Query("SELECT ol.order.version FROM OrderLine ol WHERE ol.id = :orderLineId")
+    Optional<Long> findVersionByOrderLineId(Long orderLineId);
+
+    @Query("""
+            SELECT o.id FROM Order o
+            WHERE o.dateOfSubmission BETWEEN :from AND :to
+            ORDER BY o.dateOfSubmission, o.id
+            """)
+    List<Long> findIdsByDateRange(LocalDate from, LocalDate to, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.id IN :ids")
+    int deleteByIds(Collection<Long> ids);
+
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("SELECT o.id FROM Order o WHERE o.customer.registrationCode IN :customerCodes")
+    List<Long> findIdsByCustomerCodes(Collection<Long> customerCodes);
+
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.customer.registrationCode IN :customerCodes")
+    int deleteByCustomerCodes(Collection<Long> customerCodes);
 }
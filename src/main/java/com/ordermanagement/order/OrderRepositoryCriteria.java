@@ -2,39 +2,66 @@ package com.ordermanagement.order;
 
 import com.ordermanagement.orderline.OrderLine;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
-import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
+/**
+ * Criteria implementation of {@link OrderFinder}. Both queries are built once with bind parameters
+ * and reused by every call, so a call only binds its value instead of building a new criteria tree,
+ * and the SQL is the same every time for the statement caches of the driver and the database.
+ * The orders come back read-only, they are not dirty checked at flush, and the queries run in
+ * read-only transactions so they can be served by a replica.
+ */
 @Repository("orderCriteriaRepository")
-@RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class OrderRepositoryCriteria implements OrderFinder{
     private final EntityManager entityManager;
-    public List<Order> findOrdersByProductSku(String skuCode) {
-        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Order> criteriaQuery = criteriaBuilder.createQuery(Order.class);
+    private final int fetchSize;
 
-        Root<Order> root = criteriaQuery.from(Order.class);
-        Join<Order, OrderLine> orderLineJoin = root.join("orderLines");
-        Predicate predicate = criteriaBuilder.equal(orderLineJoin.get("product").get("skuCode"), skuCode);
-        criteriaQuery.where(predicate);
+    private final CriteriaQuery<Order> byProductSku;
+    private final ParameterExpression<String> skuCode;
+    private final CriteriaQuery<Order> byCustomerCode;
+    private final ParameterExpression<Long> customerCode;
 
-        TypedQuery<Order> query = entityManager.createQuery(criteriaQuery);
-        return query.getResultList();
-    }
+    public OrderRepositoryCriteria(EntityManager entityManager, @Value("${orders.stream.fetch-size:500}") int fetchSize) {
+        if (fetchSize < 1)
+            throw new IllegalArgumentException("Fetch size must be greater than 0");
+
+        this.entityManager = entityManager;
+        this.fetchSize = fetchSize;
 
-    public List<Order> findOrdersByCustomerCode(Long registrationCode) {
         CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Order> criteriaQuery = criteriaBuilder.createQuery(Order.class);
 
-        Root<Order> root = criteriaQuery.from(Order.class);
-        Predicate predicate = criteriaBuilder.equal(root.get("customer").get("registrationCode"), registrationCode);
-        criteriaQuery.where(predicate);
+        skuCode = criteriaBuilder.parameter(String.class, "skuCode");
+        byProductSku = criteriaBuilder.createQuery(Order.class);
+        Root<Order> order = byProductSku.from(Order.class);
+        Join<Order, OrderLine> orderLineJoin = order.join("orderLines");
+        byProductSku.where(criteriaBuilder.equal(orderLineJoin.get("product").get("skuCode"), skuCode));
 
-        TypedQuery<Order> query = entityManager.createQuery(criteriaQuery);
-        return query.getResultList();
+        customerCode = criteriaBuilder.parameter(Long.class, "customerCode");
+        byCustomerCode = criteriaBuilder.createQuery(Order.class);
+        Root<Order> customerOrder = byCustomerCode.from(Order.class);
+        byCustomerCode.where(criteriaBuilder.equal(customerOrder.get("customer").get("registrationCode"), customerCode));
+    }
+
+    public List<Order> findOrdersByProductSku(String skuCode) {
+        return entityManager.createQuery(byProductSku)
+                .setParameter(this.skuCode, skuCode)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+    }
+
+    public List<Order> findOrdersByCustomerCode(Long registrationCode) {
+        return entityManager.createQuery(byCustomerCode)
+                .setParameter(customerCode, registrationCode)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
     }
 }
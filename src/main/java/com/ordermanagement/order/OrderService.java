@@ -1,64 +1,115 @@
 package com.ordermanagement.order;
 
 import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerOrderSummaryService;
 import com.ordermanagement.customer.CustomerService;
 import com.ordermanagement.exception.NotFoundException;
 import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
 import com.ordermanagement.orderline.OrderLineService;
+import com.ordermanagement.persistence.StatementCounter;
+import com.ordermanagement.product.Product;
 import com.ordermanagement.product.ProductService;
+import com.ordermanagement.product.StockService;
+import com.ordermanagement.report.DailySalesService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class OrderService {
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
 
     private final OrderRepository orderRepository;
     private final OrderFinder orderFinder;
+    private final OrderQueryRepository orderQueryRepository;
     private final CustomerService customerService;
     private final ProductService productService;
     private final OrderLineService orderLineService;
+    private final OrderDeleteService orderDeleteService;
+    private final DailySalesService dailySalesService;
+    private final CustomerOrderSummaryService customerOrderSummaryService;
+    private final SkuOrderIndex skuOrderIndex;
+    private final StockService stockService;
+    private final OrderEventService orderEventService;
+    private final StatementCounter statementCounter;
     @Autowired
-    public OrderService(OrderRepository orderRepository, @Qualifier("orderCriteriaRepository") OrderFinder orderFinder, CustomerService customerService, ProductService productService, OrderLineService orderLineService) {
+    public OrderService(OrderRepository orderRepository, @Qualifier("orderSkuIndexFinder") OrderFinder orderFinder, OrderQueryRepository orderQueryRepository, CustomerService customerService, ProductService productService, OrderLineService orderLineService, OrderDeleteService orderDeleteService, DailySalesService dailySalesService, CustomerOrderSummaryService customerOrderSummaryService, SkuOrderIndex skuOrderIndex, StockService stockService, OrderEventService orderEventService, StatementCounter statementCounter) {
         this.orderRepository = orderRepository;
         this.orderFinder = orderFinder;
+        this.orderQueryRepository = orderQueryRepository;
         this.customerService = customerService;
         this.productService = productService;
         this.orderLineService = orderLineService;
+        this.orderDeleteService = orderDeleteService;
+        this.dailySalesService = dailySalesService;
+        this.customerOrderSummaryService = customerOrderSummaryService;
+        this.skuOrderIndex = skuOrderIndex;
+        this.stockService = stockService;
+        this.orderEventService = orderEventService;
+        this.statementCounter = statementCounter;
     }
 
+    @Transactional
     public Order createOrder(OrderCreateRequest orderCreateRequest) {
+        long statementsBefore = statementCounter.current();
+
         Customer customer = customerService.findCustomerByCode(orderCreateRequest.customerCode()).orElseThrow(
                 () -> new NotFoundException("Customer not found")
         );
 
+        // customers and products come detached from the cache, references spare Hibernate a select for each of them
         Order orderData = Order.builder()
-                .customer(customer)
+                .customer(customerService.getCustomerReference(customer.getRegistrationCode()))
                 .dateOfSubmission(orderCreateRequest.dateOfSubmission())
                 .orderLines(new ArrayList<>())
                 .build();
 
+        Map<String, Product> products = productService.findProductsBySkuCodes(
+                orderCreateRequest.orderLines().stream()
+                        .map(OrderLineCreateRequest::productSkuCode)
+                        .collect(Collectors.toSet())
+        );
+
         Order order = orderRepository.save(orderData);
 
         List<OrderLine> orderLines = orderCreateRequest.orderLines().stream().map(
                 orderLineCreateRequest ->
                         OrderLine.builder()
                                 .order(order)
-                                .product(productService.findProductBySkuCode(orderLineCreateRequest.productSkuCode()).orElseThrow(
-                                        () -> new NotFoundException("Product not found")
+                                .product(productService.getProductReference(
+                                        Optional.ofNullable(products.get(orderLineCreateRequest.productSkuCode())).orElseThrow(
+                                                () -> new NotFoundException("Product not found")
+                                        ).getSkuCode()
                                 ))
                                 .quantity(orderLineCreateRequest.quantity())
                                 .build()
         ).toList();
 
-        orderLines.forEach(orderLineService::createOrderLine);
+        stockService.reserve(orderCreateRequest.orderLines().stream().collect(Collectors.groupingBy(
+                OrderLineCreateRequest::productSkuCode,
+                Collectors.summingLong(OrderLineCreateRequest::quantity)
+        )), products);
+        orderLineService.createOrderLines(orderLines);
+        dailySalesService.addOrders(List.of(order.getId()));
+        customerOrderSummaryService.addOrders(List.of(order.getId()));
+        orderEventService.ordersCreated(List.of(order.getId()));
+        skuOrderIndex.addOrder(order.getId(), products.keySet());
 
         order.setOrderLines(orderLines);
+        log.debug("Order [{}] with {} lines created in {} statements",
+                order.getId(), orderLines.size(), statementCounter.current() - statementsBefore);
         return order;
     }
 
@@ -66,6 +117,10 @@ public class OrderService {
         return orderRepository.findById(id);
     }
 
+    public Optional<Long> findOrderVersion(Long id) {
+        return orderRepository.findVersionById(id);
+    }
+
     public Order updateOrder(OrderCreateRequest orderCreateRequest) {
         if(findOrderById(orderCreateRequest.id()).isEmpty())
             throw new NotFoundException("Order not found");
@@ -73,11 +128,11 @@ public class OrderService {
     }
 
     public void deleteOrderById(Long id) {
-        if(findOrderById(id).isEmpty())
+        if(orderDeleteService.deleteOrders(List.of(id)).orders() == 0)
             throw new NotFoundException("Order not found");
-        orderRepository.deleteById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Order> findOrdersByDate(LocalDate date) {
         return orderRepository.findOrdersByDate(date);
     }
@@ -89,4 +144,38 @@ public class OrderService {
     public List<Order> findOrdersByCustomer(Long customerId) {
         return orderFinder.findOrdersByCustomerCode(customerId);
     }
+
+    public OrderPage findOrderPageByDateRange(LocalDate from, LocalDate to, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        return toPage(orderQueryRepository.findOrdersByDateRange(from, to, decodeCursor(cursor), pageSize + 1), pageSize);
+    }
+
+    public OrderPage findOrderPageByProductSku(String skuCode, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        return toPage(orderQueryRepository.findOrdersByProductSku(skuCode, decodeCursor(cursor), pageSize + 1), pageSize);
+    }
+
+    public OrderPage findOrderPageByCustomer(Long customerId, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        return toPage(orderQueryRepository.findOrdersByCustomerCode(customerId, decodeCursor(cursor), pageSize + 1), pageSize);
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null)
+            return DEFAULT_PAGE_SIZE;
+        if (limit < 1)
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static OrderCursor decodeCursor(String cursor) {
+        return cursor == null || cursor.isEmpty() ? null : OrderCursor.decode(cursor);
+    }
+
+    private static OrderPage toPage(List<OrderDto> orders, int pageSize) {
+        if (orders.size() <= pageSize)
+            return new OrderPage(orders, null);
+        List<OrderDto> page = orders.subList(0, pageSize);
+        return new OrderPage(List.copyOf(page), OrderCursor.of(page.get(pageSize - 1)).encode());
+    }
 }
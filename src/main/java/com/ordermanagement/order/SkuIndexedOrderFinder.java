@@ -0,0 +1,57 @@
+package com.ordermanagement.order;
+
+import com.ordermanagement.persistence.Chunks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link OrderFinder} that resolves the orders of a SKU from the {@link SkuOrderIndex} and fetches
+ * them by id in batches, rechecking the SKU through the (order, product) index of the order lines.
+ * Until the index is built, and for customer lookups, it asks the Criteria implementation.
+ * All batches of a lookup are read in one read-only transaction.
+ */
+@Repository("orderSkuIndexFinder")
+@Transactional(readOnly = true)
+public class SkuIndexedOrderFinder implements OrderFinder {
+    static final int FETCH_BATCH_SIZE = 1000;
+
+    private final SkuOrderIndex skuOrderIndex;
+    private final OrderRepository orderRepository;
+    private final OrderFinder fallback;
+
+    @Autowired
+    public SkuIndexedOrderFinder(
+            SkuOrderIndex skuOrderIndex,
+            OrderRepository orderRepository,
+            @Qualifier("orderCriteriaRepository") OrderFinder fallback
+    ) {
+        this.skuOrderIndex = skuOrderIndex;
+        this.orderRepository = orderRepository;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public List<Order> findOrdersByProductSku(String skuCode) {
+        return skuOrderIndex.findOrderIds(skuCode)
+                .map(orderIds -> findOrdersByIds(orderIds, skuCode))
+                .orElseGet(() -> fallback.findOrdersByProductSku(skuCode));
+    }
+
+    @Override
+    public List<Order> findOrdersByCustomerCode(Long registrationCode) {
+        return fallback.findOrdersByCustomerCode(registrationCode);
+    }
+
+    private List<Order> findOrdersByIds(long[] orderIds, String skuCode) {
+        List<Order> orders = new ArrayList<>(orderIds.length);
+        for (List<Long> batch : Chunks.of(Arrays.stream(orderIds).boxed().toList(), FETCH_BATCH_SIZE))
+            orders.addAll(orderRepository.findOrdersByIdsAndProductSku(batch, skuCode));
+        return orders;
+    }
+}
@@ -0,0 +1,165 @@
+package com.ordermanagement.order;
+
+import com.ordermanagement.persistence.AfterCommit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-process inverted index from SKU code to a compressed bitmap of the ids of the orders
+ * that have a line with it, enabled by <i>orders.sku-index.enabled</i>. It is built by streaming
+ * the order lines once the application is ready and follows order creates and deletes after they
+ * commit, so a rolled back write never shows up in it.
+ * The index may name orders that no longer have the SKU, e.g. after a line delete or when an order
+ * was deleted while the index was being built, and callers have to recheck the SKU when they fetch
+ * the orders. It never misses an order once built.
+ */
+@Slf4j
+@Component
+public class SkuOrderIndex implements MeterBinder {
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final int fetchSize;
+    private final Map<String, Roaring64NavigableMap> orderIdsBySku = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    @Autowired
+    public SkuOrderIndex(
+            EntityManager entityManager,
+            TransactionTemplate transactionTemplate,
+            @Value("${orders.sku-index.enabled:false}") boolean enabled,
+            @Value("${orders.stream.fetch-size:500}") int fetchSize
+    ) {
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled)
+            return;
+
+        ready = false;
+        orderIdsBySku.clear();
+        long start = System.nanoTime();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = entityManager
+                    .createQuery("SELECT ol.product.skuCode, ol.order.id FROM OrderLine ol", Object[].class)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .getResultStream()) {
+                rows.forEach(row -> add((String) row[0], (Long) row[1]));
+            }
+        });
+        orderIdsBySku.values().forEach(orderIds -> {
+            synchronized (orderIds) {
+                orderIds.runOptimize();
+            }
+        });
+        ready = true;
+
+        long entries = entries();
+        long bytes = sizeInBytes();
+        log.info("Indexed {} order lines of {} SKUs in {} ms, {} bytes ({} per line)",
+                entries, orderIdsBySku.size(), (System.nanoTime() - start) / 1_000_000, bytes,
+                entries == 0 ? 0 : String.format("%.1f", (double) bytes / entries));
+    }
+
+    /**
+     * The ids of the orders that may have a line with the SKU, in ascending order, or empty while
+     * the index is disabled or not built yet.
+     */
+    public Optional<long[]> findOrderIds(String skuCode) {
+        if (!ready)
+            return Optional.empty();
+
+        Roaring64NavigableMap orderIds = orderIdsBySku.get(skuCode);
+        if (orderIds == null)
+            return Optional.of(new long[0]);
+        synchronized (orderIds) {
+            return Optional.of(orderIds.toArray());
+        }
+    }
+
+    public void addOrder(Long orderId, Collection<String> skuCodes) {
+        if (enabled)
+            AfterCommit.run(() -> skuCodes.forEach(skuCode -> add(skuCode, orderId)));
+    }
+
+    public void removeOrders(Collection<Long> orderIds) {
+        if (!enabled || orderIds.isEmpty())
+            return;
+
+        Roaring64NavigableMap removed = new Roaring64NavigableMap();
+        orderIds.forEach(removed::addLong);
+        AfterCommit.run(() -> orderIdsBySku.values().forEach(ids -> {
+            synchronized (ids) {
+                ids.andNot(removed);
+            }
+        }));
+    }
+
+    private void add(String skuCode, long orderId) {
+        Roaring64NavigableMap orderIds = orderIdsBySku.computeIfAbsent(skuCode, sku -> new Roaring64NavigableMap());
+        synchronized (orderIds) {
+            orderIds.addLong(orderId);
+        }
+    }
+
+    long entries() {
+        long entries = 0;
+        for (Roaring64NavigableMap orderIds : orderIdsBySku.values()) {
+            synchronized (orderIds) {
+                entries += orderIds.getLongCardinality();
+            }
+        }
+        return entries;
+    }
+
+    long sizeInBytes() {
+        long bytes = 0;
+        for (Roaring64NavigableMap orderIds : orderIdsBySku.values()) {
+            synchronized (orderIds) {
+                bytes += orderIds.getLongSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!enabled)
+            return;
+
+        Gauge.builder("order.sku.index.entries", this, SkuOrderIndex::entries)
+                .description("Distinct (SKU, order) pairs in the SKU index")
+                .register(registry);
+        Gauge.builder("order.sku.index.size", this, SkuOrderIndex::sizeInBytes)
+                .description("Serialized size of the SKU index bitmaps")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
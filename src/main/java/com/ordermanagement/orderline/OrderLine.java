@@ -18,10 +18,11 @@ import lombok.*;
 @EqualsAndHashCode
 public class OrderLine {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_line_seq")
+    @SequenceGenerator(name = "order_line_seq", sequenceName = "order_line_seq", allocationSize = 50)
     private Long id;
 
-    @OneToOne
+    @ManyToOne
     @JoinColumn(name = "product_sku_code", nullable = false)
     private Product product;
 
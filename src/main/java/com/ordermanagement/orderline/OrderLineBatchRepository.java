@@ -0,0 +1,30 @@
+package com.ordermanagement.orderline;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Writes many quantities with one prepared statement sent as a single JDBC batch, on the
+ * connection of the surrounding transaction.
+ */
+@Repository
+public class OrderLineBatchRepository {
+    private static final String UPDATE_QUANTITY = "UPDATE order_line SET quantity = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderLineBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the rows changed by every update, in the order of {@code updates}
+     */
+    public int[] updateQuantities(List<OrderLineQuantityUpdate> updates) {
+        return jdbcTemplate.batchUpdate(UPDATE_QUANTITY, updates.stream()
+                .map(update -> new Object[]{update.quantity(), update.id()})
+                .toList());
+    }
+}
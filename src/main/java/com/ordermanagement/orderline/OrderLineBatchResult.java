@@ -0,0 +1,30 @@
+package com.ordermanagement.orderline;
+
+public record OrderLineBatchResult(
+        Long id,
+        Status status,
+        String error
+) {
+    public enum Status {
+        UPDATED,
+        REJECTED,
+        NOT_FOUND,
+        FAILED
+    }
+
+    public static OrderLineBatchResult updated(Long id) {
+        return new OrderLineBatchResult(id, Status.UPDATED, null);
+    }
+
+    public static OrderLineBatchResult rejected(Long id, String error) {
+        return new OrderLineBatchResult(id, Status.REJECTED, error);
+    }
+
+    public static OrderLineBatchResult notFound(Long id) {
+        return new OrderLineBatchResult(id, Status.NOT_FOUND, "Order line not found");
+    }
+
+    public static OrderLineBatchResult failed(Long id, String error) {
+        return new OrderLineBatchResult(id, Status.FAILED, error);
+    }
+}
@@ -0,0 +1,153 @@
+package com.ordermanagement.orderline;
+
+import com.ordermanagement.customer.CustomerOrderSummaryService;
+import com.ordermanagement.exception.InsufficientStockException;
+import com.ordermanagement.order.OrderEventService;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.product.ProductService;
+import com.ordermanagement.product.StockService;
+import com.ordermanagement.report.DailySalesService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sets the quantities of many order lines in one transaction. The updates are validated in memory,
+ * the accepted ones are written as one batched UPDATE, and the orders and rollups are kept in step
+ * with a fixed number of set-based statements: the versions of the orders are bumped first, as for
+ * a single line, then the lines are subtracted from the rollups before they are written and added
+ * back after. The statements sent do not depend on the number of lines, only the batch grows.
+ * The changes of the quantities are netted per product, increases reserve stock and decreases give
+ * it back. A product without the stock for its increase rolls the whole batch back, and every line
+ * of it is rejected.
+ */
+@Slf4j
+@Service
+public class OrderLineBatchService {
+    private final OrderLineBatchRepository orderLineBatchRepository;
+    private final OrderLineRepository orderLineRepository;
+    private final OrderRepository orderRepository;
+    private final DailySalesService dailySalesService;
+    private final CustomerOrderSummaryService customerOrderSummaryService;
+    private final OrderEventService orderEventService;
+    private final ProductService productService;
+    private final StockService stockService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxSize;
+
+    @Autowired
+    public OrderLineBatchService(
+            OrderLineBatchRepository orderLineBatchRepository,
+            OrderLineRepository orderLineRepository,
+            OrderRepository orderRepository,
+            DailySalesService dailySalesService,
+            CustomerOrderSummaryService customerOrderSummaryService,
+            OrderEventService orderEventService,
+            ProductService productService,
+            StockService stockService,
+            TransactionTemplate transactionTemplate,
+            @Value("${order-lines.batch.max-size:1000}") int maxSize
+    ) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("Max size must be greater than 0");
+
+        this.orderLineBatchRepository = orderLineBatchRepository;
+        this.orderLineRepository = orderLineRepository;
+        this.orderRepository = orderRepository;
+        this.dailySalesService = dailySalesService;
+        this.customerOrderSummaryService = customerOrderSummaryService;
+        this.orderEventService = orderEventService;
+        this.productService = productService;
+        this.stockService = stockService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the outcome of every update, in the order of {@code updates}
+     */
+    public List<OrderLineBatchResult> updateQuantities(List<OrderLineQuantityUpdate> updates) {
+        if (updates.size() > maxSize)
+            throw new IllegalArgumentException("At most %d order lines can be updated at once".formatted(maxSize));
+
+        OrderLineBatchResult[] results = new OrderLineBatchResult[updates.size()];
+        Map<Long, Integer> occurrences = new HashMap<>();
+        for (OrderLineQuantityUpdate update : updates)
+            if (update != null && update.id() != null)
+                occurrences.merge(update.id(), 1, Integer::sum);
+
+        List<Integer> accepted = new ArrayList<>(updates.size());
+        List<OrderLineQuantityUpdate> acceptedUpdates = new ArrayList<>(updates.size());
+        for (int i = 0; i < updates.size(); i++) {
+            OrderLineQuantityUpdate update = updates.get(i);
+            String error = validate(update, occurrences);
+            if (error != null) {
+                results[i] = OrderLineBatchResult.rejected(update == null ? null : update.id(), error);
+                continue;
+            }
+            accepted.add(i);
+            acceptedUpdates.add(update);
+        }
+
+        if (!acceptedUpdates.isEmpty()) {
+            try {
+                int[] rows = transactionTemplate.execute(status -> apply(acceptedUpdates));
+                for (int i = 0; i < accepted.size(); i++) {
+                    Long id = acceptedUpdates.get(i).id();
+                    results[accepted.get(i)] = rows[i] == 0 ? OrderLineBatchResult.notFound(id) : OrderLineBatchResult.updated(id);
+                }
+            } catch (InsufficientStockException e) {
+                for (int i = 0; i < accepted.size(); i++)
+                    results[accepted.get(i)] = OrderLineBatchResult.rejected(acceptedUpdates.get(i).id(), e.getMessage());
+            } catch (RuntimeException e) {
+                log.warn("Failed to update the quantities of {} order lines", acceptedUpdates.size(), e);
+                for (int i = 0; i < accepted.size(); i++)
+                    results[accepted.get(i)] = OrderLineBatchResult.failed(acceptedUpdates.get(i).id(), e.getMessage());
+            }
+        }
+
+        return List.of(results);
+    }
+
+    private int[] apply(List<OrderLineQuantityUpdate> updates) {
+        List<Long> ids = updates.stream().map(OrderLineQuantityUpdate::id).toList();
+
+        orderRepository.incrementVersionByOrderLineIds(ids);
+        adjustStock(updates);
+        orderEventService.orderLinesUpdated(ids);
+        dailySalesService.subtractOrderLines(ids);
+        customerOrderSummaryService.subtractOrderLines(ids);
+        int[] rows = orderLineBatchRepository.updateQuantities(updates);
+        dailySalesService.addOrderLines(ids);
+        customerOrderSummaryService.addOrderLines(ids);
+        return rows;
+    }
+
+    private void adjustStock(List<OrderLineQuantityUpdate> updates) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        updates.forEach(update -> quantities.put(update.id(), update.quantity()));
+        Map<String, Long> deltas = new HashMap<>();
+        for (OrderLineDto orderLine : orderLineRepository.findDtosByIds(quantities.keySet()))
+            deltas.merge(orderLine.productSkuCode(), (long) quantities.get(orderLine.id()) - orderLine.quantity(), Long::sum);
+        deltas.values().removeIf(delta -> delta == 0);
+        if (!deltas.isEmpty())
+            stockService.adjust(deltas, productService.findProductsBySkuCodes(deltas.keySet()));
+    }
+
+    private String validate(OrderLineQuantityUpdate update, Map<Long, Integer> occurrences) {
+        if (update == null || update.id() == null)
+            return "Order line id is required";
+        if (occurrences.get(update.id()) > 1)
+            return "Order line appears more than once in the batch";
+        if (update.quantity() == null || update.quantity() < 1)
+            return "Quantity must be greater than 0";
+        return null;
+    }
+}
@@ -1,28 +1,60 @@
 package com.ordermanagement.orderline;
 
+import com.ordermanagement.exception.ConflictException;
+import com.ordermanagement.exception.InsufficientStockException;
 import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.web.ETags;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/order-line")
 public class OrderLineController {
     private final OrderLineService orderLineService;
+    private final OrderLineBatchService orderLineBatchService;
 
-    public OrderLineController(OrderLineService orderLineService) {
+    public OrderLineController(OrderLineService orderLineService, OrderLineBatchService orderLineBatchService) {
         this.orderLineService = orderLineService;
+        this.orderLineBatchService = orderLineBatchService;
     }
 
+    /**
+     * @param quantity the new quantity, or a signed amount to add to the current one such as {@code +3}
+     * @param ifMatch ETag of the order of the line, the change is refused with CONFLICT when the order changed since
+     *                or when the product does not have the stock for an increase
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<Object> updateQuantity(@PathVariable("id") Long id, @RequestBody Integer quantity) {
+    public ResponseEntity<Object> updateQuantity(
+            @PathVariable("id") Long id,
+            @RequestBody String quantity,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
         try {
-            orderLineService.updateQuantity(id, quantity);
+            orderLineService.updateQuantity(id, QuantityChange.parse(quantity), ETags.version(ifMatch));
         } catch (Exception e) {
             if (e instanceof NotFoundException)
                 return new ResponseEntity<>(e, HttpStatus.NOT_FOUND);
+            if (e instanceof ConflictException || e instanceof InsufficientStockException)
+                return new ResponseEntity<>(e, HttpStatus.CONFLICT);
             return new ResponseEntity<>(e, HttpStatus.BAD_REQUEST);
         }
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Sets the quantities of many lines in one transaction and answers with the outcome of every one
+     * of them, in the order they were sent.
+     */
+    @PatchMapping
+    public ResponseEntity<Object> updateQuantities(@RequestBody List<OrderLineQuantityUpdate> updates) {
+        try {
+            return ResponseEntity.ok(orderLineBatchService.updateQuantities(updates));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e, HttpStatus.BAD_REQUEST);
+        }
+    }
 }
@@ -0,0 +1,7 @@
+package com.ordermanagement.orderline;
+
+public record OrderLineQuantityUpdate(
+        Long id,
+        Integer quantity
+) {
+}
@@ -1,8 +1,48 @@
 package com.ordermanagement.orderline;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface OrderLineRepository extends JpaRepository<OrderLine, Long> {
+
+    @Modifying
+    @Query("UPDATE OrderLine ol SET ol.quantity = :quantity WHERE ol.id = :id")
+    int updateQuantity(Long id, Integer quantity);
+
+    @Modifying
+    @Query("UPDATE OrderLine ol SET ol.quantity = ol.quantity + :delta WHERE ol.id = :id AND ol.quantity + :delta >= 1")
+    int addQuantity(Long id, Integer delta);
+
+    @Query("SELECT new com.ordermanagement.orderline.OrderLineDto(ol.id, ol.product.skuCode, ol.quantity) FROM OrderLine ol WHERE ol.id IN :ids")
+    List<OrderLineDto> findDtosByIds(Collection<Long> ids);
+
+    @Query("""
+            SELECT new com.ordermanagement.orderline.SkuQuantity(ol.product.skuCode, SUM(ol.quantity))
+            FROM OrderLine ol
+            WHERE ol.order.id IN :orderIds
+            GROUP BY ol.product.skuCode
+            """)
+    List<SkuQuantity> sumQuantitiesByOrderIds(Collection<Long> orderIds);
+
+    @Query("""
+            SELECT new com.ordermanagement.orderline.SkuQuantity(ol.product.skuCode, SUM(ol.quantity))
+            FROM OrderLine ol
+            WHERE ol.order.id IN (SELECT o.id FROM Order o WHERE o.customer.registrationCode IN :customerCodes)
+            GROUP BY ol.product.skuCode
+            """)
+    List<SkuQuantity> sumQuantitiesByCustomerCodes(Collection<Long> customerCodes);
+
+    @Modifying
+    @Query("DELETE FROM OrderLine ol WHERE ol.order.id IN :orderIds")
+    int deleteByOrderIds(Collection<Long> orderIds);
+
+    @Modifying
+    @Query("DELETE FROM OrderLine ol WHERE ol.order.id IN (SELECT o.id FROM Order o WHERE o.customer.registrationCode IN :customerCodes)")
+    int deleteByCustomerCodes(Collection<Long> customerCodes);
 }
@@ -1,47 +1,127 @@
 package com.ordermanagement.orderline;
 
-import com.ordermanagement.exception.IdAlreadyInUseException;
+import com.ordermanagement.customer.CustomerOrderSummaryService;
+import com.ordermanagement.exception.ConflictException;
+import com.ordermanagement.exception.InsufficientStockException;
 import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.order.OrderEventService;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.product.ProductService;
+import com.ordermanagement.product.StockService;
+import com.ordermanagement.report.DailySalesService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class OrderLineService {
     private final OrderLineRepository orderLineRepository;
+    private final OrderRepository orderRepository;
+    private final DailySalesService dailySalesService;
+    private final CustomerOrderSummaryService customerOrderSummaryService;
+    private final OrderEventService orderEventService;
+    private final ProductService productService;
+    private final StockService stockService;
     @Autowired
-    public OrderLineService(OrderLineRepository orderLineRepository) {
+    public OrderLineService(OrderLineRepository orderLineRepository, OrderRepository orderRepository, DailySalesService dailySalesService, CustomerOrderSummaryService customerOrderSummaryService, OrderEventService orderEventService, ProductService productService, StockService stockService) {
         this.orderLineRepository = orderLineRepository;
+        this.orderRepository = orderRepository;
+        this.dailySalesService = dailySalesService;
+        this.customerOrderSummaryService = customerOrderSummaryService;
+        this.orderEventService = orderEventService;
+        this.productService = productService;
+        this.stockService = stockService;
     }
-    public OrderLine createOrderLine(OrderLine orderLine) {
-        if (orderLineRepository.findById(orderLine.getId()).isPresent())
-            throw new IdAlreadyInUseException("Order line [%d] already exists".formatted(orderLine.getId()));
-
-        if(orderLine.getQuantity() < 1)
+    public List<OrderLine> createOrderLines(List<OrderLine> orderLines) {
+        if(orderLines.stream().anyMatch(orderLine -> orderLine.getQuantity() < 1))
             throw new IllegalArgumentException("Quantity must be greater than 0");
 
-        return orderLineRepository.save(orderLine);
+        return orderLineRepository.saveAllAndFlush(orderLines);
     }
     public Optional<OrderLine> findOrderLineById(Long id) {
         return orderLineRepository.findById(id);
     }
+    @Transactional
     public void deleteOrderLine(Long id) {
-        if (orderLineRepository.findById(id).isEmpty())
-            throw new NotFoundException("Order line [%d] not found".formatted(id));
+        OrderLine orderLine = orderLineRepository.findById(id).orElseThrow(
+                () -> new NotFoundException("Order line [%d] not found".formatted(id))
+        );
 
+        String skuCode = orderLine.getProduct().getSkuCode();
+        stockService.giveBack(Map.of(skuCode, orderLine.getQuantity().longValue()), productService.findProductsBySkuCodes(Set.of(skuCode)));
+        dailySalesService.subtractOrderLine(id);
+        customerOrderSummaryService.subtractOrderLine(id);
         orderLineRepository.deleteById(id);
+        orderRepository.incrementVersion(orderLine.getOrder().getId());
+        orderEventService.ordersUpdated(List.of(orderLine.getOrder().getId()));
     }
 
+    @Transactional
     public void updateQuantity(Long id, Integer quantity) {
-        OrderLine orderLine = orderLineRepository.findById(id).orElseThrow(
-                () -> new NotFoundException("Order line [%d] not found".formatted(id))
-        );
+        updateQuantity(id, QuantityChange.to(quantity), null);
+    }
 
-        if(quantity < 1)
+    /**
+     * Changes the quantity of a line with one conditional UPDATE, a relative change is added to the
+     * quantity in the database and can not be lost to a concurrent one. The version of the order is
+     * bumped first, which makes its row the point where writers of its lines queue, so the rollups
+     * and the stock read a quantity no other transaction is changing. An increase reserves stock,
+     * a decrease gives it back.
+     *
+     * @param expectedVersion version of the order the caller has seen, null to skip the check
+     * @throws ConflictException when the order is no longer at {@code expectedVersion}
+     * @throws InsufficientStockException when the product does not have enough stock left
+     */
+    @Transactional
+    public void updateQuantity(Long id, QuantityChange change, Long expectedVersion) {
+        if(!change.relative() && change.value() < 1)
             throw new IllegalArgumentException("Quantity must be greater than 0");
 
-        orderLine.setQuantity(quantity);
-        orderLineRepository.save(orderLine);
+        incrementOrderVersion(id, expectedVersion);
+        adjustStock(id, change);
+        orderEventService.orderLinesUpdated(List.of(id));
+        if (change.relative()) {
+            dailySalesService.addQuantity(id, change.value());
+            customerOrderSummaryService.addQuantity(id, change.value());
+            // the rollups are rolled back with the line when the quantity would drop below 1
+            if (orderLineRepository.addQuantity(id, change.value()) == 0)
+                throw new IllegalArgumentException("Quantity must be greater than 0");
+        } else {
+            // the rollups read the old quantity, so they go first
+            dailySalesService.changeQuantity(id, change.value());
+            customerOrderSummaryService.changeQuantity(id, change.value());
+            if (orderLineRepository.updateQuantity(id, change.value()) == 0)
+                throw new NotFoundException("Order line [%d] not found".formatted(id));
+        }
+    }
+
+    private void adjustStock(Long id, QuantityChange change) {
+        // a missing line is reported by its update
+        for (OrderLineDto orderLine : orderLineRepository.findDtosByIds(List.of(id))) {
+            long delta = change.relative() ? change.value() : change.value() - orderLine.quantity();
+            if (delta != 0)
+                stockService.adjust(Map.of(orderLine.productSkuCode(), delta),
+                        productService.findProductsBySkuCodes(Set.of(orderLine.productSkuCode())));
+        }
+    }
+
+    private void incrementOrderVersion(Long orderLineId, Long expectedVersion) {
+        if (expectedVersion == null) {
+            if (orderRepository.incrementVersionByOrderLineId(orderLineId) == 0)
+                throw new NotFoundException("Order line [%d] not found".formatted(orderLineId));
+            return;
+        }
+
+        if (orderRepository.incrementVersionByOrderLineId(orderLineId, expectedVersion) == 0) {
+            Long version = orderRepository.findVersionByOrderLineId(orderLineId).orElseThrow(
+                    () -> new NotFoundException("Order line [%d] not found".formatted(orderLineId))
+            );
+            throw new ConflictException("Order of line [%d] is at version %d, not %d".formatted(orderLineId, version, expectedVersion));
+        }
     }
 }
@@ -0,0 +1,36 @@
+package com.ordermanagement.orderline;
+
+/**
+ * A new quantity for an order line, or a signed amount to add to its current one.
+ *
+ * @param relative whether {@code value} is added to the current quantity
+ */
+public record QuantityChange(int value, boolean relative) {
+
+    public static QuantityChange to(int quantity) {
+        return new QuantityChange(quantity, false);
+    }
+
+    public static QuantityChange by(int delta) {
+        return new QuantityChange(delta, true);
+    }
+
+    /**
+     * Reads a request body such as {@code 5}, {@code +3} or {@code -2}, optionally quoted as a JSON
+     * string. A sign makes the change relative.
+     */
+    public static QuantityChange parse(String text) {
+        if (text == null)
+            throw new IllegalArgumentException("Quantity is required");
+        String value = text.trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\""))
+            value = value.substring(1, value.length() - 1).trim();
+
+        try {
+            int number = Integer.parseInt(value);
+            return value.startsWith("+") || value.startsWith("-") ? by(number) : to(number);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid quantity [%s]".formatted(value));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ordermanagement.orderline;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Total quantity of a product over a set of order lines.
+ */
+public record SkuQuantity(
+        String skuCode,
+        Long quantity
+) {
+
+    public static Map<String, Long> toMap(List<SkuQuantity> quantities) {
+        return quantities.stream().collect(Collectors.toMap(SkuQuantity::skuCode, SkuQuantity::quantity));
+    }
+}
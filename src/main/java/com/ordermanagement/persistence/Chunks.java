@@ -0,0 +1,31 @@
+package com.ordermanagement.persistence;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Splits keys into chunks for set-based statements, so an IN list never grows past the chunk size.
+ */
+public final class Chunks {
+
+    private Chunks() {
+    }
+
+    /**
+     * Distinct, non-null values in encounter order, split into chunks of at most {@code size}.
+     */
+    public static <T> List<List<T>> of(Collection<T> values, int size) {
+        if (size < 1)
+            throw new IllegalArgumentException("Chunk size must be greater than 0");
+
+        List<T> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        distinct.removeIf(Objects::isNull);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += size)
+            chunks.add(distinct.subList(from, Math.min(from + size, distinct.size())));
+        return chunks;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ordermanagement.persistence;
+
+import java.time.LocalDate;
+
+/**
+ * Closes the open ends of optional date ranges with dates every database can store, so a range
+ * query binds two dates and stays a plain index range scan. A condition like
+ * {@code (:from IS NULL OR date >= :from)} cannot use an index.
+ */
+public final class DateRanges {
+    public static final LocalDate FIRST_DAY = LocalDate.of(1, 1, 1);
+    public static final LocalDate LAST_DAY = LocalDate.of(9999, 12, 31);
+
+    private DateRanges() {
+    }
+
+    public static LocalDate fromOrFirstDay(LocalDate from) {
+        return from != null ? from : FIRST_DAY;
+    }
+
+    public static LocalDate toOrLastDay(LocalDate to) {
+        return to != null ? to : LAST_DAY;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ordermanagement.persistence;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the entities Hibernate loads on the current thread, whether by lookup, query or lazy
+ * initialization. Scalar projections and second hits on the persistence context load nothing.
+ */
+@Component
+public class EntityLoadCounter implements Interceptor {
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        COUNT.get()[0]++;
+        return false;
+    }
+
+    public long current() {
+        return COUNT.get()[0];
+    }
+}
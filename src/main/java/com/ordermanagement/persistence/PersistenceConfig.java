@@ -0,0 +1,26 @@
+package com.ordermanagement.persistence;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PersistenceConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(StatementCounter statementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityLoadInterceptorCustomizer(EntityLoadCounter entityLoadCounter) {
+        return properties -> properties.put(AvailableSettings.INTERCEPTOR, entityLoadCounter);
+    }
+
+    @Bean
+    static SlowQueryDataSourcePostProcessor slowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new SlowQueryDataSourcePostProcessor(slowQueryLog);
+    }
+}
@@ -0,0 +1,29 @@
+package com.ordermanagement.persistence;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds the client of a request for {@link ReplicaRouter}, so a client reads its own writes from the
+ * primary. Clients are told apart by the {@value #CLIENT_HEADER} header, or by their address without it.
+ */
+class ReplicaClientFilter extends OncePerRequestFilter {
+    static final String CLIENT_HEADER = "X-Client-Id";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String client = request.getHeader(CLIENT_HEADER);
+        ReplicaRouter.bindClient(client == null || client.isBlank() ? request.getRemoteAddr() : client);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRouter.unbindClient();
+        }
+    }
+}
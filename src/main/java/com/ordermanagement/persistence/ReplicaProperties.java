@@ -0,0 +1,33 @@
+package com.ordermanagement.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas of the primary database, e.g.
+ * {@code datasource.replicas.pools[0].url=jdbc:postgresql://replica-1:5432/ordersystem}. A pool without
+ * credentials uses the ones of the primary.
+ */
+@ConfigurationProperties(prefix = "datasource.replicas")
+public record ReplicaProperties(
+        boolean enabled,
+        List<Pool> pools,
+        Duration readYourWritesWindow,
+        Duration healthCheckInterval,
+        Duration connectionTimeout,
+        Integer maximumPoolSize
+) {
+
+    public ReplicaProperties {
+        pools = pools == null ? List.of() : pools;
+        readYourWritesWindow = readYourWritesWindow == null ? Duration.ofSeconds(5) : readYourWritesWindow;
+        healthCheckInterval = healthCheckInterval == null ? Duration.ofSeconds(5) : healthCheckInterval;
+        connectionTimeout = connectionTimeout == null ? Duration.ofSeconds(1) : connectionTimeout;
+        maximumPoolSize = maximumPoolSize == null ? 10 : maximumPoolSize;
+    }
+
+    public record Pool(String url, String username, String password) {
+    }
+}
@@ -0,0 +1,187 @@
+package com.ordermanagement.persistence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the pool a new connection comes from. Connections for read-only transactions come from the
+ * replicas in turn, everything else, and reads of a client that committed a write within the last
+ * <i>datasource.replicas.read-your-writes-window</i>, come from the primary. The decision is taken
+ * when the connection is opened, so {@link ReplicaRoutingDataSource} has to sit behind a lazy
+ * proxy that opens it once the transaction is set up.
+ * A replica that fails to hand out a connection is ejected and the next one is tried, falling back
+ * to the primary. Ejected replicas are readmitted by the periodic health check once they answer.
+ */
+@Slf4j
+public class ReplicaRouter implements MeterBinder, AutoCloseable {
+    private static final ThreadLocal<String> CLIENT = new ThreadLocal<>();
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Cache<String, Boolean> recentWriters;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecks;
+    private Counter ejections;
+
+    public ReplicaRouter(
+            HikariDataSource primary,
+            List<HikariDataSource> replicas,
+            Duration readYourWritesWindow,
+            Duration healthCheckInterval
+    ) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+        this.healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = healthCheckInterval.toMillis();
+        healthChecks.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Binds the client whose writes the reads of the current thread have to see, until
+     * {@link #unbindClient()}.
+     */
+    public static void bindClient(String client) {
+        CLIENT.set(client);
+    }
+
+    public static void unbindClient() {
+        CLIENT.remove();
+    }
+
+    Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (!wroteRecently()) {
+                Connection connection = replicaConnection();
+                if (connection != null)
+                    return connection;
+            }
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            rememberWriteOnCommit();
+        }
+        return primary.getConnection();
+    }
+
+    public int healthyReplicas() {
+        return (int) replicas.stream().filter(Replica::isHealthy).count();
+    }
+
+    private Connection replicaConnection() {
+        for (int tries = 0; tries < replicas.size(); tries++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (!replica.isHealthy())
+                continue;
+            try {
+                return replica.dataSource().getConnection();
+            } catch (SQLException | RuntimeException e) {
+                eject(replica, e);
+            }
+        }
+        return null;
+    }
+
+    private boolean wroteRecently() {
+        String client = CLIENT.get();
+        return client != null && recentWriters.getIfPresent(client) != null;
+    }
+
+    private void rememberWriteOnCommit() {
+        String client = CLIENT.get();
+        if (client == null)
+            return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(client, Boolean.TRUE);
+            }
+        });
+    }
+
+    private void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean valid;
+            try (Connection connection = replica.dataSource().getConnection()) {
+                valid = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException | RuntimeException e) {
+                valid = false;
+            }
+            if (valid && !replica.isHealthy()) {
+                replica.setHealthy(true);
+                log.info("Replica [{}] readmitted", replica.dataSource().getPoolName());
+            } else if (!valid && replica.isHealthy()) {
+                eject(replica, null);
+            }
+        }
+    }
+
+    private void eject(Replica replica, Exception cause) {
+        replica.setHealthy(false);
+        if (ejections != null)
+            ejections.increment();
+        log.warn("Replica [{}] ejected: {}", replica.dataSource().getPoolName(),
+                cause == null ? "failed the health check" : cause.getMessage());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("datasource.replicas.healthy", this, ReplicaRouter::healthyReplicas)
+                .description("Replicas that read-only transactions are routed to")
+                .register(registry);
+        ejections = Counter.builder("datasource.replicas.ejections")
+                .description("Replicas taken out of the rotation after a failure")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        healthChecks.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource().close());
+        primary.close();
+    }
+
+    private static class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        HikariDataSource dataSource() {
+            return dataSource;
+        }
+
+        boolean isHealthy() {
+            return healthy;
+        }
+
+        void setHealthy(boolean healthy) {
+            this.healthy = healthy;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.ordermanagement.persistence;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the pool of <i>spring.datasource</i> with one that routes read-only transactions to the
+ * replicas, enabled by <i>datasource.replicas.enabled</i>. The primary pool keeps its
+ * <i>spring.datasource.hikari</i> settings, replica pools are read-only and give up on a connection
+ * after <i>datasource.replicas.connection-timeout</i> so a dead replica is ejected quickly.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replicas", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaRouter replicaRouter(
+            DataSourceProperties dataSourceProperties,
+            ReplicaProperties replicaProperties,
+            Environment environment,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null)
+            primary.setPoolName("primary");
+        withMetrics(primary, meterRegistry);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.pools().size(); i++) {
+            ReplicaProperties.Pool pool = replicaProperties.pools().get(i);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(pool.url());
+            replica.setUsername(pool.username() == null ? dataSourceProperties.determineUsername() : pool.username());
+            replica.setPassword(pool.password() == null ? dataSourceProperties.determinePassword() : pool.password());
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(replicaProperties.maximumPoolSize());
+            replica.setConnectionTimeout(replicaProperties.connectionTimeout().toMillis());
+            // a replica that is down at startup is ejected instead of failing the application
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(withMetrics(replica, meterRegistry));
+        }
+
+        return new ReplicaRouter(
+                primary, replicas, replicaProperties.readYourWritesWindow(), replicaProperties.healthCheckInterval()
+        );
+    }
+
+    /**
+     * The lazy proxy opens the routed connection at the first statement, once the transaction is
+     * marked read-only, and replays the settings the transaction manager applied before.
+     */
+    @Bean
+    public DataSource dataSource(ReplicaRouter replicaRouter) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicaRouter));
+    }
+
+    @Bean
+    ReplicaClientFilter replicaClientFilter() {
+        return new ReplicaClientFilter();
+    }
+
+    private static HikariDataSource withMetrics(HikariDataSource dataSource, ObjectProvider<MeterRegistry> meterRegistry) {
+        meterRegistry.ifAvailable(registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return dataSource;
+    }
+}
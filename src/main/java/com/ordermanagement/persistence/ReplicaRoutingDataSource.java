@@ -0,0 +1,27 @@
+package com.ordermanagement.persistence;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Hands out the connections of the pool {@link ReplicaRouter} picks for the current transaction.
+ */
+class ReplicaRoutingDataSource extends AbstractDataSource {
+    private final ReplicaRouter router;
+
+    ReplicaRoutingDataSource(ReplicaRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return router.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Connections are opened with the credentials of the pools");
+    }
+}
@@ -0,0 +1,248 @@
+package com.ordermanagement.persistence;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Times the statements executed on the connections of the target data source for the
+ * {@link SlowQueryLog}. The bind values set on a statement are kept until it is executed, the time
+ * of a query is its execution plus the fetching of its rows, and it is recorded when its result set
+ * or the statement is closed.
+ */
+class SlowQueryDataSource extends DelegatingDataSource {
+    private final SlowQueryLog slowQueryLog;
+
+    SlowQueryDataSource(DataSource targetDataSource, SlowQueryLog slowQueryLog) {
+        super(targetDataSource);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SlowQueryDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Identity equality for the proxies, delegating it would compare the target with the proxy.
+     */
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> null;
+        };
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null)
+                return identity;
+
+            Object result = SlowQueryDataSource.invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement" -> proxy(PreparedStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                case "prepareCall" -> proxy(CallableStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                case "createStatement" -> proxy(Statement.class, new StatementHandler((Statement) result, null));
+                default -> result;
+            };
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+        private Object[] parameters = new Object[8];
+        private int lastIndex;
+        private int batchSize;
+        private String batchSql;
+        private QueryResult pending;
+
+        StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null)
+                return identity;
+
+            String name = method.getName();
+            if (name.startsWith("execute"))
+                return execute(method, args);
+
+            switch (name) {
+                case "addBatch" -> {
+                    batchSize++;
+                    if (args != null && batchSql == null)
+                        batchSql = (String) args[0];
+                }
+                case "clearParameters" -> {
+                    Arrays.fill(parameters, null);
+                    lastIndex = 0;
+                }
+                case "clearBatch" -> {
+                    batchSize = 0;
+                    batchSql = null;
+                }
+                case "getResultSet" -> {
+                    ResultSet resultSet = (ResultSet) SlowQueryDataSource.invoke(statement, method, args);
+                    return resultSet == null || pending == null ? resultSet : pending.wrap(resultSet);
+                }
+                case "close" -> flushPending();
+                default -> {
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index)
+                        bind(index, name.equals("setNull") ? null : args[1]);
+                }
+            }
+            return SlowQueryDataSource.invoke(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            flushPending();
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text
+                    : preparedSql != null ? preparedSql : batchSql;
+            Object[] bound = preparedSql == null ? null : Arrays.copyOf(parameters, lastIndex + 1);
+            int batched = method.getName().equals("executeBatch") || method.getName().equals("executeLargeBatch") ? batchSize : 0;
+
+            long start = System.nanoTime();
+            Object result = SlowQueryDataSource.invoke(statement, method, args);
+            long elapsed = System.nanoTime() - start;
+
+            if (result instanceof ResultSet resultSet) {
+                pending = new QueryResult(sql, bound, elapsed);
+                return pending.wrap(resultSet);
+            }
+            if (result instanceof Boolean hasResultSet) {
+                if (hasResultSet)
+                    pending = new QueryResult(sql, bound, elapsed);
+                else
+                    slowQueryLog.record(sql, bound, statement.getUpdateCount(), 0, elapsed);
+                return result;
+            }
+            if (batched > 0) {
+                batchSize = 0;
+                batchSql = null;
+            }
+            slowQueryLog.record(sql, bound, rows(result), batched, elapsed);
+            return result;
+        }
+
+        private void bind(int index, Object value) {
+            if (index >= parameters.length)
+                parameters = Arrays.copyOf(parameters, Math.max(index + 1, parameters.length * 2));
+            parameters[index] = value;
+            lastIndex = Math.max(lastIndex, index);
+        }
+
+        private void flushPending() {
+            if (pending != null) {
+                pending.record();
+                pending = null;
+            }
+        }
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Number count)
+            return count.longValue();
+        long rows = 0;
+        if (result instanceof int[] counts)
+            for (int count : counts)
+                rows += Math.max(count, 0);
+        else if (result instanceof long[] counts)
+            for (long count : counts)
+                rows += Math.max(count, 0);
+        return rows;
+    }
+
+    /**
+     * A query whose rows are still being read. The time spent in {@link ResultSet#next()} is added
+     * to its execution time, it is recorded once.
+     */
+    private class QueryResult implements InvocationHandler {
+        private final String sql;
+        private final Object[] parameters;
+        private long elapsedNanos;
+        private long rows;
+        private boolean recorded;
+        private ResultSet resultSet;
+
+        QueryResult(String sql, Object[] parameters, long elapsedNanos) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        ResultSet wrap(ResultSet resultSet) {
+            this.resultSet = resultSet;
+            return proxy(ResultSet.class, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null)
+                return identity;
+
+            switch (method.getName()) {
+                case "next" -> {
+                    long start = System.nanoTime();
+                    boolean hasRow = (Boolean) SlowQueryDataSource.invoke(resultSet, method, args);
+                    elapsedNanos += System.nanoTime() - start;
+                    if (hasRow)
+                        rows++;
+                    return hasRow;
+                }
+                case "close" -> record();
+            }
+            return SlowQueryDataSource.invoke(resultSet, method, args);
+        }
+
+        void record() {
+            if (recorded)
+                return;
+            recorded = true;
+            slowQueryLog.record(sql, parameters, rows, 0, elapsedNanos);
+        }
+    }
+}
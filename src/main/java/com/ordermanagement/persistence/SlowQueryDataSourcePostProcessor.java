@@ -0,0 +1,27 @@
+package com.ordermanagement.persistence;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps every {@link DataSource} bean in a {@link SlowQueryDataSource} unless
+ * <i>slow-query-log.enabled</i> is false. The wrapper is a {@code DelegatingDataSource}, so the
+ * pool behind it can still be unwrapped for its metrics.
+ */
+class SlowQueryDataSourcePostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<SlowQueryLog> slowQueryLog;
+
+    SlowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof SlowQueryDataSource)
+            return bean;
+        SlowQueryLog log = slowQueryLog.getObject();
+        return log.isEnabled() ? new SlowQueryDataSource(dataSource, log) : bean;
+    }
+}
@@ -0,0 +1,100 @@
+package com.ordermanagement.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs the SQL statements that took longer than <i>slow-query-log.threshold</i> at WARN, and a
+ * <i>slow-query-log.sample-rate</i> fraction of the others at INFO, with their bind values, the rows
+ * they returned or changed, the time spent in the driver and the controller method they ran for.
+ * Entries go to the {@value #LOGGER_NAME} logger, which logback-spring.xml hands to a bounded
+ * asynchronous appender that drops sampled entries first when it falls behind and never blocks.
+ * Nothing is formatted for statements that are not logged.
+ */
+@Component
+public class SlowQueryLog {
+    public static final String LOGGER_NAME = "slow-query";
+    public static final String HANDLER_MDC_KEY = "handler";
+
+    private static final Logger LOG = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int maxParameterLength;
+
+    public SlowQueryLog(
+            @Value("${slow-query-log.enabled:true}") boolean enabled,
+            @Value("${slow-query-log.threshold:200ms}") Duration threshold,
+            @Value("${slow-query-log.sample-rate:0}") double sampleRate,
+            @Value("${slow-query-log.max-parameter-length:100}") int maxParameterLength
+    ) {
+        if (sampleRate < 0 || sampleRate > 1)
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+        if (maxParameterLength < 1)
+            throw new IllegalArgumentException("Max parameter length must be greater than 0");
+
+        this.enabled = enabled;
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.maxParameterLength = maxParameterLength;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param parameters bind values by parameter index, starting at 1, of the last execution
+     * @param batchSize statements executed as one batch, 0 when the statement was not batched
+     */
+    void record(String sql, Object[] parameters, long rows, int batchSize, long elapsedNanos) {
+        boolean slow = elapsedNanos >= thresholdNanos;
+        if (slow) {
+            if (LOG.isWarnEnabled())
+                LOG.warn(entry("slow", sql, parameters, rows, batchSize, elapsedNanos));
+        } else if (sampled() && LOG.isInfoEnabled()) {
+            LOG.info(entry("sampled", sql, parameters, rows, batchSize, elapsedNanos));
+        }
+    }
+
+    boolean sampled() {
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private String entry(String kind, String sql, Object[] parameters, long rows, int batchSize, long elapsedNanos) {
+        String handler = MDC.get(HANDLER_MDC_KEY);
+        return "%s %.3fms rows=%d%s handler=%s sql=[%s] params=%s".formatted(
+                kind,
+                elapsedNanos / 1_000_000.0,
+                rows,
+                batchSize > 0 ? " batch=" + batchSize : "",
+                handler == null ? "-" : handler,
+                sql,
+                parameters(parameters)
+        );
+    }
+
+    private String parameters(Object[] parameters) {
+        if (parameters == null)
+            return "[]";
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        Arrays.stream(parameters, 1, parameters.length).forEach(parameter -> joiner.add(parameter(parameter)));
+        return joiner.toString();
+    }
+
+    private String parameter(Object parameter) {
+        if (parameter == null)
+            return "NULL";
+        String value = parameter instanceof byte[] bytes ? "<" + bytes.length + " bytes>" : String.valueOf(parameter);
+        return value.length() > maxParameterLength ? value.substring(0, maxParameterLength) + "..." : value;
+    }
+}
@@ -0,0 +1,55 @@
+package com.ordermanagement.persistence;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ * A JDBC batch is prepared once, so it counts as a single statement.
+ * Between {@link #startRecording()} and {@link #stopRecording()} the statements themselves are kept
+ * as well, up to {@link #MAX_RECORDED} of them.
+ */
+@Component
+public class StatementCounter implements StatementInspector {
+    public static final int MAX_RECORDED = 256;
+
+    private static final ThreadLocal<Statements> STATEMENTS = ThreadLocal.withInitial(Statements::new);
+
+    @Override
+    public String inspect(String sql) {
+        Statements statements = STATEMENTS.get();
+        statements.count++;
+        if (statements.recording && statements.recorded.size() < MAX_RECORDED)
+            statements.recorded.add(sql);
+        return sql;
+    }
+
+    public long current() {
+        return STATEMENTS.get().count;
+    }
+
+    public void startRecording() {
+        Statements statements = STATEMENTS.get();
+        statements.recorded.clear();
+        statements.recording = true;
+    }
+
+    /**
+     * Stops recording and returns the statements recorded since {@link #startRecording()}.
+     * The list is reused by the next recording on this thread, so it must not be kept.
+     */
+    public List<String> stopRecording() {
+        Statements statements = STATEMENTS.get();
+        statements.recording = false;
+        return statements.recorded;
+    }
+
+    private static class Statements {
+        private final List<String> recorded = new ArrayList<>();
+        private long count;
+        private boolean recording;
+    }
+}
@@ -0,0 +1,26 @@
+package com.ordermanagement.persistence;
+
+import jakarta.persistence.EntityExistsException;
+
+import java.sql.SQLException;
+
+/**
+ * Recognizes a write rejected because its key is taken, so creates can insert straight away and
+ * leave the check to the primary and unique keys of the database.
+ */
+public final class UniqueViolations {
+    private static final String UNIQUE_VIOLATION_STATE = "23505";
+
+    private UniqueViolations() {
+    }
+
+    public static boolean isUniqueViolation(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof EntityExistsException)
+                return true;
+            if (cause instanceof SQLException sqlException && UNIQUE_VIOLATION_STATE.equals(sqlException.getSQLState()))
+                return true;
+        }
+        return false;
+    }
+}
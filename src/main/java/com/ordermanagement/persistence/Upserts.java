@@ -0,0 +1,23 @@
+package com.ordermanagement.persistence;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Picks how the rollups add deltas to rows that may not exist yet. PostgreSQL gets
+ * {@code INSERT ... ON CONFLICT DO UPDATE}: a transaction inserting a key another one inserted
+ * first waits for it and updates the row, where MERGE fails on the primary key, and it does not
+ * need PostgreSQL 15. H2, which the tests run on, has no {@code ON CONFLICT DO UPDATE} and gets
+ * the equivalent MERGE.
+ */
+public final class Upserts {
+
+    private Upserts() {
+    }
+
+    public static boolean onConflict(EntityManager entityManager) {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+}
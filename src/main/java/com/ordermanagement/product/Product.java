@@ -1,9 +1,11 @@
 package com.ordermanagement.product;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.*;
 
 @Entity
@@ -25,4 +27,17 @@ public class Product {
 
     @Column(name = "unit_price", nullable = false)
     private Float unitPrice;
+
+    /**
+     * Stock as of the last flush of the reservations, null when the stock is not tracked. The
+     * available stock is read from the {@link StockService}.
+     */
+    @Column(name = "stock_quantity")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private Long stockQuantity;
+
+    @Version
+    @Column(name = "version")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
@@ -1,9 +1,12 @@
 package com.ordermanagement.product;
 
-import com.ordermanagement.order.Order;
-import com.ordermanagement.order.OrderDto;
+import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.order.OrderPage;
 import com.ordermanagement.order.OrderService;
+import com.ordermanagement.web.ETags;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,10 +17,12 @@ import java.util.List;
 public class ProductController {
     private final ProductService productService;
     private final OrderService orderService;
+    private final StockService stockService;
     @Autowired
-    public ProductController(ProductService productService, OrderService orderService) {
+    public ProductController(ProductService productService, OrderService orderService, StockService stockService) {
         this.productService = productService;
         this.orderService = orderService;
+        this.stockService = stockService;
     }
 
     @PostMapping
@@ -39,20 +44,58 @@ public class ProductController {
         return ResponseEntity.ok().build();
     }
 
+    @DeleteMapping
+    public ResponseEntity<ProductDeleteResult> deleteProductsBySku(@RequestBody List<String> skuCodes) {
+        return ResponseEntity.ok(productService.deleteProductsBySkus(skuCodes));
+    }
+
     @GetMapping("/{skuCode}")
-    public ResponseEntity<Product> findProductBySku(@PathVariable("skuCode") String skuCode) {
+    public ResponseEntity<Product> findProductBySku(
+            @PathVariable("skuCode") String skuCode,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         return productService.findProductBySkuCode(skuCode)
+                .map(product -> {
+                    String etag = ETags.of(product.getVersion());
+                    if (ETags.matches(ifNoneMatch, etag))
+                        return ETags.<Product>notModified(etag);
+                    return ResponseEntity.ok().eTag(etag).body(product);
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{skuCode}/stock")
+    public ResponseEntity<StockLevel> findStockLevel(@PathVariable("skuCode") String skuCode) {
+        return stockService.findStockLevel(skuCode)
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Adds the quantity in the body to the stock of the product.
+     */
+    @PostMapping("/{skuCode}/stock")
+    public ResponseEntity<Object> restock(@PathVariable("skuCode") String skuCode, @RequestBody Long quantity) {
+        try {
+            stockService.restock(skuCode, quantity);
+        } catch (Exception e) {
+            if (e instanceof NotFoundException)
+                return new ResponseEntity<>(e, HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(e, HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok().build();
+    }
+
     @GetMapping("/{skuCode}/orders")
-    public ResponseEntity<List<OrderDto>> findOrdersByProductSku(@PathVariable("skuCode") String skuCode) {
-        return ResponseEntity.ok(
-                orderService.findOrdersByProductSku(skuCode)
-                        .stream()
-                        .map(Order::toDto)
-                        .toList()
-        );
+    public ResponseEntity<OrderPage> findOrdersByProductSku(
+            @PathVariable("skuCode") String skuCode,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        try {
+            return ResponseEntity.ok(orderService.findOrderPageByProductSku(skuCode, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 }
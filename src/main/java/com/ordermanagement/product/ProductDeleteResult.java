@@ -0,0 +1,7 @@
+package com.ordermanagement.product;
+
+/**
+ * Products deleted, and products skipped because they are unknown or still on order lines.
+ */
+public record ProductDeleteResult(long products, long skipped) {
+}
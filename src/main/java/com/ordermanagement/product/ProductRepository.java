@@ -1,6 +1,39 @@
 package com.ordermanagement.product;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 
 public interface ProductRepository extends JpaRepository<Product, String> {
+
+    // cleared, the saved product is read back in the same transaction
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Product p SET p.name = :name, p.unitPrice = :unitPrice, p.version = p.version + 1 WHERE p.skuCode = :skuCode")
+    int update(String skuCode, String name, Float unitPrice);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = COALESCE(p.stockQuantity, 0) + :quantity WHERE p.skuCode = :skuCode")
+    int addStock(String skuCode, Long quantity);
+
+    /**
+     * Subtracts {@code quantity} when the stock covers it, the stock quantity never goes negative.
+     *
+     * @return 0 when the product is missing or does not have that much stock
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity WHERE p.skuCode = :skuCode AND p.stockQuantity >= :quantity")
+    int subtractStock(String skuCode, Long quantity);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Product p WHERE p.skuCode = :skuCode")
+    int deleteBySkuCode(String skuCode);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Product p WHERE p.skuCode IN :skuCodes AND NOT EXISTS (SELECT 1 FROM OrderLine ol WHERE ol.product = p)")
+    int deleteUnreferencedBySkuCodes(Collection<String> skuCodes);
 }
@@ -1,46 +1,131 @@
 package com.ordermanagement.product;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.ordermanagement.customer.CustomerOrderSummaryService;
 import com.ordermanagement.exception.IdAlreadyInUseException;
 import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.persistence.AfterCommit;
+import com.ordermanagement.persistence.UniqueViolations;
+import com.ordermanagement.persistence.Chunks;
+import com.ordermanagement.report.DailySalesService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
     private final ProductRepository productRepository;
+    private final Cache<String, Optional<Product>> productCache;
+    private final DailySalesService dailySalesService;
+    private final CustomerOrderSummaryService customerOrderSummaryService;
+    private final TransactionTemplate transactionTemplate;
+    private final int deleteChunkSize;
 
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(
+            ProductRepository productRepository,
+            Cache<String, Optional<Product>> productCache,
+            DailySalesService dailySalesService,
+            CustomerOrderSummaryService customerOrderSummaryService,
+            TransactionTemplate transactionTemplate,
+            @Value("${bulk-delete.chunk-size:1000}") int deleteChunkSize
+    ) {
         this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.dailySalesService = dailySalesService;
+        this.customerOrderSummaryService = customerOrderSummaryService;
+        this.transactionTemplate = transactionTemplate;
+        this.deleteChunkSize = deleteChunkSize;
     }
 
     public Product saveProduct(Product product) {
-        Optional<Product> found_product = productRepository.findById(product.getSkuCode());
-        if (found_product.isPresent()) {
-            throw new IdAlreadyInUseException("Product with sku [%s] already exists".formatted(product.getSkuCode()));
+        Product saved;
+        try {
+            saved = productRepository.saveAndFlush(product);
+        } catch (DataIntegrityViolationException e) {
+            if (UniqueViolations.isUniqueViolation(e))
+                throw new IdAlreadyInUseException("Product with sku [%s] already exists".formatted(product.getSkuCode()));
+            throw e;
         }
-        return productRepository.save(product);
+        productCache.invalidate(product.getSkuCode());
+        return saved;
     }
 
     public Optional<Product> findProductBySkuCode(String skuCode) {
-        return productRepository.findById(skuCode);
+        return productCache.get(skuCode, this::loadProduct);
+    }
+
+    public Map<String, Product> findProductsBySkuCodes(Collection<String> skuCodes) {
+        return productCache.getAll(skuCodes, this::loadProducts)
+                .values()
+                .stream()
+                .flatMap(Optional::stream)
+                .collect(Collectors.toMap(Product::getSkuCode, Function.identity()));
+    }
+
+    public Product getProductReference(String skuCode) {
+        return productRepository.getReferenceById(skuCode);
+    }
+
+    // the cache loaders run in a read-write transaction, a product loaded from a lagging replica
+    // would be cached as missing or with a stale stock quantity until it expires
+    private Optional<Product> loadProduct(String skuCode) {
+        return transactionTemplate.execute(status -> productRepository.findById(skuCode));
+    }
+
+    private Map<String, Optional<Product>> loadProducts(Set<? extends String> skuCodes) {
+        Map<String, Optional<Product>> products = new HashMap<>();
+        skuCodes.forEach(skuCode -> products.put(skuCode, Optional.empty()));
+        transactionTemplate.executeWithoutResult(status -> productRepository.findAllById(Set.copyOf(skuCodes))
+                .forEach(product -> products.put(product.getSkuCode(), Optional.of(product))));
+        return products;
     }
 
     public void deleteProductBySku(String skuCode) {
-        Optional<Product> found_product = productRepository.findById(skuCode);
-        if (found_product.isEmpty()) {
+        int deleted = productRepository.deleteBySkuCode(skuCode);
+        productCache.invalidate(skuCode);
+        if (deleted == 0) {
             throw new NotFoundException("Product with sku [%s] not found".formatted(skuCode));
         }
-        productRepository.deleteById(skuCode);
     }
 
+    /**
+     * Deletes the given products one chunk per statement. Products still on order lines are
+     * skipped, deleting them would take lines out of existing orders.
+     */
+    public ProductDeleteResult deleteProductsBySkus(Collection<String> skuCodes) {
+        long requested = 0;
+        long deleted = 0;
+        for (List<String> chunk : Chunks.of(skuCodes, deleteChunkSize)) {
+            requested += chunk.size();
+            deleted += productRepository.deleteUnreferencedBySkuCodes(chunk);
+            productCache.invalidateAll(chunk);
+        }
+        return new ProductDeleteResult(deleted, requested - deleted);
+    }
+
+    @Transactional
     public Product updateProduct(Product product) {
-        Optional<Product> found_product = productRepository.findById(product.getSkuCode());
-        if (found_product.isEmpty()) {
+        // the summaries read the old unit price, the daily sales are repriced from the units
+        customerOrderSummaryService.reprice(product.getSkuCode(), product.getUnitPrice());
+        int updated = productRepository.update(product.getSkuCode(), product.getName(), product.getUnitPrice());
+        if (updated == 0) {
             throw new NotFoundException("Product with sku [%s] not found".formatted(product.getSkuCode()));
         }
-        return productRepository.save(product);
+        dailySalesService.reprice(product.getSkuCode(), product.getUnitPrice());
+        AfterCommit.run(() -> productCache.invalidate(product.getSkuCode()));
+        return productRepository.findById(product.getSkuCode()).orElseThrow();
     }
 }
@@ -0,0 +1,10 @@
+package com.ordermanagement.product;
+
+/**
+ * @param available stock that can still be ordered, null when the stock of the product is not tracked
+ */
+public record StockLevel(
+        String skuCode,
+        Long available
+) {
+}
@@ -0,0 +1,29 @@
+package com.ordermanagement.product;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Stock taken by an order that is not yet subtracted from {@link Product#getStockQuantity()}, or
+ * given back with a negative quantity that is not yet added to it.
+ */
+@Entity
+@Table(name = "stock_reservation")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class StockReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_reservation_seq")
+    @SequenceGenerator(name = "stock_reservation_seq", sequenceName = "stock_reservation_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "sku_code", nullable = false)
+    private String skuCode;
+
+    @Column(name = "quantity", nullable = false)
+    private Long quantity;
+}
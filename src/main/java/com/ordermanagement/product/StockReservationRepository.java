@@ -0,0 +1,33 @@
+package com.ordermanagement.product;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    /**
+     * The durable available stock of the tracked products among {@code skuCodes}, read through the
+     * (sku code) index of the reservations.
+     */
+    @Query("""
+            SELECT new com.ordermanagement.product.StockLevel(p.skuCode, p.stockQuantity - COALESCE(SUM(r.quantity), 0))
+            FROM Product p LEFT JOIN StockReservation r ON r.skuCode = p.skuCode
+            WHERE p.skuCode IN :skuCodes AND p.stockQuantity IS NOT NULL
+            GROUP BY p.skuCode, p.stockQuantity
+            """)
+    List<StockLevel> findAvailable(Collection<String> skuCodes);
+
+    @Query("SELECT r FROM StockReservation r ORDER BY r.id")
+    List<StockReservation> findOldest(Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.id IN :ids")
+    int deleteByIds(Collection<Long> ids);
+}
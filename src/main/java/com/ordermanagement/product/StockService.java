@@ -0,0 +1,413 @@
+package com.ordermanagement.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.ordermanagement.exception.InsufficientStockException;
+import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.persistence.Chunks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Reserves the stock of ordered products without touching their rows. The available stock of every
+ * tracked SKU is a counter in memory that orders take from with a compare-and-set loop, so orders
+ * for a hot product never queue on a row lock. Every reservation is also inserted into
+ * {@code stock_reservation} in the transaction of its order, and {@link #flush()} folds the journal
+ * into {@code product.stock_quantity} in the background with one UPDATE per SKU.
+ * The durable available stock is always the stock quantity minus the journal, which is what a
+ * counter is loaded from on first use, after a restart as well, so a crash loses nothing that was
+ * committed. The database is the arbiter between instances: every flush refreshes the counters
+ * from the durable available stock, which has the reservations of all of them, and only subtracts
+ * reservations the stock quantity covers. Reservations that two instances took from the same
+ * units between refreshes stay in the journal until a restock covers them, and the counters they
+ * turn negative reject the orders for the product until then.
+ * Stock given back by deleted orders and lines or lowered quantities is journaled as a negative
+ * reservation, which the flush adds back to the stock quantity, and reaches the counters when it
+ * commits, like a restock.
+ */
+@Slf4j
+@Service
+public class StockService {
+    private static final int REFRESH_CHUNK_SIZE = 1000;
+
+    private final StockReservationRepository stockReservationRepository;
+    private final ProductRepository productRepository;
+    private final Cache<String, Optional<Product>> productCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int flushBatchSize;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StockService(
+            StockReservationRepository stockReservationRepository,
+            ProductRepository productRepository,
+            Cache<String, Optional<Product>> productCache,
+            TransactionTemplate transactionTemplate,
+            @Value("${products.stock.flush-batch-size:10000}") int flushBatchSize
+    ) {
+        if (flushBatchSize < 1)
+            throw new IllegalArgumentException("Flush batch size must be greater than 0");
+
+        this.stockReservationRepository = stockReservationRepository;
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.transactionTemplate = transactionTemplate;
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    /**
+     * Takes the quantities of the tracked products among {@code products} all at once or not at all.
+     * They are given back when the transaction does not commit.
+     *
+     * @param quantities quantity ordered per SKU code
+     * @throws InsufficientStockException when a product does not have enough stock left
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Map<String, Long> quantities, Map<String, Product> products) {
+        bind(List.of(take(quantities, products)));
+    }
+
+    /**
+     * Journals reservations made by {@link #take(Map, Map)} in the current transaction, and gives
+     * them back when it does not commit. Callers that take the stock of many orders in one
+     * transaction skip the ones it does not cover this way, an {@link InsufficientStockException}
+     * thrown through {@link #reserve(Map, Map)} would mark the transaction rollback-only.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bind(Collection<Reservation> reservations) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED)
+                    reservations.forEach(Reservation::release);
+            }
+        });
+        journal(reservations);
+    }
+
+    /**
+     * Reserves the positive {@code deltas} like {@link #reserve(Map, Map)} and
+     * {@link #giveBack(Map, Map) gives back} the negative ones, for changed quantities.
+     *
+     * @param deltas change of the quantity ordered per SKU code
+     * @throws InsufficientStockException when a product does not have enough stock left
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void adjust(Map<String, Long> deltas, Map<String, Product> products) {
+        Map<String, Long> taken = new HashMap<>();
+        Map<String, Long> givenBack = new HashMap<>();
+        deltas.forEach((skuCode, delta) -> {
+            if (delta > 0)
+                taken.put(skuCode, delta);
+            else if (delta < 0)
+                givenBack.put(skuCode, -delta);
+        });
+        if (!taken.isEmpty())
+            reserve(taken, products);
+        if (!givenBack.isEmpty())
+            giveBack(givenBack, products);
+    }
+
+    /**
+     * Gives back the quantities of the tracked products among {@code products} in the current
+     * transaction, for deleted orders and lines. They are journaled as negative reservations and
+     * added to the counters once the transaction commits.
+     *
+     * @param quantities quantity no longer ordered per SKU code
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void giveBack(Map<String, Long> quantities, Map<String, Product> products) {
+        Set<String> tracked = new TreeSet<>();
+        quantities.forEach((skuCode, quantity) -> {
+            if (quantity < 1)
+                throw new IllegalArgumentException("Quantity must be greater than 0");
+            Product product = products.get(skuCode);
+            if (product != null && product.getStockQuantity() != null)
+                tracked.add(skuCode);
+        });
+        if (tracked.isEmpty())
+            return;
+
+        // loaded before the journal changes, a counter loaded after the commit would count it twice
+        Map<String, Counter> trackedCounters = counters(tracked);
+        if (trackedCounters.isEmpty())
+            return;
+        stockReservationRepository.saveAll(trackedCounters.keySet().stream()
+                .map(skuCode -> StockReservation.builder()
+                        .skuCode(skuCode)
+                        .quantity(-quantities.get(skuCode))
+                        .build())
+                .toList());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                trackedCounters.forEach((skuCode, counter) -> counter.limit.addAndGet(quantities.get(skuCode)));
+            }
+        });
+    }
+
+    /**
+     * Takes the quantities like {@link #reserve(Map, Map)} without a transaction, for orders
+     * persisted later. The reservation has to be {@link #journal(Collection) journaled} with its
+     * order or {@link Reservation#release() released}.
+     *
+     * @throws InsufficientStockException when a product does not have enough stock left
+     */
+    public Reservation take(Map<String, Long> quantities, Map<String, Product> products) {
+        Map<String, Long> tracked = new TreeMap<>();
+        quantities.forEach((skuCode, quantity) -> {
+            if (quantity < 1)
+                throw new IllegalArgumentException("Quantity must be greater than 0");
+            Product product = products.get(skuCode);
+            if (product != null && product.getStockQuantity() != null)
+                tracked.put(skuCode, quantity);
+        });
+        if (tracked.isEmpty())
+            return Reservation.EMPTY;
+
+        Map<String, Counter> trackedCounters = counters(tracked.keySet());
+        List<Taken> taken = new ArrayList<>(tracked.size());
+        for (Map.Entry<String, Long> entry : tracked.entrySet()) {
+            Counter counter = trackedCounters.get(entry.getKey());
+            // no longer tracked since the product was cached
+            if (counter == null)
+                continue;
+            if (!counter.take(entry.getValue())) {
+                giveBack(taken);
+                throw new InsufficientStockException("Insufficient stock of product [%s]".formatted(entry.getKey()));
+            }
+            taken.add(new Taken(entry.getKey(), counter, entry.getValue()));
+        }
+        return new Reservation(taken);
+    }
+
+    /**
+     * Journals reservations made by {@link #take(Map, Map)} in the current transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void journal(Collection<Reservation> reservations) {
+        stockReservationRepository.saveAll(reservations.stream()
+                .flatMap(reservation -> reservation.taken.stream())
+                .map(taken -> StockReservation.builder()
+                        .skuCode(taken.skuCode())
+                        .quantity(taken.quantity())
+                        .build())
+                .toList());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reservations.forEach(Reservation::commit);
+            }
+        });
+    }
+
+    /**
+     * Adds stock to a product, which starts tracking the stock of a product that had none.
+     */
+    @Transactional
+    public void restock(String skuCode, Long quantity) {
+        if (quantity == null || quantity < 1)
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+
+        // loaded before the stock changes, a counter loaded after the commit would count it twice
+        Counter counter = counters(Set.of(skuCode)).get(skuCode);
+        if (productRepository.addStock(skuCode, quantity) == 0)
+            throw new NotFoundException("Product with sku [%s] not found".formatted(skuCode));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (counter != null)
+                    counter.limit.addAndGet(quantity);
+                productCache.invalidate(skuCode);
+            }
+        });
+    }
+
+    // not read-only, a counter loaded from a replica could miss reservations
+    @Transactional
+    public Optional<StockLevel> findStockLevel(String skuCode) {
+        Counter counter = counters(Set.of(skuCode)).get(skuCode);
+        if (counter != null)
+            return Optional.of(new StockLevel(skuCode, counter.available()));
+        return productRepository.existsById(skuCode) ? Optional.of(new StockLevel(skuCode, null)) : Optional.empty();
+    }
+
+    /**
+     * Subtracts the oldest journaled reservations from the stock of their products and deletes
+     * them, in one transaction, then {@link #refresh() refreshes} the counters. The available stock
+     * does not change. The reservations of a product whose stock quantity does not cover them are
+     * left in the journal. When another instance flushed some of the same reservations first, the
+     * transaction is rolled back and the rest is left to the next flush.
+     *
+     * @return the number of reservations flushed
+     */
+    @Scheduled(
+            initialDelayString = "${products.stock.flush-interval:PT1S}",
+            fixedDelayString = "${products.stock.flush-interval:PT1S}"
+    )
+    public int flush() {
+        Integer flushed = transactionTemplate.execute(status -> {
+            List<StockReservation> reservations = stockReservationRepository.findOldest(PageRequest.of(0, flushBatchSize));
+            if (reservations.isEmpty())
+                return 0;
+
+            // in the order of the SKUs, so instances flushing at once lock the products alike
+            Set<String> oversold = new TreeSet<>();
+            reservations.stream()
+                    .collect(Collectors.groupingBy(StockReservation::getSkuCode, TreeMap::new, Collectors.summingLong(StockReservation::getQuantity)))
+                    .forEach((skuCode, quantity) -> {
+                        if (productRepository.subtractStock(skuCode, quantity) == 0 && productRepository.existsById(skuCode))
+                            oversold.add(skuCode);
+                    });
+            if (!oversold.isEmpty())
+                log.warn("Stock reservations of {} exceed the stock quantity, they stay in the journal until a restock covers them", oversold);
+
+            List<Long> ids = reservations.stream()
+                    .filter(reservation -> !oversold.contains(reservation.getSkuCode()))
+                    .map(StockReservation::getId)
+                    .toList();
+            if (ids.isEmpty())
+                return 0;
+            if (stockReservationRepository.deleteByIds(ids) != ids.size()) {
+                status.setRollbackOnly();
+                return 0;
+            }
+            return ids.size();
+        });
+        if (flushed != null && flushed > 0)
+            log.debug("Flushed {} stock reservations", flushed);
+        refresh();
+        return flushed == null ? 0 : flushed;
+    }
+
+    /**
+     * Sets the counters of this instance from the durable available stock, which has the committed
+     * reservations of every instance. The reservations this instance committed are read before the
+     * stock, one that commits in between is counted twice until the next refresh, never missed.
+     */
+    private void refresh() {
+        Map<String, Counter> tracked = new HashMap<>(counters);
+        Map<String, Long> committed = new HashMap<>();
+        tracked.forEach((skuCode, counter) -> committed.put(skuCode, counter.committed.get()));
+
+        for (List<String> chunk : Chunks.of(tracked.keySet(), REFRESH_CHUNK_SIZE)) {
+            List<StockLevel> levels = transactionTemplate.execute(status -> stockReservationRepository.findAvailable(chunk));
+            Set<String> missing = new HashSet<>(chunk);
+            for (StockLevel level : levels) {
+                tracked.get(level.skuCode()).limit.set(level.available() + committed.get(level.skuCode()));
+                missing.remove(level.skuCode());
+            }
+            // deleted products
+            missing.forEach(skuCode -> counters.remove(skuCode, tracked.get(skuCode)));
+        }
+    }
+
+    /**
+     * Counters of the tracked products among {@code skuCodes}, the missing ones are loaded with one
+     * statement. Whichever of two loads of the same SKU is put first is kept, the next refresh
+     * corrects a value the other instances changed in between.
+     */
+    private Map<String, Counter> counters(Collection<String> skuCodes) {
+        Map<String, Counter> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String skuCode : skuCodes) {
+            Counter counter = counters.get(skuCode);
+            if (counter == null)
+                missing.add(skuCode);
+            else
+                found.put(skuCode, counter);
+        }
+
+        if (!missing.isEmpty())
+            for (StockLevel level : stockReservationRepository.findAvailable(missing))
+                found.put(level.skuCode(), counters.computeIfAbsent(level.skuCode(), skuCode -> new Counter(level.available())));
+        return found;
+    }
+
+    private static void giveBack(List<Taken> taken) {
+        taken.forEach(reservation -> reservation.counter().taken.addAndGet(-reservation.quantity()));
+    }
+
+    /**
+     * Quantities taken from the counters, given back by {@link #release()} or committed with their
+     * journal, whichever comes first.
+     */
+    public static final class Reservation {
+        static final Reservation EMPTY = new Reservation(List.of());
+
+        private final List<Taken> taken;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Reservation(List<Taken> taken) {
+            this.taken = taken;
+        }
+
+        public void release() {
+            if (done.compareAndSet(false, true))
+                giveBack(taken);
+        }
+
+        private void commit() {
+            if (done.compareAndSet(false, true))
+                taken.forEach(reservation -> reservation.counter().committed.addAndGet(reservation.quantity()));
+        }
+    }
+
+    private record Taken(String skuCode, Counter counter, long quantity) {
+    }
+
+    /**
+     * Available stock of a tracked product in this instance, the limit minus everything taken here.
+     * The limit is the durable available stock of the last refresh plus the reservations this
+     * instance had committed by then, which are in both, so a refresh never loses a take that is
+     * still running.
+     */
+    private static final class Counter {
+        private final AtomicLong limit;
+        private final AtomicLong taken = new AtomicLong();
+        private final AtomicLong committed = new AtomicLong();
+
+        private Counter(long available) {
+            this.limit = new AtomicLong(available);
+        }
+
+        private long available() {
+            return limit.get() - taken.get();
+        }
+
+        private boolean take(long quantity) {
+            long current = taken.get();
+            while (limit.get() - current >= quantity) {
+                long witness = taken.compareAndExchange(current, current + quantity);
+                if (witness == current)
+                    return true;
+                current = witness;
+            }
+            return false;
+        }
+    }
+}
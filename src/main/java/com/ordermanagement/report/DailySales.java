@@ -0,0 +1,46 @@
+package com.ordermanagement.report;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Units sold and revenue of one SKU on one date of submission. Rows are kept up to date by
+ * {@link DailySalesService} in the transactions that write the order lines, revenue is priced with
+ * the current unit price of the product, as the reports have always been.
+ */
+@Entity
+@Table(name = "daily_sales")
+@IdClass(DailySales.Key.class)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class DailySales {
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Id
+    @Column(name = "sku_code")
+    private String skuCode;
+
+    @Column(name = "units", nullable = false)
+    private Long units;
+
+    @Column(name = "revenue", nullable = false)
+    private Double revenue;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate salesDate;
+        private String skuCode;
+    }
+}
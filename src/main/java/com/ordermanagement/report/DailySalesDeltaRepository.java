@@ -0,0 +1,24 @@
+package com.ordermanagement.report;
+
+import java.util.Collection;
+
+/**
+ * Deltas of the daily sales rollup, aggregated per date and SKU from the order lines themselves
+ * and added to the rollup in one statement, so callers never load the lines they are about to
+ * write or delete.
+ */
+public interface DailySalesDeltaRepository {
+
+    int mergeOrders(Collection<Long> orderIds, int sign);
+
+    int mergeOrdersOfCustomers(Collection<Long> customerCodes, int sign);
+
+    int mergeOrderLines(Collection<Long> orderLineIds, int sign);
+
+    /**
+     * Runs before the new quantity is written, it reads the old one.
+     */
+    int mergeQuantityChange(Long orderLineId, int quantity);
+
+    int mergeQuantityDelta(Long orderLineId, int delta);
+}
@@ -0,0 +1,82 @@
+package com.ordermanagement.report;
+
+import com.ordermanagement.persistence.Upserts;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Adds the deltas with {@code INSERT ... ON CONFLICT DO UPDATE} on PostgreSQL and with MERGE on
+ * H2, see {@link Upserts}. The deltas are grouped by the key of the rollup, so a statement never
+ * touches a row twice.
+ */
+class DailySalesDeltaRepositoryImpl implements DailySalesDeltaRepository {
+    private static final String INSERT = "INSERT INTO daily_sales (sales_date, sku_code, units, revenue) ";
+    private static final String ON_CONFLICT = """
+             ON CONFLICT (sales_date, sku_code) DO UPDATE SET units = daily_sales.units + EXCLUDED.units,
+            revenue = daily_sales.revenue + EXCLUDED.revenue
+            """;
+    private static final String MERGE = "MERGE INTO daily_sales d USING (";
+    private static final String ON_KEY = """
+            ) s ON (d.sales_date = s.sales_date AND d.sku_code = s.sku_code)
+            WHEN MATCHED THEN UPDATE SET units = d.units + s.units, revenue = d.revenue + s.revenue
+            WHEN NOT MATCHED THEN INSERT (sales_date, sku_code, units, revenue) VALUES (s.sales_date, s.sku_code, s.units, s.revenue)
+            """;
+    private static final String SIGNED_SUMS = """
+            SELECT o.date_of_submission AS sales_date, ol.product_sku_code AS sku_code,
+            SUM(ol.quantity) * :sign AS units, SUM(ol.quantity * CAST(p.unit_price AS DOUBLE PRECISION)) * :sign AS revenue
+            """ + DailySalesRepository.LINES;
+    private static final String GROUP_BY_KEY = DailySalesRepository.GROUP_BY_KEY;
+
+    private final EntityManager entityManager;
+    private final boolean onConflict;
+
+    DailySalesDeltaRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.onConflict = Upserts.onConflict(entityManager);
+    }
+
+    @Override
+    public int mergeOrders(Collection<Long> orderIds, int sign) {
+        return merge(SIGNED_SUMS + "WHERE ol.order_id IN (:orderIds)" + GROUP_BY_KEY,
+                Map.of("orderIds", orderIds, "sign", sign));
+    }
+
+    @Override
+    public int mergeOrdersOfCustomers(Collection<Long> customerCodes, int sign) {
+        return merge(SIGNED_SUMS + "WHERE o.customer_registration_number IN (:customerCodes)" + GROUP_BY_KEY,
+                Map.of("customerCodes", customerCodes, "sign", sign));
+    }
+
+    @Override
+    public int mergeOrderLines(Collection<Long> orderLineIds, int sign) {
+        return merge(SIGNED_SUMS + "WHERE ol.id IN (:orderLineIds)" + GROUP_BY_KEY,
+                Map.of("orderLineIds", orderLineIds, "sign", sign));
+    }
+
+    @Override
+    public int mergeQuantityChange(Long orderLineId, int quantity) {
+        return merge("""
+                SELECT o.date_of_submission AS sales_date, ol.product_sku_code AS sku_code,
+                :quantity - ol.quantity AS units, (:quantity - ol.quantity) * CAST(p.unit_price AS DOUBLE PRECISION) AS revenue
+                """ + DailySalesRepository.LINES + "WHERE ol.id = :orderLineId",
+                Map.of("orderLineId", orderLineId, "quantity", quantity));
+    }
+
+    @Override
+    public int mergeQuantityDelta(Long orderLineId, int delta) {
+        return merge("""
+                SELECT o.date_of_submission AS sales_date, ol.product_sku_code AS sku_code,
+                CAST(:delta AS BIGINT) AS units, CAST(:delta AS DOUBLE PRECISION) * CAST(p.unit_price AS DOUBLE PRECISION) AS revenue
+                """ + DailySalesRepository.LINES + "WHERE ol.id = :orderLineId",
+                Map.of("orderLineId", orderLineId, "delta", delta));
+    }
+
+    private int merge(String deltas, Map<String, Object> parameters) {
+        Query query = entityManager.createNativeQuery(onConflict ? INSERT + deltas + ON_CONFLICT : MERGE + deltas + ON_KEY);
+        parameters.forEach(query::setParameter);
+        return query.executeUpdate();
+    }
+}
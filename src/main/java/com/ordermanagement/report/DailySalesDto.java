@@ -0,0 +1,11 @@
+package com.ordermanagement.report;
+
+import java.time.LocalDate;
+
+public record DailySalesDto(
+        LocalDate date,
+        String skuCode,
+        Long units,
+        Double revenue
+) {
+}
@@ -0,0 +1,4 @@
+package com.ordermanagement.report;
+
+public record DailySalesRebuildResult(long days, long rows) {
+}
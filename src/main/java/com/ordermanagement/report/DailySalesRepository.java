@@ -0,0 +1,47 @@
+package com.ordermanagement.report;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The deltas of orders and order lines are added by {@link DailySalesDeltaRepository}.
+ */
+@Repository
+public interface DailySalesRepository extends JpaRepository<DailySales, DailySales.Key>, DailySalesDeltaRepository {
+    String LINES = """
+             FROM order_line ol
+            JOIN orders o ON o.id = ol.order_id
+            JOIN product p ON p.sku_code = ol.product_sku_code
+            """;
+    String GROUP_BY_KEY = " GROUP BY o.date_of_submission, ol.product_sku_code";
+
+    @Modifying
+    @Query("UPDATE DailySales d SET d.revenue = d.units * :unitPrice WHERE d.skuCode = :skuCode")
+    int reprice(String skuCode, Double unitPrice);
+
+    @Modifying
+    @Query("DELETE FROM DailySales d WHERE d.salesDate = :salesDate")
+    int deleteBySalesDate(LocalDate salesDate);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO daily_sales (sales_date, sku_code, units, revenue)
+            SELECT o.date_of_submission, ol.product_sku_code,
+            SUM(ol.quantity), SUM(ol.quantity * CAST(p.unit_price AS DOUBLE PRECISION))
+            """ + LINES + "WHERE o.date_of_submission = :salesDate" + GROUP_BY_KEY,
+            nativeQuery = true)
+    int insertFromOrderLines(LocalDate salesDate);
+
+    @Query("""
+            SELECT new com.ordermanagement.report.DailySalesDto(d.salesDate, d.skuCode, d.units, d.revenue)
+            FROM DailySales d
+            WHERE d.salesDate BETWEEN :from AND :to AND d.units <> 0
+            ORDER BY d.salesDate, d.skuCode
+            """)
+    List<DailySalesDto> findByDateRange(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,77 @@
+package com.ordermanagement.report;
+
+import com.ordermanagement.persistence.DateRanges;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps the {@link DailySales} rollup in step with the order lines. Every method joins the
+ * transaction of the write it accounts for, so the rollup commits or rolls back with it. Lines
+ * that are about to go are subtracted before they are deleted, quantity changes are applied before
+ * the new quantity is written.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class DailySalesService {
+    private static final int ADD = 1;
+    private static final int SUBTRACT = -1;
+
+    private final DailySalesRepository dailySalesRepository;
+
+    @Autowired
+    public DailySalesService(DailySalesRepository dailySalesRepository) {
+        this.dailySalesRepository = dailySalesRepository;
+    }
+
+    public void addOrders(Collection<Long> orderIds) {
+        if (!orderIds.isEmpty())
+            dailySalesRepository.mergeOrders(orderIds, ADD);
+    }
+
+    public void subtractOrders(Collection<Long> orderIds) {
+        if (!orderIds.isEmpty())
+            dailySalesRepository.mergeOrders(orderIds, SUBTRACT);
+    }
+
+    public void subtractOrdersOfCustomers(Collection<Long> customerCodes) {
+        if (!customerCodes.isEmpty())
+            dailySalesRepository.mergeOrdersOfCustomers(customerCodes, SUBTRACT);
+    }
+
+    public void addOrderLines(Collection<Long> orderLineIds) {
+        if (!orderLineIds.isEmpty())
+            dailySalesRepository.mergeOrderLines(orderLineIds, ADD);
+    }
+
+    public void subtractOrderLines(Collection<Long> orderLineIds) {
+        if (!orderLineIds.isEmpty())
+            dailySalesRepository.mergeOrderLines(orderLineIds, SUBTRACT);
+    }
+
+    public void changeQuantity(Long orderLineId, int quantity) {
+        dailySalesRepository.mergeQuantityChange(orderLineId, quantity);
+    }
+
+    public void addQuantity(Long orderLineId, int delta) {
+        dailySalesRepository.mergeQuantityDelta(orderLineId, delta);
+    }
+
+    public void subtractOrderLine(Long orderLineId) {
+        dailySalesRepository.mergeQuantityChange(orderLineId, 0);
+    }
+
+    public void reprice(String skuCode, Float unitPrice) {
+        dailySalesRepository.reprice(skuCode, unitPrice.doubleValue());
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailySalesDto> findDailySales(LocalDate from, LocalDate to) {
+        return dailySalesRepository.findByDateRange(DateRanges.fromOrFirstDay(from), DateRanges.toOrLastDay(to));
+    }
+}
@@ -0,0 +1,42 @@
+package com.ordermanagement.report;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/reports")
+public class ReportController {
+    private final DailySalesService dailySalesService;
+    private final DailySalesRebuildService dailySalesRebuildService;
+    @Autowired
+    public ReportController(DailySalesService dailySalesService, DailySalesRebuildService dailySalesRebuildService) {
+        this.dailySalesService = dailySalesService;
+        this.dailySalesRebuildService = dailySalesRebuildService;
+    }
+
+    @GetMapping("/daily")
+    public List<DailySalesDto> getDailySales(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return dailySalesService.findDailySales(from, to);
+    }
+
+    @PostMapping("/daily/rebuild")
+    public ResponseEntity<Object> rebuildDailySales(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        try {
+            return ResponseEntity.ok(dailySalesRebuildService.rebuild(from, to));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e, HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ordermanagement.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Strong entity tags derived from the version column of a resource.
+ */
+public final class ETags {
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETags() {
+    }
+
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * @return whether an If-None-Match header value matches the given tag, using the weak comparison
+     * the header is specified with
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank())
+            return false;
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals(ANY))
+                return true;
+            if (tag.startsWith(WEAK_PREFIX))
+                tag = tag.substring(WEAK_PREFIX.length());
+            if (tag.equals(etag))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the version an If-Match header asks for, null when there is no header or it matches any
+     * version. Only a single strong tag is accepted, as If-Match uses the strong comparison.
+     */
+    public static Long version(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals(ANY))
+            return null;
+
+        String tag = ifMatch.trim();
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\""))
+            throw new IllegalArgumentException("Invalid If-Match [%s], expected a single strong ETag".formatted(ifMatch));
+        try {
+            return Long.valueOf(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match [%s], expected a single strong ETag".formatted(ifMatch));
+        }
+    }
+
+    public static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.ordermanagement.web;
+
+import com.ordermanagement.persistence.SlowQueryLog;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Puts the controller method handling a request, e.g. {@code OrderController.findOrderById}, in the
+ * MDC, so the statements in the {@link SlowQueryLog} and every other entry name the endpoint they
+ * ran for.
+ */
+public class HandlerMdcInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod)
+            MDC.put(SlowQueryLog.HANDLER_MDC_KEY,
+                    handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        MDC.remove(SlowQueryLog.HANDLER_MDC_KEY);
+    }
+}
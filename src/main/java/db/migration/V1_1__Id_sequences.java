@@ -0,0 +1,35 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Sequences of the order and order line ids, which Hibernate draws in blocks of 50 instead of one
+ * IDENTITY value per insert. The pooled optimizer hands out the 49 values below the one it reads,
+ * so a sequence starts 50 past the highest id of its table. The IDENTITY defaults stay, unused.
+ * Instances of the released version insert with them, they have to be stopped before the upgrade.
+ */
+public class V1_1__Id_sequences extends BaseJavaMigration {
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        try (Statement statement = context.getConnection().createStatement()) {
+            createSequence(statement, "orders_seq", "orders");
+            createSequence(statement, "order_line_seq", "order_line");
+        }
+    }
+
+    private static void createSequence(Statement statement, String sequence, String table) throws SQLException {
+        long maxId;
+        try (ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            resultSet.next();
+            maxId = resultSet.getLong(1);
+        }
+        statement.execute("CREATE SEQUENCE %s START WITH %d INCREMENT BY %d".formatted(sequence, maxId + ALLOCATION_SIZE, ALLOCATION_SIZE));
+    }
+}
@@ -0,0 +1,62 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drops the unique constraint the one-to-one mapping put on order_line.product_sku_code, which
+ * allowed a product in one order line only. Hibernate named the constraints after a hash, so they
+ * are looked up by their column. H2 hands the index of a dropped constraint over to a foreign key
+ * that uses it, unique as it is, so the foreign keys of the column are dropped first and added
+ * again after it.
+ */
+public class V1_2__Drop_order_line_product_unique extends BaseJavaMigration {
+    private static final String FIND_CONSTRAINTS = """
+            SELECT tc.constraint_name
+            FROM information_schema.table_constraints tc
+            JOIN information_schema.key_column_usage kcu
+            ON kcu.constraint_schema = tc.constraint_schema AND kcu.constraint_name = tc.constraint_name
+            WHERE tc.constraint_type = ? AND LOWER(tc.table_name) = 'order_line' AND tc.table_schema = CURRENT_SCHEMA
+            GROUP BY tc.constraint_name
+            HAVING COUNT(*) = 1 AND MAX(LOWER(kcu.column_name)) = 'product_sku_code'
+            """;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        List<String> uniqueConstraints = findConstraints(connection, "UNIQUE");
+        if (uniqueConstraints.isEmpty())
+            return;
+
+        List<String> foreignKeys = findConstraints(connection, "FOREIGN KEY");
+        try (Statement statement = connection.createStatement()) {
+            for (String constraint : foreignKeys)
+                statement.execute("ALTER TABLE order_line DROP CONSTRAINT \"%s\"".formatted(constraint));
+            for (String constraint : uniqueConstraints)
+                statement.execute("ALTER TABLE order_line DROP CONSTRAINT \"%s\"".formatted(constraint));
+            for (String constraint : foreignKeys)
+                statement.execute("ALTER TABLE order_line ADD CONSTRAINT \"%s\" FOREIGN KEY (product_sku_code) REFERENCES product (sku_code)"
+                        .formatted(constraint));
+        }
+    }
+
+    private static List<String> findConstraints(Connection connection, String type) throws SQLException {
+        List<String> constraints = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(FIND_CONSTRAINTS)) {
+            statement.setString(1, type);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next())
+                    constraints.add(resultSet.getString(1));
+            }
+        }
+        return constraints;
+    }
+}
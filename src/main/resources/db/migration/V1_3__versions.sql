@@ -0,0 +1,5 @@
+-- Versions of the optimistic locks and ETags. Existing rows start at 0 like new ones, a NULL
+-- version would stay NULL through the version + 1 updates.
+ALTER TABLE customer ADD COLUMN version BIGINT DEFAULT 0;
+ALTER TABLE product ADD COLUMN version BIGINT DEFAULT 0;
+ALTER TABLE orders ADD COLUMN version BIGINT DEFAULT 0;
@@ -0,0 +1,32 @@
+-- Rollups kept in step with every order write, filled from the orders that already exist with the
+-- same sums the rebuild and the reconcile use.
+CREATE TABLE daily_sales (
+    sales_date DATE NOT NULL,
+    sku_code VARCHAR(255) NOT NULL,
+    units BIGINT NOT NULL,
+    revenue FLOAT(53) NOT NULL,
+    PRIMARY KEY (sales_date, sku_code)
+);
+
+INSERT INTO daily_sales (sales_date, sku_code, units, revenue)
+SELECT o.date_of_submission, ol.product_sku_code, SUM(ol.quantity), SUM(ol.quantity * CAST(p.unit_price AS DOUBLE PRECISION))
+FROM order_line ol
+JOIN orders o ON o.id = ol.order_id
+JOIN product p ON p.sku_code = ol.product_sku_code
+GROUP BY o.date_of_submission, ol.product_sku_code;
+
+CREATE TABLE customer_order_summary (
+    customer_code BIGINT NOT NULL,
+    order_count BIGINT NOT NULL,
+    lifetime_spend FLOAT(53) NOT NULL,
+    last_order_date DATE,
+    PRIMARY KEY (customer_code)
+);
+
+INSERT INTO customer_order_summary (customer_code, order_count, lifetime_spend, last_order_date)
+SELECT o.customer_registration_number, COUNT(DISTINCT o.id),
+COALESCE(SUM(ol.quantity * CAST(p.unit_price AS DOUBLE PRECISION)), 0), MAX(o.date_of_submission)
+FROM orders o
+LEFT JOIN order_line ol ON ol.order_id = o.id
+LEFT JOIN product p ON p.sku_code = ol.product_sku_code
+GROUP BY o.customer_registration_number;
@@ -0,0 +1,44 @@
+-- Schema of the released version, as Hibernate generated it from the entities: IDENTITY ids, no
+-- versions, and the unique constraint the one-to-one mapping of order lines to products put on
+-- order_line.product_sku_code. Databases created by that version are baselined at this version and
+-- skip it, everything since comes from the migrations after it.
+
+CREATE TABLE customer (
+    registration_code BIGINT NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    full_name VARCHAR(255) NOT NULL,
+    telephone VARCHAR(255) NOT NULL,
+    PRIMARY KEY (registration_code)
+);
+
+CREATE TABLE product (
+    sku_code VARCHAR(255) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    unit_price FLOAT(24) NOT NULL,
+    PRIMARY KEY (sku_code)
+);
+
+CREATE TABLE orders (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    date_of_submission DATE NOT NULL,
+    customer_registration_number BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE order_line (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    quantity INTEGER NOT NULL,
+    order_id BIGINT NOT NULL,
+    product_sku_code VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Hibernate named it UK_ and a hash, V1_2 finds it by its column
+ALTER TABLE order_line ADD CONSTRAINT uk_order_line_product UNIQUE (product_sku_code);
+
+ALTER TABLE orders ADD CONSTRAINT fk_orders_customer FOREIGN KEY (customer_registration_number)
+    REFERENCES customer (registration_code) ON DELETE CASCADE;
+ALTER TABLE order_line ADD CONSTRAINT fk_order_line_order FOREIGN KEY (order_id)
+    REFERENCES orders (id) ON DELETE CASCADE;
+ALTER TABLE order_line ADD CONSTRAINT fk_order_line_product FOREIGN KEY (product_sku_code)
+    REFERENCES product (sku_code);
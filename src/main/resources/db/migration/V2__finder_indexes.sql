@@ -0,0 +1,11 @@
+-- Access paths of the finders, see FinderIndexPlanTest.
+--   idx_orders_date_id             orders of a date or date range, keyset pages and exports by date
+--   idx_orders_customer_date_id    orders of a customer, keyset pages by customer, customer deletes
+--   idx_order_line_order_product   lines of an order, the SKU recheck of an order, line deletes by order
+--   idx_order_line_product_order   orders of a SKU (JPQL subquery and Criteria join), the order ids
+--                                  come from the index itself, and the reference check of product deletes
+
+CREATE INDEX idx_orders_date_id ON orders (date_of_submission, id);
+CREATE INDEX idx_orders_customer_date_id ON orders (customer_registration_number, date_of_submission, id);
+CREATE INDEX idx_order_line_order_product ON order_line (order_id, product_sku_code);
+CREATE INDEX idx_order_line_product_order ON order_line (product_sku_code, order_id);
@@ -0,0 +1,13 @@
+-- Idempotency keys of order creates. A key is inserted in the transaction that creates its order,
+-- so a committed row always has the response, and a concurrent create with the same key waits on
+-- the primary key until the first one commits. The response is kept even if the order is deleted.
+CREATE TABLE order_idempotency_key (
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    order_id BIGINT,
+    response VARCHAR(1000000),
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (idempotency_key)
+);
+
+CREATE INDEX idx_order_idempotency_key_created_at ON order_idempotency_key (created_at);
@@ -0,0 +1,15 @@
+-- Stock of a product, NULL for products whose stock is not tracked. Reservations are journaled in
+-- stock_reservation in the transaction of their order and folded into stock_quantity later, so the
+-- available stock is stock_quantity minus the reservations still in the journal.
+ALTER TABLE product ADD COLUMN stock_quantity BIGINT;
+
+CREATE SEQUENCE stock_reservation_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE stock_reservation (
+    id BIGINT NOT NULL,
+    sku_code VARCHAR(255) NOT NULL,
+    quantity BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_stock_reservation_sku ON stock_reservation (sku_code);
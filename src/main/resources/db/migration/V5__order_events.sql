@@ -0,0 +1,17 @@
+-- Outbox of order changes. An event is inserted in the transaction of its change, without a
+-- position, and the relay gives the committed ones increasing positions in the order it finds
+-- them, so readers that follow the positions never skip an event committed late. Stream clients
+-- resume from a position. Events outlive their orders and are purged after a retention.
+CREATE TABLE order_event (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    order_id BIGINT NOT NULL,
+    customer_code BIGINT NOT NULL,
+    event_type VARCHAR(16) NOT NULL,
+    occurred_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    stream_position BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX idx_order_event_position ON order_event (stream_position);
+CREATE INDEX idx_order_event_customer_position ON order_event (customer_code, stream_position);
+CREATE INDEX idx_order_event_occurred_at ON order_event (occurred_at);
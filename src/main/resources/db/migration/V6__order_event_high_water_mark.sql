@@ -0,0 +1,12 @@
+-- Last position handed out to an order event. The relay moves it forward in the transaction that
+-- positions the events, and the purge never touches it, so positions keep increasing once the
+-- events holding the last ones are deleted.
+CREATE TABLE order_event_high_water_mark (
+    id SMALLINT NOT NULL,
+    last_position BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT ck_order_event_high_water_mark_single_row CHECK (id = 1)
+);
+
+INSERT INTO order_event_high_water_mark (id, last_position)
+SELECT 1, COALESCE(MAX(stream_position), 0) FROM order_event;
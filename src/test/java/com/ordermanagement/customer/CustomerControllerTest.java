@@ -2,7 +2,7 @@ package com.ordermanagement.customer;
 
 import com.ordermanagement.exception.IdAlreadyInUseException;
 import com.ordermanagement.exception.NotFoundException;
-import com.ordermanagement.order.OrderDto;
+import com.ordermanagement.order.OrderPage;
 import com.ordermanagement.order.OrderService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,10 +13,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +25,8 @@ class CustomerControllerTest {
     private CustomerService customerService;
     @Mock
     private OrderService orderService;
+    @Mock
+    private CustomerOrderSummaryService customerOrderSummaryService;
     @InjectMocks
     private CustomerController customerController;
 
@@ -96,7 +98,7 @@ class CustomerControllerTest {
                 .build();
         when(customerService.findCustomerByCode(expected.getRegistrationCode())).thenReturn(Optional.of(expected));
 
-        ResponseEntity<Customer> responseEntity = customerController.findCustomerByCode(expected.getRegistrationCode());
+        ResponseEntity<Customer> responseEntity = customerController.findCustomerByCode(expected.getRegistrationCode(), null);
 
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertEquals(expected, responseEntity.getBody());
@@ -111,11 +113,28 @@ class CustomerControllerTest {
                 .build();
         when(customerService.findCustomerByCode(expected.getRegistrationCode())).thenReturn(Optional.empty());
 
-        ResponseEntity<Customer> responseEntity = customerController.findCustomerByCode(expected.getRegistrationCode());
+        ResponseEntity<Customer> responseEntity = customerController.findCustomerByCode(expected.getRegistrationCode(), null);
 
         assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
     }
 
+    @Test
+    @DisplayName("It should return NOT_MODIFIED when [find customer by code] and its version matches")
+    void itShouldReturnNotModifiedWhenFindCustomerByCodeAndVersionMatches() {
+        Customer expected = Customer.builder()
+                .registrationCode(1L)
+                .email("email")
+                .version(3L)
+                .build();
+        when(customerService.findCustomerByCode(expected.getRegistrationCode())).thenReturn(Optional.of(expected));
+
+        ResponseEntity<Customer> responseEntity = customerController.findCustomerByCode(expected.getRegistrationCode(), "\"3\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        assertEquals("\"3\"", responseEntity.getHeaders().getETag());
+        assertNull(responseEntity.getBody());
+    }
+
     @Test
     @DisplayName("It should call [find by customer code] from orderService")
     void itShouldCallFindByCustomerCodeFromOrderService() {
@@ -124,9 +143,9 @@ class CustomerControllerTest {
                 .email("email")
                 .build();
 
-        ResponseEntity<List<OrderDto>> responseEntity = customerController.findOrdersByCustomerCode(expected.getRegistrationCode());
+        ResponseEntity<OrderPage> responseEntity = customerController.findOrdersByCustomerCode(expected.getRegistrationCode(), null, 10);
 
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        verify(orderService, times(1)).findOrdersByCustomer(expected.getRegistrationCode());
+        verify(orderService, times(1)).findOrderPageByCustomer(expected.getRegistrationCode(), null, 10);
     }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.ordermanagement.customer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class CustomerOrderSummaryDeltaRepositoryImplTest {
+
+    @Test
+    @DisplayName("It should upsert the totals of new orders with ON CONFLICT on PostgreSQL")
+    void itShouldUpsertOnConflictOnPostgreSql() {
+        String statement = addOrders(mock(PostgreSQLDialect.class));
+
+        assertTrue(statement.startsWith("INSERT INTO customer_order_summary"), statement);
+        assertTrue(statement.contains("ON CONFLICT (customer_code) DO UPDATE SET order_count = customer_order_summary.order_count + EXCLUDED.order_count"), statement);
+        assertFalse(statement.contains("MERGE"), statement);
+    }
+
+    @Test
+    @DisplayName("It should merge the totals of new orders on databases without ON CONFLICT DO UPDATE")
+    void itShouldMergeOnH2() {
+        String statement = addOrders(mock(H2Dialect.class));
+
+        assertTrue(statement.startsWith("MERGE INTO customer_order_summary"), statement);
+        assertFalse(statement.contains("ON CONFLICT"), statement);
+    }
+
+    private static String addOrders(Dialect dialect) {
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, Answers.RETURNS_DEEP_STUBS);
+        when(sessionFactory.getJdbcServices().getDialect()).thenReturn(dialect);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+        Query query = mock(Query.class, Answers.RETURNS_SELF);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+
+        new CustomerOrderSummaryDeltaRepositoryImpl(entityManager).addOrders(List.of(1L));
+
+        ArgumentCaptor<String> statement = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createNativeQuery(statement.capture());
+        return statement.getValue();
+    }
+}
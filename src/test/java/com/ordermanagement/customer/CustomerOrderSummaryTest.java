@@ -0,0 +1,151 @@
+package com.ordermanagement.customer;
+
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderCreateRequest;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.order.OrderService;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.orderline.OrderLineService;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import com.ordermanagement.product.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "customer-summary.reconcile.chunk-size=1")
+@AutoConfigureMockMvc
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class CustomerOrderSummaryTest {
+    private static final long CUSTOMER_CODE = 11001L;
+    private static final long IDLE_CUSTOMER_CODE = 11002L;
+    private static final String SKU = "summary-sku-1";
+    private static final LocalDate DAY = LocalDate.of(2022, 4, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderLineService orderLineService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private CustomerOrderSummaryService customerOrderSummaryService;
+    @Autowired
+    private CustomerOrderSummaryRepository customerOrderSummaryRepository;
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRespository customerRepository;
+
+    private Order first;
+    private Order last;
+
+    @BeforeEach
+    void setUp() {
+        customerOrderSummaryRepository.deleteAll();
+        orderLineRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        customerRepository.save(customer(CUSTOMER_CODE));
+        customerRepository.save(customer(IDLE_CUSTOMER_CODE));
+        productRepository.save(Product.builder().skuCode(SKU).name("name").unitPrice(2.5F).build());
+
+        first = createOrder(DAY, 2);
+        createOrder(DAY.plusDays(1), 1);
+        last = createOrder(DAY.plusDays(2), 4);
+    }
+
+    @Test
+    @DisplayName("It should summarize the orders of a customer")
+    void itShouldSummarizeOrders() throws Exception {
+        mockMvc.perform(get("/api/v1/customer/{code}/summary", CUSTOMER_CODE))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {"customerCode":11001,"orderCount":3,"lifetimeSpend":17.5,"lastOrderDate":"2022-04-03"}
+                        """, true));
+    }
+
+    @Test
+    @DisplayName("It should summarize a customer without orders and not find an unknown one")
+    void itShouldSummarizeCustomerWithoutOrders() throws Exception {
+        mockMvc.perform(get("/api/v1/customer/{code}/summary", IDLE_CUSTOMER_CODE))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {"customerCode":11002,"orderCount":0,"lifetimeSpend":0.0,"lastOrderDate":null}
+                        """, true));
+        mockMvc.perform(get("/api/v1/customer/{code}/summary", -1L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("It should apply quantity updates, price changes and deletes to the summary")
+    void itShouldApplyWritesToSummary() {
+        orderLineService.updateQuantity(first.getOrderLines().get(0).getId(), 6);
+        productService.updateProduct(Product.builder().skuCode(SKU).name("name").unitPrice(1F).build());
+        orderService.deleteOrderById(last.getId());
+
+        assertEquals(Optional.of(new CustomerOrderSummaryDto(CUSTOMER_CODE, 2L, 7.0, DAY.plusDays(1))),
+                customerOrderSummaryService.findSummary(CUSTOMER_CODE));
+    }
+
+    @Test
+    @DisplayName("It should reconcile the summaries with the orders")
+    void itShouldReconcileSummaries() throws Exception {
+        Optional<CustomerOrderSummaryDto> maintained = customerOrderSummaryService.findSummary(CUSTOMER_CODE);
+        customerOrderSummaryRepository.deleteAll();
+        customerOrderSummaryRepository.save(CustomerOrderSummary.builder()
+                .customerCode(IDLE_CUSTOMER_CODE)
+                .orderCount(5L)
+                .lifetimeSpend(1.0)
+                .build());
+
+        mockMvc.perform(post("/api/v1/customer/summary/reconcile"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+
+        assertEquals(maintained, customerOrderSummaryService.findSummary(CUSTOMER_CODE));
+        assertEquals(Optional.of(new CustomerOrderSummaryDto(IDLE_CUSTOMER_CODE, 0L, 0.0, null)),
+                customerOrderSummaryService.findSummary(IDLE_CUSTOMER_CODE));
+    }
+
+    private Order createOrder(LocalDate dateOfSubmission, int quantity) {
+        return orderService.createOrder(new OrderCreateRequest(
+                null, CUSTOMER_CODE, dateOfSubmission, List.of(new OrderLineCreateRequest(SKU, quantity, null))
+        ));
+    }
+
+    private static Customer customer(Long registrationCode) {
+        return Customer.builder()
+                .registrationCode(registrationCode)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build();
+    }
+}
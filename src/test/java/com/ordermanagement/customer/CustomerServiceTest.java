@@ -2,14 +2,24 @@ package com.ordermanagement.customer;
 
 import com.ordermanagement.exception.IdAlreadyInUseException;
 import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.order.OrderDeleteResult;
+import com.ordermanagement.order.OrderDeleteService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,9 +29,26 @@ class CustomerServiceTest {
 
     @Mock
     private CustomerRespository customerRepository;
-    @InjectMocks
+    @Mock
+    private OrderDeleteService orderDeleteService;
+    @Mock
+    private CustomerOrderSummaryService customerOrderSummaryService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
     private CustomerService customerService;
 
+    @BeforeEach
+    void setUp() {
+        customerService = new CustomerService(
+                customerRepository,
+                Caffeine.newBuilder().build(),
+                orderDeleteService,
+                customerOrderSummaryService,
+                new TransactionTemplate(transactionManager),
+                2
+        );
+    }
+
     @Test
     @DisplayName("It should create customer")
     void itShouldCreateCustomer() {
@@ -30,12 +57,13 @@ class CustomerServiceTest {
                 .email("email")
                 .build();
 
-        when(customerRepository.save(expected)).thenReturn(expected);
+        when(customerRepository.saveAndFlush(expected)).thenReturn(expected);
 
         Customer actual = customerService.createCustomer(expected);
 
         assertEquals(expected, actual);
-        verify(customerRepository, times(1)).save(expected);
+        verify(customerRepository, times(1)).saveAndFlush(expected);
+        verify(customerRepository, never()).findById(any());
     }
 
     @Test
@@ -46,7 +74,7 @@ class CustomerServiceTest {
                 .email("email")
                 .build();
 
-        when(customerRepository.findById(expected.getRegistrationCode())).thenReturn(Optional.of(expected));
+        when(customerRepository.saveAndFlush(expected)).thenThrow(new DataIntegrityViolationException("duplicate key", new SQLException("duplicate key", "23505")));
 
         assertThrows(IdAlreadyInUseException.class, () -> customerService.createCustomer(expected));
     }
@@ -85,6 +113,21 @@ class CustomerServiceTest {
         verify(customerRepository, times(1)).findById(expected.getRegistrationCode());
     }
 
+    @Test
+    @DisplayName("It should find customers by registration codes with a single query")
+    void itShouldFindCustomersByCodes() {
+        Customer customer1 = Customer.builder().registrationCode(1L).email("email1").build();
+        Customer customer2 = Customer.builder().registrationCode(2L).email("email2").build();
+        Set<Long> codes = Set.of(1L, 2L, 3L);
+
+        when(customerRepository.findAllById(codes)).thenReturn(List.of(customer1, customer2));
+
+        Map<Long, Customer> actual = customerService.findCustomersByCodes(codes);
+
+        assertEquals(Map.of(1L, customer1, 2L, customer2), actual);
+        verify(customerRepository, never()).findById(any());
+    }
+
     @Test
     @DisplayName("It should update customer")
     void itShouldUpdateCustomer() {
@@ -93,13 +136,19 @@ class CustomerServiceTest {
                 .email("email")
                 .build();
 
-        when(customerRepository.findById(expected.getRegistrationCode())).thenReturn(Optional.of(expected));
-        when(customerRepository.save(expected)).thenReturn(expected);
+        Customer saved = Customer.builder()
+                .registrationCode(1L)
+                .email("email")
+                .version(1L)
+                .build();
+
+        when(customerRepository.update(1L, null, "email", null)).thenReturn(1);
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(saved));
 
         Customer actual = customerService.updateCustomer(expected);
 
-        assertEquals(expected, actual);
-        verify(customerRepository, times(1)).save(expected);
+        assertEquals(saved, actual);
+        verify(customerRepository, never()).save(any());
     }
 
     @Test
@@ -110,7 +159,7 @@ class CustomerServiceTest {
                 .email("email")
                 .build();
 
-        when(customerRepository.findById(expected.getRegistrationCode())).thenReturn(Optional.empty());
+        when(customerRepository.update(1L, null, "email", null)).thenReturn(0);
 
         assertThrows(NotFoundException.class, () -> customerService.updateCustomer(expected));
     }
@@ -123,11 +172,12 @@ class CustomerServiceTest {
                 .email("email")
                 .build();
 
-        when(customerRepository.findById(expected.getRegistrationCode())).thenReturn(Optional.of(expected));
+        when(orderDeleteService.deleteOrdersOfCustomers(List.of(1L))).thenReturn(new OrderDeleteResult(2, 3));
+        when(customerRepository.deleteByRegistrationCodes(List.of(1L))).thenReturn(1);
 
         customerService.deleteCustomerByCode(expected.getRegistrationCode());
 
-        verify(customerRepository, times(1)).deleteById(expected.getRegistrationCode());
+        verify(customerRepository, never()).findById(any());
     }
 
     @Test
@@ -138,8 +188,92 @@ class CustomerServiceTest {
                 .email("email")
                 .build();
 
-        when(customerRepository.findById(expected.getRegistrationCode())).thenReturn(Optional.empty());
+        when(orderDeleteService.deleteOrdersOfCustomers(List.of(1L))).thenReturn(OrderDeleteResult.NONE);
+        when(customerRepository.deleteByRegistrationCodes(List.of(1L))).thenReturn(0);
 
         assertThrows(NotFoundException.class, () -> customerService.deleteCustomerByCode(expected.getRegistrationCode()));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("It should delete customers and their orders one chunk per transaction")
+    void itShouldDeleteCustomersInChunks() {
+        when(orderDeleteService.deleteOrdersOfCustomers(List.of(1L, 2L))).thenReturn(new OrderDeleteResult(3, 6));
+        when(orderDeleteService.deleteOrdersOfCustomers(List.of(3L))).thenReturn(new OrderDeleteResult(1, 1));
+        when(customerRepository.deleteByRegistrationCodes(List.of(1L, 2L))).thenReturn(2);
+        when(customerRepository.deleteByRegistrationCodes(List.of(3L))).thenReturn(1);
+
+        CustomerDeleteResult actual = customerService.deleteCustomersByCodes(List.of(1L, 2L, 3L));
+
+        assertEquals(new CustomerDeleteResult(3, 4, 7), actual);
+        verify(customerOrderSummaryService, times(1)).deleteSummaries(List.of(1L, 2L));
+        verify(customerOrderSummaryService, times(1)).deleteSummaries(List.of(3L));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    @DisplayName("It should find customer by code from cache after the first lookup")
+    void itShouldFindCustomerByCodeFromCache() {
+        Customer expected = Customer.builder().registrationCode(1L).email("email").build();
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(expected));
+
+        customerService.findCustomerByCode(1L);
+        Optional<Customer> actual = customerService.findCustomerByCode(1L);
+
+        assertEquals(Optional.of(expected), actual);
+        verify(customerRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("It should cache unknown customer codes")
+    void itShouldCacheUnknownCustomerCodes() {
+        when(customerRepository.findById(1L)).thenReturn(Optional.empty());
+
+        customerService.findCustomerByCode(1L);
+        Map<Long, Customer> actual = customerService.findCustomersByCodes(Set.of(1L));
+
+        assertTrue(actual.isEmpty());
+        verify(customerRepository, times(1)).findById(1L);
+        verify(customerRepository, never()).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("It should reload customer after it is updated")
+    void itShouldReloadCustomerAfterUpdate() {
+        Customer before = Customer.builder().registrationCode(1L).email("before").build();
+        Customer after = Customer.builder().registrationCode(1L).email("after").build();
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(before)).thenReturn(Optional.of(after));
+        when(customerRepository.update(1L, null, "after", null)).thenReturn(1);
+
+        customerService.findCustomerByCode(1L);
+        customerService.updateCustomer(after);
+
+        assertEquals(Optional.of(after), customerService.findCustomerByCode(1L));
+    }
+
+    @Test
+    @DisplayName("It should forget customer after it is deleted")
+    void itShouldForgetCustomerAfterDelete() {
+        Customer customer = Customer.builder().registrationCode(1L).email("email").build();
+        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer)).thenReturn(Optional.empty());
+        when(orderDeleteService.deleteOrdersOfCustomers(List.of(1L))).thenReturn(OrderDeleteResult.NONE);
+        when(customerRepository.deleteByRegistrationCodes(List.of(1L))).thenReturn(1);
+
+        customerService.findCustomerByCode(1L);
+        customerService.deleteCustomerByCode(1L);
+
+        assertTrue(customerService.findCustomerByCode(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("It should find customer after it is created")
+    void itShouldFindCustomerAfterCreate() {
+        Customer customer = Customer.builder().registrationCode(1L).email("email").build();
+        when(customerRepository.findById(1L)).thenReturn(Optional.empty()).thenReturn(Optional.of(customer));
+        when(customerRepository.saveAndFlush(customer)).thenReturn(customer);
+
+        customerService.findCustomerByCode(1L);
+        customerService.createCustomer(customer);
+
+        assertEquals(Optional.of(customer), customerService.findCustomerByCode(1L));
+    }
+}
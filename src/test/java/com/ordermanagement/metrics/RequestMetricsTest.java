@@ -0,0 +1,132 @@
+package com.ordermanagement.metrics;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.order.OrderFinder;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.order.OrderRepositoryCriteria;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "management.endpoints.web.exposure.include=prometheus",
+        "management.metrics.distribution.percentiles.http.server.requests=0.5,0.99,0.999",
+        "management.metrics.distribution.percentiles.order.finder=0.5,0.99,0.999"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RequestMetricsTest {
+    private static final long CUSTOMER_CODE = 6001L;
+
+    private final MockMvc mockMvc;
+    private final MeterRegistry meterRegistry;
+    private final OrderRepository orderRepository;
+    private final OrderRepositoryCriteria orderRepositoryCriteria;
+
+    @Autowired
+    public RequestMetricsTest(
+            MockMvc mockMvc,
+            MeterRegistry meterRegistry,
+            OrderRepository orderRepository,
+            OrderRepositoryCriteria orderRepositoryCriteria,
+            CustomerRespository customerRepository
+    ) {
+        this.mockMvc = mockMvc;
+        this.meterRegistry = meterRegistry;
+        this.orderRepository = orderRepository;
+        this.orderRepositoryCriteria = orderRepositoryCriteria;
+
+        customerRepository.save(Customer.builder()
+                .registrationCode(CUSTOMER_CODE)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+    }
+
+    @Test
+    @DisplayName("It should record the statements and entity loads of a request by endpoint")
+    void itShouldRecordStatementsAndEntityLoadsByEndpoint() throws Exception {
+        mockMvc.perform(get("/api/v1/customer/{code}", CUSTOMER_CODE)).andExpect(status().isOk());
+
+        DistributionSummary statements = requestSummary(RequestStatementMetricsFilter.STATEMENTS_METRIC);
+        DistributionSummary entities = requestSummary(RequestStatementMetricsFilter.ENTITIES_METRIC);
+        assertEquals(1, statements.count());
+        assertEquals(1, entities.count());
+        // the customer cache is cold, so the first request reads and loads the customer
+        assertTrue(statements.totalAmount() >= 1, "statements: " + statements.totalAmount());
+        assertEquals(1, entities.totalAmount());
+    }
+
+    @Test
+    @DisplayName("It should time every order finder method by implementation")
+    void itShouldTimeOrderFinderMethods() {
+        callFinder(orderRepository);
+        callFinder(orderRepositoryCriteria);
+        long jpaCalls = finderTimer("orderJpaRepository", "findOrdersByCustomerCode").count();
+        long criteriaCalls = finderTimer("orderCriteriaRepository", "findOrdersByProductSku").count();
+
+        callFinder(orderRepository);
+        callFinder(orderRepositoryCriteria);
+
+        assertEquals(jpaCalls + 1, finderTimer("orderJpaRepository", "findOrdersByCustomerCode").count());
+        assertEquals(criteriaCalls + 1, finderTimer("orderCriteriaRepository", "findOrdersByProductSku").count());
+    }
+
+    @Test
+    @DisplayName("It should expose latency percentiles in the Prometheus format")
+    void itShouldExposePrometheusPercentiles() throws Exception {
+        callFinder(orderRepositoryCriteria);
+        mockMvc.perform(get("/api/v1/customer/{code}/orders", CUSTOMER_CODE)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("order_finder_seconds{implementation=\"orderCriteriaRepository\"")))
+                .andExpect(content().string(containsString("quantile=\"0.999\"")))
+                .andExpect(content().string(containsString("http_server_requests_statements_count")))
+                .andExpect(content().string(containsString("http_server_requests_entities_loaded_count")));
+    }
+
+    private static void callFinder(OrderFinder orderFinder) {
+        orderFinder.findOrdersByCustomerCode(CUSTOMER_CODE);
+        orderFinder.findOrdersByProductSku("metrics-sku");
+    }
+
+    private DistributionSummary requestSummary(String name) {
+        DistributionSummary summary = meterRegistry.find(name)
+                .tags("method", "GET", "uri", "/api/v1/customer/{code}")
+                .summary();
+        assertNotNull(summary, name);
+        return summary;
+    }
+
+    private Timer finderTimer(String implementation, String method) {
+        Timer timer = meterRegistry.find(OrderFinderMetrics.METRIC_NAME)
+                .tags("implementation", implementation, "method", method)
+                .timer();
+        assertNotNull(timer, implementation + "." + method);
+        return timer;
+    }
+}
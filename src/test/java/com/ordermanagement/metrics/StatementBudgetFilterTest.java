@@ -0,0 +1,84 @@
+package com.ordermanagement.metrics;
+
+import com.ordermanagement.exception.StatementBudgetExceededException;
+import com.ordermanagement.persistence.StatementCounter;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StatementBudgetFilterTest {
+    private static final String URI = "/api/v1/customer/{code}/orders";
+
+    private final StatementCounter statementCounter = new StatementCounter();
+
+    @Test
+    @DisplayName("It should fail a request over its budget in strict mode")
+    void itShouldFailRequestOverBudgetInStrictMode() {
+        StatementBudgetFilter filter = filter(true, 2);
+
+        StatementBudgetExceededException exception = assertThrows(StatementBudgetExceededException.class,
+                () -> filter.doFilter(request("GET"), new MockHttpServletResponse(), chainExecuting(3)));
+        assertEquals("GET " + URI + " executed 3 statements, budget is 2", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("It should only log a request over its budget outside strict mode")
+    void itShouldOnlyLogRequestOverBudget() {
+        StatementBudgetFilter filter = filter(false, 2);
+
+        assertDoesNotThrow(() -> filter.doFilter(request("GET"), new MockHttpServletResponse(), chainExecuting(3)));
+    }
+
+    @Test
+    @DisplayName("It should pass requests within their budget and requests without a budget")
+    void itShouldPassRequestsWithinBudget() {
+        StatementBudgetFilter filter = filter(true, 2);
+
+        assertDoesNotThrow(() -> filter.doFilter(request("GET"), new MockHttpServletResponse(), chainExecuting(2)));
+        assertDoesNotThrow(() -> filter.doFilter(request("DELETE"), new MockHttpServletResponse(), chainExecuting(3)));
+    }
+
+    @Test
+    @DisplayName("It should group statements by shape regardless of whitespace and parameter list length")
+    void itShouldShapeStatements() {
+        assertEquals(
+                StatementBudgetFilter.shape("select o.id from orders o\n    where o.id in (?, ?, ?)"),
+                StatementBudgetFilter.shape("select o.id from orders o where o.id in (?)")
+        );
+    }
+
+    private StatementBudgetFilter filter(boolean strict, int budget) {
+        return new StatementBudgetFilter(
+                statementCounter,
+                new StatementBudgetProperties(strict, Map.of(URI, Map.of("GET", budget)))
+        );
+    }
+
+    private static MockHttpServletRequest request(String method) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/v1/customer/1/orders");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, URI);
+        return request;
+    }
+
+    private MockFilterChain chainExecuting(int statements) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                for (int i = 0; i < statements; i++)
+                    statementCounter.inspect("select c.registration_code from customer c where c.registration_code = ?");
+            }
+        });
+    }
+}
@@ -0,0 +1,88 @@
+package com.ordermanagement.metrics;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementBudgetTest {
+    private static final long CUSTOMER_CODE = 7001L;
+    private static final int ORDER_COUNT = 3;
+    private static final int LINES_PER_ORDER = 5;
+
+    private final MockMvc mockMvc;
+    private final Order order;
+
+    @Autowired
+    public StatementBudgetTest(
+            MockMvc mockMvc,
+            OrderRepository orderRepository,
+            OrderLineRepository orderLineRepository,
+            ProductRepository productRepository,
+            CustomerRespository customerRepository
+    ) {
+        this.mockMvc = mockMvc;
+
+        Customer customer = customerRepository.save(Customer.builder()
+                .registrationCode(CUSTOMER_CODE)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+        List<Product> products = productRepository.saveAll(IntStream.range(0, LINES_PER_ORDER)
+                .mapToObj(i -> Product.builder().skuCode(skuCode(i)).name("name" + i).unitPrice(1F).build())
+                .toList());
+        List<Order> orders = orderRepository.saveAll(IntStream.range(0, ORDER_COUNT)
+                .mapToObj(i -> Order.builder().customer(customer).dateOfSubmission(LocalDate.of(2022, 1, 1 + i)).build())
+                .toList());
+        orders.forEach(order -> orderLineRepository.saveAll(products.stream()
+                .map(product -> OrderLine.builder().order(order).product(product).quantity(1).build())
+                .toList()));
+        this.order = orders.get(0);
+    }
+
+    @Test
+    @DisplayName("It should read order lists within their statement budgets")
+    void itShouldReadOrderListsWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/v1/customer/{code}/orders", CUSTOMER_CODE)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/product/{skuCode}/orders", skuCode(0))).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/orders").param("from", "2022-01-01")).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("It should read single entities within their statement budgets")
+    void itShouldReadEntitiesWithinBudget() throws Exception {
+        mockMvc.perform(get("/api/v1/order/{id}", order.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/customer/{code}", CUSTOMER_CODE)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/product/{skuCode}", skuCode(0))).andExpect(status().isOk());
+    }
+
+    private static String skuCode(int i) {
+        return "budget-sku-" + i;
+    }
+}
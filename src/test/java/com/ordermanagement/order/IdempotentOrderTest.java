@@ -0,0 +1,202 @@
+package com.ordermanagement.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import com.ordermanagement.persistence.StatementCounter;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IdempotentOrderTest {
+    private static final long CUSTOMER_CODE = 16001L;
+    private static final String SKU = "idempotent-sku";
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final IdempotentOrderService idempotentOrderService;
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final OrderIdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StatementCounter statementCounter;
+
+    @Autowired
+    public IdempotentOrderTest(
+            MockMvc mockMvc,
+            ObjectMapper objectMapper,
+            IdempotentOrderService idempotentOrderService,
+            OrderService orderService,
+            OrderRepository orderRepository,
+            OrderIdempotencyKeyRepository idempotencyKeyRepository,
+            TransactionTemplate transactionTemplate,
+            StatementCounter statementCounter,
+            CustomerRespository customerRepository,
+            ProductRepository productRepository
+    ) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.idempotentOrderService = idempotentOrderService;
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.statementCounter = statementCounter;
+
+        customerRepository.save(Customer.builder()
+                .registrationCode(CUSTOMER_CODE)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+        productRepository.save(Product.builder().skuCode(SKU).name("name").unitPrice(1F).build());
+    }
+
+    @Test
+    @DisplayName("It should replay the stored order for a repeated key without any statement")
+    void itShouldReplayRepeatedKey() throws Exception {
+        long ordersBefore = orderRepository.count();
+
+        OrderDto created = readOrder(createOrder("replay-key", orderCreateRequest(1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(OrderController.IDEMPOTENT_REPLAYED_HEADER, "false"))
+                .andReturn());
+
+        long statementsBefore = statementCounter.current();
+        OrderDto replayed = readOrder(createOrder("replay-key", orderCreateRequest(1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(OrderController.IDEMPOTENT_REPLAYED_HEADER, "true"))
+                .andReturn());
+
+        assertEquals(0, statementCounter.current() - statementsBefore);
+        assertEquals(created, replayed);
+        assertEquals(ordersBefore + 1, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("It should reject a key sent again with another request")
+    void itShouldRejectKeyReusedWithAnotherRequest() throws Exception {
+        createOrder("reused-key", orderCreateRequest(1)).andExpect(status().isOk());
+
+        createOrder("reused-key", orderCreateRequest(2)).andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    @DisplayName("It should create one order for concurrent requests with the same key")
+    void itShouldCreateOneOrderForConcurrentRequests() {
+        long ordersBefore = orderRepository.count();
+        int requests = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<CompletableFuture<IdempotentOrder>> orders = IntStream.range(0, requests)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        return idempotentOrderService.createOrder("concurrent-key", orderCreateRequest(1));
+                    }, executor))
+                    .toList();
+            start.countDown();
+
+            List<IdempotentOrder> results = orders.stream().map(CompletableFuture::join).toList();
+            assertEquals(1, results.stream().map(order -> order.order().id()).distinct().count());
+            assertEquals(1, results.stream().filter(order -> !order.replayed()).count());
+            assertEquals(ordersBefore + 1, orderRepository.count());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("It should replay a key evicted from the cache from the table without reading orders")
+    void itShouldReplayEvictedKeyFromTable() {
+        OrderDto created = idempotentOrderService.createOrder("evicted-key", orderCreateRequest(1)).order();
+        IdempotentOrderService emptyCache = newService(Duration.ofHours(1));
+
+        statementCounter.startRecording();
+        IdempotentOrder replayed;
+        List<String> statements;
+        try {
+            replayed = emptyCache.createOrder("evicted-key", orderCreateRequest(1));
+        } finally {
+            statements = List.copyOf(statementCounter.stopRecording());
+        }
+
+        assertTrue(replayed.replayed());
+        assertEquals(created, replayed.order());
+        assertTrue(statements.stream().allMatch(sql -> sql.contains("order_idempotency_key")), statements::toString);
+    }
+
+    @Test
+    @DisplayName("It should create a new order for a key purged after the retention")
+    void itShouldCreateNewOrderForPurgedKey() {
+        OrderDto first = idempotentOrderService.createOrder("purged-key", orderCreateRequest(1)).order();
+        IdempotentOrderService noRetention = newService(Duration.ZERO);
+
+        assertTrue(noRetention.purgeExpiredKeys() > 0);
+        assertTrue(idempotencyKeyRepository.findById("purged-key").isEmpty());
+
+        IdempotentOrder second = noRetention.createOrder("purged-key", orderCreateRequest(1));
+        assertNotEquals(first.id(), second.order().id());
+    }
+
+    private IdempotentOrderService newService(Duration retention) {
+        return new IdempotentOrderService(orderService, idempotencyKeyRepository, transactionTemplate, objectMapper,
+                new SimpleMeterRegistry(), 100, retention, Duration.ofSeconds(30));
+    }
+
+    private ResultActions createOrder(String key, OrderCreateRequest request) throws Exception {
+        return mockMvc.perform(post("/api/v1/order")
+                .header(OrderController.IDEMPOTENCY_KEY_HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+    }
+
+    private OrderDto readOrder(MvcResult result) throws Exception {
+        return objectMapper.readValue(result.getResponse().getContentAsString(), OrderDto.class);
+    }
+
+    private static OrderCreateRequest orderCreateRequest(int quantity) {
+        return new OrderCreateRequest(null, CUSTOMER_CODE, LocalDate.of(2023, 5, 1), List.of(
+                new OrderLineCreateRequest(SKU, quantity, null)
+        ));
+    }
+}
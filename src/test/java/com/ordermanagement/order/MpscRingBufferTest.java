@@ -0,0 +1,73 @@
+package com.ordermanagement.order;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class MpscRingBufferTest {
+
+    @Test
+    @DisplayName("It should refuse a claim when full and skip cancelled slots")
+    void itShouldRefuseClaimWhenFull() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+
+        long first = buffer.claim();
+        long cancelled = buffer.claim();
+        buffer.publish(buffer.claim(), 3);
+        buffer.publish(buffer.claim(), 4);
+        assertEquals(-1, buffer.claim());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(0, buffer.drain(drained::add, 10));
+        buffer.publish(first, 1);
+        buffer.publish(cancelled, null);
+
+        assertEquals(4, buffer.drain(drained::add, 10));
+        assertEquals(List.of(1, 3, 4), drained);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    @DisplayName("It should hand every element of concurrent producers to the consumer once")
+    void itShouldDrainEveryElementOnce() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(64);
+        int producers = 8;
+        int perProducer = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<CompletableFuture<Void>> produced = IntStream.range(0, producers)
+                    .mapToObj(producer -> CompletableFuture.runAsync(() -> {
+                        for (int i = 0; i < perProducer; i++) {
+                            long sequence;
+                            while ((sequence = buffer.claim()) < 0)
+                                Thread.onSpinWait();
+                            buffer.publish(sequence, producer * perProducer + i);
+                        }
+                    }, executor))
+                    .toList();
+
+            boolean[] seen = new boolean[producers * perProducer];
+            int[] count = new int[1];
+            while (count[0] < seen.length)
+                buffer.drain(element -> {
+                    assertFalse(seen[element]);
+                    seen[element] = true;
+                    count[0]++;
+                }, 16);
+            produced.forEach(CompletableFuture::join);
+            assertEquals(0, buffer.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.ordermanagement.order;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class OrderBatchIngestionTest {
+    private final MockMvc mockMvc;
+    private final OrderRepository orderRepository;
+
+    @Autowired
+    public OrderBatchIngestionTest(
+            MockMvc mockMvc,
+            OrderRepository orderRepository,
+            ProductRepository productRepository,
+            CustomerRespository customerRepository
+    ) {
+        this.mockMvc = mockMvc;
+        this.orderRepository = orderRepository;
+
+        customerRepository.save(Customer.builder()
+                .registrationCode(2001L)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+        productRepository.save(Product.builder().skuCode("batch-sku").name("name").unitPrice(1F).build());
+    }
+
+    @Test
+    @DisplayName("It should stream a result line for every ingested order")
+    void itShouldStreamResultForEveryIngestedOrder() throws Exception {
+        String body = IntStream.range(0, 7)
+                .mapToObj(i -> """
+                        {"customerCode":%d,"dateOfSubmission":"2022-05-05","orderLines":[{"productSkuCode":"batch-sku","quantity":%d}]}"""
+                        .formatted(i == 4 ? 9999 : 2001, i + 1))
+                .collect(Collectors.joining("\n"));
+
+        String response = mockMvc.perform(post("/api/v1/orders/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(7, response.lines().count());
+        assertEquals(6, response.lines().filter(line -> line.contains("\"CREATED\"")).count());
+        assertEquals(6, orderRepository.findOrdersByDate(LocalDate.of(2022, 5, 5)).size());
+    }
+}
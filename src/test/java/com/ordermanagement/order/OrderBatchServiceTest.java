@@ -0,0 +1,183 @@
+package com.ordermanagement.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerOrderSummaryService;
+import com.ordermanagement.customer.CustomerService;
+import com.ordermanagement.exception.InsufficientStockException;
+import com.ordermanagement.orderline.OrderLineService;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductService;
+import com.ordermanagement.product.StockService;
+import com.ordermanagement.report.DailySalesService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBatchServiceTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private CustomerService customerService;
+    @Mock
+    private ProductService productService;
+    @Mock
+    private OrderLineService orderLineService;
+    @Mock
+    private DailySalesService dailySalesService;
+    @Mock
+    private CustomerOrderSummaryService customerOrderSummaryService;
+    @Mock
+    private SkuOrderIndex skuOrderIndex;
+    @Mock
+    private OrderEventService orderEventService;
+    @Mock
+    private StockService stockService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private OrderBatchService orderBatchService;
+
+    @BeforeEach
+    void setUp() {
+        orderBatchService = new OrderBatchService(
+                orderRepository,
+                customerService,
+                productService,
+                orderLineService,
+                dailySalesService,
+                customerOrderSummaryService,
+                skuOrderIndex,
+                orderEventService,
+                stockService,
+                transactionTemplate,
+                objectMapper,
+                2
+        );
+    }
+
+    @Test
+    @DisplayName("It should persist valid orders chunk by chunk and report every record")
+    void itShouldPersistValidOrdersChunkByChunk() throws IOException {
+        when(customerService.findCustomersByCodes(anyCollection())).thenReturn(
+                Map.of(1L, Customer.builder().registrationCode(1L).build())
+        );
+        when(productService.findProductsBySkuCodes(anyCollection())).thenReturn(
+                Map.of("skuCode", Product.builder().skuCode("skuCode").build())
+        );
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        List<OrderBatchResult> results = createOrders(
+                order(1L, "skuCode", 1),
+                order(2L, "skuCode", 1),
+                order(1L, "unknown", 1),
+                "",
+                order(1L, "skuCode", 0),
+                "{not json",
+                order(1L, "skuCode", 3)
+        );
+
+        assertEquals(6, results.size());
+        assertEquals(OrderBatchResult.Status.CREATED, results.get(0).status());
+        assertEquals("Customer not found", results.get(1).error());
+        assertEquals("Product not found", results.get(2).error());
+        assertEquals("Quantity must be greater than 0", results.get(3).error());
+        assertEquals(OrderBatchResult.Status.REJECTED, results.get(4).status());
+        assertEquals(OrderBatchResult.Status.CREATED, results.get(5).status());
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L), results.stream().map(OrderBatchResult::index).toList());
+
+        verify(customerService, times(3)).findCustomersByCodes(anyCollection());
+        verify(orderRepository, times(2)).saveAll(any());
+        verify(orderLineService, times(2)).createOrderLines(any());
+    }
+
+    @Test
+    @DisplayName("It should mark the orders of a chunk as failed when persisting it fails")
+    void itShouldMarkChunkAsFailedWhenPersistingFails() throws IOException {
+        when(customerService.findCustomersByCodes(anyCollection())).thenReturn(
+                Map.of(1L, Customer.builder().registrationCode(1L).build())
+        );
+        when(productService.findProductsBySkuCodes(anyCollection())).thenReturn(
+                Map.of("skuCode", Product.builder().skuCode("skuCode").build())
+        );
+        doThrow(new IllegalStateException("database unavailable")).when(transactionTemplate).executeWithoutResult(any());
+
+        List<OrderBatchResult> results = createOrders(order(1L, "skuCode", 1));
+
+        assertEquals(1, results.size());
+        assertEquals(OrderBatchResult.Status.FAILED, results.get(0).status());
+        assertEquals("database unavailable", results.get(0).error());
+    }
+
+    @Test
+    @DisplayName("It should reject the orders the stock does not cover and create the rest of their chunk")
+    void itShouldRejectOrdersWithoutStock() throws IOException {
+        when(customerService.findCustomersByCodes(anyCollection())).thenReturn(
+                Map.of(1L, Customer.builder().registrationCode(1L).build())
+        );
+        when(productService.findProductsBySkuCodes(anyCollection())).thenReturn(
+                Map.of("skuCode", Product.builder().skuCode("skuCode").stockQuantity(1L).build())
+        );
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        doThrow(new InsufficientStockException("Insufficient stock of product [skuCode]"))
+                .when(stockService).take(eq(Map.of("skuCode", 5L)), anyMap());
+
+        List<OrderBatchResult> results = createOrders(order(1L, "skuCode", 5), order(1L, "skuCode", 1));
+
+        assertEquals(OrderBatchResult.Status.REJECTED, results.get(0).status());
+        assertEquals("Insufficient stock of product [skuCode]", results.get(0).error());
+        assertEquals(OrderBatchResult.Status.CREATED, results.get(1).status());
+        verify(stockService, times(1)).bind(any());
+        verify(orderLineService).createOrderLines(argThat(orderLines -> orderLines.size() == 1));
+    }
+
+    private List<OrderBatchResult> createOrders(String... lines) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orderBatchService.createOrders(
+                new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8)),
+                out
+        );
+
+        return out.toString(StandardCharsets.UTF_8).lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, OrderBatchResult.class);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+    }
+
+    private static String order(Long customerCode, String skuCode, int quantity) {
+        return """
+                {"customerCode":%d,"dateOfSubmission":"2021-01-01","orderLines":[{"productSkuCode":"%s","quantity":%d}]}"""
+                .formatted(customerCode, skuCode, quantity);
+    }
+}
@@ -0,0 +1,105 @@
+package com.ordermanagement.order;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.persistence.StatementCounter;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderConditionalGetTest {
+    private final MockMvc mockMvc;
+    private final StatementCounter statementCounter;
+    private final Order order;
+    private final OrderLine orderLine;
+
+    @Autowired
+    public OrderConditionalGetTest(
+            MockMvc mockMvc,
+            StatementCounter statementCounter,
+            OrderRepository orderRepository,
+            OrderLineRepository orderLineRepository,
+            ProductRepository productRepository,
+            CustomerRespository customerRepository
+    ) {
+        this.mockMvc = mockMvc;
+        this.statementCounter = statementCounter;
+
+        Customer customer = customerRepository.save(Customer.builder()
+                .registrationCode(5001L)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+        Product product = productRepository.save(Product.builder().skuCode("etag-sku").name("name").unitPrice(1F).build());
+        order = orderRepository.save(Order.builder().customer(customer).dateOfSubmission(LocalDate.of(2020, 5, 5)).build());
+        orderLine = orderLineRepository.save(OrderLine.builder().order(order).product(product).quantity(1).build());
+        order.setOrderLines(List.of(orderLine));
+    }
+
+    @Test
+    @DisplayName("It should answer a matching If-None-Match with NOT_MODIFIED after reading only the version")
+    void itShouldReturnNotModifiedAfterReadingOnlyVersion() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/order/{id}", order.getId()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        long before = statementCounter.current();
+        mockMvc.perform(get("/api/v1/order/{id}", order.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        assertEquals(1, statementCounter.current() - before);
+    }
+
+    @Test
+    @DisplayName("It should change the order ETag when one of its lines is updated")
+    void itShouldChangeETagWhenOrderLineIsUpdated() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/order/{id}", order.getId()))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(put("/api/v1/order-line/{id}", orderLine.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("5"))
+                .andExpect(status().isOk());
+
+        String newEtag = mockMvc.perform(get("/api/v1/order/{id}", order.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+    }
+}
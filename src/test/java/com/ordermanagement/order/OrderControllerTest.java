@@ -1,7 +1,9 @@
 package com.ordermanagement.order;
 
 import com.ordermanagement.customer.Customer;
+import com.ordermanagement.exception.IdempotencyKeyReusedException;
 import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.exception.OrderIntakeUnavailableException;
 import com.ordermanagement.orderline.OrderLine;
 import com.ordermanagement.orderline.OrderLineCreateRequest;
 import com.ordermanagement.product.Product;
@@ -11,21 +13,36 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class OrderControllerTest {
     @Mock
     private OrderService orderService;
+    @Mock
+    private IdempotentOrderService idempotentOrderService;
+    @Mock
+    private OrderBatchService orderBatchService;
+    @Mock
+    private OrderExportService orderExportService;
+    @Mock
+    private OrderIntakeService orderIntakeService;
     @InjectMocks
     private OrderController orderController;
 
@@ -63,7 +80,7 @@ class OrderControllerTest {
                 .orderLines(orderLines)
                 .build();
         when(orderService.createOrder(orderCreateRequest)).thenReturn(order);
-        ResponseEntity<Object> responseEntity = orderController.createOrder(orderCreateRequest);
+        ResponseEntity<Object> responseEntity = orderController.createOrder(orderCreateRequest, null, null);
 
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertEquals(order.toDto(), responseEntity.getBody());
@@ -81,7 +98,7 @@ class OrderControllerTest {
                 )
         );
         when(orderService.createOrder(orderCreateRequest)).thenThrow(new NotFoundException("Customer not found"));
-        ResponseEntity<Object> responseEntity = orderController.createOrder(orderCreateRequest);
+        ResponseEntity<Object> responseEntity = orderController.createOrder(orderCreateRequest, null, null);
 
         assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
     }
@@ -98,7 +115,7 @@ class OrderControllerTest {
                 )
         );
         when(orderService.createOrder(orderCreateRequest)).thenThrow(new NotFoundException("Product not found"));
-        ResponseEntity<Object> responseEntity = orderController.createOrder(orderCreateRequest);
+        ResponseEntity<Object> responseEntity = orderController.createOrder(orderCreateRequest, null, null);
 
         assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
     }
@@ -115,11 +132,103 @@ class OrderControllerTest {
                 )
         );
         when(orderService.createOrder(orderCreateRequest)).thenThrow(new IllegalArgumentException("Product quantity less than 1"));
-        ResponseEntity<Object> responseEntity = orderController.createOrder(orderCreateRequest);
+        ResponseEntity<Object> responseEntity = orderController.createOrder(orderCreateRequest, null, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
     }
 
+    @Test
+    @DisplayName("It should return the order and whether it was replayed when [create order] with an idempotency key")
+    void itShouldReturnReplayedOrderWhenCreateOrderWithIdempotencyKey() {
+        OrderCreateRequest orderCreateRequest = new OrderCreateRequest(
+                null,
+                1234L,
+                LocalDate.of(2021, 1, 1),
+                List.of(
+                        new OrderLineCreateRequest("skuCode", 1, null)
+                )
+        );
+        OrderDto order = new OrderDto(1L, 1234L, LocalDate.of(2021, 1, 1), List.of());
+        when(idempotentOrderService.createOrder("key", orderCreateRequest)).thenReturn(new IdempotentOrder(order, true));
+        ResponseEntity<Object> responseEntity = orderController.createOrder(orderCreateRequest, "key", null);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(order, responseEntity.getBody());
+        assertEquals("true", responseEntity.getHeaders().getFirst(OrderController.IDEMPOTENT_REPLAYED_HEADER));
+        verify(orderService, never()).createOrder(any());
+    }
+
+    @Test
+    @DisplayName("It should return UNPROCESSABLE_ENTITY when [create order] reuses an idempotency key")
+    void itShouldReturnUnprocessableEntityWhenCreateOrderReusesIdempotencyKey() {
+        OrderCreateRequest orderCreateRequest = new OrderCreateRequest(
+                null,
+                1234L,
+                LocalDate.of(2021, 1, 1),
+                List.of(
+                        new OrderLineCreateRequest("skuCode", 1, null)
+                )
+        );
+        when(idempotentOrderService.createOrder("key", orderCreateRequest))
+                .thenThrow(new IdempotencyKeyReusedException("Idempotency key [key] was used with another request"));
+        ResponseEntity<Object> responseEntity = orderController.createOrder(orderCreateRequest, "key", null);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, responseEntity.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("It should return ACCEPTED when [create order] prefers an asynchronous response")
+    void itShouldReturnAcceptedWhenCreateOrderPrefersAsync() {
+        OrderCreateRequest orderCreateRequest = new OrderCreateRequest(
+                null,
+                1234L,
+                LocalDate.of(2021, 1, 1),
+                List.of(
+                        new OrderLineCreateRequest("skuCode", 1, null)
+                )
+        );
+        when(orderIntakeService.isEnabled()).thenReturn(true);
+        when(orderIntakeService.accept(orderCreateRequest)).thenReturn(OrderIntakeStatus.queued(7L));
+        ResponseEntity<Object> responseEntity = orderController.createOrder(orderCreateRequest, null, "respond-async");
+
+        assertEquals(HttpStatus.ACCEPTED, responseEntity.getStatusCode());
+        assertEquals(OrderIntakeStatus.queued(7L), responseEntity.getBody());
+        assertEquals("/api/v1/order/intake/7", responseEntity.getHeaders().getFirst(HttpHeaders.LOCATION));
+        verify(orderService, never()).createOrder(any());
+    }
+
+    @Test
+    @DisplayName("It should return SERVICE_UNAVAILABLE with Retry-After when [create order] finds the intake full")
+    void itShouldReturnServiceUnavailableWhenCreateOrderFindsIntakeFull() {
+        OrderCreateRequest orderCreateRequest = new OrderCreateRequest(
+                null,
+                1234L,
+                LocalDate.of(2021, 1, 1),
+                List.of(
+                        new OrderLineCreateRequest("skuCode", 1, null)
+                )
+        );
+        when(orderIntakeService.isEnabled()).thenReturn(true);
+        when(orderIntakeService.accept(orderCreateRequest))
+                .thenThrow(new OrderIntakeUnavailableException("Order intake is full", Duration.ofSeconds(2)));
+        ResponseEntity<Object> responseEntity = orderController.createOrder(orderCreateRequest, null, "respond-async");
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, responseEntity.getStatusCode());
+        assertEquals("2", responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    @DisplayName("It should stream [create orders] results as NDJSON")
+    void itShouldStreamCreateOrdersResultsAsNdjson() throws IOException {
+        InputStream requests = new ByteArrayInputStream(new byte[0]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        orderController.createOrders(requests, response);
+
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, response.getContentType());
+        verify(orderBatchService, times(1)).createOrders(eq(requests), any());
+    }
+
     @Test
     @DisplayName("It should return OK when [delete order]")
     void itShouldReturnOkWhenDeleteOrder() {
@@ -167,18 +276,39 @@ class OrderControllerTest {
                 .build();
         when(orderService.findOrderById(id)).thenReturn(Optional.of(order));
 
-        ResponseEntity<OrderDto> responseEntity = orderController.findOrderById(id);
+        ResponseEntity<OrderDto> responseEntity = orderController.findOrderById(id, null);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertEquals(order.toDto(), responseEntity.getBody());
     }
 
+    @Test
+    @DisplayName("It should return NOT_MODIFIED without loading the order when [find order by id] and its version matches")
+    void itShouldReturnNotModifiedWhenFindOrderByIdAndVersionMatches() {
+        when(orderService.findOrderVersion(1L)).thenReturn(Optional.of(2L));
+
+        ResponseEntity<OrderDto> responseEntity = orderController.findOrderById(1L, "W/\"1\", \"2\"");
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        assertEquals("\"2\"", responseEntity.getHeaders().getETag());
+        verify(orderService, never()).findOrderById(any());
+    }
+
+    @Test
+    @DisplayName("It should return NOT_FOUND when [find order by id] with an ETag and order not found")
+    void itShouldReturnNotFoundWhenFindOrderByIdWithETagAndOrderNotFound() {
+        when(orderService.findOrderVersion(1L)).thenReturn(Optional.empty());
+
+        ResponseEntity<OrderDto> responseEntity = orderController.findOrderById(1L, "\"2\"");
+        assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
+        verify(orderService, never()).findOrderById(any());
+    }
+
     @Test
     @DisplayName("It should return NOT_FOUND when [find order by id] and order not found")
     void itShouldReturnNotFoundWhenFindOrderByIdAndOrderNotFound() {
         Long id = 1L;
         when(orderService.findOrderById(id)).thenReturn(Optional.empty());
 
-        ResponseEntity<OrderDto> responseEntity = orderController.findOrderById(id);
+        ResponseEntity<OrderDto> responseEntity = orderController.findOrderById(id, null);
         assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
     }
 
@@ -209,10 +339,33 @@ class OrderControllerTest {
                         ))
                         .build()
         );
-        when(orderService.findOrdersByDate(dateOfSubmission)).thenReturn(orders);
+        OrderPage expected = new OrderPage(orders.stream().map(Order::toDto).toList(), null);
+        when(orderService.findOrderPageByDateRange(dateOfSubmission, dateOfSubmission, null, null)).thenReturn(expected);
 
-        ResponseEntity<List<OrderDto>> responseEntity = orderController.findOrdersByDate(dateOfSubmission);
+        ResponseEntity<OrderPage> responseEntity = orderController.findOrdersByDate(dateOfSubmission, dateOfSubmission, null, null);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        assertEquals(orders.stream().map(Order::toDto).toList(), responseEntity.getBody());
+        assertEquals(expected, responseEntity.getBody());
+    }
+
+    @Test
+    @DisplayName("It should return BAD_REQUEST when [find orders by date] with an invalid cursor")
+    void itShouldReturnBadRequestWhenFindOrdersByDateWithInvalidCursor() {
+        when(orderService.findOrderPageByDateRange(null, null, "cursor", null)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        ResponseEntity<OrderPage> responseEntity = orderController.findOrdersByDate(null, null, "cursor", null);
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("It should stream orders when [export orders by date]")
+    void itShouldStreamOrdersWhenExportOrdersByDate() throws IOException {
+        LocalDate from = LocalDate.of(2021, 1, 1);
+        LocalDate to = LocalDate.of(2021, 1, 31);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        orderController.exportOrdersByDate(from, to, response);
+
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, response.getContentType());
+        verify(orderExportService, times(1)).exportOrdersByDateRange(from, to, response.getOutputStream());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,119 @@
+package com.ordermanagement.order;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.persistence.StatementCounter;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderCreateStatementCountTest {
+    private static final long CUSTOMER_CODE = 1001L;
+    private static final int PRODUCT_COUNT = 50;
+
+    private final OrderService orderService;
+    private final OrderLineRepository orderLineRepository;
+    private final StatementCounter statementCounter;
+
+    @Autowired
+    public OrderCreateStatementCountTest(
+            OrderService orderService,
+            OrderLineRepository orderLineRepository,
+            StatementCounter statementCounter,
+            ProductRepository productRepository,
+            CustomerRespository customerRepository
+    ) {
+        this.orderService = orderService;
+        this.orderLineRepository = orderLineRepository;
+        this.statementCounter = statementCounter;
+
+        customerRepository.save(Customer.builder()
+                .registrationCode(CUSTOMER_CODE)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+        productRepository.saveAll(IntStream.range(0, PRODUCT_COUNT)
+                .mapToObj(i -> Product.builder().skuCode(skuCode(i)).name("name" + i).unitPrice(1F).build())
+                .toList());
+    }
+
+    @Test
+    @DisplayName("It should create an order with a constant number of statements regardless of line count")
+    void itShouldCreateOrderWithConstantStatementCount() {
+        // warm up the id generators so the measured orders only see regular pool refills
+        createOrderWithLines(1);
+
+        long oneLine = createOrderWithLines(1);
+        long tenLines = createOrderWithLines(10);
+        long fiftyLines = createOrderWithLines(50);
+
+        // customer lookup, product lookup, order insert, order line batch insert, daily sales and customer summary merges,
+        // order event insert
+        assertTrue(oneLine <= 8, "statements for one line: " + oneLine);
+        // a line-id pool refill may add one sequence call
+        assertTrue(tenLines <= oneLine + 1, "statements for ten lines: " + tenLines);
+        assertTrue(fiftyLines <= oneLine + 1, "statements for fifty lines: " + fiftyLines);
+    }
+
+    @Test
+    @DisplayName("It should not read cached customers and products when creating an order")
+    void itShouldNotReadCachedReferenceData() {
+        createOrderWithLines(PRODUCT_COUNT);
+
+        long statements = createOrderWithLines(PRODUCT_COUNT);
+
+        // order insert, order line batch insert, the two rollup merges, the order event insert and at most one id pool refill
+        assertTrue(statements <= 6, "statements with warm caches: " + statements);
+    }
+
+    @Test
+    @DisplayName("It should persist every line of a batched order")
+    void itShouldPersistEveryLineOfBatchedOrder() {
+        Order order = orderService.createOrder(orderCreateRequest(50));
+
+        List<Long> orderLineIds = order.getOrderLines().stream().map(OrderLine::getId).toList();
+        assertEquals(50, orderLineRepository.findAllById(orderLineIds).size());
+    }
+
+    private long createOrderWithLines(int lineCount) {
+        long before = statementCounter.current();
+        orderService.createOrder(orderCreateRequest(lineCount));
+        return statementCounter.current() - before;
+    }
+
+    private static OrderCreateRequest orderCreateRequest(int lineCount) {
+        return new OrderCreateRequest(
+                null,
+                CUSTOMER_CODE,
+                LocalDate.of(2021, 1, 1),
+                IntStream.range(0, lineCount)
+                        .mapToObj(i -> new OrderLineCreateRequest(skuCode(i % PRODUCT_COUNT), 1, null))
+                        .toList()
+        );
+    }
+
+    private static String skuCode(int i) {
+        return "stmt-sku-" + i;
+    }
+}
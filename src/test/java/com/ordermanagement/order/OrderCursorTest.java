@@ -0,0 +1,28 @@
+package com.ordermanagement.order;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderCursorTest {
+
+    @Test
+    @DisplayName("It should decode an encoded cursor")
+    void itShouldDecodeEncodedCursor() {
+        OrderCursor cursor = new OrderCursor(LocalDate.of(2021, 1, 1), 123L);
+
+        assertEquals(cursor, OrderCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    @DisplayName("It should not decode an invalid cursor")
+    void itShouldNotDecodeInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode(new OrderCursor(null, 1L).encode()));
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode("MjAyMS0wMS0wMQ"));
+    }
+}
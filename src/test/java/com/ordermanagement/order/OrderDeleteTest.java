@@ -0,0 +1,156 @@
+package com.ordermanagement.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.persistence.EntityLoadCounter;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "bulk-delete.chunk-size=2")
+@AutoConfigureMockMvc
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class OrderDeleteTest {
+    private static final long CUSTOMER_CODE = 9001L;
+    private static final long OTHER_CUSTOMER_CODE = 9002L;
+    private static final int LINES_PER_ORDER = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRespository customerRepository;
+    @Autowired
+    private EntityLoadCounter entityLoadCounter;
+
+    private List<Order> orders;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        orderLineRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        Customer customer = customerRepository.save(customer(CUSTOMER_CODE));
+        customerRepository.save(customer(OTHER_CUSTOMER_CODE));
+        products = productRepository.saveAll(IntStream.range(0, LINES_PER_ORDER + 1)
+                .mapToObj(i -> Product.builder().skuCode("delete-sku-" + i).name("name").unitPrice(1F).build())
+                .toList());
+        // five orders, one a day from 2022-01-01
+        orders = orderRepository.saveAll(IntStream.range(0, 5)
+                .mapToObj(i -> Order.builder().customer(customer).dateOfSubmission(LocalDate.of(2022, 1, 1 + i)).build())
+                .toList());
+        orders.forEach(order -> orderLineRepository.saveAll(products.subList(0, LINES_PER_ORDER).stream()
+                .map(product -> OrderLine.builder().order(order).product(product).quantity(1).build())
+                .toList()));
+    }
+
+    @Test
+    @DisplayName("It should delete orders by id in chunks together with their lines")
+    void itShouldDeleteOrdersById() throws Exception {
+        List<Long> ids = List.of(orders.get(0).getId(), orders.get(1).getId(), orders.get(2).getId(), -1L);
+
+        long loaded = entityLoadCounter.current();
+        deleteWithBody("/api/v1/orders", ids)
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"orders\":3,\"orderLines\":6}"));
+
+        assertEquals(loaded, entityLoadCounter.current());
+        assertEquals(2, orderRepository.count());
+        assertEquals(4, orderLineRepository.count());
+    }
+
+    @Test
+    @DisplayName("It should delete the orders of a date range")
+    void itShouldDeleteOrdersByDateRange() throws Exception {
+        mockMvc.perform(delete("/api/v1/orders").param("to", "2022-01-03"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"orders\":3,\"orderLines\":6}"));
+
+        assertEquals(List.of(LocalDate.of(2022, 1, 4), LocalDate.of(2022, 1, 5)),
+                orderRepository.findAll().stream().map(Order::getDateOfSubmission).sorted().toList());
+    }
+
+    @Test
+    @DisplayName("It should reject an order delete without ids or date range, or with both")
+    void itShouldRejectAmbiguousOrderDelete() throws Exception {
+        mockMvc.perform(delete("/api/v1/orders")).andExpect(status().isBadRequest());
+        deleteWithBody("/api/v1/orders?from=2022-01-01", List.of(orders.get(0).getId()))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(5, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("It should delete customers together with their orders")
+    void itShouldDeleteCustomersWithTheirOrders() throws Exception {
+        deleteWithBody("/api/v1/customer", List.of(CUSTOMER_CODE, OTHER_CUSTOMER_CODE))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"customers\":2,\"orders\":5,\"orderLines\":10}"));
+
+        assertEquals(0, customerRepository.count());
+        assertEquals(0, orderLineRepository.count());
+    }
+
+    @Test
+    @DisplayName("It should skip products that are still on order lines")
+    void itShouldSkipReferencedProducts() throws Exception {
+        String unreferenced = products.get(LINES_PER_ORDER).getSkuCode();
+
+        deleteWithBody("/api/v1/product", List.of(products.get(0).getSkuCode(), unreferenced, "delete-sku-missing"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"products\":1,\"skipped\":2}"));
+
+        assertFalse(productRepository.existsById(unreferenced));
+        assertTrue(productRepository.existsById(products.get(0).getSkuCode()));
+    }
+
+    private ResultActions deleteWithBody(String uri, List<?> body) throws Exception {
+        return mockMvc.perform(delete(uri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)));
+    }
+
+    private static Customer customer(Long registrationCode) {
+        return Customer.builder()
+                .registrationCode(registrationCode)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build();
+    }
+}
@@ -0,0 +1,216 @@
+package com.ordermanagement.order;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import com.ordermanagement.orderline.OrderLineService;
+import com.ordermanagement.orderline.QuantityChange;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderEventTest {
+    private static final long CUSTOMER_CODE = 21001L;
+    private static final String SKU = "event-sku";
+
+    private final MockMvc mockMvc;
+    private final OrderService orderService;
+    private final OrderLineService orderLineService;
+    private final OrderEventRepository orderEventRepository;
+    private final OrderEventRelay orderEventRelay;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public OrderEventTest(
+            MockMvc mockMvc,
+            OrderService orderService,
+            OrderLineService orderLineService,
+            OrderEventRepository orderEventRepository,
+            OrderEventRelay orderEventRelay,
+            TransactionTemplate transactionTemplate,
+            CustomerRespository customerRepository,
+            ProductRepository productRepository
+    ) {
+        this.mockMvc = mockMvc;
+        this.orderService = orderService;
+        this.orderLineService = orderLineService;
+        this.orderEventRepository = orderEventRepository;
+        this.orderEventRelay = orderEventRelay;
+        this.transactionTemplate = transactionTemplate;
+
+        customerRepository.save(Customer.builder()
+                .registrationCode(CUSTOMER_CODE)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+        productRepository.save(Product.builder().skuCode(SKU).name("name").unitPrice(1F).build());
+    }
+
+    @Test
+    @DisplayName("It should record every committed change of an order, and none of a rolled back one")
+    void itShouldRecordCommittedChanges() {
+        Order order = orderService.createOrder(orderCreateRequest());
+        Long orderLineId = order.getOrderLines().get(0).getId();
+        orderLineService.updateQuantity(orderLineId, QuantityChange.parse("+2"), null);
+        assertThrows(IllegalArgumentException.class,
+                () -> orderLineService.updateQuantity(orderLineId, QuantityChange.parse("-5"), null));
+        orderService.deleteOrderById(order.getId());
+
+        assertEquals(List.of(OrderEvent.Type.CREATED, OrderEvent.Type.UPDATED, OrderEvent.Type.DELETED),
+                orderEventRepository.findAll().stream()
+                        .filter(event -> event.getOrderId().equals(order.getId()))
+                        .map(OrderEvent::getType)
+                        .toList());
+
+        orderEventRelay.relay();
+        List<Long> positions = orderEventRepository.findAll().stream()
+                .sorted(Comparator.comparing(OrderEvent::getId))
+                .map(OrderEvent::getPosition)
+                .toList();
+        assertFalse(positions.contains(null));
+        assertEquals(positions.stream().sorted().distinct().toList(), positions);
+    }
+
+    @Test
+    @DisplayName("It should stream relayed events and resume after the Last-Event-ID")
+    void itShouldStreamAndResume() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/v1/orders/events").param("customerCode", String.valueOf(CUSTOMER_CODE)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        Order first = orderService.createOrder(orderCreateRequest());
+        orderEventRelay.relay();
+        String streamed = await(stream, "\"orderId\":%d,".formatted(first.getId()));
+        assertTrue(streamed.contains("event:CREATED"), streamed);
+        long firstPosition = transactionTemplate.execute(status -> orderEventRepository.findAll().stream()
+                .filter(event -> event.getOrderId().equals(first.getId()))
+                .findFirst().orElseThrow().getPosition());
+        assertTrue(streamed.contains("id:%d\n".formatted(firstPosition)), streamed);
+
+        Order second = orderService.createOrder(orderCreateRequest());
+        orderEventRelay.relay();
+        await(stream, "\"orderId\":%d,".formatted(second.getId()));
+
+        MvcResult resumed = mockMvc.perform(get("/api/v1/orders/events")
+                        .param("customerCode", String.valueOf(CUSTOMER_CODE))
+                        .header(OrderEventController.LAST_EVENT_ID_HEADER, String.valueOf(firstPosition)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String replayed = await(resumed, "\"orderId\":%d,".formatted(second.getId()));
+        assertFalse(replayed.contains("\"orderId\":%d,".formatted(first.getId())), replayed);
+
+        mockMvc.perform(get("/api/v1/orders/events").header(OrderEventController.LAST_EVENT_ID_HEADER, "last"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("It should keep positions increasing after the events holding the last ones are purged")
+    void itShouldPositionPastPurgedEvents() throws Exception {
+        orderService.createOrder(orderCreateRequest());
+        orderEventRelay.relay();
+        long lastPosition = transactionTemplate.execute(status -> orderEventRepository.findLastPosition());
+        transactionTemplate.executeWithoutResult(status ->
+                orderEventRepository.deletePositionedBefore(Instant.now().plus(Duration.ofDays(1))));
+        MvcResult stream = mockMvc.perform(get("/api/v1/orders/events").param("customerCode", String.valueOf(CUSTOMER_CODE)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        Order order = orderService.createOrder(orderCreateRequest());
+        orderEventRelay.relay();
+
+        long position = transactionTemplate.execute(status -> orderEventRepository.findAll().stream()
+                .filter(event -> event.getOrderId().equals(order.getId()))
+                .findFirst().orElseThrow().getPosition());
+        assertTrue(position > lastPosition, "position " + position + " after " + lastPosition);
+        await(stream, "id:%d\n".formatted(position));
+        MvcResult resumed = mockMvc.perform(get("/api/v1/orders/events")
+                        .param("customerCode", String.valueOf(CUSTOMER_CODE))
+                        .header(OrderEventController.LAST_EVENT_ID_HEADER, String.valueOf(lastPosition)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        await(resumed, "id:%d\n".formatted(position));
+    }
+
+    @Test
+    @DisplayName("It should disconnect a subscriber that falls further behind than its buffer")
+    void itShouldDisconnectSlowSubscriber() throws Exception {
+        ExecutorService sender = Executors.newSingleThreadExecutor();
+        CountDownLatch busy = new CountDownLatch(1);
+        try {
+            OrderEventStream stream = new OrderEventStream(orderEventRepository, transactionTemplate, 2, 100, Duration.ofMinutes(1), sender);
+            // the sender is held, so nothing leaves the buffer
+            sender.execute(() -> {
+                try {
+                    busy.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            stream.subscribe(null, CUSTOMER_CODE);
+            stream.subscribe(null, CUSTOMER_CODE + 1);
+            long position = stream.lastBroadcast();
+
+            stream.broadcast(List.of(event(position + 1), event(position + 2)));
+            assertEquals(2, stream.subscriberCount());
+            stream.broadcast(List.of(event(position + 3)));
+            assertEquals(1, stream.subscriberCount());
+        } finally {
+            busy.countDown();
+            sender.shutdown();
+        }
+    }
+
+    private static OrderEventDto event(long position) {
+        return new OrderEventDto(position, OrderEvent.Type.CREATED, position, CUSTOMER_CODE, Instant.now());
+    }
+
+    private static String await(MvcResult stream, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            String content = stream.getResponse().getContentAsString();
+            if (content.contains(expected))
+                return content;
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Stream did not send [%s]: %s".formatted(expected, stream.getResponse().getContentAsString()));
+    }
+
+    private static OrderCreateRequest orderCreateRequest() {
+        return new OrderCreateRequest(null, CUSTOMER_CODE, LocalDate.of(2023, 10, 1), List.of(
+                new OrderLineCreateRequest(SKU, 1, null)
+        ));
+    }
+}
@@ -0,0 +1,123 @@
+package com.ordermanagement.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderExportTest {
+    private static final LocalDate EXPORT_DAY = LocalDate.of(2019, 6, 1);
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final List<OrderDto> expected = new ArrayList<>();
+
+    @Autowired
+    public OrderExportTest(
+            MockMvc mockMvc,
+            ObjectMapper objectMapper,
+            OrderRepository orderRepository,
+            OrderLineRepository orderLineRepository,
+            ProductRepository productRepository,
+            CustomerRespository customerRepository
+    ) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+
+        Customer customer = customerRepository.save(Customer.builder()
+                .registrationCode(4001L)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+        Product product = productRepository.save(Product.builder().skuCode("export-sku").name("name").unitPrice(1F).build());
+
+        for (int i = 0; i < 5; i++) {
+            Order order = orderRepository.save(Order.builder().customer(customer).dateOfSubmission(EXPORT_DAY).build());
+            List<OrderLine> orderLines = new ArrayList<>();
+            for (int j = 0; j < i; j++)
+                orderLines.add(OrderLine.builder().order(order).product(product).quantity(j + 1).build());
+            order.setOrderLines(orderLineRepository.saveAll(orderLines));
+            expected.add(order.toDto());
+        }
+        orderRepository.save(Order.builder().customer(customer).dateOfSubmission(EXPORT_DAY.plusDays(1)).build());
+    }
+
+    @Test
+    @DisplayName("It should stream one line per order when newline-delimited JSON is accepted")
+    void itShouldStreamOneLinePerOrder() throws Exception {
+        String response = mockMvc.perform(get("/api/v1/orders")
+                        .param("from", EXPORT_DAY.toString())
+                        .param("to", EXPORT_DAY.toString())
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<OrderDto> orders = response.lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, OrderDto.class);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+        assertEquals(expected, orders);
+    }
+
+    @Test
+    @DisplayName("It should return a page when JSON is accepted")
+    void itShouldReturnPageWhenJsonIsAccepted() throws Exception {
+        String response = mockMvc.perform(get("/api/v1/orders")
+                        .param("from", EXPORT_DAY.toString())
+                        .param("to", EXPORT_DAY.toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(expected, objectMapper.readValue(response, OrderPage.class).orders());
+    }
+
+    @Test
+    @DisplayName("It should return a page when no media type is requested")
+    void itShouldReturnPageWhenNoMediaTypeIsRequested() throws Exception {
+        mockMvc.perform(get("/api/v1/orders")
+                        .param("from", EXPORT_DAY.toString())
+                        .param("to", EXPORT_DAY.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+}
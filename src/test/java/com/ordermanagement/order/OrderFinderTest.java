@@ -70,9 +70,9 @@ class OrderFinderTest {
         Customer customer3 = Customer.builder().registrationCode(3L).fullName("fullName3").email("email3").telephone("telephone3").build();
         customerRepository.saveAll(List.of(customer1, customer2, customer3));
 
-        Order order1 = Order.builder().id(1L).customer(customer1).dateOfSubmission(LocalDate.of(2021, 01, 01)).build();
-        Order order2 = Order.builder().id(2L).customer(customer2).dateOfSubmission(LocalDate.of(2022, 02, 02)).build();
-        Order order3 = Order.builder().id(3L).customer(customer3).dateOfSubmission(LocalDate.of(2023, 03, 03)).build();
+        Order order1 = Order.builder().customer(customer1).dateOfSubmission(LocalDate.of(2021, 01, 01)).build();
+        Order order2 = Order.builder().customer(customer2).dateOfSubmission(LocalDate.of(2022, 02, 02)).build();
+        Order order3 = Order.builder().customer(customer3).dateOfSubmission(LocalDate.of(2023, 03, 03)).build();
         orderRepository.saveAll(List.of(order1, order2, order3));
 
         OrderLine orderLine1 = OrderLine.builder().id(1L).order(order1).product(product1).quantity(1).build();
@@ -0,0 +1,292 @@
+package com.ordermanagement.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerOrderSummaryService;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.customer.CustomerService;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import com.ordermanagement.product.ProductService;
+import com.ordermanagement.product.StockService;
+import com.ordermanagement.report.DailySalesService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties", properties = "orders.intake.enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderIntakeTest {
+    private static final long CUSTOMER_CODE = 20001L;
+    private static final String SKU = "intake-sku";
+    private static final String STOCKED_SKU = "intake-stocked-sku";
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final OrderIntakeRepository orderIntakeRepository;
+    private final CustomerService customerService;
+    private final ProductService productService;
+    private final StockService stockService;
+    private final DailySalesService dailySalesService;
+    private final CustomerOrderSummaryService customerOrderSummaryService;
+    private final SkuOrderIndex skuOrderIndex;
+    private final OrderEventService orderEventService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public OrderIntakeTest(
+            MockMvc mockMvc,
+            ObjectMapper objectMapper,
+            OrderService orderService,
+            OrderRepository orderRepository,
+            OrderIntakeRepository orderIntakeRepository,
+            CustomerService customerService,
+            ProductService productService,
+            StockService stockService,
+            DailySalesService dailySalesService,
+            CustomerOrderSummaryService customerOrderSummaryService,
+            SkuOrderIndex skuOrderIndex,
+            OrderEventService orderEventService,
+            TransactionTemplate transactionTemplate,
+            CustomerRespository customerRepository,
+            ProductRepository productRepository
+    ) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.orderIntakeRepository = orderIntakeRepository;
+        this.customerService = customerService;
+        this.productService = productService;
+        this.stockService = stockService;
+        this.dailySalesService = dailySalesService;
+        this.customerOrderSummaryService = customerOrderSummaryService;
+        this.skuOrderIndex = skuOrderIndex;
+        this.orderEventService = orderEventService;
+        this.transactionTemplate = transactionTemplate;
+
+        customerRepository.save(Customer.builder()
+                .registrationCode(CUSTOMER_CODE)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+        productRepository.save(Product.builder().skuCode(SKU).name("name").unitPrice(1F).build());
+        productRepository.save(Product.builder().skuCode(STOCKED_SKU).name("name").unitPrice(1F).stockQuantity(2L).build());
+    }
+
+    @Test
+    @DisplayName("It should accept concurrent orders and create every one of them")
+    void itShouldCreateConcurrentlyAcceptedOrders() throws Exception {
+        long ordersBefore = orderRepository.count();
+        int orders = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(orders);
+        List<Long> ids;
+        try {
+            List<CompletableFuture<Long>> accepted = IntStream.range(0, orders)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                        try {
+                            start.await();
+                            String body = createOrderAsync(orderCreateRequest(SKU, 2))
+                                    .andExpect(status().isAccepted())
+                                    .andExpect(jsonPath("$.status").value("QUEUED"))
+                                    .andReturn().getResponse().getContentAsString();
+                            return objectMapper.readValue(body, OrderIntakeStatus.class).id();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }, executor))
+                    .toList();
+            start.countDown();
+            ids = accepted.stream().map(CompletableFuture::join).toList();
+        } finally {
+            executor.shutdown();
+        }
+
+        for (Long id : ids)
+            awaitCreated(id);
+        assertEquals(ordersBefore + orders, orderRepository.count());
+        mockMvc.perform(get("/api/v1/order/{id}", ids.get(0)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderLines[0].productSkuCode").value(SKU))
+                .andExpect(jsonPath("$.orderLines[0].quantity").value(2));
+    }
+
+    @Test
+    @DisplayName("It should point to the status of an accepted order")
+    void itShouldPointToStatusOfAcceptedOrder() throws Exception {
+        String location = createOrderAsync(orderCreateRequest(SKU, 1))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        long id = Long.parseLong(location.substring(OrderController.INTAKE_PATH.length()));
+
+        awaitCreated(id);
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CREATED"));
+        mockMvc.perform(get("/api/v1/order/intake/{id}", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("It should reject an order without enough stock or with an unknown customer before it is queued")
+    void itShouldRejectInvalidOrdersBeforeQueueing() throws Exception {
+        createOrderAsync(orderCreateRequest(STOCKED_SKU, 3)).andExpect(status().isConflict());
+        createOrderAsync(new OrderCreateRequest(null, CUSTOMER_CODE + 1, LocalDate.of(2023, 9, 1), List.of(
+                new OrderLineCreateRequest(SKU, 1, null)
+        ))).andExpect(status().isNotFound());
+        createOrderAsync(orderCreateRequest(SKU, 0)).andExpect(status().isBadRequest());
+
+        assertEquals(2L, stockService.findStockLevel(STOCKED_SKU).orElseThrow().available());
+    }
+
+    @Test
+    @DisplayName("It should create the journaled orders a crash left behind once, and delete the journal")
+    void itShouldReplayJournaledOrdersOnce(@TempDir Path journalDirectory) throws Exception {
+        long persistedId = orderService.createOrder(orderCreateRequest(SKU, 1)).getId();
+        long journaledId = orderIntakeRepository.nextOrderId();
+        try (OrderIntakeJournal journal = new OrderIntakeJournal(journalDirectory, DataSize.ofMegabytes(1).toBytes())) {
+            journal.append(persistedId, journalLine(persistedId, orderCreateRequest(SKU, 1)));
+            journal.append(journaledId, journalLine(journaledId, orderCreateRequest(SKU, 4)));
+        }
+        long ordersBefore = orderRepository.count();
+
+        OrderIntakeService restarted = newService(journalDirectory);
+        restarted.start();
+        try {
+            awaitCreated(restarted, journaledId);
+            assertEquals(ordersBefore + 1, orderRepository.count());
+            mockMvc.perform(get("/api/v1/order/{id}", journaledId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.orderLines[0].quantity").value(4));
+            try (Stream<Path> segments = Files.list(journalDirectory)) {
+                assertEquals(0, segments.count());
+            }
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("It should not replay an order whose journal sync failed, and append the next ones to a new segment")
+    void itShouldNotReplayOrderOfFailedSync(@TempDir Path journalDirectory) throws Exception {
+        long firstId = orderIntakeRepository.nextOrderId();
+        long cancelledId = orderIntakeRepository.nextOrderId();
+        long lastId = orderIntakeRepository.nextOrderId();
+        AtomicBoolean failSync = new AtomicBoolean();
+        OrderIntakeJournal.ChannelSync channelSync = channel -> {
+            if (failSync.get())
+                throw new IOException("sync failed");
+            channel.force(false);
+        };
+        try (OrderIntakeJournal journal = new OrderIntakeJournal(journalDirectory, DataSize.ofMegabytes(1).toBytes(), channelSync)) {
+            journal.append(firstId, journalLine(firstId, orderCreateRequest(SKU, 1)));
+            failSync.set(true);
+            assertThrows(IOException.class, () -> journal.append(cancelledId, journalLine(cancelledId, orderCreateRequest(SKU, 2))));
+            failSync.set(false);
+            journal.append(lastId, journalLine(lastId, orderCreateRequest(SKU, 3)));
+        }
+        try (Stream<Path> segments = Files.list(journalDirectory)) {
+            assertEquals(2, segments.filter(file -> file.toString().endsWith(".log")).count());
+        }
+
+        OrderIntakeService restarted = newService(journalDirectory);
+        restarted.start();
+        try {
+            awaitCreated(restarted, firstId);
+            awaitCreated(restarted, lastId);
+            assertFalse(orderRepository.existsById(cancelledId));
+            assertEquals(Optional.empty(), restarted.findStatus(cancelledId));
+            try (Stream<Path> files = Files.list(journalDirectory)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    private OrderIntakeService newService(Path journalDirectory) {
+        return new OrderIntakeService(customerService, productService, stockService, orderRepository, orderIntakeRepository,
+                dailySalesService, customerOrderSummaryService, skuOrderIndex, orderEventService, transactionTemplate, objectMapper,
+                true, 16, 500, journalDirectory.toString(), DataSize.ofMegabytes(1), Duration.ofSeconds(1));
+    }
+
+    private byte[] journalLine(long orderId, OrderCreateRequest request) throws IOException {
+        return objectMapper.writeValueAsBytes(Map.of("orderId", orderId, "request", request));
+    }
+
+    private void awaitCreated(long id) throws Exception {
+        awaitCreated(null, id);
+    }
+
+    private void awaitCreated(OrderIntakeService service, long id) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            OrderIntakeStatus status = service == null
+                    ? objectMapper.readValue(mockMvc.perform(get("/api/v1/order/intake/{id}", id))
+                    .andReturn().getResponse().getContentAsString(), OrderIntakeStatus.class)
+                    : service.findStatus(id).orElse(null);
+            if (status != null && status.status() == OrderIntakeStatus.Status.CREATED)
+                return;
+            assertTrue(status == null || status.status() == OrderIntakeStatus.Status.QUEUED, String.valueOf(status));
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Order [%d] was not created".formatted(id));
+    }
+
+    private ResultActions createOrderAsync(OrderCreateRequest request) throws Exception {
+        return mockMvc.perform(post("/api/v1/order")
+                .header(OrderController.PREFER_HEADER, OrderController.RESPOND_ASYNC)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+    }
+
+    private static OrderCreateRequest orderCreateRequest(String skuCode, int quantity) {
+        return new OrderCreateRequest(null, CUSTOMER_CODE, LocalDate.of(2023, 9, 1), List.of(
+                new OrderLineCreateRequest(skuCode, quantity, null)
+        ));
+    }
+}
@@ -0,0 +1,145 @@
+package com.ordermanagement.order;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.persistence.StatementCounter;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class OrderQueryRepositoryTest {
+    private static final LocalDate SMALL_DAY = LocalDate.of(2020, 1, 1);
+    private static final LocalDate BIG_DAY = LocalDate.of(2020, 1, 2);
+    private static final LocalDate LAST_DAY = LocalDate.of(2020, 1, 3);
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final OrderRepository orderRepository;
+    private final OrderLineRepository orderLineRepository;
+    private final StatementCounter statementCounter;
+    private final Customer smallCustomer;
+    private final Customer bigCustomer;
+    private final Product product;
+
+    @Autowired
+    public OrderQueryRepositoryTest(
+            OrderQueryRepository orderQueryRepository,
+            OrderRepository orderRepository,
+            OrderLineRepository orderLineRepository,
+            StatementCounter statementCounter,
+            ProductRepository productRepository,
+            CustomerRespository customerRepository
+    ) {
+        this.orderQueryRepository = orderQueryRepository;
+        this.orderRepository = orderRepository;
+        this.orderLineRepository = orderLineRepository;
+        this.statementCounter = statementCounter;
+
+        orderLineRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        customerRepository.deleteAll();
+        smallCustomer = customerRepository.save(customer(3001L));
+        bigCustomer = customerRepository.save(customer(3002L));
+        product = productRepository.save(Product.builder().skuCode("query-sku").name("name").unitPrice(1F).build());
+    }
+
+    @Test
+    @DisplayName("It should read a page with the same number of statements regardless of its position")
+    void itShouldReadPageWithConstantStatementCount() {
+        createOrders(smallCustomer, SMALL_DAY, 1, 1);
+        createOrders(bigCustomer, BIG_DAY, 20, 5);
+
+        // the id seek, then the join of the page with its lines
+        assertEquals(2, countStatements(() -> orderQueryRepository.findOrdersByDateRange(SMALL_DAY, SMALL_DAY, null, 5)));
+        assertEquals(2, countStatements(() -> orderQueryRepository.findOrdersByDateRange(BIG_DAY, BIG_DAY, null, 5)));
+        assertEquals(2, countStatements(() -> orderQueryRepository.findOrdersByCustomerCode(bigCustomer.getRegistrationCode(), null, 5)));
+        assertEquals(2, countStatements(() -> orderQueryRepository.findOrdersByProductSku(product.getSkuCode(), null, 5)));
+
+        List<OrderDto> firstPage = orderQueryRepository.findOrdersByCustomerCode(bigCustomer.getRegistrationCode(), null, 5);
+        OrderCursor deepCursor = OrderCursor.of(orderQueryRepository
+                .findOrdersByCustomerCode(bigCustomer.getRegistrationCode(), OrderCursor.of(firstPage.get(4)), 10)
+                .get(9));
+        assertEquals(2, countStatements(() -> orderQueryRepository.findOrdersByCustomerCode(bigCustomer.getRegistrationCode(), deepCursor, 5)));
+    }
+
+    @Test
+    @DisplayName("It should walk every order exactly once in date and id order")
+    void itShouldWalkEveryOrderOnceInKeyOrder() {
+        List<Order> expected = new ArrayList<>();
+        expected.addAll(createOrders(bigCustomer, SMALL_DAY, 4, 1));
+        expected.addAll(createOrders(bigCustomer, BIG_DAY, 3, 2));
+        Order orderWithoutLines = orderRepository.save(Order.builder()
+                .customer(bigCustomer)
+                .dateOfSubmission(BIG_DAY)
+                .orderLines(List.of())
+                .build());
+        expected.add(orderWithoutLines);
+        createOrders(smallCustomer, LAST_DAY, 2, 1);
+
+        List<OrderDto> expectedDtos = expected.stream().map(Order::toDto).toList();
+
+        assertEquals(expectedDtos, walk(after -> orderQueryRepository.findOrdersByCustomerCode(bigCustomer.getRegistrationCode(), after, 3)));
+        assertEquals(expectedDtos, walk(after -> orderQueryRepository.findOrdersByDateRange(SMALL_DAY, BIG_DAY, after, 3)));
+        assertEquals(expectedDtos.subList(0, 7), walk(after -> orderQueryRepository.findOrdersByProductSku(product.getSkuCode(), after, 2))
+                .stream().filter(order -> !order.customerCode().equals(smallCustomer.getRegistrationCode())).toList());
+        assertEquals(expectedDtos.subList(4, 8), walk(after -> orderQueryRepository.findOrdersByDateRange(BIG_DAY, BIG_DAY, after, 3)));
+        assertEquals(10, walk(after -> orderQueryRepository.findOrdersByDateRange(null, null, after, 4)).size());
+    }
+
+    private static List<OrderDto> walk(Function<OrderCursor, List<OrderDto>> page) {
+        List<OrderDto> orders = new ArrayList<>();
+        OrderCursor after = null;
+        List<OrderDto> current;
+        while (!(current = page.apply(after)).isEmpty()) {
+            orders.addAll(current);
+            after = OrderCursor.of(current.get(current.size() - 1));
+        }
+        return orders;
+    }
+
+    private long countStatements(Supplier<List<OrderDto>> query) {
+        long before = statementCounter.current();
+        query.get();
+        return statementCounter.current() - before;
+    }
+
+    private List<Order> createOrders(Customer customer, LocalDate date, int orderCount, int linesPerOrder) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            Order order = orderRepository.save(Order.builder().customer(customer).dateOfSubmission(date).build());
+            List<OrderLine> orderLines = new ArrayList<>();
+            for (int j = 0; j < linesPerOrder; j++)
+                orderLines.add(OrderLine.builder().order(order).product(product).quantity(j + 1).build());
+            order.setOrderLines(orderLineRepository.saveAll(orderLines));
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static Customer customer(Long code) {
+        return Customer.builder()
+                .registrationCode(code)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build();
+    }
+}
@@ -1,12 +1,16 @@
 package com.ordermanagement.order;
 
 import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerOrderSummaryService;
 import com.ordermanagement.customer.CustomerService;
 import com.ordermanagement.exception.NotFoundException;
 import com.ordermanagement.orderline.OrderLineCreateRequest;
 import com.ordermanagement.orderline.OrderLineService;
+import com.ordermanagement.persistence.StatementCounter;
 import com.ordermanagement.product.Product;
 import com.ordermanagement.product.ProductService;
+import com.ordermanagement.product.StockService;
+import com.ordermanagement.report.DailySalesService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,11 +20,16 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +40,9 @@ class OrderServiceTest {
     @Mock
     private OrderFinder orderFinder;
 
+    @Mock
+    private OrderQueryRepository orderQueryRepository;
+
     @Mock
     private CustomerService customerService;
     @Mock
@@ -39,6 +51,27 @@ class OrderServiceTest {
     @Mock
     private ProductService productService;
 
+    @Mock
+    private OrderDeleteService orderDeleteService;
+
+    @Mock
+    private DailySalesService dailySalesService;
+
+    @Mock
+    private CustomerOrderSummaryService customerOrderSummaryService;
+
+    @Mock
+    private SkuOrderIndex skuOrderIndex;
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private OrderEventService orderEventService;
+
+    @Mock
+    private StatementCounter statementCounter;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -62,18 +95,58 @@ class OrderServiceTest {
                         .build())
         );
 
-        when(productService.findProductBySkuCode(orderCreateRequest.orderLines().get(0).productSkuCode())).thenReturn(
-                Optional.of(new Product(
-                        orderCreateRequest.orderLines().get(0).productSkuCode(),
-                        "name",
-                        1.0f))
+        when(productService.findProductsBySkuCodes(Set.of(orderCreateRequest.orderLines().get(0).productSkuCode()))).thenReturn(
+                Map.of(orderCreateRequest.orderLines().get(0).productSkuCode(), Product.builder()
+                        .skuCode(orderCreateRequest.orderLines().get(0).productSkuCode())
+                        .name("name")
+                        .unitPrice(1.0f)
+                        .build())
         );
-        when(orderRepository.save(any())).thenReturn(Order.builder().build());
+        when(orderRepository.save(any())).thenReturn(Order.builder().id(1L).build());
 
         orderService.createOrder(orderCreateRequest);
 
         verify(orderRepository, times(1)).save(any());
-        verify(orderLineService, times(orderLines.size())).createOrderLine(any());
+        verify(orderLineService, times(1)).createOrderLines(argThat(lines -> lines.size() == orderLines.size()));
+        verify(dailySalesService, times(1)).addOrders(List.of(1L));
+        verify(customerOrderSummaryService, times(1)).addOrders(List.of(1L));
+        verify(skuOrderIndex, times(1)).addOrder(eq(1L), anyCollection());
+    }
+
+    @Test
+    @DisplayName("It should resolve all products of an order with a single lookup")
+    void itShouldResolveAllProductsWithSingleLookup() {
+        List<OrderLineCreateRequest> orderLines = List.of(
+                new OrderLineCreateRequest("skuCode1", 1, 1L),
+                new OrderLineCreateRequest("skuCode2", 2, 1L),
+                new OrderLineCreateRequest("skuCode1", 3, 1L)
+        );
+        OrderCreateRequest orderCreateRequest = new OrderCreateRequest(
+                1L,
+                1234L,
+                LocalDate.of(2021, 1, 1),
+                orderLines
+        );
+
+        when(customerService.findCustomerByCode(orderCreateRequest.customerCode())).thenReturn(
+                Optional.of(Customer.builder()
+                        .registrationCode(orderCreateRequest.customerCode())
+                        .fullName("name")
+                        .build())
+        );
+        when(productService.findProductsBySkuCodes(Set.of("skuCode1", "skuCode2"))).thenReturn(
+                Map.of(
+                        "skuCode1", Product.builder().skuCode("skuCode1").name("name1").unitPrice(1.0f).build(),
+                        "skuCode2", Product.builder().skuCode("skuCode2").name("name2").unitPrice(2.0f).build()
+                )
+        );
+        when(orderRepository.save(any())).thenReturn(Order.builder().id(1L).build());
+
+        Order order = orderService.createOrder(orderCreateRequest);
+
+        assertEquals(3, order.getOrderLines().size());
+        verify(productService, times(1)).findProductsBySkuCodes(any());
+        verify(productService, never()).findProductBySkuCode(any());
     }
 
     @Test
@@ -116,8 +189,8 @@ class OrderServiceTest {
                         .build())
         );
 
-        when(productService.findProductBySkuCode(orderCreateRequest.orderLines().get(0).productSkuCode())).thenReturn(
-                Optional.empty()
+        when(productService.findProductsBySkuCodes(Set.of(orderCreateRequest.orderLines().get(0).productSkuCode()))).thenReturn(
+                Map.of()
         );
 
         assertThrows(NotFoundException.class, () -> orderService.createOrder(orderCreateRequest));
@@ -164,19 +237,20 @@ class OrderServiceTest {
                         .build())
         );
 
-        when(productService.findProductBySkuCode(orderCreateRequest.orderLines().get(0).productSkuCode())).thenReturn(
-                Optional.of(new Product(
-                        orderCreateRequest.orderLines().get(0).productSkuCode(),
-                        "name",
-                        1.0f))
+        when(productService.findProductsBySkuCodes(Set.of(orderCreateRequest.orderLines().get(0).productSkuCode()))).thenReturn(
+                Map.of(orderCreateRequest.orderLines().get(0).productSkuCode(), Product.builder()
+                        .skuCode(orderCreateRequest.orderLines().get(0).productSkuCode())
+                        .name("name")
+                        .unitPrice(1.0f)
+                        .build())
         );
         when(orderRepository.findById(1L)).thenReturn(Optional.of(Order.builder().build()));
-        when(orderRepository.save(any())).thenReturn(Order.builder().build());
+        when(orderRepository.save(any())).thenReturn(Order.builder().id(1L).build());
 
         orderService.updateOrder(orderCreateRequest);
 
         verify(orderRepository, times(1)).save(any());
-        verify(orderLineService, times(orderLines.size())).createOrderLine(any());
+        verify(orderLineService, times(1)).createOrderLines(argThat(lines -> lines.size() == orderLines.size()));
     }
 
     @Test
@@ -200,17 +274,17 @@ class OrderServiceTest {
     @Test
     @DisplayName("It should delete order by id")
     void itShouldDeleteOrderById() {
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(Order.builder().build()));
+        when(orderDeleteService.deleteOrders(List.of(1L))).thenReturn(new OrderDeleteResult(1, 2));
 
         orderService.deleteOrderById(1L);
 
-        verify(orderRepository, times(1)).deleteById(1L);
+        verify(orderRepository, never()).findById(any());
     }
 
     @Test
     @DisplayName("It should not delete order when it is not found")
     void itShouldNotDeleteOrderWhenItIsNotFound() {
-        when(orderRepository.findById(1L)).thenReturn(Optional.empty());
+        when(orderDeleteService.deleteOrders(List.of(1L))).thenReturn(OrderDeleteResult.NONE);
 
         assertThrows(NotFoundException.class, () -> orderService.deleteOrderById(1L));
     }
@@ -245,4 +319,63 @@ class OrderServiceTest {
 
         verify(orderFinder, times(1)).findOrdersByCustomerCode(1L);
     }
+
+    @Test
+    @DisplayName("It should request one order more than the default page size from query repository")
+    void itShouldRequestOneMoreThanDefaultPageSize() {
+        LocalDate from = LocalDate.of(2021, 1, 1);
+        LocalDate to = LocalDate.of(2021, 12, 31);
+        List<OrderDto> expected = List.of(new OrderDto(1L, 1L, from, List.of()));
+        when(orderQueryRepository.findOrdersByDateRange(from, to, null, OrderService.DEFAULT_PAGE_SIZE + 1)).thenReturn(expected);
+
+        OrderPage page = orderService.findOrderPageByDateRange(from, to, null, null);
+
+        assertEquals(expected, page.orders());
+        assertNull(page.nextCursor());
+        verify(orderRepository, never()).findOrdersByDate(any());
+    }
+
+    @Test
+    @DisplayName("It should return the cursor of the last order when there are more orders")
+    void itShouldReturnNextCursorWhenThereAreMoreOrders() {
+        LocalDate date = LocalDate.of(2021, 1, 1);
+        List<OrderDto> orders = List.of(
+                new OrderDto(1L, 1L, date, List.of()),
+                new OrderDto(2L, 1L, date, List.of()),
+                new OrderDto(3L, 1L, date, List.of())
+        );
+        when(orderQueryRepository.findOrdersByCustomerCode(1L, null, 3)).thenReturn(orders);
+
+        OrderPage page = orderService.findOrderPageByCustomer(1L, null, 2);
+
+        assertEquals(orders.subList(0, 2), page.orders());
+        assertEquals(new OrderCursor(date, 2L), OrderCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    @DisplayName("It should pass the decoded cursor to query repository")
+    void itShouldPassDecodedCursorToQueryRepository() {
+        OrderCursor cursor = new OrderCursor(LocalDate.of(2021, 1, 1), 7L);
+
+        orderService.findOrderPageByProductSku("skuCode", cursor.encode(), 10);
+
+        verify(orderQueryRepository, times(1)).findOrdersByProductSku("skuCode", cursor, 11);
+        verify(orderFinder, never()).findOrdersByProductSku(any());
+    }
+
+    @Test
+    @DisplayName("It should cap the page size")
+    void itShouldCapPageSize() {
+        orderService.findOrderPageByCustomer(1L, null, Integer.MAX_VALUE);
+
+        verify(orderQueryRepository, times(1)).findOrdersByCustomerCode(1L, null, OrderService.MAX_PAGE_SIZE + 1);
+        verify(orderFinder, never()).findOrdersByCustomerCode(any());
+    }
+
+    @Test
+    @DisplayName("It should not find orders when the limit is not positive")
+    void itShouldNotFindOrdersWhenLimitIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.findOrderPageByCustomer(1L, null, 0));
+        verify(orderQueryRepository, never()).findOrdersByCustomerCode(any(), any(), anyInt());
+    }
 }
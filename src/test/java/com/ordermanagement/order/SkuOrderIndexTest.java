@@ -0,0 +1,182 @@
+package com.ordermanagement.order;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.orderline.OrderLineService;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "orders.sku-index.enabled=true")
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class SkuOrderIndexTest {
+    private static final long CUSTOMER_CODE = 12001L;
+    private static final String SKU = "index-sku-1";
+    private static final String OTHER_SKU = "index-sku-2";
+
+    @Autowired
+    private SkuOrderIndex skuOrderIndex;
+    @Autowired
+    @Qualifier("orderSkuIndexFinder")
+    private OrderFinder indexedFinder;
+    @Autowired
+    @Qualifier("orderCriteriaRepository")
+    private OrderFinder criteriaFinder;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderLineService orderLineService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRespository customerRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        orderLineRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        customerRepository.deleteAll();
+        skuOrderIndex.build();
+
+        customer = customerRepository.save(Customer.builder()
+                .registrationCode(CUSTOMER_CODE)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+        productRepository.save(Product.builder().skuCode(SKU).name("name").unitPrice(1F).build());
+        productRepository.save(Product.builder().skuCode(OTHER_SKU).name("name").unitPrice(1F).build());
+    }
+
+    @Test
+    @DisplayName("It should find created orders through the index like the Criteria finder does")
+    void itShouldFindCreatedOrders() {
+        Order both = createOrder(SKU, OTHER_SKU);
+        Order one = createOrder(SKU);
+        Order other = createOrder(OTHER_SKU);
+
+        assertArrayEquals(new long[]{both.getId(), one.getId()}, skuOrderIndex.findOrderIds(SKU).orElseThrow());
+        assertEquals(ids(criteriaFinder.findOrdersByProductSku(SKU)), ids(indexedFinder.findOrdersByProductSku(SKU)));
+        assertEquals(List.of(both.getId(), other.getId()), ids(orderService.findOrdersByProductSku(OTHER_SKU)));
+        assertEquals(List.of(), indexedFinder.findOrdersByProductSku("index-sku-missing"));
+    }
+
+    @Test
+    @DisplayName("It should forget deleted orders")
+    void itShouldForgetDeletedOrders() {
+        Order deleted = createOrder(SKU);
+        Order kept = createOrder(SKU);
+
+        orderService.deleteOrderById(deleted.getId());
+
+        assertArrayEquals(new long[]{kept.getId()}, skuOrderIndex.findOrderIds(SKU).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("It should not return an order that lost its line of the SKU")
+    void itShouldRecheckSkuOfIndexedOrders() {
+        Order order = createOrder(SKU, OTHER_SKU);
+
+        orderLineService.deleteOrderLine(order.getOrderLines().get(0).getId());
+
+        assertEquals(List.of(), indexedFinder.findOrdersByProductSku(SKU));
+        assertEquals(List.of(order.getId()), ids(indexedFinder.findOrdersByProductSku(OTHER_SKU)));
+    }
+
+    @Test
+    @DisplayName("It should build the index from the order lines in a few bytes per line")
+    void itShouldBuildIndexFromOrderLines() {
+        Product product = productRepository.getReferenceById(SKU);
+        List<Order> orders = orderRepository.saveAll(IntStream.range(0, 500)
+                .mapToObj(i -> Order.builder().customer(customer).dateOfSubmission(LocalDate.of(2022, 5, 1)).build())
+                .toList());
+        orderLineRepository.saveAll(orders.stream()
+                .map(order -> OrderLine.builder().order(order).product(product).quantity(1).build())
+                .toList());
+
+        skuOrderIndex.build();
+
+        assertEquals(500, skuOrderIndex.findOrderIds(SKU).orElseThrow().length);
+        assertEquals(500, skuOrderIndex.entries());
+        assertTrue(skuOrderIndex.sizeInBytes() < 4 * 500, "index size: " + skuOrderIndex.sizeInBytes());
+    }
+
+    @Test
+    @DisplayName("It should page the orders of a SKU through the index like the line probe does")
+    void itShouldPageOrdersThroughIndex() {
+        Product product = productRepository.getReferenceById(SKU);
+        Product otherProduct = productRepository.getReferenceById(OTHER_SKU);
+        // more candidates than a chunk, the later orders submitted earlier
+        int orderCount = OrderQueryRepository.CANDIDATE_CHUNK_SIZE + 500;
+        List<Order> orders = orderRepository.saveAll(IntStream.range(0, orderCount)
+                .mapToObj(i -> Order.builder().customer(customer).dateOfSubmission(LocalDate.of(2022, 5, 1).minusDays(i % 700)).build())
+                .toList());
+        orderLineRepository.saveAll(IntStream.range(0, orderCount)
+                .mapToObj(i -> OrderLine.builder().order(orders.get(i)).product(i % 3 == 0 ? otherProduct : product).quantity(1).build())
+                .toList());
+        skuOrderIndex.build();
+        Order lost = createOrder(SKU, OTHER_SKU);
+        orderLineService.deleteOrderLine(lost.getOrderLines().get(0).getId());
+
+        OrderQueryRepository probe = new OrderQueryRepository(entityManager, skuOrderIndex, 500, 0);
+        List<OrderDto> indexed = new ArrayList<>();
+        List<OrderDto> probed = new ArrayList<>();
+        String cursor = null;
+        do {
+            OrderPage page = orderService.findOrderPageByProductSku(SKU, cursor, 100);
+            indexed.addAll(page.orders());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        OrderCursor after = null;
+        List<OrderDto> page;
+        do {
+            page = probe.findOrdersByProductSku(SKU, after, 100);
+            probed.addAll(page);
+            after = page.isEmpty() ? null : OrderCursor.of(page.get(page.size() - 1));
+        } while (!page.isEmpty());
+
+        assertEquals(orderCount - (orderCount + 2) / 3, indexed.size());
+        assertEquals(probed, indexed);
+        assertEquals(List.of(), orderService.findOrderPageByProductSku("index-sku-missing", null, 100).orders());
+    }
+
+    private Order createOrder(String... skuCodes) {
+        return orderService.createOrder(new OrderCreateRequest(null, CUSTOMER_CODE, LocalDate.of(2022, 5, 1),
+                Arrays.stream(skuCodes).map(skuCode -> new OrderLineCreateRequest(skuCode, 1, null)).toList()));
+    }
+
+    private static List<Long> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).sorted().toList();
+    }
+}
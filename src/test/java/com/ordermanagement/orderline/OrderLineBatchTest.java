@@ -0,0 +1,184 @@
+package com.ordermanagement.orderline;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerOrderSummaryRepository;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderCreateRequest;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.order.OrderService;
+import com.ordermanagement.persistence.StatementCounter;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import com.ordermanagement.report.DailySales;
+import com.ordermanagement.report.DailySalesRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties", properties = "order-lines.batch.max-size=300")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderLineBatchTest {
+    private static final long CUSTOMER_CODE = 18001L;
+    private static final String SKU = "batch-line-sku";
+    private static final float UNIT_PRICE = 2F;
+
+    private final MockMvc mockMvc;
+    private final OrderService orderService;
+    private final OrderLineBatchService orderLineBatchService;
+    private final OrderLineRepository orderLineRepository;
+    private final OrderRepository orderRepository;
+    private final DailySalesRepository dailySalesRepository;
+    private final CustomerOrderSummaryRepository customerOrderSummaryRepository;
+    private final StatementCounter statementCounter;
+
+    @Autowired
+    public OrderLineBatchTest(
+            MockMvc mockMvc,
+            OrderService orderService,
+            OrderLineBatchService orderLineBatchService,
+            OrderLineRepository orderLineRepository,
+            OrderRepository orderRepository,
+            DailySalesRepository dailySalesRepository,
+            CustomerOrderSummaryRepository customerOrderSummaryRepository,
+            StatementCounter statementCounter,
+            CustomerRespository customerRepository,
+            ProductRepository productRepository
+    ) {
+        this.mockMvc = mockMvc;
+        this.orderService = orderService;
+        this.orderLineBatchService = orderLineBatchService;
+        this.orderLineRepository = orderLineRepository;
+        this.orderRepository = orderRepository;
+        this.dailySalesRepository = dailySalesRepository;
+        this.customerOrderSummaryRepository = customerOrderSummaryRepository;
+        this.statementCounter = statementCounter;
+
+        customerRepository.save(Customer.builder()
+                .registrationCode(CUSTOMER_CODE)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+        productRepository.save(Product.builder().skuCode(SKU).name("name").unitPrice(UNIT_PRICE).build());
+    }
+
+    @Test
+    @DisplayName("It should apply the valid updates of a batch and report the outcome of every one")
+    void itShouldApplyValidUpdatesAndReportEveryOutcome() throws Exception {
+        LocalDate day = LocalDate.of(2023, 7, 1);
+        Order order = createOrder(day, 2);
+        Long first = order.getOrderLines().get(0).getId();
+        Long second = order.getOrderLines().get(1).getId();
+        double spendBefore = lifetimeSpend();
+
+        mockMvc.perform(patch("/api/v1/order-line")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"id":%d,"quantity":5},{"id":%d,"quantity":0},{"id":-1,"quantity":3},{"quantity":3}]
+                                """.formatted(first, second)))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        [{"id":%d,"status":"UPDATED","error":null},
+                        {"id":%d,"status":"REJECTED","error":"Quantity must be greater than 0"},
+                        {"id":-1,"status":"NOT_FOUND","error":"Order line not found"},
+                        {"id":null,"status":"REJECTED","error":"Order line id is required"}]
+                        """.formatted(first, second), true));
+
+        assertEquals(5, orderLineRepository.findById(first).orElseThrow().getQuantity());
+        assertEquals(1, orderLineRepository.findById(second).orElseThrow().getQuantity());
+        assertEquals(order.getVersion() + 1, orderRepository.findVersionById(order.getId()).orElseThrow());
+        DailySales dailySales = dailySalesRepository.findById(new DailySales.Key(day, SKU)).orElseThrow();
+        assertEquals(6, dailySales.getUnits());
+        assertEquals(6 * UNIT_PRICE, dailySales.getRevenue(), 0.001);
+        assertEquals(spendBefore + 4 * UNIT_PRICE, lifetimeSpend(), 0.001);
+    }
+
+    @Test
+    @DisplayName("It should reject every occurrence of a line sent twice")
+    void itShouldRejectLineSentTwice() {
+        Order order = createOrder(LocalDate.of(2023, 7, 2), 1);
+        Long id = order.getOrderLines().get(0).getId();
+
+        List<OrderLineBatchResult> results = orderLineBatchService.updateQuantities(List.of(
+                new OrderLineQuantityUpdate(id, 3),
+                new OrderLineQuantityUpdate(id, 4)
+        ));
+
+        assertEquals(List.of(OrderLineBatchResult.Status.REJECTED, OrderLineBatchResult.Status.REJECTED),
+                results.stream().map(OrderLineBatchResult::status).toList());
+        assertEquals(1, orderLineRepository.findById(id).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("It should send the same statements for a batch of 300 lines as for 3")
+    void itShouldSendSameStatementsRegardlessOfBatchSize() {
+        LocalDate day = LocalDate.of(2023, 7, 3);
+        List<Long> small = lineIds(createOrder(day, 3));
+        List<Long> large = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            large.addAll(lineIds(createOrder(day, 30)));
+
+        long before = statementCounter.current();
+        updateQuantities(small, 2);
+        long smallStatements = statementCounter.current() - before;
+
+        before = statementCounter.current();
+        updateQuantities(large, 3);
+        long largeStatements = statementCounter.current() - before;
+
+        assertEquals(smallStatements, largeStatements);
+        assertEquals(3 * 2 + 300 * 3, dailySalesRepository.findById(new DailySales.Key(day, SKU)).orElseThrow().getUnits());
+    }
+
+    @Test
+    @DisplayName("It should answer BAD_REQUEST for a batch over the maximum size")
+    void itShouldRejectBatchOverMaximumSize() throws Exception {
+        String updates = Arrays.toString(IntStream.range(0, 301).mapToObj(i -> "{\"id\":%d,\"quantity\":1}".formatted(i)).toArray());
+
+        mockMvc.perform(patch("/api/v1/order-line").contentType(MediaType.APPLICATION_JSON).content(updates))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void updateQuantities(List<Long> ids, int quantity) {
+        List<OrderLineBatchResult> results = orderLineBatchService.updateQuantities(ids.stream()
+                .map(id -> new OrderLineQuantityUpdate(id, quantity))
+                .toList());
+        assertEquals(ids.size(), results.stream().filter(result -> result.status() == OrderLineBatchResult.Status.UPDATED).count());
+    }
+
+    private Order createOrder(LocalDate day, int lines) {
+        return orderService.createOrder(new OrderCreateRequest(null, CUSTOMER_CODE, day, IntStream.range(0, lines)
+                .mapToObj(i -> new OrderLineCreateRequest(SKU, 1, null))
+                .toList()));
+    }
+
+    private static List<Long> lineIds(Order order) {
+        return order.getOrderLines().stream().map(OrderLine::getId).toList();
+    }
+
+    private double lifetimeSpend() {
+        return customerOrderSummaryRepository.findById(CUSTOMER_CODE).orElseThrow().getLifetimeSpend();
+    }
+}
@@ -1,5 +1,6 @@
 package com.ordermanagement.orderline;
 
+import com.ordermanagement.exception.ConflictException;
 import com.ordermanagement.exception.NotFoundException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,6 +11,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -17,6 +20,8 @@ import static org.mockito.Mockito.*;
 class OrderLineControllerTest {
     @Mock
     private OrderLineService orderLineService;
+    @Mock
+    private OrderLineBatchService orderLineBatchService;
     @InjectMocks
     private OrderLineController orderLineController;
 
@@ -24,35 +29,90 @@ class OrderLineControllerTest {
     @DisplayName("It should return OK when [update order line]")
     void itShouldReturnOkWhenUpdateOrderLine() {
         Long id = 1L;
-        Integer quantity = 1;
 
-        ResponseEntity<Object> responseEntity = orderLineController.updateQuantity(id, quantity);
+        ResponseEntity<Object> responseEntity = orderLineController.updateQuantity(id, "1", null);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        verify(orderLineService, times(1)).updateQuantity(id, QuantityChange.to(1), null);
+    }
+
+    @Test
+    @DisplayName("It should add to the quantity when [update order line] with a signed quantity and an ETag")
+    void itShouldAddToQuantityWhenUpdateOrderLineWithSignedQuantity() {
+        Long id = 1L;
+
+        ResponseEntity<Object> responseEntity = orderLineController.updateQuantity(id, "+3", "\"4\"");
 
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        verify(orderLineService, times(1)).updateQuantity(id, quantity);
+        verify(orderLineService, times(1)).updateQuantity(id, QuantityChange.by(3), 4L);
     }
 
     @Test
     @DisplayName("It should return BAD_REQUEST when [update order line] and quantity is less than 1")
     public void itShouldReturnBadRequestWhenUpdateOrderLineAndQuantityIsLessThan1() {
         Long id = 1L;
-        Integer quantity = 0;
 
-        doThrow(IllegalArgumentException.class).when(orderLineService).updateQuantity(id, quantity);
+        doThrow(IllegalArgumentException.class).when(orderLineService).updateQuantity(id, QuantityChange.to(0), null);
+
+        ResponseEntity<Object> responseEntity = orderLineController.updateQuantity(id, "0", null);
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("It should return BAD_REQUEST when [update order line] and quantity is not a number")
+    public void itShouldReturnBadRequestWhenUpdateOrderLineAndQuantityIsNotANumber() {
+        ResponseEntity<Object> responseEntity = orderLineController.updateQuantity(1L, "many", null);
 
-        ResponseEntity<Object> responseEntity = orderLineController.updateQuantity(id, quantity);
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        verifyNoInteractions(orderLineService);
     }
 
     @Test
     @DisplayName("It should return NOT_FOUND when [update order line] and order line not found")
     public void itShouldReturnNotFoundWhenUpdateOrderLineAndOrderLineNotFound() {
         Long id = 1L;
-        Integer quantity = 1;
 
-        doThrow(NotFoundException.class).when(orderLineService).updateQuantity(id, quantity);
+        doThrow(NotFoundException.class).when(orderLineService).updateQuantity(id, QuantityChange.to(1), null);
 
-        ResponseEntity<Object> responseEntity = orderLineController.updateQuantity(id, quantity);
+        ResponseEntity<Object> responseEntity = orderLineController.updateQuantity(id, "1", null);
         assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("It should return CONFLICT when [update order line] and the order changed")
+    public void itShouldReturnConflictWhenUpdateOrderLineAndOrderChanged() {
+        Long id = 1L;
+
+        doThrow(ConflictException.class).when(orderLineService).updateQuantity(id, QuantityChange.to(1), 4L);
+
+        ResponseEntity<Object> responseEntity = orderLineController.updateQuantity(id, "1", "\"4\"");
+        assertEquals(HttpStatus.CONFLICT, responseEntity.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("It should return the outcome of every line when [update order lines]")
+    void itShouldReturnOutcomesWhenUpdateOrderLines() {
+        List<OrderLineQuantityUpdate> updates = List.of(new OrderLineQuantityUpdate(1L, 2), new OrderLineQuantityUpdate(2L, 0));
+        List<OrderLineBatchResult> results = List.of(
+                OrderLineBatchResult.updated(1L),
+                OrderLineBatchResult.rejected(2L, "Quantity must be greater than 0")
+        );
+        when(orderLineBatchService.updateQuantities(updates)).thenReturn(results);
+
+        ResponseEntity<Object> responseEntity = orderLineController.updateQuantities(updates);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(results, responseEntity.getBody());
+    }
+
+    @Test
+    @DisplayName("It should return BAD_REQUEST when [update order lines] and the batch is too large")
+    void itShouldReturnBadRequestWhenUpdateOrderLinesAndBatchIsTooLarge() {
+        List<OrderLineQuantityUpdate> updates = List.of(new OrderLineQuantityUpdate(1L, 2));
+        when(orderLineBatchService.updateQuantities(updates)).thenThrow(IllegalArgumentException.class);
+
+        ResponseEntity<Object> responseEntity = orderLineController.updateQuantities(updates);
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+    }
+}
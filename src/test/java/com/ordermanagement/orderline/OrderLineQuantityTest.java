@@ -0,0 +1,185 @@
+package com.ordermanagement.orderline;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerOrderSummaryRepository;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.exception.ConflictException;
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderCreateRequest;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.order.OrderService;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import com.ordermanagement.report.DailySales;
+import com.ordermanagement.report.DailySalesRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderLineQuantityTest {
+    private static final long CUSTOMER_CODE = 17001L;
+    private static final String SKU = "quantity-sku";
+    private static final float UNIT_PRICE = 2F;
+
+    private final MockMvc mockMvc;
+    private final OrderService orderService;
+    private final OrderLineService orderLineService;
+    private final OrderLineRepository orderLineRepository;
+    private final OrderRepository orderRepository;
+    private final DailySalesRepository dailySalesRepository;
+    private final CustomerOrderSummaryRepository customerOrderSummaryRepository;
+
+    @Autowired
+    public OrderLineQuantityTest(
+            MockMvc mockMvc,
+            OrderService orderService,
+            OrderLineService orderLineService,
+            OrderLineRepository orderLineRepository,
+            OrderRepository orderRepository,
+            DailySalesRepository dailySalesRepository,
+            CustomerOrderSummaryRepository customerOrderSummaryRepository,
+            CustomerRespository customerRepository,
+            ProductRepository productRepository
+    ) {
+        this.mockMvc = mockMvc;
+        this.orderService = orderService;
+        this.orderLineService = orderLineService;
+        this.orderLineRepository = orderLineRepository;
+        this.orderRepository = orderRepository;
+        this.dailySalesRepository = dailySalesRepository;
+        this.customerOrderSummaryRepository = customerOrderSummaryRepository;
+
+        customerRepository.save(Customer.builder()
+                .registrationCode(CUSTOMER_CODE)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+        productRepository.save(Product.builder().skuCode(SKU).name("name").unitPrice(UNIT_PRICE).build());
+    }
+
+    @Test
+    @DisplayName("It should not lose any of hundreds of concurrent relative changes")
+    void itShouldNotLoseConcurrentRelativeChanges() {
+        LocalDate day = LocalDate.of(2023, 6, 1);
+        Order order = createOrder(day, 1);
+        Long orderLineId = order.getOrderLines().get(0).getId();
+        double spendBefore = lifetimeSpend();
+        int threads = 200;
+
+        // every thread adds 2 and takes 1 away, in two transactions
+        runConcurrently(threads, i -> {
+            orderLineService.updateQuantity(orderLineId, QuantityChange.by(2), null);
+            orderLineService.updateQuantity(orderLineId, QuantityChange.by(-1), null);
+            return true;
+        });
+
+        int expected = 1 + threads;
+        assertEquals(expected, orderLineRepository.findById(orderLineId).orElseThrow().getQuantity());
+        assertEquals(order.getVersion() + 2L * threads, orderRepository.findVersionById(order.getId()).orElseThrow());
+        DailySales dailySales = dailySalesRepository.findById(new DailySales.Key(day, SKU)).orElseThrow();
+        assertEquals(expected, dailySales.getUnits());
+        assertEquals(expected * UNIT_PRICE, dailySales.getRevenue(), 0.001);
+        assertEquals(spendBefore + threads * UNIT_PRICE, lifetimeSpend(), 0.001);
+    }
+
+    @Test
+    @DisplayName("It should let one of concurrent changes for the same order version through")
+    void itShouldLetOneChangeForSameVersionThrough() {
+        LocalDate day = LocalDate.of(2023, 6, 2);
+        Order order = createOrder(day, 1);
+        Long orderLineId = order.getOrderLines().get(0).getId();
+        int threads = 100;
+
+        List<Boolean> applied = runConcurrently(threads, i -> {
+            try {
+                orderLineService.updateQuantity(orderLineId, QuantityChange.to(10 + i), order.getVersion());
+                return true;
+            } catch (ConflictException e) {
+                return false;
+            }
+        });
+
+        assertEquals(1, applied.stream().filter(Boolean::booleanValue).count());
+        int quantity = orderLineRepository.findById(orderLineId).orElseThrow().getQuantity();
+        assertEquals(quantity, dailySalesRepository.findById(new DailySales.Key(day, SKU)).orElseThrow().getUnits());
+        assertEquals(order.getVersion() + 1, orderRepository.findVersionById(order.getId()).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("It should answer CONFLICT for a stale ETag and BAD_REQUEST below a quantity of 1")
+    void itShouldRejectStaleETagAndQuantityBelow1() throws Exception {
+        LocalDate day = LocalDate.of(2023, 6, 3);
+        Order order = createOrder(day, 2);
+        Long orderLineId = order.getOrderLines().get(0).getId();
+        String etag = "\"" + order.getVersion() + "\"";
+
+        mockMvc.perform(put("/api/v1/order-line/{id}", orderLineId).header(HttpHeaders.IF_MATCH, etag).content("+3"))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/v1/order-line/{id}", orderLineId).header(HttpHeaders.IF_MATCH, etag).content("+3"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(put("/api/v1/order-line/{id}", orderLineId).content("-5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/v1/order-line/{id}", -1L).content("+1"))
+                .andExpect(status().isNotFound());
+
+        assertEquals(5, orderLineRepository.findById(orderLineId).orElseThrow().getQuantity());
+        assertEquals(5, dailySalesRepository.findById(new DailySales.Key(day, SKU)).orElseThrow().getUnits());
+    }
+
+    private Order createOrder(LocalDate day, int quantity) {
+        return orderService.createOrder(new OrderCreateRequest(null, CUSTOMER_CODE, day, List.of(
+                new OrderLineCreateRequest(SKU, quantity, null)
+        )));
+    }
+
+    private double lifetimeSpend() {
+        return customerOrderSummaryRepository.findById(CUSTOMER_CODE).orElseThrow().getLifetimeSpend();
+    }
+
+    private static <T> List<T> runConcurrently(int threads, IntFunction<T> task) {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<CompletableFuture<T>> results = IntStream.range(0, threads)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        return task.apply(i);
+                    }, executor))
+                    .toList();
+            start.countDown();
+            return results.stream().map(CompletableFuture::join).toList();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -1,7 +1,15 @@
 package com.ordermanagement.orderline;
 
-import com.ordermanagement.exception.IdAlreadyInUseException;
+import com.ordermanagement.customer.CustomerOrderSummaryService;
+import com.ordermanagement.exception.ConflictException;
 import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderEventService;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductService;
+import com.ordermanagement.product.StockService;
+import com.ordermanagement.report.DailySalesService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,6 +17,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -18,48 +28,48 @@ import static org.mockito.Mockito.*;
 class OrderLineServiceTest {
     @Mock
     private OrderLineRepository orderLineRepository;
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private DailySalesService dailySalesService;
+    @Mock
+    private CustomerOrderSummaryService customerOrderSummaryService;
+    @Mock
+    private OrderEventService orderEventService;
+    @Mock
+    private ProductService productService;
+    @Mock
+    private StockService stockService;
 
     @InjectMocks
     private OrderLineService orderLineService;
 
     @Test
-    @DisplayName("It should create order line")
-    void itShouldCreateOrderLine() {
-        OrderLine expected = OrderLine.builder()
-                .id(1L)
-                .quantity(1)
-                .build();
-        when(orderLineRepository.save(expected)).thenReturn(expected);
+    @DisplayName("It should create order lines in one batch")
+    void itShouldCreateOrderLinesInOneBatch() {
+        List<OrderLine> expected = List.of(
+                OrderLine.builder().quantity(1).build(),
+                OrderLine.builder().quantity(2).build()
+        );
+        when(orderLineRepository.saveAllAndFlush(expected)).thenReturn(expected);
 
-        OrderLine actual = orderLineService.createOrderLine(expected);
+        List<OrderLine> actual = orderLineService.createOrderLines(expected);
 
         assertEquals(expected, actual);
-        verify(orderLineRepository, times(1)).save(expected);
-    }
-
-    @Test
-    @DisplayName("It should not create order line when quantity is less than 1")
-    void itShouldNotCreateOrderLineWhenQuantityIsLessThan1() {
-        OrderLine expected = OrderLine.builder()
-                .id(1L)
-                .quantity(0)
-                .build();
-
-        assertThrows(IllegalArgumentException.class, () -> orderLineService.createOrderLine(expected));
-        verify(orderLineRepository, never()).save(any());
+        verify(orderLineRepository, times(1)).saveAllAndFlush(expected);
+        verify(orderLineRepository, never()).findById(any());
     }
 
     @Test
-    @DisplayName("It should not create order line when id already in use")
-    void itShouldNotCreateOrderLineWhenIdAlreadyInUse() {
-        OrderLine expected = OrderLine.builder()
-                .id(1L)
-                .quantity(1)
-                .build();
-        when(orderLineRepository.findById(expected.getId())).thenReturn(Optional.of(expected));
-
-        assertThrows(IdAlreadyInUseException.class, () -> orderLineService.createOrderLine(expected));
-        verify(orderLineRepository, never()).save(any());
+    @DisplayName("It should not create order lines when any quantity is less than 1")
+    void itShouldNotCreateOrderLinesWhenAnyQuantityIsLessThan1() {
+        List<OrderLine> expected = List.of(
+                OrderLine.builder().quantity(1).build(),
+                OrderLine.builder().quantity(0).build()
+        );
+
+        assertThrows(IllegalArgumentException.class, () -> orderLineService.createOrderLines(expected));
+        verify(orderLineRepository, never()).saveAllAndFlush(any());
     }
 
     @Test
@@ -95,11 +105,16 @@ class OrderLineServiceTest {
         OrderLine expected = OrderLine.builder()
                 .id(1L)
                 .quantity(1)
+                .order(Order.builder().id(5L).build())
+                .product(Product.builder().skuCode("skuCode").build())
                 .build();
         when(orderLineRepository.findById(expected.getId())).thenReturn(Optional.of(expected));
 
         orderLineService.deleteOrderLine(expected.getId());
+        verify(dailySalesService, times(1)).subtractOrderLine(expected.getId());
         verify(orderLineRepository, times(1)).deleteById(expected.getId());
+        verify(orderRepository, times(1)).incrementVersion(5L);
+        verify(stockService, times(1)).giveBack(eq(Map.of("skuCode", 1L)), anyMap());
     }
 
     @Test
@@ -121,11 +136,71 @@ class OrderLineServiceTest {
         OrderLine expected = OrderLine.builder()
                 .id(1L)
                 .quantity(1)
+                .order(Order.builder().id(5L).build())
                 .build();
-        when(orderLineRepository.findById(expected.getId())).thenReturn(Optional.of(expected));
+        when(orderRepository.incrementVersionByOrderLineId(expected.getId())).thenReturn(1);
+        when(orderLineRepository.updateQuantity(expected.getId(), 2)).thenReturn(1);
 
         orderLineService.updateQuantity(expected.getId(), 2);
-        verify(orderLineRepository, times(1)).save(expected);
+        verify(orderLineRepository, never()).findById(any());
+        verify(dailySalesService, times(1)).changeQuantity(expected.getId(), 2);
+        verify(customerOrderSummaryService, times(1)).changeQuantity(expected.getId(), 2);
+        verify(orderRepository, times(1)).incrementVersionByOrderLineId(expected.getId());
+    }
+
+    @Test
+    @DisplayName("It should add to order line quantity")
+    void itShouldAddToOrderLineQuantity() {
+        when(orderRepository.incrementVersionByOrderLineId(1L)).thenReturn(1);
+        when(orderLineRepository.findDtosByIds(List.of(1L))).thenReturn(List.of(new OrderLineDto(1L, "skuCode", 2)));
+        when(orderLineRepository.addQuantity(1L, 3)).thenReturn(1);
+
+        orderLineService.updateQuantity(1L, QuantityChange.by(3), null);
+        verify(stockService, times(1)).adjust(eq(Map.of("skuCode", 3L)), anyMap());
+        verify(dailySalesService, times(1)).addQuantity(1L, 3);
+        verify(customerOrderSummaryService, times(1)).addQuantity(1L, 3);
+        verify(orderLineRepository, never()).updateQuantity(any(), any());
+    }
+
+    @Test
+    @DisplayName("It should give back the stock of a lowered order line quantity")
+    void itShouldGiveBackStockOfLoweredQuantity() {
+        when(orderRepository.incrementVersionByOrderLineId(1L)).thenReturn(1);
+        when(orderLineRepository.findDtosByIds(List.of(1L))).thenReturn(List.of(new OrderLineDto(1L, "skuCode", 5)));
+        when(orderLineRepository.updateQuantity(1L, 2)).thenReturn(1);
+
+        orderLineService.updateQuantity(1L, 2);
+        verify(stockService, times(1)).adjust(eq(Map.of("skuCode", -3L)), anyMap());
+    }
+
+    @Test
+    @DisplayName("It should not subtract from order line quantity below 1")
+    void itShouldNotSubtractFromOrderLineQuantityBelow1() {
+        when(orderRepository.incrementVersionByOrderLineId(1L)).thenReturn(1);
+        when(orderLineRepository.addQuantity(1L, -3)).thenReturn(0);
+
+        assertThrows(IllegalArgumentException.class, () -> orderLineService.updateQuantity(1L, QuantityChange.by(-3), null));
+    }
+
+    @Test
+    @DisplayName("It should update order line quantity when order version matches")
+    void itShouldUpdateOrderLineQuantityWhenOrderVersionMatches() {
+        when(orderRepository.incrementVersionByOrderLineId(1L, 4L)).thenReturn(1);
+        when(orderLineRepository.updateQuantity(1L, 2)).thenReturn(1);
+
+        orderLineService.updateQuantity(1L, QuantityChange.to(2), 4L);
+        verify(orderRepository, never()).incrementVersionByOrderLineId(any());
+    }
+
+    @Test
+    @DisplayName("It should not update order line quantity when order version changed")
+    void itShouldNotUpdateOrderLineQuantityWhenOrderVersionChanged() {
+        when(orderRepository.incrementVersionByOrderLineId(1L, 4L)).thenReturn(0);
+        when(orderRepository.findVersionByOrderLineId(1L)).thenReturn(Optional.of(5L));
+
+        assertThrows(ConflictException.class, () -> orderLineService.updateQuantity(1L, QuantityChange.to(2), 4L));
+        verify(dailySalesService, never()).changeQuantity(any(), anyInt());
+        verify(orderLineRepository, never()).updateQuantity(any(), any());
     }
 
     @Test
@@ -135,10 +210,11 @@ class OrderLineServiceTest {
                 .id(1L)
                 .quantity(1)
                 .build();
-        when(orderLineRepository.findById(expected.getId())).thenReturn(Optional.empty());
+        when(orderRepository.incrementVersionByOrderLineId(expected.getId())).thenReturn(0);
 
         assertThrows(NotFoundException.class, () -> orderLineService.updateQuantity(expected.getId(), 2));
-        verify(orderLineRepository, never()).save(any());
+        verify(dailySalesService, never()).changeQuantity(any(), anyInt());
+        verify(orderLineRepository, never()).updateQuantity(any(), any());
     }
 
     @Test
@@ -148,9 +224,9 @@ class OrderLineServiceTest {
                 .id(1L)
                 .quantity(1)
                 .build();
-        when(orderLineRepository.findById(expected.getId())).thenReturn(Optional.of(expected));
-
         assertThrows(IllegalArgumentException.class, () -> orderLineService.updateQuantity(expected.getId(), 0));
-        verify(orderLineRepository, never()).save(any());
+        verify(orderLineRepository, never()).updateQuantity(any(), any());
+        verify(dailySalesService, never()).changeQuantity(any(), anyInt());
+        verify(orderRepository, never()).incrementVersionByOrderLineId(any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package com.ordermanagement.persistence;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderFinder;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the H2 plans of the statements the finders actually issue against the indexes created by
+ * the migrations.
+ */
+@SpringBootTest
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FinderIndexPlanTest {
+    private static final long CUSTOMER_CODE = 13001L;
+    private static final int CUSTOMER_COUNT = 20;
+    private static final int PRODUCT_COUNT = 10;
+    private static final int ORDER_COUNT = 400;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 6, 1);
+    private static final String SKU = skuCode(0);
+
+    private final OrderRepository orderRepository;
+    private final OrderFinder criteriaFinder;
+    private final StatementCounter statementCounter;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public FinderIndexPlanTest(
+            OrderRepository orderRepository,
+            @Qualifier("orderCriteriaRepository") OrderFinder criteriaFinder,
+            StatementCounter statementCounter,
+            JdbcTemplate jdbcTemplate,
+            CustomerRespository customerRepository,
+            ProductRepository productRepository,
+            OrderLineRepository orderLineRepository
+    ) {
+        this.orderRepository = orderRepository;
+        this.criteriaFinder = criteriaFinder;
+        this.statementCounter = statementCounter;
+        this.jdbcTemplate = jdbcTemplate;
+
+        List<Customer> customers = customerRepository.saveAll(IntStream.range(0, CUSTOMER_COUNT)
+                .mapToObj(i -> Customer.builder()
+                        .registrationCode(CUSTOMER_CODE + i)
+                        .fullName("fullName")
+                        .email("email")
+                        .telephone("telephone")
+                        .build())
+                .toList());
+        List<Product> products = productRepository.saveAll(IntStream.range(0, PRODUCT_COUNT)
+                .mapToObj(i -> Product.builder().skuCode(skuCode(i)).name("name").unitPrice(1F).build())
+                .toList());
+        List<Order> orders = orderRepository.saveAll(IntStream.range(0, ORDER_COUNT)
+                .mapToObj(i -> Order.builder()
+                        .customer(customers.get(i % CUSTOMER_COUNT))
+                        .dateOfSubmission(FIRST_DAY.plusDays(i % 100))
+                        .build())
+                .toList());
+        List<OrderLine> orderLines = new ArrayList<>();
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            orderLines.add(OrderLine.builder().order(orders.get(i)).product(products.get(i % PRODUCT_COUNT)).quantity(1).build());
+            orderLines.add(OrderLine.builder().order(orders.get(i)).product(products.get((i + 1) % PRODUCT_COUNT)).quantity(1).build());
+        }
+        orderLineRepository.saveAll(orderLines);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    @DisplayName("It should find the orders of a date through the date index")
+    void itShouldFindOrdersOfDateByIndex() {
+        assertUsesIndexes(plan(() -> orderRepository.findOrdersByDate(FIRST_DAY), FIRST_DAY), "IDX_ORDERS_DATE_ID");
+        assertUsesIndexes(
+                plan(() -> orderRepository.findIdsByDateRange(FIRST_DAY, FIRST_DAY.plusDays(1), Pageable.ofSize(10)),
+                        FIRST_DAY, FIRST_DAY.plusDays(1)),
+                "IDX_ORDERS_DATE_ID"
+        );
+    }
+
+    @Test
+    @DisplayName("It should find the orders of a customer through the customer index")
+    void itShouldFindOrdersOfCustomerByIndex() {
+        // H2 indexes foreign keys on its own and may pick that index, either one starts with the customer
+        assertUsesIndexes(plan(() -> orderRepository.findOrdersByCustomerCode(CUSTOMER_CODE), CUSTOMER_CODE),
+                ": CUSTOMER_REGISTRATION_NUMBER = ?1 */");
+        assertUsesIndexes(plan(() -> criteriaFinder.findOrdersByCustomerCode(CUSTOMER_CODE), CUSTOMER_CODE),
+                ": CUSTOMER_REGISTRATION_NUMBER = ?1 */");
+        assertUsesIndexes(plan(() -> orderRepository.findIdsByCustomerCodes(List.of(CUSTOMER_CODE)), CUSTOMER_CODE),
+                ": CUSTOMER_REGISTRATION_NUMBER = ?1 */");
+    }
+
+    @Test
+    @DisplayName("It should find the orders of a SKU through the SKU index of the order lines")
+    void itShouldFindOrdersOfSkuByIndex() {
+        assertUsesIndexes(plan(() -> orderRepository.findOrdersByProductSku(SKU), SKU), "IDX_ORDER_LINE_PRODUCT_ORDER");
+        assertUsesIndexes(plan(() -> criteriaFinder.findOrdersByProductSku(SKU), SKU), "IDX_ORDER_LINE_PRODUCT_ORDER");
+    }
+
+    @Test
+    @DisplayName("It should fetch orders by id and recheck their SKU through the order index of the order lines")
+    void itShouldFetchOrdersByIdByIndex() {
+        Long id = orderRepository.findIdsByCustomerCodes(List.of(CUSTOMER_CODE)).get(0);
+
+        assertUsesIndexes(plan(() -> orderRepository.findOrdersByIdsAndProductSku(List.of(id), SKU), id, SKU),
+                "PRIMARY_KEY", "IDX_ORDER_LINE_ORDER_PRODUCT");
+    }
+
+    /**
+     * Runs the finder, then explains the first statement it issued with the given parameters.
+     * Parameters left over are row limits.
+     */
+    private String plan(Runnable finder, Object... parameters) {
+        String sql;
+        statementCounter.startRecording();
+        try {
+            finder.run();
+        } finally {
+            sql = statementCounter.stopRecording().get(0);
+        }
+
+        return jdbcTemplate.query("EXPLAIN " + sql, statement -> {
+            int count = statement.getParameterMetaData().getParameterCount();
+            for (int i = 0; i < count; i++)
+                statement.setObject(i + 1, i < parameters.length ? parameters[i] : 10);
+        }, resultSet -> resultSet.next() ? resultSet.getString(1) : null);
+    }
+
+    private static void assertUsesIndexes(String plan, String... indexes) {
+        for (String index : indexes)
+            assertTrue(plan.contains(index), "expected " + index + " in " + plan);
+        assertFalse(plan.contains("tableScan"), "expected no table scan in " + plan);
+    }
+
+    private static String skuCode(int i) {
+        return "plan-sku-" + i;
+    }
+}
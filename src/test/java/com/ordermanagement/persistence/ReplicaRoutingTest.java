@@ -0,0 +1,189 @@
+package com.ordermanagement.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.customer.CustomerService;
+import com.ordermanagement.order.OrderCreateRequest;
+import com.ordermanagement.order.OrderPage;
+import com.ordermanagement.order.OrderService;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import com.ordermanagement.product.ProductService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs against a primary and a replica in two separate H2 databases, both migrated but seeded
+ * differently, so the rows a read returns tell which of them served it. A second replica cannot
+ * be reached at all.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "datasource.replicas.enabled=true",
+        "datasource.replicas.pools[0].url=jdbc:h2:mem:replica-${random.uuid};DB_CLOSE_DELAY=-1",
+        "datasource.replicas.pools[1].url=jdbc:h2:tcp://localhost:1/mem:unreachable",
+        "datasource.replicas.connection-timeout=250ms",
+        "datasource.replicas.health-check-interval=1h",
+        "datasource.replicas.read-your-writes-window=1m"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicaRoutingTest {
+    private static final long PRIMARY_CUSTOMER_CODE = 14001L;
+    private static final long REPLICA_CUSTOMER_CODE = 14002L;
+    private static final String SKU = "replica-sku";
+    private static final LocalDate DATE = LocalDate.of(2023, 3, 1);
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final OrderService orderService;
+    private final CustomerRespository customerRepository;
+    private final CustomerService customerService;
+    private final ProductService productService;
+    private final ReplicaRouter replicaRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ReplicaRoutingTest(
+            MockMvc mockMvc,
+            ObjectMapper objectMapper,
+            OrderService orderService,
+            CustomerRespository customerRepository,
+            CustomerService customerService,
+            ProductRepository productRepository,
+            ProductService productService,
+            ReplicaRouter replicaRouter,
+            ReplicaProperties replicaProperties,
+            TransactionTemplate transactionTemplate
+    ) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.orderService = orderService;
+        this.customerRepository = customerRepository;
+        this.customerService = customerService;
+        this.productService = productService;
+        this.replicaRouter = replicaRouter;
+        this.transactionTemplate = transactionTemplate;
+
+        String replicaUrl = replicaProperties.pools().get(0).url();
+        Flyway.configure().dataSource(replicaUrl, "sa", "").load().migrate();
+        new JdbcTemplate(new DriverManagerDataSource(replicaUrl, "sa", "")).update(
+                "INSERT INTO customer (registration_code, email, full_name, telephone, version) VALUES (?, 'email', 'fullName', 'telephone', 0)",
+                REPLICA_CUSTOMER_CODE
+        );
+
+        customerRepository.save(customer(PRIMARY_CUSTOMER_CODE));
+        productRepository.save(Product.builder().skuCode(SKU).name("name").unitPrice(1F).build());
+    }
+
+    @Test
+    @DisplayName("It should serve read-only lookups from a replica and writing transactions from the primary")
+    void itShouldServeReadOnlyLookupsFromReplica() {
+        assertTrue(customerRepository.findById(REPLICA_CUSTOMER_CODE).isPresent());
+        assertTrue(customerRepository.findById(PRIMARY_CUSTOMER_CODE).isEmpty());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(customerRepository.findById(PRIMARY_CUSTOMER_CODE).isPresent());
+            assertTrue(customerRepository.findById(REPLICA_CUSTOMER_CODE).isEmpty());
+        });
+    }
+
+    @Test
+    @DisplayName("It should load the product and customer caches from the primary")
+    void itShouldLoadCachesFromPrimary() {
+        productService.saveProduct(Product.builder().skuCode("replica-sku-2").name("name").unitPrice(1F).build());
+        productService.saveProduct(Product.builder().skuCode("replica-sku-3").name("name").unitPrice(1F).build());
+        customerService.createCustomer(customer(14003L));
+        customerService.createCustomer(customer(14004L));
+
+        assertTrue(productService.findProductBySkuCode("replica-sku-2").isPresent());
+        assertEquals(Set.of("replica-sku-3"), productService.findProductsBySkuCodes(Set.of("replica-sku-3")).keySet());
+        assertTrue(customerService.findCustomerByCode(14003L).isPresent());
+        assertEquals(Set.of(14004L), customerService.findCustomersByCodes(Set.of(14004L)).keySet());
+        assertTrue(customerService.findCustomerByCode(REPLICA_CUSTOMER_CODE).isEmpty());
+    }
+
+    @Test
+    @DisplayName("It should serve the order finders from a replica")
+    void itShouldServeOrderFindersFromReplica() {
+        orderService.createOrder(orderCreateRequest());
+
+        assertTrue(orderService.findOrdersByCustomer(PRIMARY_CUSTOMER_CODE).isEmpty());
+        assertTrue(orderService.findOrdersByProductSku(SKU).isEmpty());
+        assertTrue(orderService.findOrdersByDate(DATE).isEmpty());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertFalse(orderService.findOrdersByCustomer(PRIMARY_CUSTOMER_CODE).isEmpty());
+            assertFalse(orderService.findOrdersByDate(DATE).isEmpty());
+        });
+    }
+
+    @Test
+    @DisplayName("It should read the writes of a client from the primary")
+    void itShouldReadOwnWritesFromPrimary() throws Exception {
+        mockMvc.perform(post("/api/v1/order")
+                        .header(ReplicaClientFilter.CLIENT_HEADER, "writer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderCreateRequest())))
+                .andExpect(status().isOk());
+
+        assertFalse(customerOrders("writer").orders().isEmpty());
+        assertTrue(customerOrders("reader").orders().isEmpty());
+    }
+
+    @Test
+    @DisplayName("It should eject an unreachable replica and keep reading from the others")
+    void itShouldEjectUnreachableReplica() {
+        for (int i = 0; i < 4; i++)
+            assertTrue(customerRepository.findById(REPLICA_CUSTOMER_CODE).isPresent());
+
+        assertEquals(1, replicaRouter.healthyReplicas());
+    }
+
+    private OrderPage customerOrders(String client) throws Exception {
+        String body = mockMvc.perform(get("/api/v1/customer/{code}/orders", PRIMARY_CUSTOMER_CODE)
+                        .header(ReplicaClientFilter.CLIENT_HEADER, client))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, OrderPage.class);
+    }
+
+    private static OrderCreateRequest orderCreateRequest() {
+        return new OrderCreateRequest(null, PRIMARY_CUSTOMER_CODE, DATE, List.of(new OrderLineCreateRequest(SKU, 1, null)));
+    }
+
+    private static Customer customer(long code) {
+        return Customer.builder()
+                .registrationCode(code)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.ordermanagement.persistence;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Upgrades a database holding rows of the released version, whose schema is V1, to the latest
+ * migration.
+ */
+class SchemaMigrationTest {
+    private static final long ORDER_ID = 1000L;
+    private static final long ORDER_LINE_ID = 5000L;
+    private static final String SKU = "released-sku";
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void migrateReleasedDatabase() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:migration-%s;DB_CLOSE_DELAY=-1".formatted(UUID.randomUUID()), "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        Flyway.configure().dataSource(dataSource).target("1").load().migrate();
+        jdbcTemplate.update("INSERT INTO customer (registration_code, email, full_name, telephone) VALUES (1, 'email', 'fullName', 'telephone')");
+        jdbcTemplate.update("INSERT INTO product (sku_code, name, unit_price) VALUES (?, 'name', 2)", SKU);
+        jdbcTemplate.update("INSERT INTO orders (id, date_of_submission, customer_registration_number) VALUES (?, DATE '2022-01-01', 1)", ORDER_ID);
+        jdbcTemplate.update("INSERT INTO order_line (id, quantity, order_id, product_sku_code) VALUES (?, 3, ?, ?)", ORDER_LINE_ID, ORDER_ID, SKU);
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+    }
+
+    @Test
+    @DisplayName("It should hand out order ids past the released ones")
+    void itShouldSeedOrderIds() {
+        long firstId = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR orders_seq", Long.class) - 49;
+        assertTrue(firstId > ORDER_ID, "first id " + firstId);
+
+        jdbcTemplate.update("INSERT INTO orders (id, date_of_submission, customer_registration_number) VALUES (?, DATE '2022-01-02', 1)", firstId);
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT version FROM orders WHERE id = ?", Long.class, ORDER_ID));
+    }
+
+    @Test
+    @DisplayName("It should hand out order line ids past the released ones, for lines of the same product")
+    void itShouldSeedOrderLineIds() {
+        // the pooled optimizer hands out the block below the value it reads
+        long firstId = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR order_line_seq", Long.class) - 49;
+        assertTrue(firstId > ORDER_LINE_ID, "first id " + firstId);
+
+        jdbcTemplate.update("INSERT INTO order_line (id, quantity, order_id, product_sku_code) VALUES (?, 1, ?, ?)", firstId, ORDER_ID, SKU);
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_line WHERE product_sku_code = ?", Integer.class, SKU));
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO order_line (id, quantity, order_id, product_sku_code) VALUES (?, 1, ?, 'missing-sku')", firstId + 1, ORDER_ID));
+    }
+}
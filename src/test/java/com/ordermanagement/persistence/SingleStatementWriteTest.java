@@ -0,0 +1,143 @@
+package com.ordermanagement.persistence;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerService;
+import com.ordermanagement.exception.IdAlreadyInUseException;
+import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.orderline.OrderLine;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.orderline.OrderLineService;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import com.ordermanagement.product.ProductService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SingleStatementWriteTest {
+    private final CustomerService customerService;
+    private final ProductService productService;
+    private final ProductRepository productRepository;
+    private final OrderLineService orderLineService;
+    private final OrderLineRepository orderLineRepository;
+    private final OrderRepository orderRepository;
+    private final StatementCounter statementCounter;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderLine orderLine;
+
+    @Autowired
+    public SingleStatementWriteTest(
+            CustomerService customerService,
+            ProductService productService,
+            ProductRepository productRepository,
+            OrderLineService orderLineService,
+            OrderLineRepository orderLineRepository,
+            OrderRepository orderRepository,
+            StatementCounter statementCounter,
+            TransactionTemplate transactionTemplate
+    ) {
+        this.customerService = customerService;
+        this.productService = productService;
+        this.productRepository = productRepository;
+        this.orderLineService = orderLineService;
+        this.orderLineRepository = orderLineRepository;
+        this.orderRepository = orderRepository;
+        this.statementCounter = statementCounter;
+        this.transactionTemplate = transactionTemplate;
+
+        Customer customer = customerService.createCustomer(customer(8001L));
+        Product product = productService.saveProduct(product("write-sku-1"));
+        Order order = orderRepository.save(Order.builder().customer(customer).dateOfSubmission(LocalDate.of(2022, 1, 1)).build());
+        this.orderLine = orderLineRepository.save(OrderLine.builder().order(order).product(product).quantity(1).build());
+    }
+
+    @Test
+    @DisplayName("It should create a customer with a single insert and reject a taken code")
+    void itShouldCreateCustomerWithSingleInsert() {
+        long before = statementCounter.current();
+        customerService.createCustomer(customer(8002L));
+        assertEquals(1, statementCounter.current() - before);
+
+        assertThrows(IdAlreadyInUseException.class, () -> customerService.createCustomer(customer(8002L)));
+    }
+
+    @Test
+    @DisplayName("It should update a product without reading it first and report a missing one")
+    void itShouldUpdateProductWithoutRead() {
+        Long version = productRepository.findById("write-sku-1").orElseThrow().getVersion();
+
+        long before = statementCounter.current();
+        Product saved = productService.updateProduct(Product.builder().skuCode("write-sku-1").name("renamed").unitPrice(2F).build());
+        // the customer summary reprice, the product update, the daily sales reprice and the read of the saved product
+        assertEquals(4, statementCounter.current() - before);
+        assertEquals(version + 1, saved.getVersion());
+
+        Product updated = productRepository.findById("write-sku-1").orElseThrow();
+        assertEquals("renamed", updated.getName());
+        assertEquals(version + 1, updated.getVersion());
+        assertThrows(NotFoundException.class,
+                () -> productService.updateProduct(Product.builder().skuCode("write-sku-missing").name("name").unitPrice(1F).build()));
+    }
+
+    @Test
+    @DisplayName("It should not cache the product a concurrent read finds before the update commits")
+    void itShouldInvalidateProductAfterCommit() {
+        productService.saveProduct(product("write-sku-2"));
+        productService.findProductBySkuCode("write-sku-2");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productService.updateProduct(Product.builder().skuCode("write-sku-2").name("renamed").unitPrice(2F).build());
+            // caches the committed product, the one before the update
+            CompletableFuture.runAsync(() -> productService.findProductBySkuCode("write-sku-2")).join();
+        });
+
+        assertEquals("renamed", productService.findProductBySkuCode("write-sku-2").orElseThrow().getName());
+    }
+
+    @Test
+    @DisplayName("It should update an order line quantity without reading the line first")
+    void itShouldUpdateOrderLineQuantityWithoutRead() {
+        Long orderVersion = orderRepository.findVersionById(orderLine.getOrder().getId()).orElseThrow();
+        productService.findProductBySkuCode("write-sku-1");
+
+        long before = statementCounter.current();
+        orderLineService.updateQuantity(orderLine.getId(), 7);
+        // the order version bump, the product and quantity of the line for the stock, the order
+        // event, the two rollup merges and the line update
+        assertEquals(6, statementCounter.current() - before);
+
+        assertEquals(7, orderLineRepository.findById(orderLine.getId()).orElseThrow().getQuantity());
+        assertEquals(orderVersion + 1, orderRepository.findVersionById(orderLine.getOrder().getId()).orElseThrow());
+        assertThrows(NotFoundException.class, () -> orderLineService.updateQuantity(-1L, 7));
+    }
+
+    private static Customer customer(Long registrationCode) {
+        return Customer.builder()
+                .registrationCode(registrationCode)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build();
+    }
+
+    private static Product product(String skuCode) {
+        return Product.builder().skuCode(skuCode).name("name").unitPrice(1F).build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.ordermanagement.persistence;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.customer.CustomerService;
+import com.ordermanagement.order.OrderCreateRequest;
+import com.ordermanagement.order.OrderService;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "slow-query-log.threshold=0ms",
+        "slow-query-log.sample-rate=0"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SlowQueryLogTest {
+    private static final long CUSTOMER_CODE = 15001L;
+    private static final String SKU = "slow-sku-";
+
+    private final MockMvc mockMvc;
+    private final OrderService orderService;
+    private final CustomerService customerService;
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SlowQueryLog.LOGGER_NAME);
+    private ListAppender<ILoggingEvent> appender;
+
+    @Autowired
+    public SlowQueryLogTest(
+            MockMvc mockMvc,
+            OrderService orderService,
+            CustomerService customerService,
+            CustomerRespository customerRepository,
+            ProductRepository productRepository
+    ) {
+        this.mockMvc = mockMvc;
+        this.orderService = orderService;
+        this.customerService = customerService;
+
+        customerRepository.save(customer("fullName"));
+        productRepository.saveAll(IntStream.range(0, 3)
+                .mapToObj(i -> Product.builder().skuCode(SKU + i).name("name").unitPrice(1F).build())
+                .toList());
+    }
+
+    @BeforeEach
+    void attachAppender() {
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detachAppender() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    @DisplayName("It should log a query with its bind values, rows and controller method")
+    void itShouldLogQueryWithBindValuesAndHandler() throws Exception {
+        mockMvc.perform(get("/api/v1/customer/{code}/orders", CUSTOMER_CODE)).andExpect(status().isOk());
+
+        List<String> entries = entries();
+        assertFalse(entries.isEmpty());
+        assertTrue(entries.stream().allMatch(entry ->
+                entry.startsWith("slow ") && entry.contains(" handler=CustomerController.findOrdersByCustomerCode ")
+        ), entries::toString);
+        assertTrue(entries.stream().anyMatch(entry -> entry.contains("rows=0") && entry.contains("params=[" + CUSTOMER_CODE)),
+                entries::toString);
+        assertEquals(Level.WARN, appender.list.get(0).getLevel());
+    }
+
+    @Test
+    @DisplayName("It should log the rows changed by an update")
+    void itShouldLogUpdatedRows() {
+        customerService.updateCustomer(customer("updatedName"));
+
+        assertTrue(entries().stream().anyMatch(entry ->
+                entry.contains("rows=1") && entry.contains("updatedName") && entry.contains("handler=-")
+        ), entries()::toString);
+    }
+
+    @Test
+    @DisplayName("It should log a batch once with its size")
+    void itShouldLogBatchOnce() {
+        orderService.createOrder(new OrderCreateRequest(null, CUSTOMER_CODE, LocalDate.of(2023, 4, 1), IntStream.range(0, 3)
+                .mapToObj(i -> new OrderLineCreateRequest(SKU + i, 1, null))
+                .toList()));
+
+        List<String> lineInserts = entries().stream().filter(entry -> entry.contains("insert into order_line")).toList();
+        assertEquals(1, lineInserts.size(), entries()::toString);
+        assertTrue(lineInserts.get(0).contains("rows=3 batch=3"), lineInserts::toString);
+    }
+
+    @Test
+    @DisplayName("It should only sample statements under the threshold")
+    void itShouldSampleStatementsUnderThreshold() {
+        SlowQueryLog neverSampled = new SlowQueryLog(true, Duration.ofHours(1), 0, 100);
+        neverSampled.record("SELECT 1", null, 1, 0, 1_000);
+        assertTrue(entries().isEmpty());
+        assertFalse(neverSampled.sampled());
+
+        SlowQueryLog alwaysSampled = new SlowQueryLog(true, Duration.ofHours(1), 1, 100);
+        alwaysSampled.record("SELECT 1", new Object[]{null, "x".repeat(200)}, 1, 0, 1_000);
+        assertEquals(1, entries().size());
+        assertTrue(entries().get(0).startsWith("sampled "));
+        assertTrue(entries().get(0).contains("params=[" + "x".repeat(100) + "...]"), entries()::toString);
+        assertEquals(Level.INFO, appender.list.get(0).getLevel());
+    }
+
+    private List<String> entries() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+
+    private static Customer customer(String fullName) {
+        return Customer.builder()
+                .registrationCode(CUSTOMER_CODE)
+                .fullName(fullName)
+                .email("email")
+                .telephone("telephone")
+                .build();
+    }
+}
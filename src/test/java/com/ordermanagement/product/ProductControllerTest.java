@@ -25,6 +25,9 @@ class ProductControllerTest {
     @Mock
     private OrderService orderService;
 
+    @Mock
+    private StockService stockService;
+
     @InjectMocks
     private ProductController productController;
 
@@ -98,7 +101,7 @@ class ProductControllerTest {
 
         when(productService.findProductBySkuCode(expected.getSkuCode())).thenReturn(Optional.of(expected));
 
-        ResponseEntity<Product> product = productController.findProductBySku(expected.getSkuCode());
+        ResponseEntity<Product> product = productController.findProductBySku(expected.getSkuCode(), null);
         assertEquals(expected, product.getBody());
         assertEquals(HttpStatus.OK, product.getStatusCode());
     }
@@ -114,14 +117,31 @@ class ProductControllerTest {
 
         when(productService.findProductBySkuCode(expected.getSkuCode())).thenReturn(Optional.empty());
 
-        ResponseEntity<Product> product = productController.findProductBySku(expected.getSkuCode());
+        ResponseEntity<Product> product = productController.findProductBySku(expected.getSkuCode(), null);
         assertEquals(HttpStatus.NOT_FOUND, product.getStatusCode());
     }
 
+    @Test
+    @DisplayName("It should return OK with a new ETag when [find product by sku] and its version changed")
+    void itShouldReturnOkWhenFindProductBySkuAndVersionChanged() {
+        Product expected = Product.builder()
+                .skuCode("skuCode")
+                .name("name")
+                .unitPrice(1.0f)
+                .version(4L)
+                .build();
+        when(productService.findProductBySkuCode(expected.getSkuCode())).thenReturn(Optional.of(expected));
+
+        ResponseEntity<Product> product = productController.findProductBySku(expected.getSkuCode(), "\"3\"");
+        assertEquals(HttpStatus.OK, product.getStatusCode());
+        assertEquals("\"4\"", product.getHeaders().getETag());
+        assertEquals(expected, product.getBody());
+    }
+
     @Test
     @DisplayName("It should call [find orders by product sku] from orderService")
     void itShouldFindOrdersByProductSku() {
-        productController.findOrdersByProductSku("skuCode");
-        verify(orderService, times(1)).findOrdersByProductSku("skuCode");
+        productController.findOrdersByProductSku("skuCode", null, 10);
+        verify(orderService, times(1)).findOrderPageByProductSku("skuCode", null, 10);
     }
 }
\ No newline at end of file
@@ -1,26 +1,46 @@
 package com.ordermanagement.product;
 
+import com.ordermanagement.customer.CustomerOrderSummaryService;
 import com.ordermanagement.exception.IdAlreadyInUseException;
 import com.ordermanagement.exception.NotFoundException;
+import com.ordermanagement.report.DailySalesService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ProductServiceTest {
-    @InjectMocks
     private ProductService productService;
 
     @Mock
     private ProductRepository productRepository;
+    @Mock
+    private DailySalesService dailySalesService;
+    @Mock
+    private CustomerOrderSummaryService customerOrderSummaryService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        productService = new ProductService(productRepository, Caffeine.newBuilder().build(), dailySalesService, customerOrderSummaryService, new TransactionTemplate(transactionManager), 2);
+    }
 
     @Test
     @DisplayName("It should save product")
@@ -31,12 +51,13 @@ class ProductServiceTest {
                 .unitPrice(1.0f)
                 .build();
 
-        when(productRepository.save(expected)).thenReturn(expected);
+        when(productRepository.saveAndFlush(expected)).thenReturn(expected);
 
         Product actual = productService.saveProduct(expected);
 
         assertEquals(expected, actual);
-        verify(productRepository, times(1)).save(expected);
+        verify(productRepository, times(1)).saveAndFlush(expected);
+        verify(productRepository, never()).findById(any());
     }
 
     @Test
@@ -48,13 +69,25 @@ class ProductServiceTest {
                 .unitPrice(1.0f)
                 .build();
 
-        when(productRepository.findById(expected.getSkuCode())).thenReturn(Optional.of(expected));
+        when(productRepository.saveAndFlush(expected)).thenThrow(new DataIntegrityViolationException("duplicate key", new SQLException("duplicate key", "23505")));
 
         assertThrows(IdAlreadyInUseException.class,
                 () -> productService.saveProduct(expected)
         );
+    }
 
-        verify(productRepository, never()).save(any());
+    @Test
+    @DisplayName("It should rethrow integrity violations other than a taken skuCode")
+    void itShouldRethrowOtherIntegrityViolationsOnSave() {
+        Product expected = Product.builder().skuCode("skuCode").build();
+        DataIntegrityViolationException notNullViolation =
+                new DataIntegrityViolationException("null name", new SQLException("null name", "23502"));
+
+        when(productRepository.saveAndFlush(expected)).thenThrow(notNullViolation);
+
+        assertSame(notNullViolation, assertThrows(DataIntegrityViolationException.class,
+                () -> productService.saveProduct(expected)
+        ));
     }
 
     @Test
@@ -84,27 +117,52 @@ class ProductServiceTest {
         assertTrue(actual.isEmpty());
     }
 
+    @Test
+    @DisplayName("It should find products by skuCodes with a single query")
+    void itShouldFindProductsBySkuCodes() {
+        Product product1 = Product.builder().skuCode("skuCode1").name("name1").unitPrice(1.0f).build();
+        Product product2 = Product.builder().skuCode("skuCode2").name("name2").unitPrice(2.0f).build();
+        Set<String> skuCodes = Set.of("skuCode1", "skuCode2", "skuCode3");
+
+        when(productRepository.findAllById(skuCodes)).thenReturn(List.of(product1, product2));
+
+        Map<String, Product> actual = productService.findProductsBySkuCodes(skuCodes);
+
+        assertEquals(Map.of("skuCode1", product1, "skuCode2", product2), actual);
+        verify(productRepository, times(1)).findAllById(skuCodes);
+        verify(productRepository, never()).findById(any());
+    }
+
     @Test
     @DisplayName("It should delete product by id")
     void itShouldDeleteProductById() {
         String skuCode = "skuCode";
-        when(productRepository.findById(skuCode)).thenReturn(Optional.of(new Product()));
+        when(productRepository.deleteBySkuCode(skuCode)).thenReturn(1);
         productService.deleteProductBySku(skuCode);
 
-        verify(productRepository, times(1)).deleteById(skuCode);
+        verify(productRepository, never()).findById(any());
     }
 
     @Test
     @DisplayName("It shouldn't delete product by id when it doesn't exist")
     void itShouldNotDeleteProductByIdWhenDoesntExist() {
         String skuCode = "skuCode";
-        when(productRepository.findById(skuCode)).thenReturn(Optional.empty());
+        when(productRepository.deleteBySkuCode(skuCode)).thenReturn(0);
 
         assertThrows(NotFoundException.class,
                 () -> productService.deleteProductBySku(skuCode)
         );
+    }
+
+    @Test
+    @DisplayName("It should delete products in chunks and count the skipped ones")
+    void itShouldDeleteProductsInChunks() {
+        when(productRepository.deleteUnreferencedBySkuCodes(List.of("skuCode1", "skuCode2"))).thenReturn(2);
+        when(productRepository.deleteUnreferencedBySkuCodes(List.of("skuCode3"))).thenReturn(0);
+
+        ProductDeleteResult actual = productService.deleteProductsBySkus(List.of("skuCode1", "skuCode2", "skuCode1", "skuCode3"));
 
-        verify(productRepository, never()).deleteById(skuCode);
+        assertEquals(new ProductDeleteResult(2, 1), actual);
     }
 
     @Test
@@ -116,13 +174,22 @@ class ProductServiceTest {
                 .unitPrice(1.0f)
                 .build();
 
-        when(productRepository.findById(expected.getSkuCode())).thenReturn(Optional.of(expected));
-        when(productRepository.save(expected)).thenReturn(expected);
+        Product saved = Product.builder()
+                .skuCode("skuCode")
+                .name("name")
+                .unitPrice(1.0f)
+                .version(1L)
+                .build();
+
+        when(productRepository.update("skuCode", "name", 1.0f)).thenReturn(1);
+        when(productRepository.findById("skuCode")).thenReturn(Optional.of(saved));
 
         Product actual = productService.updateProduct(expected);
 
-        assertEquals(expected, actual);
-        verify(productRepository, times(1)).save(expected);
+        assertEquals(saved, actual);
+        verify(productRepository, never()).save(any());
+        verify(dailySalesService, times(1)).reprice("skuCode", 1.0f);
+        verify(customerOrderSummaryService, times(1)).reprice("skuCode", 1.0f);
     }
 
     @Test
@@ -134,12 +201,92 @@ class ProductServiceTest {
                 .unitPrice(1.0f)
                 .build();
 
-        when(productRepository.findById(expected.getSkuCode())).thenReturn(Optional.empty());
+        when(productRepository.update("skuCode", "name", 1.0f)).thenReturn(0);
 
         assertThrows(NotFoundException.class,
                 () -> productService.updateProduct(expected)
         );
+    }
+
+    @Test
+    @DisplayName("It should find product by skuCode from cache after the first lookup")
+    void itShouldFindProductBySkuFromCache() {
+        Product expected = Product.builder().skuCode("skuCode").name("name").unitPrice(1.0f).build();
+        when(productRepository.findById("skuCode")).thenReturn(Optional.of(expected));
+
+        productService.findProductBySkuCode("skuCode");
+        Optional<Product> actual = productService.findProductBySkuCode("skuCode");
+
+        assertEquals(Optional.of(expected), actual);
+        verify(productRepository, times(1)).findById("skuCode");
+    }
+
+    @Test
+    @DisplayName("It should cache unknown skuCodes")
+    void itShouldCacheUnknownSkuCodes() {
+        when(productRepository.findAllById(Set.of("unknown"))).thenReturn(List.of());
+
+        productService.findProductsBySkuCodes(Set.of("unknown"));
+        productService.findProductsBySkuCodes(Set.of("unknown"));
+        Optional<Product> actual = productService.findProductBySkuCode("unknown");
+
+        assertTrue(actual.isEmpty());
+        verify(productRepository, times(1)).findAllById(Set.of("unknown"));
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("It should only load skuCodes missing from cache")
+    void itShouldOnlyLoadMissingSkuCodes() {
+        Product product1 = Product.builder().skuCode("skuCode1").name("name1").unitPrice(1.0f).build();
+        Product product2 = Product.builder().skuCode("skuCode2").name("name2").unitPrice(2.0f).build();
+        when(productRepository.findById("skuCode1")).thenReturn(Optional.of(product1));
+        when(productRepository.findAllById(Set.of("skuCode2"))).thenReturn(List.of(product2));
+
+        productService.findProductBySkuCode("skuCode1");
+        Map<String, Product> actual = productService.findProductsBySkuCodes(Set.of("skuCode1", "skuCode2"));
+
+        assertEquals(Map.of("skuCode1", product1, "skuCode2", product2), actual);
+        verify(productRepository, times(1)).findAllById(Set.of("skuCode2"));
+    }
+
+    @Test
+    @DisplayName("It should reload product after it is updated")
+    void itShouldReloadProductAfterUpdate() {
+        Product before = Product.builder().skuCode("skuCode").name("name").unitPrice(1.0f).build();
+        Product after = Product.builder().skuCode("skuCode").name("name").unitPrice(2.0f).build();
+        when(productRepository.findById("skuCode")).thenReturn(Optional.of(before)).thenReturn(Optional.of(after));
+        when(productRepository.update("skuCode", "name", 2.0f)).thenReturn(1);
+
+        productService.findProductBySkuCode("skuCode");
+        productService.updateProduct(after);
+
+        assertEquals(Optional.of(after), productService.findProductBySkuCode("skuCode"));
+    }
+
+    @Test
+    @DisplayName("It should forget product after it is deleted")
+    void itShouldForgetProductAfterDelete() {
+        Product product = Product.builder().skuCode("skuCode").name("name").unitPrice(1.0f).build();
+        when(productRepository.findById("skuCode")).thenReturn(Optional.of(product)).thenReturn(Optional.empty());
+        when(productRepository.deleteBySkuCode("skuCode")).thenReturn(1);
+
+        productService.findProductBySkuCode("skuCode");
+        productService.deleteProductBySku("skuCode");
+
+        assertTrue(productService.findProductBySkuCode("skuCode").isEmpty());
+    }
+
+    @Test
+    @DisplayName("It should find product after it is created")
+    void itShouldFindProductAfterCreate() {
+        Product product = Product.builder().skuCode("skuCode").name("name").unitPrice(1.0f).build();
+        when(productRepository.findById("skuCode")).thenReturn(Optional.empty()).thenReturn(Optional.of(product));
+        when(productRepository.saveAndFlush(product)).thenReturn(product);
+
+        productService.findProductBySkuCode("skuCode");
+        productService.saveProduct(product);
 
-        verify(productRepository, never()).save(expected);
+        assertEquals(Optional.of(product), productService.findProductBySkuCode("skuCode"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,296 @@
+package com.ordermanagement.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.exception.InsufficientStockException;
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderBatchService;
+import com.ordermanagement.order.OrderCreateRequest;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.order.OrderService;
+import com.ordermanagement.orderline.OrderLineBatchResult;
+import com.ordermanagement.orderline.OrderLineBatchService;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import com.ordermanagement.orderline.OrderLineQuantityUpdate;
+import com.ordermanagement.orderline.OrderLineService;
+import com.ordermanagement.orderline.QuantityChange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StockServiceTest {
+    private static final long CUSTOMER_CODE = 19001L;
+
+    private final MockMvc mockMvc;
+    private final StockService stockService;
+    private final OrderService orderService;
+    private final OrderBatchService orderBatchService;
+    private final OrderLineService orderLineService;
+    private final OrderLineBatchService orderLineBatchService;
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final Cache<String, Optional<Product>> productCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public StockServiceTest(
+            MockMvc mockMvc,
+            StockService stockService,
+            OrderService orderService,
+            OrderBatchService orderBatchService,
+            OrderLineService orderLineService,
+            OrderLineBatchService orderLineBatchService,
+            OrderRepository orderRepository,
+            ProductRepository productRepository,
+            StockReservationRepository stockReservationRepository,
+            Cache<String, Optional<Product>> productCache,
+            TransactionTemplate transactionTemplate,
+            CustomerRespository customerRepository
+    ) {
+        this.mockMvc = mockMvc;
+        this.stockService = stockService;
+        this.orderService = orderService;
+        this.orderBatchService = orderBatchService;
+        this.orderLineService = orderLineService;
+        this.orderLineBatchService = orderLineBatchService;
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.productCache = productCache;
+        this.transactionTemplate = transactionTemplate;
+
+        customerRepository.save(Customer.builder()
+                .registrationCode(CUSTOMER_CODE)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+    }
+
+    @Test
+    @DisplayName("It should not oversell a hot product to hundreds of concurrent orders")
+    void itShouldNotOversellHotProduct() {
+        saveProduct("hot-sku", 101L);
+        // creates the rollup rows of the day, concurrent first orders would race to insert them
+        createOrder(Map.of("hot-sku", 1));
+        long ordersBefore = orderRepository.count();
+        int orders = 300;
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(orders);
+        List<Boolean> created;
+        try {
+            List<CompletableFuture<Boolean>> results = IntStream.range(0, orders)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                        try {
+                            start.await();
+                            createOrder(Map.of("hot-sku", 1));
+                            return true;
+                        } catch (InsufficientStockException e) {
+                            return false;
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }, executor))
+                    .toList();
+            start.countDown();
+            created = results.stream().map(CompletableFuture::join).toList();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(100, created.stream().filter(Boolean::booleanValue).count());
+        assertEquals(ordersBefore + 100, orderRepository.count());
+        assertEquals(0L, available("hot-sku"));
+
+        stockService.flush();
+        assertEquals(0L, productRepository.findById("hot-sku").orElseThrow().getStockQuantity());
+        assertEquals(0L, available("hot-sku"));
+    }
+
+    @Test
+    @DisplayName("It should reserve every line of an order or none of them")
+    void itShouldReserveAllLinesOrNone() {
+        saveProduct("plenty-sku", 10L);
+        saveProduct("scarce-sku", 1L);
+        long ordersBefore = orderRepository.count();
+
+        assertThrows(InsufficientStockException.class, () -> createOrder(Map.of("plenty-sku", 3, "scarce-sku", 2)));
+
+        assertEquals(10L, available("plenty-sku"));
+        assertEquals(1L, available("scarce-sku"));
+        assertEquals(ordersBefore, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("It should load the same stock after a restart before and after the journal is flushed")
+    void itShouldLoadSameStockAfterRestart() {
+        saveProduct("durable-sku", 10L);
+        createOrder(Map.of("durable-sku", 3));
+        createOrder(Map.of("durable-sku", 2));
+        assertEquals(5L, available("durable-sku"));
+
+        assertEquals(5L, restarted().findStockLevel("durable-sku").orElseThrow().available());
+        stockService.flush();
+        assertEquals(5L, productRepository.findById("durable-sku").orElseThrow().getStockQuantity());
+        assertEquals(5L, restarted().findStockLevel("durable-sku").orElseThrow().available());
+        assertEquals(0, stockReservationRepository.count());
+    }
+
+    @Test
+    @DisplayName("It should track the stock of a product once it is restocked")
+    void itShouldTrackStockOnceRestocked() throws Exception {
+        saveProduct("untracked-sku", null);
+        createOrder(Map.of("untracked-sku", 5));
+        mockMvc.perform(get("/api/v1/product/{skuCode}/stock", "untracked-sku"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {"skuCode":"untracked-sku","available":null}
+                        """, true));
+
+        mockMvc.perform(post("/api/v1/product/{skuCode}/stock", "untracked-sku").contentType(MediaType.APPLICATION_JSON).content("4"))
+                .andExpect(status().isOk());
+        createOrder(Map.of("untracked-sku", 3));
+        mockMvc.perform(post("/api/v1/product/{skuCode}/stock", "untracked-sku").contentType(MediaType.APPLICATION_JSON).content("2"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/product/{skuCode}/stock", "untracked-sku"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {"skuCode":"untracked-sku","available":3}
+                        """, true));
+        mockMvc.perform(post("/api/v1/product/{skuCode}/stock", "missing-sku").contentType(MediaType.APPLICATION_JSON).content("2"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/product/{skuCode}/stock", "missing-sku"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("It should refresh the stock taken by another instance, and keep the stock from going negative")
+    void itShouldArbitrateStockThroughDatabase() {
+        saveProduct("shared-sku", 5L);
+        assertEquals(5L, available("shared-sku"));
+        StockService otherInstance = restarted();
+        Product product = productRepository.findById("shared-sku").orElseThrow();
+        transactionTemplate.executeWithoutResult(status ->
+                otherInstance.reserve(Map.of("shared-sku", 2L), Map.of("shared-sku", product)));
+
+        stockService.flush();
+        assertEquals(3L, available("shared-sku"));
+
+        // both instances take the last 3 before the next refresh
+        transactionTemplate.executeWithoutResult(status ->
+                otherInstance.reserve(Map.of("shared-sku", 3L), Map.of("shared-sku", product)));
+        createOrder(Map.of("shared-sku", 3));
+        stockService.flush();
+        assertEquals(3L, productRepository.findById("shared-sku").orElseThrow().getStockQuantity());
+        assertEquals(-3L, available("shared-sku"));
+        assertThrows(InsufficientStockException.class, () -> createOrder(Map.of("shared-sku", 1)));
+
+        stockService.restock("shared-sku", 4L);
+        stockService.flush();
+        assertEquals(1L, productRepository.findById("shared-sku").orElseThrow().getStockQuantity());
+        assertEquals(1L, available("shared-sku"));
+        createOrder(Map.of("shared-sku", 1));
+    }
+
+    @Test
+    @DisplayName("It should take the stock of batches and raised quantities, and give back the stock of lowered quantities and deletes")
+    void itShouldFollowChangedOrders() throws Exception {
+        saveProduct("changed-sku", 10L);
+        Order order = createOrder(Map.of("changed-sku", 2));
+        Long orderLineId = order.getOrderLines().get(0).getId();
+
+        orderLineService.updateQuantity(orderLineId, QuantityChange.by(3), null);
+        assertEquals(5L, available("changed-sku"));
+        assertThrows(InsufficientStockException.class, () -> orderLineService.updateQuantity(orderLineId, QuantityChange.by(6), null));
+        orderLineService.updateQuantity(orderLineId, QuantityChange.to(1), null);
+        assertEquals(9L, available("changed-sku"));
+
+        assertEquals(List.of(OrderLineBatchResult.updated(orderLineId)),
+                orderLineBatchService.updateQuantities(List.of(new OrderLineQuantityUpdate(orderLineId, 4))));
+        assertEquals(6L, available("changed-sku"));
+        assertEquals(OrderLineBatchResult.Status.REJECTED,
+                orderLineBatchService.updateQuantities(List.of(new OrderLineQuantityUpdate(orderLineId, 11))).get(0).status());
+        assertEquals(6L, available("changed-sku"));
+
+        ByteArrayOutputStream results = new ByteArrayOutputStream();
+        String batch = """
+                {"customerCode":%1$d,"dateOfSubmission":"2023-08-01","orderLines":[{"productSkuCode":"changed-sku","quantity":7}]}
+                {"customerCode":%1$d,"dateOfSubmission":"2023-08-01","orderLines":[{"productSkuCode":"changed-sku","quantity":6}]}
+                """.formatted(CUSTOMER_CODE);
+        orderBatchService.createOrders(new ByteArrayInputStream(batch.getBytes(StandardCharsets.UTF_8)), results);
+        List<String> statuses = results.toString(StandardCharsets.UTF_8).lines()
+                .map(result -> result.replaceAll(".*\"status\":\"(\\w+)\".*", "$1"))
+                .toList();
+        assertEquals(List.of("REJECTED", "CREATED"), statuses);
+        assertEquals(0L, available("changed-sku"));
+
+        orderService.deleteOrderById(order.getId());
+        assertEquals(4L, available("changed-sku"));
+        Long batchLineId = transactionTemplate.execute(status -> orderRepository.findAll().stream()
+                .flatMap(created -> created.getOrderLines().stream())
+                .filter(orderLine -> orderLine.getProduct().getSkuCode().equals("changed-sku"))
+                .findFirst().orElseThrow().getId());
+        orderLineService.deleteOrderLine(batchLineId);
+        assertEquals(10L, available("changed-sku"));
+
+        stockService.flush();
+        assertEquals(10L, productRepository.findById("changed-sku").orElseThrow().getStockQuantity());
+        assertEquals(10L, available("changed-sku"));
+        assertEquals(10L, restarted().findStockLevel("changed-sku").orElseThrow().available());
+    }
+
+    private StockService restarted() {
+        return new StockService(stockReservationRepository, productRepository, productCache, transactionTemplate, 100);
+    }
+
+    private void saveProduct(String skuCode, Long stockQuantity) {
+        productRepository.save(Product.builder().skuCode(skuCode).name("name").unitPrice(1F).stockQuantity(stockQuantity).build());
+    }
+
+    private Long available(String skuCode) {
+        return stockService.findStockLevel(skuCode).orElseThrow().available();
+    }
+
+    private Order createOrder(Map<String, Integer> quantities) {
+        return orderService.createOrder(new OrderCreateRequest(null, CUSTOMER_CODE, LocalDate.of(2023, 8, 1), quantities.entrySet().stream()
+                .map(entry -> new OrderLineCreateRequest(entry.getKey(), entry.getValue(), null))
+                .toList()));
+    }
+}
@@ -0,0 +1,57 @@
+package com.ordermanagement.report;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class DailySalesDeltaRepositoryImplTest {
+
+    @Test
+    @DisplayName("It should upsert the deltas with ON CONFLICT on PostgreSQL")
+    void itShouldUpsertOnConflictOnPostgreSql() {
+        String statement = mergeOrders(mock(PostgreSQLDialect.class));
+
+        assertTrue(statement.startsWith("INSERT INTO daily_sales (sales_date, sku_code, units, revenue) SELECT"), statement);
+        assertTrue(statement.contains("ON CONFLICT (sales_date, sku_code) DO UPDATE SET units = daily_sales.units + EXCLUDED.units"), statement);
+        assertFalse(statement.contains("MERGE"), statement);
+    }
+
+    @Test
+    @DisplayName("It should merge the deltas on databases without ON CONFLICT DO UPDATE")
+    void itShouldMergeOnH2() {
+        String statement = mergeOrders(mock(H2Dialect.class));
+
+        assertTrue(statement.startsWith("MERGE INTO daily_sales"), statement);
+        assertFalse(statement.contains("ON CONFLICT"), statement);
+    }
+
+    private static String mergeOrders(Dialect dialect) {
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, Answers.RETURNS_DEEP_STUBS);
+        when(sessionFactory.getJdbcServices().getDialect()).thenReturn(dialect);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(mock(Query.class));
+
+        new DailySalesDeltaRepositoryImpl(entityManager).mergeOrders(List.of(1L), 1);
+
+        ArgumentCaptor<String> statement = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createNativeQuery(statement.capture());
+        return statement.getValue();
+    }
+}
@@ -0,0 +1,151 @@
+package com.ordermanagement.report;
+
+import com.ordermanagement.customer.Customer;
+import com.ordermanagement.customer.CustomerRespository;
+import com.ordermanagement.order.Order;
+import com.ordermanagement.order.OrderCreateRequest;
+import com.ordermanagement.order.OrderService;
+import com.ordermanagement.orderline.OrderLineCreateRequest;
+import com.ordermanagement.orderline.OrderLineRepository;
+import com.ordermanagement.orderline.OrderLineService;
+import com.ordermanagement.order.OrderRepository;
+import com.ordermanagement.product.Product;
+import com.ordermanagement.product.ProductRepository;
+import com.ordermanagement.product.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource("classpath:application-test.properties")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class DailySalesTest {
+    private static final long CUSTOMER_CODE = 10001L;
+    private static final String SKU = "sales-sku-1";
+    private static final String OTHER_SKU = "sales-sku-2";
+    private static final LocalDate DAY = LocalDate.of(2022, 3, 1);
+    private static final LocalDate NEXT_DAY = DAY.plusDays(1);
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderLineService orderLineService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private DailySalesService dailySalesService;
+    @Autowired
+    private DailySalesRepository dailySalesRepository;
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRespository customerRepository;
+
+    private Order first;
+    private Order second;
+
+    @BeforeEach
+    void setUp() {
+        dailySalesRepository.deleteAll();
+        orderLineRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        customerRepository.save(Customer.builder()
+                .registrationCode(CUSTOMER_CODE)
+                .fullName("fullName")
+                .email("email")
+                .telephone("telephone")
+                .build());
+        productRepository.save(Product.builder().skuCode(SKU).name("name").unitPrice(2.5F).build());
+        productRepository.save(Product.builder().skuCode(OTHER_SKU).name("name").unitPrice(0.25F).build());
+
+        first = createOrder(DAY, new OrderLineCreateRequest(SKU, 2, null), new OrderLineCreateRequest(OTHER_SKU, 4, null));
+        second = createOrder(DAY, new OrderLineCreateRequest(SKU, 1, null));
+        createOrder(NEXT_DAY, new OrderLineCreateRequest(SKU, 3, null));
+    }
+
+    @Test
+    @DisplayName("It should roll up created orders per date and SKU")
+    void itShouldRollUpCreatedOrders() throws Exception {
+        mockMvc.perform(get("/api/v1/reports/daily").param("from", "2022-03-01").param("to", "2022-03-02"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        [
+                          {"date":"2022-03-01","skuCode":"sales-sku-1","units":3,"revenue":7.5},
+                          {"date":"2022-03-01","skuCode":"sales-sku-2","units":4,"revenue":1.0},
+                          {"date":"2022-03-02","skuCode":"sales-sku-1","units":3,"revenue":7.5}
+                        ]
+                        """, true));
+    }
+
+    @Test
+    @DisplayName("It should apply quantity updates and deletes to the rollup")
+    void itShouldApplyQuantityUpdatesAndDeletes() {
+        orderLineService.updateQuantity(second.getOrderLines().get(0).getId(), 5);
+        orderService.deleteOrderById(first.getId());
+
+        assertEquals(List.of(
+                new DailySalesDto(DAY, SKU, 5L, 12.5),
+                new DailySalesDto(NEXT_DAY, SKU, 3L, 7.5)
+        ), dailySalesService.findDailySales(DAY, NEXT_DAY));
+    }
+
+    @Test
+    @DisplayName("It should reprice the rollup when the unit price of a product changes")
+    void itShouldRepriceRollup() {
+        productService.updateProduct(Product.builder().skuCode(SKU).name("name").unitPrice(1F).build());
+
+        assertEquals(List.of(
+                new DailySalesDto(DAY, SKU, 3L, 3.0),
+                new DailySalesDto(DAY, OTHER_SKU, 4L, 1.0)
+        ), dailySalesService.findDailySales(DAY, DAY));
+    }
+
+    @Test
+    @DisplayName("It should rebuild a range of days from the order lines")
+    void itShouldRebuildRange() throws Exception {
+        List<DailySalesDto> maintained = dailySalesService.findDailySales(null, null);
+        dailySalesRepository.deleteAll();
+
+        mockMvc.perform(post("/api/v1/reports/daily/rebuild").param("from", "2022-02-28").param("to", "2022-03-02"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"days\":3,\"rows\":3}"));
+
+        assertEquals(maintained, dailySalesService.findDailySales(null, null));
+    }
+
+    @Test
+    @DisplayName("It should reject a rebuild range that ends before it starts")
+    void itShouldRejectBackwardsRebuildRange() throws Exception {
+        mockMvc.perform(post("/api/v1/reports/daily/rebuild").param("from", "2022-03-02").param("to", "2022-03-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Order createOrder(LocalDate dateOfSubmission, OrderLineCreateRequest... orderLines) {
+        return orderService.createOrder(new OrderCreateRequest(null, CUSTOMER_CODE, dateOfSubmission, List.of(orderLines)));
+    }
+}
@@ -0,0 +1,28 @@
+package com.ordermanagement.web;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ETagsTest {
+
+    @Test
+    @DisplayName("It should derive a strong ETag from the version")
+    void itShouldDeriveStrongETagFromVersion() {
+        assertEquals("\"7\"", ETags.of(7L));
+    }
+
+    @Test
+    @DisplayName("It should match If-None-Match lists, weak tags and the wildcard")
+    void itShouldMatchIfNoneMatch() {
+        assertTrue(ETags.matches("\"7\"", ETags.of(7L)));
+        assertTrue(ETags.matches("\"6\", W/\"7\"", ETags.of(7L)));
+        assertTrue(ETags.matches("*", ETags.of(7L)));
+        assertFalse(ETags.matches("\"6\"", ETags.of(7L)));
+        assertFalse(ETags.matches("\"17\"", ETags.of(7L)));
+        assertFalse(ETags.matches(null, ETags.of(7L)));
+    }
+}